@@ -50,12 +50,16 @@ public class ProfilableClassFilter implements Filter<String> {
      */
     @Override
     public boolean filter(String className) {
+        if (profileInclude.isEmpty() && profileIncludeSub.isEmpty()) {
+            // called for every class without a modifier
+            return false;
+        }
         if (profileInclude.contains(className)) {
             return true;
         } else {
-            final String packageName = className.substring(0, className.lastIndexOf("/") + 1);
+            // a package ends with '/', so the class name starts with it only if its package does.
             for (String pkg : profileIncludeSub) {
-                if (packageName.startsWith(pkg)) {
+                if (className.startsWith(pkg)) {
                     return true;
                 }
             }
@@ -84,6 +84,7 @@ public class ProfilerConfig {
 
     private String collectorSpanServerIp = DEFAULT_IP;
     private int collectorSpanServerPort = 9996;
+    private String collectorSpanSenderType = "UDP";
 
     private String collectorStatServerIp = DEFAULT_IP;
     private int collectorStatServerPort = 9995;
@@ -95,13 +96,26 @@ public class ProfilerConfig {
     private int spanDataSenderSocketSendBufferSize = 1024 * 64 * 16;
     private int spanDataSenderSocketTimeout = 1000 * 3;
     private int spanDataSenderChunkSize = 1024 * 16;
+    private int spanDataSenderTcpWindowTimeout = 1000;
+    private String spanDataSenderWriteQueueType = "BLOCKING";
+    private String spanDataSenderWriteQueueWaitStrategy = "PARK";
+    private int spanDataSenderDrainMaxSize = 10;
+    private long spanDataSenderDrainLingerTime = 0;
 
     private int statDataSenderWriteQueueSize = 1024 * 5;
     private int statDataSenderSocketSendBufferSize = 1024 * 64 * 16;
     private int statDataSenderSocketTimeout = 1000 * 3;
     private int statDataSenderChunkSize = 1024 * 16;
+    private String statDataSenderWriteQueueType = "BLOCKING";
+    private String statDataSenderWriteQueueWaitStrategy = "PARK";
+    private int statDataSenderDrainMaxSize = 10;
+    private long statDataSenderDrainLingerTime = 0;
+
+    private long senderMetricReportInterval = 0;
 
     private boolean tcpDataSenderCommandAcceptEnable = false;
+    private String tcpDataSenderWriteQueueType = "BLOCKING";
+    private String tcpDataSenderWriteQueueWaitStrategy = "PARK";
 
     private int jdbcSqlCacheSize = 1024;
     private int jdbcMaxSqlBindValueSize = 1024;
@@ -199,6 +213,13 @@ public class ProfilerConfig {
     // Sampling
     private boolean samplingEnable = true;
     private int samplingRate = 1;
+    // traces per second. 0 disables the limit
+    private int samplingRateLimit = 0;
+    private boolean samplingAdaptiveEnable = false;
+    private int samplingAdaptiveCheckInterval = 1000;
+    // traces per second guaranteed to each entry point. 0 disables the budget
+    private int samplingEntryPointBudget = 0;
+    private int samplingEntryPointMaxSize = 1024;
 
     // span buffering
     private boolean ioBufferingEnable;
@@ -206,6 +227,8 @@ public class ProfilerConfig {
 
     private int profileJvmCollectInterval;
 
+    private boolean callStackThreadConfined = true;
+
     private Filter<String> profilableClassFilter = new SkipFilter<String>();
 
     private final long DEFAULT_AGENT_INFO_SEND_RETRY_INTERVAL = 5 * 60 * 1000L;
@@ -236,6 +259,10 @@ public class ProfilerConfig {
         return collectorSpanServerPort;
     }
 
+    public String getCollectorSpanSenderType() {
+        return collectorSpanSenderType;
+    }
+
     public String getCollectorStatServerIp() {
         return collectorStatServerIp;
     }
@@ -284,10 +311,58 @@ public class ProfilerConfig {
         return spanDataSenderChunkSize;
     }
 
+    public int getSpanDataSenderTcpWindowTimeout() {
+        return spanDataSenderTcpWindowTimeout;
+    }
+
     public int getStatDataSenderChunkSize() {
         return statDataSenderChunkSize;
     }
 
+    public String getSpanDataSenderWriteQueueType() {
+        return spanDataSenderWriteQueueType;
+    }
+
+    public String getSpanDataSenderWriteQueueWaitStrategy() {
+        return spanDataSenderWriteQueueWaitStrategy;
+    }
+
+    public String getStatDataSenderWriteQueueType() {
+        return statDataSenderWriteQueueType;
+    }
+
+    public String getStatDataSenderWriteQueueWaitStrategy() {
+        return statDataSenderWriteQueueWaitStrategy;
+    }
+
+    public int getSpanDataSenderDrainMaxSize() {
+        return spanDataSenderDrainMaxSize;
+    }
+
+    public long getSpanDataSenderDrainLingerTime() {
+        return spanDataSenderDrainLingerTime;
+    }
+
+    public int getStatDataSenderDrainMaxSize() {
+        return statDataSenderDrainMaxSize;
+    }
+
+    public long getStatDataSenderDrainLingerTime() {
+        return statDataSenderDrainLingerTime;
+    }
+
+    public long getSenderMetricReportInterval() {
+        return senderMetricReportInterval;
+    }
+
+    public String getTcpDataSenderWriteQueueType() {
+        return tcpDataSenderWriteQueueType;
+    }
+
+    public String getTcpDataSenderWriteQueueWaitStrategy() {
+        return tcpDataSenderWriteQueueWaitStrategy;
+    }
+
     public boolean isProfileEnable() {
         return profileEnable;
     }
@@ -383,6 +458,26 @@ public class ProfilerConfig {
         return samplingRate;
     }
 
+    public int getSamplingRateLimit() {
+        return samplingRateLimit;
+    }
+
+    public boolean isSamplingAdaptiveEnable() {
+        return samplingAdaptiveEnable;
+    }
+
+    public int getSamplingAdaptiveCheckInterval() {
+        return samplingAdaptiveCheckInterval;
+    }
+
+    public int getSamplingEntryPointBudget() {
+        return samplingEntryPointBudget;
+    }
+
+    public int getSamplingEntryPointMaxSize() {
+        return samplingEntryPointMaxSize;
+    }
+
     public boolean isIoBufferingEnable() {
         return ioBufferingEnable;
     }
@@ -391,6 +486,10 @@ public class ProfilerConfig {
         return ioBufferingBufferSize;
     }
 
+    public boolean isCallStackThreadConfined() {
+        return callStackThreadConfined;
+    }
+
     public int getProfileJvmCollectInterval() {
         return profileJvmCollectInterval;
     }
@@ -624,6 +723,7 @@ public class ProfilerConfig {
 
         this.collectorSpanServerIp = readString("profiler.collector.span.ip", DEFAULT_IP, placeHolderResolver);
         this.collectorSpanServerPort = readInt("profiler.collector.span.port", 9996);
+        this.collectorSpanSenderType = readString("profiler.collector.span.sender.type", "UDP");
 
         this.collectorStatServerIp = readString("profiler.collector.stat.ip", DEFAULT_IP, placeHolderResolver);
         this.collectorStatServerPort = readInt("profiler.collector.stat.port", 9995);
@@ -635,13 +735,26 @@ public class ProfilerConfig {
         this.spanDataSenderSocketSendBufferSize = readInt("profiler.spandatasender.socket.sendbuffersize", 1024 * 64 * 16);
         this.spanDataSenderSocketTimeout = readInt("profiler.spandatasender.socket.timeout", 1000 * 3);
         this.spanDataSenderChunkSize = readInt("profiler.spandatasender.chunk.size", 1024 * 16);
+        this.spanDataSenderTcpWindowTimeout = readInt("profiler.spandatasender.tcp.window.timeout", 1000);
+        this.spanDataSenderWriteQueueType = readString("profiler.spandatasender.write.queue.type", "BLOCKING");
+        this.spanDataSenderWriteQueueWaitStrategy = readString("profiler.spandatasender.write.queue.waitstrategy", "PARK");
+        this.spanDataSenderDrainMaxSize = readInt("profiler.spandatasender.drain.maxsize", 10);
+        this.spanDataSenderDrainLingerTime = readLong("profiler.spandatasender.drain.lingertime", 0);
 
         this.statDataSenderWriteQueueSize = readInt("profiler.statdatasender.write.queue.size", 1024 * 5);
         this.statDataSenderSocketSendBufferSize = readInt("profiler.statdatasender.socket.sendbuffersize", 1024 * 64 * 16);
         this.statDataSenderSocketTimeout = readInt("profiler.statdatasender.socket.timeout", 1000 * 3);
         this.statDataSenderChunkSize = readInt("profiler.statdatasender.chunk.size", 1024 * 16);
+        this.statDataSenderWriteQueueType = readString("profiler.statdatasender.write.queue.type", "BLOCKING");
+        this.statDataSenderWriteQueueWaitStrategy = readString("profiler.statdatasender.write.queue.waitstrategy", "PARK");
+        this.statDataSenderDrainMaxSize = readInt("profiler.statdatasender.drain.maxsize", 10);
+        this.statDataSenderDrainLingerTime = readLong("profiler.statdatasender.drain.lingertime", 0);
+
+        this.senderMetricReportInterval = readLong("profiler.sender.metric.report.interval", 0);
 
         this.tcpDataSenderCommandAcceptEnable = readBoolean("profiler.tcpdatasender.command.accept.enable", false);
+        this.tcpDataSenderWriteQueueType = readString("profiler.tcpdatasender.write.queue.type", "BLOCKING");
+        this.tcpDataSenderWriteQueueWaitStrategy = readString("profiler.tcpdatasender.write.queue.waitstrategy", "PARK");
 
         // JDBC
         this.jdbcProfile = readBoolean("profiler.jdbc", true);
@@ -762,6 +875,11 @@ public class ProfilerConfig {
 
         this.samplingEnable = readBoolean("profiler.sampling.enable", true);
         this.samplingRate = readInt("profiler.sampling.rate", 1);
+        this.samplingRateLimit = readInt("profiler.sampling.rate.limit", 0);
+        this.samplingAdaptiveEnable = readBoolean("profiler.sampling.adaptive.enable", false);
+        this.samplingAdaptiveCheckInterval = readInt("profiler.sampling.adaptive.checkinterval", 1000);
+        this.samplingEntryPointBudget = readInt("profiler.sampling.entrypoint.budget", 0);
+        this.samplingEntryPointMaxSize = readInt("profiler.sampling.entrypoint.maxsize", 1024);
 
         // configuration for sampling and IO buffer 
         this.ioBufferingEnable = readBoolean("profiler.io.buffering.enable", true);
@@ -769,6 +887,8 @@ public class ProfilerConfig {
         // it may be a problem to be here.  need to modify(delete or move or .. )  this configuration.
         this.ioBufferingBufferSize = readInt("profiler.io.buffering.buffersize", 20);
 
+        this.callStackThreadConfined = readBoolean("profiler.callstack.threadconfined", true);
+
         // JVM
         this.profileJvmCollectInterval = readInt("profiler.jvm.collect.interval", 1000);
 
@@ -869,6 +989,7 @@ public class ProfilerConfig {
         sb.append("profileEnable=").append(profileEnable);
         sb.append(", collectorSpanServerIp='").append(collectorSpanServerIp).append('\'');
         sb.append(", collectorSpanServerPort=").append(collectorSpanServerPort);
+        sb.append(", collectorSpanSenderType='").append(collectorSpanSenderType).append('\'');
         sb.append(", collectorStatServerIp='").append(collectorStatServerIp).append('\'');
         sb.append(", collectorStatServerPort=").append(collectorStatServerPort);
         sb.append(", collectorTcpServerIp='").append(collectorTcpServerIp).append('\'');
@@ -877,11 +998,23 @@ public class ProfilerConfig {
         sb.append(", spanDataSenderSocketSendBufferSize=").append(spanDataSenderSocketSendBufferSize);
         sb.append(", spanDataSenderSocketTimeout=").append(spanDataSenderSocketTimeout);
         sb.append(", spanDataSenderChunkSize=").append(spanDataSenderChunkSize);
+        sb.append(", spanDataSenderTcpWindowTimeout=").append(spanDataSenderTcpWindowTimeout);
+        sb.append(", spanDataSenderWriteQueueType='").append(spanDataSenderWriteQueueType).append('\'');
+        sb.append(", spanDataSenderWriteQueueWaitStrategy='").append(spanDataSenderWriteQueueWaitStrategy).append('\'');
+        sb.append(", spanDataSenderDrainMaxSize=").append(spanDataSenderDrainMaxSize);
+        sb.append(", spanDataSenderDrainLingerTime=").append(spanDataSenderDrainLingerTime);
         sb.append(", statDataSenderWriteQueueSize=").append(statDataSenderWriteQueueSize);
         sb.append(", statDataSenderSocketSendBufferSize=").append(statDataSenderSocketSendBufferSize);
         sb.append(", statDataSenderSocketTimeout=").append(statDataSenderSocketTimeout);
         sb.append(", statDataSenderChunkSize=").append(statDataSenderChunkSize);
+        sb.append(", statDataSenderWriteQueueType='").append(statDataSenderWriteQueueType).append('\'');
+        sb.append(", statDataSenderWriteQueueWaitStrategy='").append(statDataSenderWriteQueueWaitStrategy).append('\'');
+        sb.append(", statDataSenderDrainMaxSize=").append(statDataSenderDrainMaxSize);
+        sb.append(", statDataSenderDrainLingerTime=").append(statDataSenderDrainLingerTime);
+        sb.append(", senderMetricReportInterval=").append(senderMetricReportInterval);
         sb.append(", tcpDataSenderCommandAcceptEnable=").append(tcpDataSenderCommandAcceptEnable);
+        sb.append(", tcpDataSenderWriteQueueType='").append(tcpDataSenderWriteQueueType).append('\'');
+        sb.append(", tcpDataSenderWriteQueueWaitStrategy='").append(tcpDataSenderWriteQueueWaitStrategy).append('\'');
         sb.append(", jdbcSqlCacheSize=").append(jdbcSqlCacheSize);
         sb.append(", jdbcMaxSqlBindValueSize=").append(jdbcMaxSqlBindValueSize);
         sb.append(", jdbcProfile=").append(jdbcProfile);
@@ -942,8 +1075,14 @@ public class ProfilerConfig {
         sb.append(", springBeansAnnotations='").append(springBeansAnnotations).append('\'');
         sb.append(", samplingEnable=").append(samplingEnable);
         sb.append(", samplingRate=").append(samplingRate);
+        sb.append(", samplingRateLimit=").append(samplingRateLimit);
+        sb.append(", samplingAdaptiveEnable=").append(samplingAdaptiveEnable);
+        sb.append(", samplingAdaptiveCheckInterval=").append(samplingAdaptiveCheckInterval);
+        sb.append(", samplingEntryPointBudget=").append(samplingEntryPointBudget);
+        sb.append(", samplingEntryPointMaxSize=").append(samplingEntryPointMaxSize);
         sb.append(", ioBufferingEnable=").append(ioBufferingEnable);
         sb.append(", ioBufferingBufferSize=").append(ioBufferingBufferSize);
+        sb.append(", callStackThreadConfined=").append(callStackThreadConfined);
         sb.append(", profileJvmCollectInterval=").append(profileJvmCollectInterval);
         sb.append(", profilableClassFilter=").append(profilableClassFilter);
         sb.append(", DEFAULT_AGENT_INFO_SEND_RETRY_INTERVAL=").append(DEFAULT_AGENT_INFO_SEND_RETRY_INTERVAL);
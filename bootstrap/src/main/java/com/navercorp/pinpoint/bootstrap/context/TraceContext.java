@@ -38,6 +38,11 @@ public interface TraceContext {
     Trace continueTraceObject(TraceId traceID);
 
     Trace newTraceObject();
+
+    /**
+     * same as {@link #newTraceObject()}, but the sampler may also decide by the entry point (e.g. request uri).
+     */
+    Trace newTraceObject(String entryPoint);
     
     Trace continueAsyncTraceObject(TraceId traceId, int asyncId, long startTime);
 
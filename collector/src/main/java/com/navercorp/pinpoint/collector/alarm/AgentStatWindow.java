@@ -0,0 +1,128 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.alarm;
+
+import java.util.ArrayDeque;
+
+import com.navercorp.pinpoint.common.bo.AlarmWindowBo;
+
+/**
+ * recent agent stat samples of an agent.
+ * gauges can not be summed into slots like the response counters, so the samples of the window are kept as they are.
+ *
+ * @author agent
+ */
+class AgentStatWindow {
+
+    private final long windowMillis;
+    // ordered by timestamp
+    private final ArrayDeque<Sample> samples = new ArrayDeque<Sample>();
+
+    private long lastUpdateTime;
+    private boolean retired = false;
+
+    AgentStatWindow(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * @return false if the window was retired. the caller has to put a new window and add again.
+     */
+    synchronized boolean add(long timestamp, long heapUsed, long heapMax, double jvmCpuLoad, long gcOldCount) {
+        if (retired) {
+            return false;
+        }
+        final Sample last = samples.peekLast();
+        if (last != null && last.timestamp > timestamp) {
+            // out of order. agent stats are sent in batches in time order, so this is rare enough to drop.
+            return true;
+        }
+        samples.addLast(new Sample(timestamp, heapUsed, heapMax, jvmCpuLoad, gcOldCount));
+        evict(timestamp);
+        this.lastUpdateTime = timestamp;
+        return true;
+    }
+
+    private void evict(long now) {
+        final long from = now - windowMillis;
+        while (!samples.isEmpty() && samples.peekFirst().timestamp < from) {
+            samples.removeFirst();
+        }
+    }
+
+    /**
+     * retires the window if no sample was added since expireTime. samples can not be added to a retired window.
+     */
+    synchronized boolean retireIfIdle(long expireTime) {
+        if (lastUpdateTime >= expireTime) {
+            return false;
+        }
+        this.retired = true;
+        return true;
+    }
+
+    /**
+     * adds the samples of the window ending at now to agentStat.
+     *
+     * @return false if there is no sample in the window.
+     */
+    synchronized boolean writeTo(AlarmWindowBo.AgentStat agentStat, long now) {
+        final long from = now - windowMillis;
+        long heapUsed = 0;
+        long heapMax = 0;
+        long jvmCpuUsage = 0;
+        long jvmCpuSampleCount = 0;
+        Sample first = null;
+        Sample last = null;
+        for (Sample sample : samples) {
+            if (sample.timestamp < from) {
+                continue;
+            }
+            if (first == null) {
+                first = sample;
+            }
+            last = sample;
+            heapUsed += sample.heapUsed;
+            heapMax += sample.heapMax;
+            if (!Double.isNaN(sample.jvmCpuLoad)) {
+                jvmCpuUsage += (long) (sample.jvmCpuLoad * 100);
+                jvmCpuSampleCount++;
+            }
+        }
+        if (first == null) {
+            return false;
+        }
+        agentStat.add(heapUsed, heapMax, jvmCpuUsage, jvmCpuSampleCount, last.gcOldCount - first.gcOldCount);
+        return true;
+    }
+
+    private static class Sample {
+        private final long timestamp;
+        private final long heapUsed;
+        private final long heapMax;
+        private final double jvmCpuLoad;
+        private final long gcOldCount;
+
+        private Sample(long timestamp, long heapUsed, long heapMax, double jvmCpuLoad, long gcOldCount) {
+            this.timestamp = timestamp;
+            this.heapUsed = heapUsed;
+            this.heapMax = heapMax;
+            this.jvmCpuLoad = jvmCpuLoad;
+            this.gcOldCount = gcOldCount;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.alarm;
+
+import com.navercorp.pinpoint.collector.util.SlidingWindowCounter;
+import com.navercorp.pinpoint.common.ServiceType;
+import com.navercorp.pinpoint.common.SlotType;
+import com.navercorp.pinpoint.common.bo.AlarmWindowBo;
+import com.navercorp.pinpoint.thrift.dto.TAgentStat;
+import com.navercorp.pinpoint.thrift.dto.TCpuLoad;
+import com.navercorp.pinpoint.thrift.dto.TJvmGc;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * keeps the values the alarm checkers need in memory while the handlers store the data,
+ * so the rules can be evaluated without scanning MAP_STATISTICS_SELF, MAP_STATISTICS_CALLER and AGENT_STAT again.
+ * does nothing until enabled.
+ * <p>
+ * idle windows are dropped by {@link #evictIdle(long)}. a window is retired before it is removed,
+ * and writers that find a retired window put a new one and retry, so no update is lost to the eviction.
+ *
+ * @author agent
+ */
+public class AlarmWindowAggregator {
+
+    // same range as the web alarm batch
+    public static final long DEFAULT_WINDOW_MILLIS = 5 * 60 * 1000;
+    public static final int DEFAULT_SLOT_COUNT = 30;
+
+    public static final int SLOW = 0;
+    public static final int ERROR = 1;
+    public static final int TOTAL = 2;
+    private static final int METRIC_COUNT = 3;
+
+    private final long windowMillis;
+    private final int slotCount;
+
+    private final ConcurrentMap<String, SlidingWindowCounter> responseWindowMap = new ConcurrentHashMap<String, SlidingWindowCounter>();
+    private final ConcurrentMap<CallerKey, SlidingWindowCounter> callerWindowMap = new ConcurrentHashMap<CallerKey, SlidingWindowCounter>();
+
+    private final ConcurrentMap<String, AgentStatWindow> agentStatWindowMap = new ConcurrentHashMap<String, AgentStatWindow>();
+    private final ConcurrentMap<String, String> agentApplicationMap = new ConcurrentHashMap<String, String>();
+
+    private volatile boolean enable = false;
+    private volatile long enableTime = -1;
+
+    public AlarmWindowAggregator() {
+        this(DEFAULT_WINDOW_MILLIS, DEFAULT_SLOT_COUNT);
+    }
+
+    public AlarmWindowAggregator(long windowMillis, int slotCount) {
+        if (windowMillis < slotCount) {
+            throw new IllegalArgumentException("windowMillis must be greater than slotCount");
+        }
+        this.windowMillis = windowMillis;
+        this.slotCount = slotCount;
+    }
+
+    public void setEnable(boolean enable) {
+        if (enable && !this.enable) {
+            this.enableTime = System.currentTimeMillis();
+        }
+        this.enable = enable;
+    }
+
+    public boolean isEnable() {
+        return enable;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public void updateResponseTime(String applicationName, ServiceType serviceType, int elapsed, boolean isError) {
+        if (!enable) {
+            return;
+        }
+        final long timestamp = System.currentTimeMillis();
+        while (true) {
+            final SlidingWindowCounter counter = getCounter(responseWindowMap, applicationName);
+            if (addHistogram(counter, serviceType, elapsed, isError, 1, timestamp)) {
+                return;
+            }
+            responseWindowMap.remove(applicationName, counter);
+        }
+    }
+
+    public void updateCaller(String callerApplicationName, String calleeApplicationName, ServiceType calleeServiceType, String calleeHost, int elapsed, boolean isError, long count) {
+        if (!enable) {
+            return;
+        }
+        final long timestamp = System.currentTimeMillis();
+        final CallerKey key = new CallerKey(callerApplicationName, getCalleeKey(calleeApplicationName, calleeHost));
+        while (true) {
+            final SlidingWindowCounter counter = getCounter(callerWindowMap, key);
+            if (addHistogram(counter, calleeServiceType, elapsed, isError, count, timestamp)) {
+                return;
+            }
+            callerWindowMap.remove(key, counter);
+        }
+    }
+
+    /**
+     * the web alarm batch identifies a callee by its host, and by its application name when there is no host.
+     */
+    static String getCalleeKey(String calleeApplicationName, String calleeHost) {
+        if (calleeHost == null || calleeHost.isEmpty()) {
+            return calleeApplicationName;
+        }
+        return calleeHost;
+    }
+
+    /**
+     * @return false if the counter was retired
+     */
+    private boolean addHistogram(SlidingWindowCounter counter, ServiceType serviceType, int elapsed, boolean isError, long count, long timestamp) {
+        if (!counter.acquire()) {
+            return false;
+        }
+        try {
+            if (isError) {
+                counter.add(ERROR, count, timestamp);
+            } else {
+                final SlotType slotType = serviceType.getHistogramSchema().findHistogramSlot(elapsed).getSlotType();
+                if (slotType == SlotType.SLOW || slotType == SlotType.VERY_SLOW) {
+                    counter.add(SLOW, count, timestamp);
+                }
+            }
+            counter.add(TOTAL, count, timestamp);
+            return true;
+        } finally {
+            counter.release();
+        }
+    }
+
+    private <K> SlidingWindowCounter getCounter(ConcurrentMap<K, SlidingWindowCounter> counterMap, K key) {
+        final SlidingWindowCounter counter = counterMap.get(key);
+        if (counter != null) {
+            return counter;
+        }
+        final SlidingWindowCounter newCounter = new SlidingWindowCounter(METRIC_COUNT, windowMillis, slotCount);
+        final SlidingWindowCounter before = counterMap.putIfAbsent(key, newCounter);
+        if (before != null) {
+            return before;
+        }
+        return newCounter;
+    }
+
+    public void updateAgentInfo(String agentId, String applicationName) {
+        if (agentId == null || applicationName == null) {
+            return;
+        }
+        agentApplicationMap.put(agentId, applicationName);
+    }
+
+    public void updateAgentStat(String agentId, TAgentStat agentStat) {
+        if (!enable) {
+            return;
+        }
+        if (!agentStat.isSetGc()) {
+            return;
+        }
+        final TJvmGc gc = agentStat.getGc();
+        double jvmCpuLoad = Double.NaN;
+        if (agentStat.isSetCpuLoad()) {
+            final TCpuLoad cpuLoad = agentStat.getCpuLoad();
+            if (cpuLoad.isSetJvmCpuLoad()) {
+                jvmCpuLoad = cpuLoad.getJvmCpuLoad();
+            }
+        }
+        while (true) {
+            AgentStatWindow window = agentStatWindowMap.get(agentId);
+            if (window == null) {
+                window = new AgentStatWindow(windowMillis);
+                final AgentStatWindow before = agentStatWindowMap.putIfAbsent(agentId, window);
+                if (before != null) {
+                    window = before;
+                }
+            }
+            if (window.add(agentStat.getTimestamp(), gc.getJvmMemoryHeapUsed(), gc.getJvmMemoryHeapMax(), jvmCpuLoad, gc.getJvmGcOldCount())) {
+                return;
+            }
+            agentStatWindowMap.remove(agentId, window);
+        }
+    }
+
+    /**
+     * @return the counts of the window ending at now. agents whose application is unknown are left out.
+     */
+    public AlarmWindowBo createAlarmWindow(long now) {
+        final AlarmWindowBo alarmWindow = new AlarmWindowBo(now, windowMillis, enableTime);
+        for (Map.Entry<String, SlidingWindowCounter> entry : responseWindowMap.entrySet()) {
+            final SlidingWindowCounter counter = entry.getValue();
+            final long totalCount = counter.sum(TOTAL, now);
+            if (totalCount == 0) {
+                continue;
+            }
+            alarmWindow.getApplicationWindow(entry.getKey()).getResponse().add(counter.sum(SLOW, now), counter.sum(ERROR, now), totalCount);
+        }
+        for (Map.Entry<CallerKey, SlidingWindowCounter> entry : callerWindowMap.entrySet()) {
+            final SlidingWindowCounter counter = entry.getValue();
+            final long totalCount = counter.sum(TOTAL, now);
+            if (totalCount == 0) {
+                continue;
+            }
+            final CallerKey key = entry.getKey();
+            alarmWindow.getApplicationWindow(key.callerApplicationName).getCallee(key.calleeKey).add(counter.sum(SLOW, now), counter.sum(ERROR, now), totalCount);
+        }
+        for (Map.Entry<String, AgentStatWindow> entry : agentStatWindowMap.entrySet()) {
+            final String agentId = entry.getKey();
+            final String applicationName = agentApplicationMap.get(agentId);
+            if (applicationName == null) {
+                continue;
+            }
+            final AlarmWindowBo.AgentStat agentStat = new AlarmWindowBo.AgentStat();
+            if (entry.getValue().writeTo(agentStat, now)) {
+                alarmWindow.getApplicationWindow(applicationName).getAgentStat(agentId).add(agentStat.getHeapUsed(), agentStat.getHeapMax(),
+                        agentStat.getJvmCpuUsage(), agentStat.getJvmCpuSampleCount(), agentStat.getGcOldCount());
+            }
+        }
+        return alarmWindow;
+    }
+
+    /**
+     * drops the windows that were not updated during the last window.
+     */
+    public void evictIdle(long now) {
+        final long expireTime = now - windowMillis;
+        evictIdleCounter(responseWindowMap, expireTime);
+        evictIdleCounter(callerWindowMap, expireTime);
+        for (Map.Entry<String, AgentStatWindow> entry : agentStatWindowMap.entrySet()) {
+            final AgentStatWindow window = entry.getValue();
+            if (window.retireIfIdle(expireTime)) {
+                agentStatWindowMap.remove(entry.getKey(), window);
+            }
+        }
+    }
+
+    private <K> void evictIdleCounter(ConcurrentMap<K, SlidingWindowCounter> counterMap, long expireTime) {
+        for (Map.Entry<K, SlidingWindowCounter> entry : counterMap.entrySet()) {
+            final SlidingWindowCounter counter = entry.getValue();
+            if (counter.retireIfIdle(expireTime)) {
+                counterMap.remove(entry.getKey(), counter);
+            }
+        }
+    }
+
+    int getWindowCount() {
+        return responseWindowMap.size() + callerWindowMap.size() + agentStatWindowMap.size();
+    }
+
+    private static final class CallerKey {
+        private final String callerApplicationName;
+        // calleeHost(or callee applicationName)
+        private final String calleeKey;
+
+        private CallerKey(String callerApplicationName, String calleeKey) {
+            if (callerApplicationName == null) {
+                throw new NullPointerException("callerApplicationName must not be null");
+            }
+            if (calleeKey == null) {
+                throw new NullPointerException("calleeKey must not be null");
+            }
+            this.callerApplicationName = callerApplicationName;
+            this.calleeKey = calleeKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            CallerKey that = (CallerKey) o;
+
+            if (!callerApplicationName.equals(that.callerApplicationName)) return false;
+            return calleeKey.equals(that.calleeKey);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = callerApplicationName.hashCode();
+            result = 31 * result + calleeKey.hashCode();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.alarm;
+
+import com.navercorp.pinpoint.collector.cluster.WebCluster;
+import com.navercorp.pinpoint.collector.cluster.zookeeper.ZookeeperClusterService;
+import com.navercorp.pinpoint.common.bo.AlarmWindowBo;
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * sends the windows of {@link AlarmWindowAggregator} to every web of the cluster every publishInterval.
+ * the rules are not checked here. each collector only receives a share of the traffic,
+ * so the batch server of the web merges the windows of all collectors and checks the rules once.
+ *
+ * @author agent
+ */
+public class AlarmWindowPublisher {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final AlarmWindowAggregator aggregator;
+    private final ZookeeperClusterService clusterService;
+
+    private boolean enable = false;
+    private long publishInterval = 10 * 1000;
+
+    private ScheduledExecutorService executor;
+
+    public AlarmWindowPublisher(AlarmWindowAggregator aggregator, ZookeeperClusterService clusterService) {
+        if (aggregator == null) {
+            throw new NullPointerException("aggregator must not be null");
+        }
+        if (clusterService == null) {
+            throw new NullPointerException("clusterService must not be null");
+        }
+        this.aggregator = aggregator;
+        this.clusterService = clusterService;
+    }
+
+    public void setEnable(boolean enable) {
+        this.enable = enable;
+    }
+
+    public void setPublishInterval(long publishInterval) {
+        this.publishInterval = publishInterval;
+    }
+
+    public void initialize() {
+        if (!enable) {
+            logger.info("alarm window publisher disabled.");
+            return;
+        }
+        if (!clusterService.isEnable()) {
+            logger.warn("alarm window publisher disabled. collector.alarm.enable=true requires cluster.enable=true, "
+                    + "the windows are sent over the web cluster connections. the web alarm batch keeps scanning hbase.");
+            return;
+        }
+        aggregator.setEnable(true);
+        this.executor = Executors.newSingleThreadScheduledExecutor(new PinpointThreadFactory("Pinpoint-AlarmWindowPublisher", true));
+        this.executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    publish(System.currentTimeMillis());
+                } catch (Throwable th) {
+                    logger.error("alarm window publish failed. Caused:{}", th.getMessage(), th);
+                }
+            }
+        }, publishInterval, publishInterval, TimeUnit.MILLISECONDS);
+        logger.info("alarm window publisher initialized. publishInterval:{}", publishInterval);
+    }
+
+    public void shutdown() {
+        aggregator.setEnable(false);
+        if (executor == null) {
+            return;
+        }
+        logger.info("Shutdown alarm window publisher.");
+        executor.shutdown();
+        try {
+            executor.awaitTermination(3000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void publish(long now) {
+        aggregator.evictIdle(now);
+        final AlarmWindowBo alarmWindow = aggregator.createAlarmWindow(now);
+        final WebCluster webCluster = clusterService.getWebCluster();
+        webCluster.send(alarmWindow.writeValue());
+        if (logger.isDebugEnabled()) {
+            logger.debug("alarm window published. applications:{}", alarmWindow.getApplicationWindowList().size());
+        }
+    }
+}
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,7 +41,8 @@ public class WebCluster implements Cluster {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private final PinpointSocketFactory factory;
 
-    private final Map<InetSocketAddress, PinpointSocket> clusterRepository = new HashMap<InetSocketAddress, PinpointSocket>();
+    // written by the zookeeper event thread, read by the senders
+    private final Map<InetSocketAddress, PinpointSocket> clusterRepository = new ConcurrentHashMap<InetSocketAddress, PinpointSocket>();
 
     public WebCluster(String id, MessageListener messageListener) {
         this(id, messageListener, DisabledServerStreamChannelMessageListener.INSTANCE);
@@ -106,6 +108,19 @@ public class WebCluster implements Cluster {
         return socket;
     }
 
+    /**
+     * sends the bytes to every connected web. webs that are reconnecting miss them.
+     */
+    public void send(byte[] bytes) {
+        for (Map.Entry<InetSocketAddress, PinpointSocket> entry : clusterRepository.entrySet()) {
+            try {
+                entry.getValue().send(bytes);
+            } catch (PinpointSocketException e) {
+                logger.warn("localhost -> {} send failed. Caused:{}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
     public List<InetSocketAddress> getWebClusterList() {
         return new ArrayList<InetSocketAddress>(clusterRepository.keySet());
     }
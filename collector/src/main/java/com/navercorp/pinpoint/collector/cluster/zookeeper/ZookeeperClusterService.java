@@ -178,6 +178,10 @@ public class ZookeeperClusterService extends AbstractClusterService {
         return webClusterManager;
     }
 
+    public WebCluster getWebCluster() {
+        return webCluster;
+    }
+
     class ClusterManagerWatcher implements ZookeeperEventWatcher {
 
         private final AtomicBoolean connected = new AtomicBoolean(false);
@@ -16,10 +16,13 @@
 
 package com.navercorp.pinpoint.collector.config;
 
+import com.navercorp.pinpoint.collector.receiver.udp.UDPReceiverFactory;
+import com.navercorp.pinpoint.collector.util.PacketBufferPool;
 import com.navercorp.pinpoint.common.util.PropertyUtils;
 
 import com.navercorp.pinpoint.common.util.SimpleProperty;
 import com.navercorp.pinpoint.common.util.SystemProperty;
+import com.navercorp.pinpoint.rpc.util.CpuUtils;
 import org.apache.commons.lang.math.NumberUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,14 +62,32 @@ public class CollectorConfiguration implements InitializingBean {
     private int udpStatWorkerThread;
     private int udpStatWorkerQueueSize;
     private int udpStatSocketReceiveBufferSize;
+    private String udpStatPacketSizeClasses;
+    private int udpStatPacketPoolCapacity;
 
 
+    private String udpSpanReceiverType;
     private String udpSpanListenIp = DEFAULT_LISTEN_IP;
     private int udpSpanListenPort;
 
     private int udpSpanWorkerThread;
     private int udpSpanWorkerQueueSize;
     private int udpSpanSocketReceiveBufferSize;
+    private int udpSpanIoThread;
+    private String udpSpanPacketSizeClasses;
+    private int udpSpanPacketPoolCapacity;
+
+    private boolean traceWriterEnable;
+    private int traceWriterBucketSize;
+    private int traceWriterBatchSize;
+    private int traceWriterFlushInterval;
+    private int traceWriterMaxPendingSize;
+    private int traceWriterOfferTimeout;
+    private int traceWriterThread;
+    private int traceWriterQueueSize;
+
+    private boolean alarmEnable;
+    private int alarmPublishInterval;
 
     private boolean clusterEnable;
     private String clusterAddress;
@@ -102,6 +123,14 @@ public class CollectorConfiguration implements InitializingBean {
         return udpStatSocketReceiveBufferSize;
     }
 
+    public String getUdpStatPacketSizeClasses() {
+        return udpStatPacketSizeClasses;
+    }
+
+    public int getUdpStatPacketPoolCapacity() {
+        return udpStatPacketPoolCapacity;
+    }
+
     public String getUdpSpanListenIp() {
         return udpSpanListenIp;
     }
@@ -135,6 +164,70 @@ public class CollectorConfiguration implements InitializingBean {
         this.udpSpanSocketReceiveBufferSize = udpSpanSocketReceiveBufferSize;
     }
 
+    public int getUdpSpanIoThread() {
+        return udpSpanIoThread;
+    }
+
+    public String getUdpSpanPacketSizeClasses() {
+        return udpSpanPacketSizeClasses;
+    }
+
+    public int getUdpSpanPacketPoolCapacity() {
+        return udpSpanPacketPoolCapacity;
+    }
+
+    public void setUdpSpanIoThread(int udpSpanIoThread) {
+        this.udpSpanIoThread = udpSpanIoThread;
+    }
+
+    public String getUdpSpanReceiverType() {
+        return udpSpanReceiverType;
+    }
+
+    public void setUdpSpanReceiverType(String udpSpanReceiverType) {
+        this.udpSpanReceiverType = udpSpanReceiverType;
+    }
+
+    public boolean isTraceWriterEnable() {
+        return traceWriterEnable;
+    }
+
+    public int getTraceWriterBucketSize() {
+        return traceWriterBucketSize;
+    }
+
+    public int getTraceWriterBatchSize() {
+        return traceWriterBatchSize;
+    }
+
+    public int getTraceWriterFlushInterval() {
+        return traceWriterFlushInterval;
+    }
+
+    public int getTraceWriterMaxPendingSize() {
+        return traceWriterMaxPendingSize;
+    }
+
+    public int getTraceWriterOfferTimeout() {
+        return traceWriterOfferTimeout;
+    }
+
+    public int getTraceWriterThread() {
+        return traceWriterThread;
+    }
+
+    public int getTraceWriterQueueSize() {
+        return traceWriterQueueSize;
+    }
+
+    public boolean isAlarmEnable() {
+        return alarmEnable;
+    }
+
+    public int getAlarmPublishInterval() {
+        return alarmPublishInterval;
+    }
+
     public boolean isClusterEnable() {
         return clusterEnable;
     }
@@ -197,14 +290,32 @@ public class CollectorConfiguration implements InitializingBean {
         this.udpStatWorkerThread = readInt(properties, "collector.udpStatWorkerThread", 128);
         this.udpStatWorkerQueueSize = readInt(properties, "collector.udpStatWorkerQueueSize", 1024);
         this.udpStatSocketReceiveBufferSize = readInt(properties, "collector.udpStatSocketReceiveBufferSize", 1024 * 4096);
+        this.udpStatPacketSizeClasses = readString(properties, "collector.udpStatPacketSizeClasses", PacketBufferPool.DEFAULT_SIZE_CLASSES);
+        this.udpStatPacketPoolCapacity = readInt(properties, "collector.udpStatPacketPoolCapacity", 1024 * 1024 * 8);
 
 
+        this.udpSpanReceiverType = readString(properties, "collector.receiver.udp.span.type", UDPReceiverFactory.SPAN_RECEIVER_TYPE_BASE);
         this.udpSpanListenIp = readString(properties, "collector.udpSpanListenIp", DEFAULT_LISTEN_IP);
         this.udpSpanListenPort = readInt(properties, "collector.udpSpanListenPort", udpSpanListenPort);
 
         this.udpSpanWorkerThread = readInt(properties, "collector.udpSpanWorkerThread", 256);
         this.udpSpanWorkerQueueSize = readInt(properties, "collector.udpSpanWorkerQueueSize", 1024 * 5);
         this.udpSpanSocketReceiveBufferSize = readInt(properties, "collector.udpSpanSocketReceiveBufferSize", 1024 * 4096);
+        this.udpSpanIoThread = readInt(properties, "collector.udpSpanIoThread", CpuUtils.cpuCount());
+        this.udpSpanPacketSizeClasses = readString(properties, "collector.udpSpanPacketSizeClasses", PacketBufferPool.DEFAULT_SIZE_CLASSES);
+        this.udpSpanPacketPoolCapacity = readInt(properties, "collector.udpSpanPacketPoolCapacity", 1024 * 1024 * 64);
+
+        this.traceWriterEnable = readBoolen(properties, "collector.traceWriter.enable");
+        this.traceWriterBucketSize = readInt(properties, "collector.traceWriter.bucketSize", 16);
+        this.traceWriterBatchSize = readInt(properties, "collector.traceWriter.batchSize", 100);
+        this.traceWriterFlushInterval = readInt(properties, "collector.traceWriter.flushInterval", 100);
+        this.traceWriterMaxPendingSize = readInt(properties, "collector.traceWriter.maxPendingSize", 1024 * 20);
+        this.traceWriterOfferTimeout = readInt(properties, "collector.traceWriter.offerTimeout", 10);
+        this.traceWriterThread = readInt(properties, "collector.traceWriter.thread", 8);
+        this.traceWriterQueueSize = readInt(properties, "collector.traceWriter.queueSize", 1024 * 5);
+
+        this.alarmEnable = readBoolen(properties, "collector.alarm.enable");
+        this.alarmPublishInterval = readInt(properties, "collector.alarm.publishInterval", 10 * 1000);
         
         this.clusterEnable = readBoolen(properties, "cluster.enable");
         this.clusterAddress = readString(properties, "cluster.zookeeper.address", "");
@@ -252,11 +363,27 @@ public class CollectorConfiguration implements InitializingBean {
         sb.append(", udpStatWorkerThread=").append(udpStatWorkerThread);
         sb.append(", udpStatWorkerQueueSize=").append(udpStatWorkerQueueSize);
         sb.append(", udpStatSocketReceiveBufferSize=").append(udpStatSocketReceiveBufferSize);
+        sb.append(", udpStatPacketSizeClasses='").append(udpStatPacketSizeClasses).append('\'');
+        sb.append(", udpStatPacketPoolCapacity=").append(udpStatPacketPoolCapacity);
+        sb.append(", udpSpanReceiverType='").append(udpSpanReceiverType).append('\'');
         sb.append(", udpSpanListenIp='").append(udpSpanListenIp).append('\'');
         sb.append(", udpSpanListenPort=").append(udpSpanListenPort);
         sb.append(", udpSpanWorkerThread=").append(udpSpanWorkerThread);
         sb.append(", udpSpanWorkerQueueSize=").append(udpSpanWorkerQueueSize);
         sb.append(", udpSpanSocketReceiveBufferSize=").append(udpSpanSocketReceiveBufferSize);
+        sb.append(", udpSpanIoThread=").append(udpSpanIoThread);
+        sb.append(", udpSpanPacketSizeClasses='").append(udpSpanPacketSizeClasses).append('\'');
+        sb.append(", udpSpanPacketPoolCapacity=").append(udpSpanPacketPoolCapacity);
+        sb.append(", traceWriterEnable=").append(traceWriterEnable);
+        sb.append(", traceWriterBucketSize=").append(traceWriterBucketSize);
+        sb.append(", traceWriterBatchSize=").append(traceWriterBatchSize);
+        sb.append(", traceWriterFlushInterval=").append(traceWriterFlushInterval);
+        sb.append(", traceWriterMaxPendingSize=").append(traceWriterMaxPendingSize);
+        sb.append(", traceWriterOfferTimeout=").append(traceWriterOfferTimeout);
+        sb.append(", traceWriterThread=").append(traceWriterThread);
+        sb.append(", traceWriterQueueSize=").append(traceWriterQueueSize);
+        sb.append(", alarmEnable=").append(alarmEnable);
+        sb.append(", alarmPublishInterval=").append(alarmPublishInterval);
         sb.append(", clusterEnable=").append(clusterEnable);
         sb.append(", clusterAddress=").append(clusterAddress);
         sb.append(", clusterSessionTimeout=").append(clusterSessionTimeout);
@@ -25,4 +25,9 @@ import com.navercorp.pinpoint.common.ServiceType;
  */
 public interface MapStatisticsCalleeDao extends CachedStatisticsDao {
     void update(String calleeApplicationName, ServiceType calleeServiceType, String callerApplicationName, ServiceType callerServiceType, String callerHost, int elapsed, boolean isError);
+
+    /**
+     * @param count number of calls that fall into the same histogram slot as elapsed
+     */
+    void update(String calleeApplicationName, ServiceType calleeServiceType, String callerApplicationName, ServiceType callerServiceType, String callerHost, int elapsed, boolean isError, long count);
 }
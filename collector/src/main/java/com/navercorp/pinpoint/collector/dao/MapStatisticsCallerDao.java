@@ -25,4 +25,9 @@ import com.navercorp.pinpoint.common.ServiceType;
  */
 public interface MapStatisticsCallerDao extends CachedStatisticsDao {
     void update(String callerApplicationName, ServiceType callerServiceType, String callerAgentId, String calleeApplicationName, ServiceType calleeServiceType, String calleeHost, int elapsed, boolean isError);
+
+    /**
+     * @param count number of calls that fall into the same histogram slot as elapsed
+     */
+    void update(String callerApplicationName, ServiceType callerServiceType, String callerAgentId, String calleeApplicationName, ServiceType calleeServiceType, String calleeHost, int elapsed, boolean isError, long count);
 }
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.dao.hbase;
+
+import static com.navercorp.pinpoint.common.hbase.HBaseTables.*;
+
+import com.navercorp.pinpoint.collector.dao.AgentStatRollupDao;
+import com.navercorp.pinpoint.common.bo.AgentStatCpuLoadBo;
+import com.navercorp.pinpoint.common.bo.AgentStatMemoryGcBo;
+import com.navercorp.pinpoint.common.bo.AgentStatResolution;
+import com.navercorp.pinpoint.common.bo.AgentStatRollupBo;
+import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.util.BytesUtils;
+import com.navercorp.pinpoint.common.util.RowKeyUtils;
+import com.navercorp.pinpoint.common.util.TimeUtils;
+import com.sematext.hbase.wd.AbstractRowKeyDistributor;
+
+import org.apache.hadoop.hbase.client.Put;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Repository;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * keeps the rollups of the open windows in memory and puts the changed ones on every flush.
+ * every in-memory rollup is written to its own column so that collectors and restarted collectors never overwrite each other,
+ * readers merge all columns of a row.
+ *
+ * @author agent
+ */
+@Repository
+public class HbaseAgentStatRollupDao implements AgentStatRollupDao {
+
+    private static final long DEFAULT_EVICT_IDLE_MILLIS = 60 * 1000L;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private HbaseOperations2 hbaseTemplate;
+
+    @Autowired
+    @Qualifier("agentStatRowKeyDistributor")
+    private AbstractRowKeyDistributor rowKeyDistributor;
+
+    private final String writerId;
+    private final AtomicLong rollupSequence = new AtomicLong();
+
+    private final ConcurrentMap<RollupKey, Rollup> rollups = new ConcurrentHashMap<RollupKey, Rollup>();
+
+    private long evictIdleMillis = DEFAULT_EVICT_IDLE_MILLIS;
+
+    public HbaseAgentStatRollupDao() {
+        this(ManagementFactory.getRuntimeMXBean().getName() + ":" + System.currentTimeMillis());
+    }
+
+    public HbaseAgentStatRollupDao(String writerId) {
+        if (writerId == null) {
+            throw new NullPointerException("writerId must not be null");
+        }
+        this.writerId = writerId;
+    }
+
+    public void setEvictIdleMillis(long evictIdleMillis) {
+        this.evictIdleMillis = evictIdleMillis;
+    }
+
+    @Override
+    public void update(String agentId, long timestamp, AgentStatMemoryGcBo memoryGc, AgentStatCpuLoadBo cpuLoad) {
+        if (agentId == null) {
+            throw new NullPointerException("agentId must not be null");
+        }
+        final long now = System.currentTimeMillis();
+        for (AgentStatResolution resolution : AgentStatResolution.getRollups()) {
+            final RollupKey key = new RollupKey(resolution, agentId, resolution.getWindowStart(timestamp));
+            while (true) {
+                final Rollup rollup = getRollup(key);
+                synchronized (rollup) {
+                    // evicted by flushAll() in the meantime
+                    if (rollup.evicted) {
+                        continue;
+                    }
+                    rollup.rollupBo.add(memoryGc);
+                    rollup.rollupBo.add(cpuLoad);
+                    rollup.dirty = true;
+                    rollup.lastUpdateTime = now;
+                }
+                break;
+            }
+        }
+    }
+
+    private Rollup getRollup(RollupKey key) {
+        final Rollup rollup = this.rollups.get(key);
+        if (rollup != null) {
+            return rollup;
+        }
+        final byte[] qualifier = BytesUtils.toBytes(writerId + ":" + rollupSequence.getAndIncrement());
+        final Rollup newRollup = new Rollup(new AgentStatRollupBo(key.agentId, key.windowStart), qualifier);
+        final Rollup before = this.rollups.putIfAbsent(key, newRollup);
+        if (before != null) {
+            return before;
+        }
+        return newRollup;
+    }
+
+    @Override
+    public void flushAll() {
+        final long now = System.currentTimeMillis();
+        final Map<AgentStatResolution, List<Put>> puts = new EnumMap<AgentStatResolution, List<Put>>(AgentStatResolution.class);
+        int evicted = 0;
+
+        final Iterator<Map.Entry<RollupKey, Rollup>> iterator = this.rollups.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<RollupKey, Rollup> entry = iterator.next();
+            final RollupKey key = entry.getKey();
+            final Rollup rollup = entry.getValue();
+            synchronized (rollup) {
+                if (rollup.dirty) {
+                    final Put put = new Put(getDistributedRowKey(key.agentId, key.windowStart));
+                    put.add(AGENT_STAT_ROLLUP_CF_STATISTICS, rollup.qualifier, rollup.rollupBo.writeValue());
+                    getPutList(puts, key.resolution).add(put);
+                    rollup.dirty = false;
+                } else if (now - rollup.lastUpdateTime > evictIdleMillis) {
+                    // late stats of this window go to a new column
+                    rollup.evicted = true;
+                    iterator.remove();
+                    evicted++;
+                }
+            }
+        }
+
+        for (Map.Entry<AgentStatResolution, List<Put>> entry : puts.entrySet()) {
+            final AgentStatResolution resolution = entry.getKey();
+            final List<Put> putList = entry.getValue();
+            if (logger.isDebugEnabled()) {
+                logger.debug("flush {} {} Put:{}", this.getClass().getSimpleName(), resolution, putList.size());
+            }
+            hbaseTemplate.put(resolution.getTableName(), putList);
+        }
+        if (evicted > 0 && logger.isDebugEnabled()) {
+            logger.debug("evict {} rollups", evicted);
+        }
+    }
+
+    private List<Put> getPutList(Map<AgentStatResolution, List<Put>> puts, AgentStatResolution resolution) {
+        List<Put> putList = puts.get(resolution);
+        if (putList == null) {
+            putList = new ArrayList<Put>();
+            puts.put(resolution, putList);
+        }
+        return putList;
+    }
+
+    /**
+     * same row key format as the AgentStat table, the timestamp being the start of the window
+     */
+    private byte[] getDistributedRowKey(String agentId, long windowStart) {
+        byte[] bAgentId = BytesUtils.toBytes(agentId);
+        byte[] key = RowKeyUtils.concatFixedByteAndLong(bAgentId, AGENT_NAME_MAX_LEN, TimeUtils.reverseTimeMillis(windowStart));
+        return rowKeyDistributor.getDistributedKey(key);
+    }
+
+    private static final class Rollup {
+        private final AgentStatRollupBo rollupBo;
+        private final byte[] qualifier;
+        private boolean dirty;
+        private boolean evicted;
+        private long lastUpdateTime;
+
+        private Rollup(AgentStatRollupBo rollupBo, byte[] qualifier) {
+            this.rollupBo = rollupBo;
+            this.qualifier = qualifier;
+        }
+    }
+
+    private static final class RollupKey {
+        private final AgentStatResolution resolution;
+        private final String agentId;
+        private final long windowStart;
+
+        private RollupKey(AgentStatResolution resolution, String agentId, long windowStart) {
+            this.resolution = resolution;
+            this.agentId = agentId;
+            this.windowStart = windowStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            RollupKey rollupKey = (RollupKey) o;
+
+            if (windowStart != rollupKey.windowStart) return false;
+            if (resolution != rollupKey.resolution) return false;
+            return agentId.equals(rollupKey.agentId);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = resolution.hashCode();
+            result = 31 * result + agentId.hashCode();
+            result = 31 * result + (int) (windowStart ^ (windowStart >>> 32));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.dao.hbase;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.util.ExecutorFactory;
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
+
+import org.apache.hadoop.hbase.client.Put;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind for a single table.
+ * Puts are grouped into buckets by the first byte of the row key(the prefix of the row key distributor),
+ * and each bucket is written with put(List&lt;Put&gt;) when it reaches batchSize or every flushInterval.
+ * <p>
+ * The number of pending puts is bounded by maxPendingSize. When it is reached the caller waits up to offerTimeout
+ * and the put is dropped after that.
+ * When disabled every put is written synchronously.
+ * <p>
+ * shutdown() closes every bucket under its lock before the final drain, so a put racing with shutdown is either
+ * in the final drain or written on its own.
+ *
+ * @author agent
+ */
+public class HbaseBatchWriter {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final String tableName;
+    private final HbaseOperations2 hbaseTemplate;
+
+    @Autowired
+    private MetricRegistry metricRegistry;
+
+    private boolean enable = true;
+    private int bucketSize = 16;
+    private int batchSize = 100;
+    private long flushInterval = 100;
+    private int maxPendingSize = 1024 * 20;
+    private long offerTimeout = 10;
+    private int writerThreadSize = 8;
+    private int writerQueueSize = 1024 * 5;
+
+    private Bucket[] buckets;
+    private Semaphore pending;
+    private ExecutorService writer;
+    private ScheduledExecutorService flusher;
+
+    private Timer flushTimer;
+    private Histogram batchHistogram;
+    private Counter dropCounter;
+    private Counter failCounter;
+
+    private volatile boolean started = false;
+
+    public HbaseBatchWriter(String tableName, HbaseOperations2 hbaseTemplate) {
+        if (tableName == null) {
+            throw new NullPointerException("tableName must not be null");
+        }
+        if (hbaseTemplate == null) {
+            throw new NullPointerException("hbaseTemplate must not be null");
+        }
+        this.tableName = tableName;
+        this.hbaseTemplate = hbaseTemplate;
+    }
+
+    public void initialize() {
+        if (!enable) {
+            logger.info("{} batch writer disabled.", tableName);
+            return;
+        }
+        Assert.isTrue(bucketSize > 0, "bucketSize must be greater than 0");
+        Assert.isTrue(batchSize > 0, "batchSize must be greater than 0");
+        Assert.isTrue(maxPendingSize >= batchSize, "maxPendingSize must be equal to or greater than batchSize");
+        Assert.isTrue(flushInterval > 0, "flushInterval must be greater than 0");
+        Assert.notNull(metricRegistry, "metricRegistry must not be null");
+
+        this.buckets = new Bucket[bucketSize];
+        for (int i = 0; i < bucketSize; i++) {
+            this.buckets[i] = new Bucket(batchSize);
+        }
+        this.pending = new Semaphore(maxPendingSize);
+
+        final String metricName = tableName + "-writer";
+        this.flushTimer = metricRegistry.timer(metricName + "-flush");
+        this.batchHistogram = metricRegistry.histogram(metricName + "-batch");
+        this.dropCounter = metricRegistry.counter(metricName + "-dropped");
+        this.failCounter = metricRegistry.counter(metricName + "-failed");
+        if (!metricRegistry.getGauges().containsKey(metricName + "-pending")) {
+            metricRegistry.register(metricName + "-pending", new Gauge<Integer>() {
+                @Override
+                public Integer getValue() {
+                    return getPendingSize();
+                }
+            });
+        }
+
+        this.writer = ExecutorFactory.newFixedThreadPool(writerThreadSize, writerQueueSize, tableName + "-Writer", true);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(new PinpointThreadFactory(tableName + "-Flusher", true));
+        this.flusher.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    flushAll();
+                } catch (Throwable th) {
+                    logger.error("{} flush failed. Caused:{}", tableName, th.getMessage(), th);
+                }
+            }
+        }, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        this.started = true;
+        logger.info("{} batch writer initialized. bucketSize:{}, batchSize:{}, flushInterval:{}, maxPendingSize:{}",
+                tableName, bucketSize, batchSize, flushInterval, maxPendingSize);
+    }
+
+    /**
+     * @return false if the put was dropped.
+     */
+    public boolean put(Put put) {
+        if (put == null) {
+            throw new NullPointerException("put must not be null");
+        }
+        if (!started) {
+            hbaseTemplate.put(tableName, put);
+            return true;
+        }
+        if (!acquire()) {
+            dropCounter.inc();
+            final long dropCount = dropCounter.getCount();
+            if ((dropCount % 100) == 1) {
+                logger.warn("{} pending puts exceeded maxPendingSize:{}. dropCount:{}", tableName, maxPendingSize, dropCount);
+            }
+            return false;
+        }
+        final Bucket bucket = buckets[getBucketIndex(put.getRow())];
+        final List<Put> batch = bucket.add(put);
+        if (batch != null) {
+            submit(batch);
+        }
+        return true;
+    }
+
+    private boolean acquire() {
+        if (offerTimeout <= 0) {
+            return pending.tryAcquire();
+        }
+        try {
+            return pending.tryAcquire(offerTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private int getBucketIndex(byte[] row) {
+        if (row == null || row.length == 0) {
+            return 0;
+        }
+        return (row[0] & 0xff) % bucketSize;
+    }
+
+    public void flushAll() {
+        final Bucket[] buckets = this.buckets;
+        if (buckets == null) {
+            return;
+        }
+        for (Bucket bucket : buckets) {
+            final List<Put> batch = bucket.drain();
+            if (batch != null) {
+                submit(batch);
+            }
+        }
+    }
+
+    private void submit(List<Put> batch) {
+        final FlushTask task = new FlushTask(batch);
+        try {
+            writer.execute(task);
+        } catch (RejectedExecutionException e) {
+            // writer queue full or shutdown. write on the caller thread.
+            task.run();
+        }
+    }
+
+    private void write(List<Put> batch) {
+        final Timer.Context time = flushTimer.time();
+        try {
+            hbaseTemplate.put(tableName, batch);
+            batchHistogram.update(batch.size());
+        } catch (Exception e) {
+            failCounter.inc(batch.size());
+            logger.warn("{} batch put failed. size:{} Caused:{}", tableName, batch.size(), e.getMessage(), e);
+        } finally {
+            time.stop();
+            pending.release(batch.size());
+        }
+    }
+
+    public void shutdown() {
+        if (!started) {
+            return;
+        }
+        logger.info("{} batch writer shutdown.", tableName);
+        started = false;
+        flusher.shutdown();
+        awaitTermination(flusher, "Flusher");
+        for (Bucket bucket : buckets) {
+            final List<Put> batch = bucket.close();
+            if (batch != null) {
+                submit(batch);
+            }
+        }
+        writer.shutdown();
+        awaitTermination(writer, "Writer");
+        final int pendingSize = getPendingSize();
+        if (pendingSize != 0) {
+            logger.warn("{} batch writer shutdown incomplete. pendingSize:{}", tableName, pendingSize);
+        }
+    }
+
+    private void awaitTermination(ExecutorService executor, String executorName) {
+        try {
+            executor.awaitTermination(1000 * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            logger.info("{}.shutdown() Interrupted", executorName, e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPendingSize() {
+        final Semaphore pending = this.pending;
+        if (pending == null) {
+            return 0;
+        }
+        return maxPendingSize - pending.availablePermits();
+    }
+
+    public long getDropCount() {
+        final Counter dropCounter = this.dropCounter;
+        if (dropCounter == null) {
+            return 0;
+        }
+        return dropCounter.getCount();
+    }
+
+    public void setEnable(boolean enable) {
+        this.enable = enable;
+    }
+
+    public void setBucketSize(int bucketSize) {
+        this.bucketSize = bucketSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public void setMaxPendingSize(int maxPendingSize) {
+        this.maxPendingSize = maxPendingSize;
+    }
+
+    public void setOfferTimeout(long offerTimeout) {
+        this.offerTimeout = offerTimeout;
+    }
+
+    public void setWriterThreadSize(int writerThreadSize) {
+        this.writerThreadSize = writerThreadSize;
+    }
+
+    public void setWriterQueueSize(int writerQueueSize) {
+        this.writerQueueSize = writerQueueSize;
+    }
+
+    public void setMetricRegistry(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    private static final class Bucket {
+        private final int batchSize;
+        private List<Put> puts;
+        private boolean closed = false;
+
+        private Bucket(int batchSize) {
+            this.batchSize = batchSize;
+            this.puts = new ArrayList<Put>(batchSize);
+        }
+
+        /**
+         * @return full batch or null. a closed bucket returns the put as a batch of its own.
+         */
+        private synchronized List<Put> add(Put put) {
+            if (closed) {
+                final List<Put> batch = new ArrayList<Put>(1);
+                batch.add(put);
+                return batch;
+            }
+            puts.add(put);
+            if (puts.size() < batchSize) {
+                return null;
+            }
+            return swap();
+        }
+
+        private synchronized List<Put> drain() {
+            if (puts.isEmpty()) {
+                return null;
+            }
+            return swap();
+        }
+
+        private synchronized List<Put> close() {
+            this.closed = true;
+            return drain();
+        }
+
+        private List<Put> swap() {
+            final List<Put> batch = puts;
+            this.puts = new ArrayList<Put>(batchSize);
+            return batch;
+        }
+    }
+
+    private final class FlushTask implements Runnable {
+        private final List<Put> batch;
+
+        private FlushTask(List<Put> batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void run() {
+            write(batch);
+        }
+    }
+}
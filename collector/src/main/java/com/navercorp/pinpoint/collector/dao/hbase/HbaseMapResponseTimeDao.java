@@ -19,7 +19,6 @@ package com.navercorp.pinpoint.collector.dao.hbase;
 import com.navercorp.pinpoint.collector.dao.MapResponseTimeDao;
 import com.navercorp.pinpoint.collector.dao.hbase.statistics.*;
 import com.navercorp.pinpoint.collector.util.AcceptedTimeService;
-import com.navercorp.pinpoint.collector.util.ConcurrentCounterMap;
 import com.navercorp.pinpoint.common.ServiceType;
 import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
 import com.navercorp.pinpoint.common.util.ApplicationMapStatisticsUtils;
@@ -33,7 +32,6 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
-import java.util.Map;
 
 import static com.navercorp.pinpoint.common.hbase.HBaseTables.*;
 
@@ -63,7 +61,7 @@ public class HbaseMapResponseTimeDao implements MapResponseTimeDao {
 
     private final boolean useBulk;
 
-    private final ConcurrentCounterMap<RowInfo> counter = new ConcurrentCounterMap<RowInfo>();
+    private final StatisticsKeyPool counter = new StatisticsKeyPool();
 
     public HbaseMapResponseTimeDao() {
         this(true);
@@ -95,8 +93,7 @@ public class HbaseMapResponseTimeDao implements MapResponseTimeDao {
         final short slotNumber = ApplicationMapStatisticsUtils.getSlotNumber(applicationServiceType, elapsed, isError);
         final ColumnName selfColumnName = new ResponseColumnName(agentId, slotNumber);
         if (useBulk) {
-            RowInfo rowInfo = new DefaultRowInfo(selfRowKey, selfColumnName);
-            this.counter.increment(rowInfo, 1L);
+            this.counter.increment(selfRowKey, selfColumnName, 1L);
         } else {
             final byte[] rowKey = selfRowKey.getRowKey();
             // column name is the name of caller app.
@@ -123,7 +120,7 @@ public class HbaseMapResponseTimeDao implements MapResponseTimeDao {
         }
 
         // update statistics by rowkey and column for now. need to update it by rowkey later.
-        Map<RowInfo,ConcurrentCounterMap.LongAdder> remove = this.counter.remove();
+        StatisticsKeyPool.Snapshot remove = this.counter.snapshotAndReset();
         List<Increment> merge = rowKeyMerge.createBulkIncrement(remove);
         if (!merge.isEmpty()) {
             if (logger.isDebugEnabled()) {
@@ -21,7 +21,6 @@ import static com.navercorp.pinpoint.common.hbase.HBaseTables.*;
 import com.navercorp.pinpoint.collector.dao.MapStatisticsCalleeDao;
 import com.navercorp.pinpoint.collector.dao.hbase.statistics.*;
 import com.navercorp.pinpoint.collector.util.AcceptedTimeService;
-import com.navercorp.pinpoint.collector.util.ConcurrentCounterMap;
 import com.navercorp.pinpoint.common.ServiceType;
 import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
 import com.navercorp.pinpoint.common.util.ApplicationMapStatisticsUtils;
@@ -36,7 +35,6 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * Update statistics of callee node
@@ -64,7 +62,7 @@ public class HbaseMapStatisticsCalleeDao implements MapStatisticsCalleeDao {
 
     private final boolean useBulk;
 
-    private final ConcurrentCounterMap<RowInfo> counter = new ConcurrentCounterMap<RowInfo>();
+    private final StatisticsKeyPool counter = new StatisticsKeyPool();
 
     public HbaseMapStatisticsCalleeDao() {
         this(true);
@@ -77,6 +75,11 @@ public class HbaseMapStatisticsCalleeDao implements MapStatisticsCalleeDao {
 
     @Override
     public void update(String calleeApplicationName, ServiceType calleeServiceType, String callerApplicationName, ServiceType callerServiceType, String callerHost, int elapsed, boolean isError) {
+        update(calleeApplicationName, calleeServiceType, callerApplicationName, callerServiceType, callerHost, elapsed, isError, 1L);
+    }
+
+    @Override
+    public void update(String calleeApplicationName, ServiceType calleeServiceType, String callerApplicationName, ServiceType callerServiceType, String callerHost, int elapsed, boolean isError, long count) {
         if (callerApplicationName == null) {
             throw new NullPointerException("callerApplicationName must not be null");
         }
@@ -102,14 +105,13 @@ public class HbaseMapStatisticsCalleeDao implements MapStatisticsCalleeDao {
         final ColumnName callerColumnName = new CallerColumnName(callerServiceType.getCode(), callerApplicationName, callerHost, callerSlotNumber);
 
         if (useBulk) {
-            RowInfo rowInfo = new DefaultRowInfo(calleeRowKey, callerColumnName);
-            counter.increment(rowInfo, 1L);
+            counter.increment(calleeRowKey, callerColumnName, count);
         } else {
             final byte[] rowKey = calleeRowKey.getRowKey();
 
             // column name is the name of caller app.
             byte[] columnName = callerColumnName.getColumnName();
-            increment(rowKey, columnName, 1L);
+            increment(rowKey, columnName, count);
         }
     }
 
@@ -131,7 +133,7 @@ public class HbaseMapStatisticsCalleeDao implements MapStatisticsCalleeDao {
             throw new IllegalStateException();
         }
 
-        Map<RowInfo, ConcurrentCounterMap.LongAdder> remove = this.counter.remove();
+        StatisticsKeyPool.Snapshot remove = this.counter.snapshotAndReset();
         List<Increment> merge = rowKeyMerge.createBulkIncrement(remove);
         if (!merge.isEmpty()) {
             if (logger.isDebugEnabled()) {
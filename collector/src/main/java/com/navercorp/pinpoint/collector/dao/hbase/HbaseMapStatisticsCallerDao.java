@@ -21,7 +21,6 @@ import static com.navercorp.pinpoint.common.hbase.HBaseTables.*;
 import com.navercorp.pinpoint.collector.dao.MapStatisticsCallerDao;
 import com.navercorp.pinpoint.collector.dao.hbase.statistics.*;
 import com.navercorp.pinpoint.collector.util.AcceptedTimeService;
-import com.navercorp.pinpoint.collector.util.ConcurrentCounterMap;
 import com.navercorp.pinpoint.common.ServiceType;
 import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
 import com.navercorp.pinpoint.common.util.ApplicationMapStatisticsUtils;
@@ -36,7 +35,6 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * Update statistics of caller node
@@ -64,7 +62,7 @@ public class HbaseMapStatisticsCallerDao implements MapStatisticsCallerDao {
 
     private final boolean useBulk;
 
-    private final ConcurrentCounterMap<RowInfo> counter = new ConcurrentCounterMap<RowInfo>();
+    private final StatisticsKeyPool counter = new StatisticsKeyPool();
 
     public HbaseMapStatisticsCallerDao() {
         this(true);
@@ -76,6 +74,11 @@ public class HbaseMapStatisticsCallerDao implements MapStatisticsCallerDao {
 
     @Override
     public void update(String callerApplicationName, ServiceType callerServiceType, String callerAgentid, String calleeApplicationName, ServiceType calleeServiceType, String calleeHost, int elapsed, boolean isError) {
+        update(callerApplicationName, callerServiceType, callerAgentid, calleeApplicationName, calleeServiceType, calleeHost, elapsed, isError, 1L);
+    }
+
+    @Override
+    public void update(String callerApplicationName, ServiceType callerServiceType, String callerAgentid, String calleeApplicationName, ServiceType calleeServiceType, String calleeHost, int elapsed, boolean isError, long count) {
         if (callerApplicationName == null) {
             throw new NullPointerException("callerApplicationName must not be null");
         }
@@ -99,13 +102,12 @@ public class HbaseMapStatisticsCallerDao implements MapStatisticsCallerDao {
         final short calleeSlotNumber = ApplicationMapStatisticsUtils.getSlotNumber(calleeServiceType, elapsed, isError);
         final ColumnName calleeColumnName = new CalleeColumnName(callerAgentid, calleeServiceType.getCode(), calleeApplicationName, calleeHost, calleeSlotNumber);
         if (useBulk) {
-            RowInfo rowInfo = new DefaultRowInfo(callerRowKey, calleeColumnName);
-            this.counter.increment(rowInfo, 1L);
+            this.counter.increment(callerRowKey, calleeColumnName, count);
         } else {
             final byte[] rowKey = callerRowKey.getRowKey();
             // column name is the name of caller app.
             byte[] columnName = calleeColumnName.getColumnName();
-            increment(rowKey, columnName, 1L);
+            increment(rowKey, columnName, count);
         }
     }
 
@@ -126,7 +128,7 @@ public class HbaseMapStatisticsCallerDao implements MapStatisticsCallerDao {
             throw new IllegalStateException();
         }
         // update statistics by rowkey and column for now. need to update it by rowkey later.
-        Map<RowInfo,ConcurrentCounterMap.LongAdder> remove = this.counter.remove();
+        StatisticsKeyPool.Snapshot remove = this.counter.snapshotAndReset();
         List<Increment> merge = rowKeyMerge.createBulkIncrement(remove);
         if (!merge.isEmpty()) {
             if (logger.isDebugEnabled()) {
@@ -65,6 +65,11 @@ public class HbaseTraceDao implements TracesDao {
     @Qualifier("traceDistributor")
     private AbstractRowKeyDistributor rowKeyDistributor;
 
+    // write-behind. writes synchronously if not configured
+    @Autowired(required = false)
+    @Qualifier("traceBatchWriter")
+    private HbaseBatchWriter traceBatchWriter;
+
     @Override
     public void insert(final TSpan span) {
         if (span == null) {
@@ -92,7 +97,7 @@ public class HbaseTraceDao implements TracesDao {
 
         addNestedSpanEvent(put, span);
 
-        hbaseTemplate.put(TRACES, put);
+        put(put);
 
     }
 
@@ -132,8 +137,16 @@ public class HbaseTraceDao implements TracesDao {
 
             put.add(TRACES_CF_TERMINALSPAN, rowId, acceptedTime, value);
         }
-        hbaseTemplate.put(TRACES, put);
+        put(put);
+
+    }
 
+    private void put(Put put) {
+        if (traceBatchWriter != null) {
+            traceBatchWriter.put(put);
+        } else {
+            hbaseTemplate.put(TRACES, put);
+        }
     }
 
     private byte[] writeAnnotation(List<TAnnotation> annotations) {
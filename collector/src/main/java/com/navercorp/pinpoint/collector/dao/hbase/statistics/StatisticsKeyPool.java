@@ -0,0 +1,228 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.dao.hbase.statistics;
+
+import com.navercorp.pinpoint.collector.util.LongKeyCounterMap;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interns the row keys and the column names of the map statistics to compact int ids and
+ * counts the calls on a long key made of the two ids.
+ * <p>
+ * The pool is replaced by a new generation on every {@link #snapshotAndReset()}, pre-sized from the last one.
+ * The serialized bytes of a key are made once and carried over to the next generation while the key is in use,
+ * keys that are not used for a whole generation are dropped.
+ *
+ * @author agent
+ */
+public class StatisticsKeyPool {
+
+    private static final int MIN_CAPACITY = 64;
+
+    private final Object snapshotLock = new Object();
+    private volatile Generation current;
+
+    public StatisticsKeyPool() {
+        this(LongKeyCounterMap.DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public StatisticsKeyPool(int initialCapacity) {
+        this.current = new Generation(null, Math.max(initialCapacity, MIN_CAPACITY));
+    }
+
+    public void increment(RowKey rowKey, ColumnName columnName, long count) {
+        if (rowKey == null) {
+            throw new NullPointerException("rowKey must not be null");
+        }
+        if (columnName == null) {
+            throw new NullPointerException("columnName must not be null");
+        }
+        while (true) {
+            // the ids belong to the generation, retry on the next one once it is sealed
+            final Generation generation = this.current;
+            if (generation.increment(rowKey, columnName, count)) {
+                return;
+            }
+        }
+    }
+
+    public Snapshot snapshotAndReset() {
+        synchronized (snapshotLock) {
+            final Generation old = this.current;
+            this.current = new Generation(old, Math.max(old.counter.size(), MIN_CAPACITY));
+
+            final LongKeyCounterMap.Snapshot counts = old.counter.seal();
+            final Snapshot snapshot = new Snapshot(counts, old.rowKeyTable(), old.columnNameTable());
+            // only the bytes of the previous generation are carried over
+            old.previous = null;
+            return snapshot;
+        }
+    }
+
+    static long key(int rowId, int columnId) {
+        return ((long) rowId << 32) | (columnId & 0xFFFFFFFFL);
+    }
+
+    static int rowId(long key) {
+        return (int) (key >>> 32);
+    }
+
+    static int columnId(long key) {
+        return (int) key;
+    }
+
+    public static class Snapshot {
+        private final LongKeyCounterMap.Snapshot counts;
+        private final Entry[] rowKeys;
+        private final Entry[] columnNames;
+
+        private Snapshot(LongKeyCounterMap.Snapshot counts, Entry[] rowKeys, Entry[] columnNames) {
+            this.counts = counts;
+            this.rowKeys = rowKeys;
+            this.columnNames = columnNames;
+        }
+
+        public int size() {
+            return counts.size();
+        }
+
+        public boolean isEmpty() {
+            return counts.isEmpty();
+        }
+
+        /**
+         * entries of the same row have the same row id.
+         */
+        public int getRowId(int index) {
+            return rowId(counts.getKey(index));
+        }
+
+        /**
+         * the returned bytes are shared, do not modify them.
+         */
+        public byte[] getRowKey(int index) {
+            return rowKeys[getRowId(index)].bytes;
+        }
+
+        /**
+         * the returned bytes are shared, do not modify them.
+         */
+        public byte[] getColumnName(int index) {
+            return columnNames[columnId(counts.getKey(index))].bytes;
+        }
+
+        public long getCount(int index) {
+            return counts.getValue(index);
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{size=" + size() + '}';
+        }
+    }
+
+    private static final class Entry {
+        private final int id;
+        private final byte[] bytes;
+
+        private Entry(int id, byte[] bytes) {
+            this.id = id;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class Generation {
+        private final ConcurrentMap<RowKey, Entry> rowKeys;
+        private final ConcurrentMap<ColumnName, Entry> columnNames;
+        // 0 is never used, the long key 0 is reserved by LongKeyCounterMap
+        private final AtomicInteger rowIdSequence = new AtomicInteger();
+        private final AtomicInteger columnIdSequence = new AtomicInteger();
+        private final LongKeyCounterMap counter;
+
+        private volatile Generation previous;
+
+        private Generation(Generation previous, int capacity) {
+            this.previous = previous;
+            this.rowKeys = new ConcurrentHashMap<RowKey, Entry>(capacity);
+            this.columnNames = new ConcurrentHashMap<ColumnName, Entry>(capacity);
+            this.counter = new LongKeyCounterMap(capacity, LongKeyCounterMap.DEFAULT_STRIPE_SIZE);
+        }
+
+        private boolean increment(RowKey rowKey, ColumnName columnName, long count) {
+            if (counter.isSealed()) {
+                return false;
+            }
+            final int rowId = internRowKey(rowKey);
+            final int columnId = internColumnName(columnName);
+            return counter.increment(key(rowId, columnId), count);
+        }
+
+        private int internRowKey(RowKey rowKey) {
+            final Entry entry = rowKeys.get(rowKey);
+            if (entry != null) {
+                return entry.id;
+            }
+            final Generation previous = this.previous;
+            final Entry previousEntry = (previous == null) ? null : previous.rowKeys.get(rowKey);
+            final byte[] bytes = (previousEntry == null) ? rowKey.getRowKey() : previousEntry.bytes;
+            return intern(rowKeys, rowKey, new Entry(rowIdSequence.incrementAndGet(), bytes));
+        }
+
+        private int internColumnName(ColumnName columnName) {
+            final Entry entry = columnNames.get(columnName);
+            if (entry != null) {
+                return entry.id;
+            }
+            final Generation previous = this.previous;
+            final Entry previousEntry = (previous == null) ? null : previous.columnNames.get(columnName);
+            final byte[] bytes = (previousEntry == null) ? columnName.getColumnName() : previousEntry.bytes;
+            return intern(columnNames, columnName, new Entry(columnIdSequence.incrementAndGet(), bytes));
+        }
+
+        private <K> int intern(ConcurrentMap<K, Entry> map, K key, Entry newEntry) {
+            final Entry old = map.putIfAbsent(key, newEntry);
+            if (old != null) {
+                return old.id;
+            }
+            return newEntry.id;
+        }
+
+        private Entry[] rowKeyTable() {
+            return toTable(rowKeys, rowIdSequence.get());
+        }
+
+        private Entry[] columnNameTable() {
+            return toTable(columnNames, columnIdSequence.get());
+        }
+
+        private static Entry[] toTable(ConcurrentMap<?, Entry> map, int maxId) {
+            // called after the counter is sealed. every id that was counted is in the map.
+            Entry[] table = new Entry[maxId + 1];
+            for (Entry entry : map.values()) {
+                if (entry.id >= table.length) {
+                    // interned after the sequence was read, it can not be counted
+                    continue;
+                }
+                table[entry.id] = entry;
+            }
+            return table;
+        }
+    }
+}
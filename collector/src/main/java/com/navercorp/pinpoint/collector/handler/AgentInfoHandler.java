@@ -22,6 +22,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.navercorp.pinpoint.collector.alarm.AlarmWindowAggregator;
 import com.navercorp.pinpoint.collector.dao.AgentInfoDao;
 import com.navercorp.pinpoint.collector.dao.ApplicationIndexDao;
 import com.navercorp.pinpoint.thrift.dto.TAgentInfo;
@@ -42,6 +43,9 @@ public class AgentInfoHandler implements SimpleHandler, RequestResponseHandler {
     @Autowired
     private ApplicationIndexDao applicationIndexDao;
 
+    @Autowired(required = false)
+    private AlarmWindowAggregator alarmWindowAggregator;
+
     public void handleSimple(TBase<?, ?> tbase) {
         handleRequest(tbase);
     }
@@ -66,6 +70,11 @@ public class AgentInfoHandler implements SimpleHandler, RequestResponseHandler {
             // for querying agentid using applicationname
             applicationIndexDao.insert(agentInfo);
 
+            // for the agent checkers of the streaming alarm
+            if (alarmWindowAggregator != null) {
+                alarmWindowAggregator.updateAgentInfo(agentInfo.getAgentId(), agentInfo.getApplicationName());
+            }
+
             return new TResult(true);
 
             // for querying applicationname using agentid
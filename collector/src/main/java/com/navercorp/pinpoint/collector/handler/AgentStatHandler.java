@@ -16,6 +16,7 @@
 
 package com.navercorp.pinpoint.collector.handler;
 
+import com.navercorp.pinpoint.collector.alarm.AlarmWindowAggregator;
 import com.navercorp.pinpoint.collector.dao.AgentStatDao;
 import com.navercorp.pinpoint.thrift.dto.TAgentStat;
 import com.navercorp.pinpoint.thrift.dto.TAgentStatBatch;
@@ -38,6 +39,9 @@ public class AgentStatHandler implements Handler {
     @Autowired
     private AgentStatDao agentStatDao;
 
+    @Autowired(required = false)
+    private AlarmWindowAggregator alarmWindowAggregator;
+
     public void handle(TBase<?, ?> tbase, byte[] packet, int offset, int length) {
         // FIXME (2014.08) Legacy - TAgentStats should not be sent over the wire.
         if (tbase instanceof TAgentStat) {
@@ -57,6 +61,9 @@ public class AgentStatHandler implements Handler {
             agentStat.setAgentId(agentId);
             agentStat.setStartTimestamp(startTimestamp);
             agentStatDao.insert(agentStat);
+            if (alarmWindowAggregator != null) {
+                alarmWindowAggregator.updateAgentStat(agentId, agentStat);
+            }
         } catch (Exception e) {
             logger.warn("AgentStat handle error. Caused:{}", e.getMessage());
         }
@@ -70,7 +70,8 @@ public class SpanChunkHandler implements SimpleHandler {
             List<TSpanEvent> spanEventList = spanChunk.getSpanEventList();
             if (spanEventList != null) {
                 logger.debug("SpanChunk Size:{}", spanEventList.size());
-                // TODO need to batch update later.
+                // events that hit the same statistics column are collapsed into a single update.
+                final SpanEventStatAggregator aggregator = new SpanEventStatAggregator();
                 for (TSpanEvent spanEvent : spanEventList) {
                     final ServiceType spanEventType = registry.findServiceType(spanEvent.getServiceType());
 
@@ -81,15 +82,18 @@ public class SpanChunkHandler implements SimpleHandler {
                     // if terminal update statistics
                     final int elapsed = spanEvent.getEndElapsed();
                     final boolean hasException = SpanEventUtils.hasException(spanEvent);
+                    aggregator.add(spanEvent.getDestinationId(), spanEventType, spanEvent.getEndPoint(), elapsed, hasException);
+                }
 
+                for (SpanEventStatAggregator.SpanEventStat stat : aggregator.getStats()) {
                     /**
                      * save information to draw a server map based on statistics
                      */
                     // save the information of caller (the spanevent that span called)
-                    statisticsHandler.updateCaller(spanChunk.getApplicationName(), applicationServiceType, spanChunk.getAgentId(), spanEvent.getDestinationId(), spanEventType, spanEvent.getEndPoint(), elapsed, hasException);
+                    statisticsHandler.updateCaller(spanChunk.getApplicationName(), applicationServiceType, spanChunk.getAgentId(), stat.getDestinationId(), stat.getServiceType(), stat.getEndPoint(), stat.getElapsed(), stat.isError(), stat.getCount());
 
                     // save the information of callee (the span that called spanevent)
-                    statisticsHandler.updateCallee(spanEvent.getDestinationId(), spanEventType, spanChunk.getApplicationName(), applicationServiceType, spanChunk.getEndPoint(), elapsed, hasException);
+                    statisticsHandler.updateCallee(stat.getDestinationId(), stat.getServiceType(), spanChunk.getApplicationName(), applicationServiceType, spanChunk.getEndPoint(), stat.getElapsed(), stat.isError(), stat.getCount());
                 }
             }
         } catch (Exception e) {
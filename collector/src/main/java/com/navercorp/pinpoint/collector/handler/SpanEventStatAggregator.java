@@ -0,0 +1,134 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.handler;
+
+import com.navercorp.pinpoint.common.ServiceType;
+import com.navercorp.pinpoint.common.util.ApplicationMapStatisticsUtils;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collapses the span events of a single span(or span chunk) by (destination, service type, endpoint, histogram slot),
+ * so that the statistics are updated once per distinct key with the number of events.
+ * Not thread safe. Create one per span.
+ *
+ * @author agent
+ */
+final class SpanEventStatAggregator {
+
+    private final Map<Key, SpanEventStat> statMap = new LinkedHashMap<Key, SpanEventStat>();
+
+    void add(String destinationId, ServiceType serviceType, String endPoint, int elapsed, boolean isError) {
+        if (serviceType == null) {
+            throw new NullPointerException("serviceType must not be null");
+        }
+        final short slotNumber = ApplicationMapStatisticsUtils.getSlotNumber(serviceType, elapsed, isError);
+        final Key key = new Key(destinationId, serviceType, endPoint, slotNumber);
+        final SpanEventStat stat = statMap.get(key);
+        if (stat == null) {
+            // any elapsed in the same slot maps to the same column. the first one represents the slot.
+            statMap.put(key, new SpanEventStat(destinationId, serviceType, endPoint, elapsed, isError));
+        } else {
+            stat.count++;
+        }
+    }
+
+    Collection<SpanEventStat> getStats() {
+        return statMap.values();
+    }
+
+    static final class SpanEventStat {
+        private final String destinationId;
+        private final ServiceType serviceType;
+        private final String endPoint;
+        private final int elapsed;
+        private final boolean isError;
+        private long count = 1;
+
+        private SpanEventStat(String destinationId, ServiceType serviceType, String endPoint, int elapsed, boolean isError) {
+            this.destinationId = destinationId;
+            this.serviceType = serviceType;
+            this.endPoint = endPoint;
+            this.elapsed = elapsed;
+            this.isError = isError;
+        }
+
+        String getDestinationId() {
+            return destinationId;
+        }
+
+        ServiceType getServiceType() {
+            return serviceType;
+        }
+
+        String getEndPoint() {
+            return endPoint;
+        }
+
+        int getElapsed() {
+            return elapsed;
+        }
+
+        boolean isError() {
+            return isError;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
+    private static final class Key {
+        private final String destinationId;
+        private final short serviceTypeCode;
+        private final String endPoint;
+        private final short slotNumber;
+
+        private Key(String destinationId, ServiceType serviceType, String endPoint, short slotNumber) {
+            this.destinationId = destinationId;
+            this.serviceTypeCode = serviceType.getCode();
+            this.endPoint = endPoint;
+            this.slotNumber = slotNumber;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+
+            if (serviceTypeCode != key.serviceTypeCode) return false;
+            if (slotNumber != key.slotNumber) return false;
+            if (destinationId != null ? !destinationId.equals(key.destinationId) : key.destinationId != null) return false;
+            if (endPoint != null ? !endPoint.equals(key.endPoint) : key.endPoint != null) return false;
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = destinationId != null ? destinationId.hashCode() : 0;
+            result = 31 * result + (int) serviceTypeCode;
+            result = 31 * result + (endPoint != null ? endPoint.hashCode() : 0);
+            result = 31 * result + (int) slotNumber;
+            return result;
+        }
+    }
+}
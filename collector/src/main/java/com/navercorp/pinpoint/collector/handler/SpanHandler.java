@@ -130,7 +130,8 @@ public class SpanHandler implements SimpleHandler {
         final ServiceType applicationServiceType = getApplicationServiceType(span);
 
         logger.debug("handle spanEvent size:{}", spanEventList.size());
-        // TODO need to batch update later.
+        // events that hit the same statistics column are collapsed into a single update.
+        final SpanEventStatAggregator aggregator = new SpanEventStatAggregator();
         for (TSpanEvent spanEvent : spanEventList) {
             final ServiceType spanEventType = registry.findServiceType(spanEvent.getServiceType());
             if (!spanEventType.isRecordStatistics()) {
@@ -140,15 +141,18 @@ public class SpanHandler implements SimpleHandler {
             // if terminal update statistics
             final int elapsed = spanEvent.getEndElapsed();
             final boolean hasException = SpanEventUtils.hasException(spanEvent);
+            aggregator.add(spanEvent.getDestinationId(), spanEventType, spanEvent.getEndPoint(), elapsed, hasException);
+        }
 
+        for (SpanEventStatAggregator.SpanEventStat stat : aggregator.getStats()) {
             /**
              * save information to draw a server map based on statistics
              */
             // save the information of caller (the spanevent that span called )
-            statisticsHandler.updateCaller(span.getApplicationName(), applicationServiceType, span.getAgentId(), spanEvent.getDestinationId(), spanEventType, spanEvent.getEndPoint(), elapsed, hasException);
+            statisticsHandler.updateCaller(span.getApplicationName(), applicationServiceType, span.getAgentId(), stat.getDestinationId(), stat.getServiceType(), stat.getEndPoint(), stat.getElapsed(), stat.isError(), stat.getCount());
 
             // save the information of callee (the span that called spanevent)
-            statisticsHandler.updateCallee(spanEvent.getDestinationId(), spanEventType, span.getApplicationName(), applicationServiceType, span.getEndPoint(), elapsed, hasException);
+            statisticsHandler.updateCallee(stat.getDestinationId(), stat.getServiceType(), span.getApplicationName(), applicationServiceType, span.getEndPoint(), stat.getElapsed(), stat.isError(), stat.getCount());
         }
     }
 
@@ -16,6 +16,7 @@
 
 package com.navercorp.pinpoint.collector.handler;
 
+import com.navercorp.pinpoint.collector.alarm.AlarmWindowAggregator;
 import com.navercorp.pinpoint.collector.dao.MapResponseTimeDao;
 import com.navercorp.pinpoint.collector.dao.MapStatisticsCalleeDao;
 import com.navercorp.pinpoint.collector.dao.MapStatisticsCallerDao;
@@ -41,6 +42,9 @@ public class StatisticsHandler {
     @Autowired
     private MapResponseTimeDao mapResponseTimeDao;
 
+    @Autowired(required = false)
+    private AlarmWindowAggregator alarmWindowAggregator;
+
     /**
      * Calling MySQL from Tomcat generates the following message for the caller(Tomcat) :<br/>
      * emeroad-app (TOMCAT) -> MySQL_DB_ID (MYSQL)[10.25.141.69:3306] <br/>
@@ -57,6 +61,20 @@ public class StatisticsHandler {
      */
     public void updateCaller(String callerApplicationName, ServiceType callerServiceType, String callerAgentId, String calleeApplicationName, ServiceType calleeServiceType, String calleeHost, int elapsed, boolean isError) {
         mapStatisticsCallerDao.update(callerApplicationName, callerServiceType, callerAgentId, calleeApplicationName, calleeServiceType, calleeHost, elapsed, isError);
+        if (alarmWindowAggregator != null) {
+            alarmWindowAggregator.updateCaller(callerApplicationName, calleeApplicationName, calleeServiceType, calleeHost, elapsed, isError, 1);
+        }
+    }
+
+    /**
+     * weighted version of {@link #updateCaller(String, ServiceType, String, String, ServiceType, String, int, boolean)}.
+     * @param count number of calls that fall into the same histogram slot as elapsed
+     */
+    public void updateCaller(String callerApplicationName, ServiceType callerServiceType, String callerAgentId, String calleeApplicationName, ServiceType calleeServiceType, String calleeHost, int elapsed, boolean isError, long count) {
+        mapStatisticsCallerDao.update(callerApplicationName, callerServiceType, callerAgentId, calleeApplicationName, calleeServiceType, calleeHost, elapsed, isError, count);
+        if (alarmWindowAggregator != null) {
+            alarmWindowAggregator.updateCaller(callerApplicationName, calleeApplicationName, calleeServiceType, calleeHost, elapsed, isError, count);
+        }
     }
 
     /**
@@ -77,7 +95,18 @@ public class StatisticsHandler {
         mapStatisticsCalleeDao.update(calleeApplicationName, calleeServiceType, callerApplicationName, callerServiceType, callerHost, elapsed, isError);
     }
 
+    /**
+     * weighted version of {@link #updateCallee(String, ServiceType, String, ServiceType, String, int, boolean)}.
+     * @param count number of calls that fall into the same histogram slot as elapsed
+     */
+    public void updateCallee(String calleeApplicationName, ServiceType calleeServiceType, String callerApplicationName, ServiceType callerServiceType, String callerHost, int elapsed, boolean isError, long count) {
+        mapStatisticsCalleeDao.update(calleeApplicationName, calleeServiceType, callerApplicationName, callerServiceType, callerHost, elapsed, isError, count);
+    }
+
     public void updateResponseTime(String applicationName, ServiceType serviceType, String agentId, int elapsed, boolean isError) {
         mapResponseTimeDao.received(applicationName, serviceType, agentId, elapsed, isError);
+        if (alarmWindowAggregator != null) {
+            alarmWindowAggregator.updateResponseTime(applicationName, serviceType, elapsed, isError);
+        }
     }
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.monitor;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.navercorp.pinpoint.collector.util.PacketBufferPool;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link PacketBufferPool} gauges. reported by {@link CollectorMetric}.
+ *
+ * @author agent
+ */
+public class PacketBufferPoolMetricSet implements MetricSet {
+
+    private final PacketBufferPool pool;
+
+    public PacketBufferPoolMetricSet(PacketBufferPool pool) {
+        if (pool == null) {
+            throw new NullPointerException("pool must not be null");
+        }
+        this.pool = pool;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        final Map<String, Metric> gauges = new HashMap<String, Metric>();
+        gauges.put("inUse", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return pool.getInUse();
+            }
+        });
+        gauges.put("highWaterMark", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return pool.getHighWaterMark();
+            }
+        });
+        gauges.put("exhausted", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return pool.getExhaustedCount();
+            }
+        });
+        gauges.put("allocatedCapacity", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return pool.getAllocatedCapacity();
+            }
+        });
+        return Collections.unmodifiableMap(gauges);
+    }
+}
@@ -48,6 +48,15 @@ public class TcpDispatchHandler extends AbstractDispatchHandler {
     @Qualifier("stringMetaDataHandler")
     private RequestResponseHandler stringMetaDataHandler;
 
+    // spans sent as TraceSendPacket
+    @Autowired()
+    @Qualifier("spanHandler")
+    private SimpleHandler spanDataHandler;
+
+    @Autowired()
+    @Qualifier("spanChunkHandler")
+    private SimpleHandler spanChunkHandler;
+
 
 
     public TcpDispatchHandler() {
@@ -74,7 +83,12 @@ public class TcpDispatchHandler extends AbstractDispatchHandler {
 
     @Override
     SimpleHandler getSimpleHandler(TBase<?, ?> tBase) {
-
+        if (tBase instanceof TSpan) {
+            return spanDataHandler;
+        }
+        if (tBase instanceof TSpanChunk) {
+            return spanChunkHandler;
+        }
         if (tBase instanceof TAgentInfo) {
             return agentInfoHandler;
         }
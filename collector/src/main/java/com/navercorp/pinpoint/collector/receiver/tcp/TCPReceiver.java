@@ -22,6 +22,8 @@ import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -46,6 +48,7 @@ import com.navercorp.pinpoint.rpc.packet.HandshakeResponseCode;
 import com.navercorp.pinpoint.rpc.packet.HandshakeResponseType;
 import com.navercorp.pinpoint.rpc.packet.RequestPacket;
 import com.navercorp.pinpoint.rpc.packet.SendPacket;
+import com.navercorp.pinpoint.rpc.packet.TraceSendPacket;
 import com.navercorp.pinpoint.rpc.server.PinpointServerAcceptor;
 import com.navercorp.pinpoint.rpc.server.PinpointServer;
 import com.navercorp.pinpoint.rpc.server.ServerMessageListener;
@@ -84,6 +87,10 @@ public class TCPReceiver {
 
     private final ThreadPoolExecutor worker = ExecutorFactory.newFixedThreadPool(threadSize, workerQueueSize, THREAD_FACTORY);
 
+    // waits for room in the worker queue on behalf of the io threads.
+    // the channel of a handed off packet stops reading, so the queue holds a few packets per agent at most.
+    private final ExecutorService handOff = Executors.newSingleThreadExecutor(new PinpointThreadFactory("Pinpoint-TCP-HandOff", true));
+
     private final SerializerFactory<HeaderTBaseSerializer> serializerFactory = new ThreadLocalHeaderTBaseSerializerFactory<HeaderTBaseSerializer>(new HeaderTBaseSerializerFactory(true, HeaderTBaseSerializerFactory.DEFAULT_UDP_STREAM_MAX_SIZE));
 
     private final DeserializerFactory<HeaderTBaseDeserializer> deserializerFactory = new ThreadLocalHeaderTBaseDeserializerFactory<HeaderTBaseDeserializer>(new HeaderTBaseDeserializerFactory());
@@ -179,14 +186,44 @@ public class TCPReceiver {
     }
 
     private void receive(SendPacket sendPacket, PinpointServer pinpointServer) {
+        final Dispatch dispatch = new Dispatch(sendPacket.getPayload(), pinpointServer.getRemoteAddress());
         try {
-            worker.execute(new Dispatch(sendPacket.getPayload(), pinpointServer.getRemoteAddress()));
+            worker.execute(dispatch);
         } catch (RejectedExecutionException e) {
+            if (sendPacket instanceof TraceSendPacket) {
+                // the agent keeps the trace until it is acked, so don't drop it.
+                // the io thread must not wait. stop reading from the agent until the packet is handed over,
+                // no more packets are acked meanwhile and the agent's window stalls.
+                handOff(dispatch, pinpointServer);
+                return;
+            }
             // cause is clear - full stack trace not necessary 
             logger.warn("RejectedExecutionException Caused:{}", e.getMessage());
         }
     }
 
+    private void handOff(final Dispatch dispatch, final PinpointServer pinpointServer) {
+        pinpointServer.suspendRead();
+        try {
+            handOff.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        worker.getQueue().put(dispatch);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        logger.warn("TraceSendPacket hand-off interrupted. SendSocketAddress:{}", pinpointServer.getRemoteAddress());
+                    } finally {
+                        pinpointServer.resumeRead();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pinpointServer.resumeRead();
+            logger.warn("RejectedExecutionException Caused:{}", e.getMessage());
+        }
+    }
+
     private void requestResponse(RequestPacket requestPacket, PinpointServer pinpointServer) {
         try {
             worker.execute(new RequestResponseDispatch(requestPacket, pinpointServer));
@@ -288,6 +325,12 @@ public class TCPReceiver {
     public void stop() {
         logger.info("Pinpoint-TCP-Server stop");
         serverAcceptor.close();
+        handOff.shutdown();
+        try {
+            handOff.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         worker.shutdown();
         try {
             worker.awaitTermination(10, TimeUnit.SECONDS);
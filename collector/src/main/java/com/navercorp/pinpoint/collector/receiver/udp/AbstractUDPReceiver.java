@@ -21,12 +21,13 @@ import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.navercorp.pinpoint.collector.receiver.DataReceiver;
 import com.navercorp.pinpoint.collector.receiver.DispatchHandler;
-import com.navercorp.pinpoint.collector.util.DatagramPacketFactory;
-import com.navercorp.pinpoint.collector.util.ObjectPool;
-import com.navercorp.pinpoint.collector.util.PacketUtils;
+import com.navercorp.pinpoint.collector.monitor.PacketBufferPoolMetricSet;
+import com.navercorp.pinpoint.collector.util.PacketBuffer;
+import com.navercorp.pinpoint.collector.util.PacketBufferPool;
 import com.navercorp.pinpoint.common.util.ExecutorFactory;
 import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
 import com.navercorp.pinpoint.rpc.util.CpuUtils;
+import com.navercorp.pinpoint.thrift.io.NetworkAvailabilityCheckPacket;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +39,9 @@ import javax.annotation.PreDestroy;
 
 import java.io.IOException;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -50,6 +54,8 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public abstract class AbstractUDPReceiver implements DataReceiver {
 
+    public static final long DEFAULT_PACKET_POOL_CAPACITY = 1024 * 1024 * 32;
+
     protected final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
 
     private String bindAddress;
@@ -73,13 +79,17 @@ public abstract class AbstractUDPReceiver implements DataReceiver {
     private int workerThreadSize = 128;
     private int workerThreadQueueSize = 1024;
 
-    // can't really allocate memory as max udp packet sizes are unknown.
-    // not allocating memory in advance as I am unsure of the max udp packet size.
-    // packet cache is necessary as the JVM does not last long if they are dynamically created with the maximum size.
-    private ObjectPool<DatagramPacket> datagramPacketPool;
+    // packets are read into a 64KB staging buffer per io thread and copied into an off-heap buffer of the fitting size class.
+    // keeping 64KB arrays per queue slot on the heap is expensive for the GC.
+    private PacketBufferPool packetBufferPool;
+    private int[] packetSizeClasses = PacketBufferPool.parseSizeClasses(PacketBufferPool.DEFAULT_SIZE_CLASSES);
+    private long packetPoolCapacity = DEFAULT_PACKET_POOL_CAPACITY;
+    private String packetPoolMetricName;
 
+    // heap copy for the deserializer. grows up to the largest size class per worker thread.
+    private final ThreadLocal<byte[]> readBuffer = new ThreadLocal<byte[]>();
 
-    private volatile DatagramSocket socket = null;
+    private volatile DatagramChannel channel = null;
 
     private DispatchHandler dispatchHandler;
 
@@ -109,16 +119,29 @@ public abstract class AbstractUDPReceiver implements DataReceiver {
         this.workerThreadQueueSize = workerThreadQueueSize;
     }
 
-    abstract Runnable getPacketDispatcher(AbstractUDPReceiver receiver, DatagramPacket packet);
-    
+    abstract Runnable getPacketDispatcher(AbstractUDPReceiver receiver, PacketBuffer packet);
+
+    public void setPacketSizeClasses(String packetSizeClasses) {
+        this.packetSizeClasses = PacketBufferPool.parseSizeClasses(packetSizeClasses);
+    }
+
+    public void setPacketPoolCapacity(long packetPoolCapacity) {
+        this.packetPoolCapacity = packetPoolCapacity;
+    }
+
+    public void setMetricRegistry(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
     public void afterPropertiesSet() {
         Assert.notNull(dispatchHandler, "dispatchHandler must not be null");
         Assert.notNull(metricRegistry, "metricRegistry must not be null");
 
-        this.socket = createSocket(bindAddress, port, receiverBufferSize);
+        this.channel = createChannel(bindAddress, port, receiverBufferSize);
 
-        final int packetPoolSize = getPacketPoolSize(workerThreadSize, workerThreadQueueSize);
-        this.datagramPacketPool = new ObjectPool<DatagramPacket>(new DatagramPacketFactory(), packetPoolSize);
+        this.packetBufferPool = new PacketBufferPool(packetSizeClasses, packetPoolCapacity);
+        this.packetPoolMetricName = receiverName + "-packetPool";
+        this.metricRegistry.register(packetPoolMetricName, new PacketBufferPoolMetricSet(packetBufferPool));
         this.worker = ExecutorFactory.newFixedThreadPool(workerThreadSize, workerThreadQueueSize, receiverName + "-Worker", true);
 
         this.timer = metricRegistry.timer(receiverName + "-timer");
@@ -129,22 +152,25 @@ public abstract class AbstractUDPReceiver implements DataReceiver {
 
     private void receive() {
         if (logger.isInfoEnabled()) {
-            logger.info("start ioThread localAddress:{}, IoThread:{}", socket.getLocalAddress(), Thread.currentThread().getName());
+            logger.info("start ioThread localAddress:{}, IoThread:{}", channel.socket().getLocalAddress(), Thread.currentThread().getName());
         }
-        final SocketAddress localSocketAddress = socket.getLocalSocketAddress();
+        final SocketAddress localSocketAddress = channel.socket().getLocalSocketAddress();
         final boolean debugEnabled = logger.isDebugEnabled();
+        // owned by this io thread
+        final ByteBuffer staging = ByteBuffer.allocateDirect(PacketBufferPool.MAX_PACKET_SIZE);
 
         // need shutdown logic
         while (state.get()) {
-            DatagramPacket packet = read0();
+            PacketBuffer packet = read0(staging);
             if (packet == null) {
                 continue;
             }
             if (packet.getLength() == 0) {
                 if (debugEnabled) {
-                    logger.debug("length is 0 ip:{}, port:{}", packet.getAddress(), packet.getPort());
+                    logger.debug("length is 0 remoteAddress:{}", packet.getRemoteAddress());
                 }
-                return;
+                packet.release();
+                continue;
             }
             if (debugEnabled) {
                 logger.debug("pool getActiveCount:{}", worker.getActiveCount());
@@ -152,6 +178,7 @@ public abstract class AbstractUDPReceiver implements DataReceiver {
             try {
                 worker.execute(getPacketDispatcher(this, packet));
             } catch (RejectedExecutionException ree) {
+                packet.release();
                 rejectedCounter.inc();
                 final int error = rejectedExecutionCount.incrementAndGet();
                 final int mod = 100;
@@ -165,27 +192,17 @@ public abstract class AbstractUDPReceiver implements DataReceiver {
         }
     }
 
-    private DatagramPacket read0() {
-        boolean success = false;
-        DatagramPacket packet = datagramPacketPool.getObject();
-        if (packet == null) {
-            logger.error("datagramPacketPool is empty");
-            return null;
-        }
+    private PacketBuffer read0(ByteBuffer staging) {
+        final SocketAddress remoteAddress;
         try {
-            try {
-                socket.receive(packet);
-                success = true;
-            } catch (SocketTimeoutException e) {
+            staging.clear();
+            remoteAddress = channel.receive(staging);
+            if (remoteAddress == null) {
                 return null;
             }
-            if (logger.isDebugEnabled()) {
-                logger.debug("DatagramPacket SocketAddress:{} read size:{}", packet.getSocketAddress(), packet.getLength());
-                if (logger.isTraceEnabled()) {
-                    // use trace as packet dump may be large
-                    logger.trace("dump packet:{}", PacketUtils.dumpDatagramPacket(packet));
-                }
-            }
+        } catch (ClosedChannelException e) {
+            // shutdown
+            return null;
         } catch (IOException e) {
             if (!state.get()) {
                 // shutdown
@@ -193,17 +210,47 @@ public abstract class AbstractUDPReceiver implements DataReceiver {
                 logger.error("IoError, Caused:", e.getMessage(), e);
             }
             return null;
-        } finally {
-            if (!success) {
-                datagramPacketPool.returnObject(packet);
-            }
+        }
+        staging.flip();
+        final PacketBuffer packet = packetBufferPool.allocate(staging.remaining());
+        packet.write(staging);
+        packet.setRemoteAddress(remoteAddress);
+        if (logger.isDebugEnabled()) {
+            logger.debug("DatagramPacket SocketAddress:{} read size:{}", remoteAddress, packet.getLength());
         }
         return packet;
     }
 
-    private DatagramSocket createSocket(String bindAddress, int port, int receiveBufferSize) {
+    /**
+     * copies the packet to a heap buffer owned by the current thread.
+     */
+    byte[] readPacket(PacketBuffer packet) {
+        final int length = packet.getLength();
+        byte[] bytes = readBuffer.get();
+        if (bytes == null || bytes.length < length) {
+            bytes = new byte[packetBufferPool.getSizeClass(length)];
+            readBuffer.set(bytes);
+        }
+        packet.read(bytes);
+        return bytes;
+    }
+
+    void responseOK(PacketBuffer packet) {
+        try {
+            channel.send(ByteBuffer.wrap(NetworkAvailabilityCheckPacket.DATA_OK), packet.getRemoteAddress());
+        } catch (IOException e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("pong error. SendSocketAddress:{} Cause:{}", packet.getRemoteAddress(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private DatagramChannel createChannel(String bindAddress, int port, int receiveBufferSize) {
+        DatagramChannel channel = null;
         try {
-            DatagramSocket so = new DatagramSocket(null);
+            channel = DatagramChannel.open();
+            channel.configureBlocking(true);
+            DatagramSocket so = channel.socket();
             so.setReceiveBufferSize(receiveBufferSize);
             if (logger.isWarnEnabled()) {
                 final int checkReceiveBufferSize = so.getReceiveBufferSize();
@@ -211,25 +258,27 @@ public abstract class AbstractUDPReceiver implements DataReceiver {
                     logger.warn("DatagramSocket.setReceiveBufferSize() error. {}!={}", receiveBufferSize, checkReceiveBufferSize);
                 }
             }
-            so.setSoTimeout(1000 * 5);
             // bind timing feels a bit early
             so.bind(new InetSocketAddress(bindAddress, port));
-            return so;
-        } catch (SocketException ex) {
+            return channel;
+        } catch (IOException ex) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignore) {
+                    // skip
+                }
+            }
             throw new RuntimeException("Socket create Fail. port:" + port + " Caused:" + ex.getMessage(), ex);
         }
     }
 
-    private int getPacketPoolSize(int workerThreadSize, int workerThreadQueueSize) {
-        return workerThreadSize + workerThreadQueueSize + ioThreadSize;
-    }
-
     @PostConstruct
     @Override
     public void start() {
         logger.info("{} start.", receiverName);
         afterPropertiesSet();
-        if (socket == null) {
+        if (channel == null) {
             throw new RuntimeException("socket create fail");
         }
 
@@ -251,9 +300,17 @@ public abstract class AbstractUDPReceiver implements DataReceiver {
         logger.info("{} shutdown.", this.receiverName);
         state.set(false);
         // is it okay to just close here?
-        socket.close();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("DatagramChannel.close() error. Caused:{}", e.getMessage(), e);
+        }
         shutdownExecutor(io, "IoExecutor");
         shutdownExecutor(worker, "WorkerExecutor");
+        logger.info("{} {}", this.receiverName, packetBufferPool);
+        for (String name : new PacketBufferPoolMetricSet(packetBufferPool).getMetrics().keySet()) {
+            metricRegistry.remove(MetricRegistry.name(packetPoolMetricName, name));
+        }
     }
 
     private void shutdownExecutor(ExecutorService executor, String executorName) {
@@ -274,11 +331,11 @@ public abstract class AbstractUDPReceiver implements DataReceiver {
         return dispatchHandler;
     }
 
-    public ObjectPool<DatagramPacket> getDatagramPacketPool() {
-        return datagramPacketPool;
+    public PacketBufferPool getPacketBufferPool() {
+        return packetBufferPool;
     }
 
-    public DatagramSocket getSocket() {
-        return socket;
+    public DatagramChannel getChannel() {
+        return channel;
     }
 }
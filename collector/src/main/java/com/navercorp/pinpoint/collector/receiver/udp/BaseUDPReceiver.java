@@ -18,14 +18,14 @@ package com.navercorp.pinpoint.collector.receiver.udp;
 
 import com.codahale.metrics.Timer;
 import com.navercorp.pinpoint.collector.receiver.DispatchHandler;
+import com.navercorp.pinpoint.collector.util.PacketBuffer;
 import com.navercorp.pinpoint.collector.util.PacketUtils;
 import com.navercorp.pinpoint.thrift.io.*;
 
 import org.apache.thrift.TBase;
 import org.apache.thrift.TException;
 
-import java.io.IOException;
-import java.net.*;
+import java.util.List;
 
 /**
  * @author emeroad
@@ -33,21 +33,22 @@ import java.net.*;
  */
 public class BaseUDPReceiver extends AbstractUDPReceiver {
     private DeserializerFactory<HeaderTBaseDeserializer> deserializerFactory = new ThreadLocalHeaderTBaseDeserializerFactory<HeaderTBaseDeserializer>(new HeaderTBaseDeserializerFactory());
+    private final DeserializerFactory<ChunkHeaderTBaseDeserializer> chunkDeserializerFactory = new ThreadLocalHeaderTBaseDeserializerFactory<ChunkHeaderTBaseDeserializer>(new ChunkHeaderTBaseDeserializerFactory());
 
     public BaseUDPReceiver(String receiverName, DispatchHandler dispatchHandler, String bindAddress, int port, int receiverBufferSize, int workerThreadSize, int workerThreadQueueSize) {
         super(receiverName, dispatchHandler, bindAddress, port, receiverBufferSize, workerThreadSize, workerThreadQueueSize);
     }
     
     @Override
-    Runnable getPacketDispatcher(AbstractUDPReceiver receiver, DatagramPacket packet) {
+    Runnable getPacketDispatcher(AbstractUDPReceiver receiver, PacketBuffer packet) {
         return new DispatchPacket(receiver, packet);
     }
 
     private class DispatchPacket implements Runnable {
         private final AbstractUDPReceiver receiver;
-        private final DatagramPacket packet;
+        private final PacketBuffer packet;
 
-        private DispatchPacket(AbstractUDPReceiver receiver, DatagramPacket packet) {
+        private DispatchPacket(AbstractUDPReceiver receiver, PacketBuffer packet) {
             if (packet == null) {
                 throw new NullPointerException("packet must not be null");
             }
@@ -59,63 +60,54 @@ public class BaseUDPReceiver extends AbstractUDPReceiver {
         public void run() {
             Timer.Context time = receiver.getTimer().time();
 
+            final ChunkHeaderTBaseDeserializer chunkDeserializer = chunkDeserializerFactory.createDeserializer();
             final HeaderTBaseDeserializer deserializer = (HeaderTBaseDeserializer) deserializerFactory.createDeserializer();
+            final byte[] bytes = receiver.readPacket(packet);
             TBase<?, ?> tBase = null;
             try {
-                tBase = deserializer.deserialize(packet.getData());
-                if (tBase instanceof L4Packet) {
-                    if (logger.isDebugEnabled()) {
-                        L4Packet packet = (L4Packet) tBase;
-                        logger.debug("udp l4 packet {}", packet.getHeader());
+                // NIO_UDP agents pack several messages into one chunked datagram
+                final List<TBase<?, ?>> list = UDPPacketDecoder.decode(chunkDeserializer, deserializer, bytes, packet.getLength());
+                for (TBase<?, ?> base : list) {
+                    tBase = base;
+                    if (tBase instanceof L4Packet) {
+                        if (logger.isDebugEnabled()) {
+                            L4Packet packet = (L4Packet) tBase;
+                            logger.debug("udp l4 packet {}", packet.getHeader());
+                        }
+                        continue;
                     }
-                    return;
-                }
-                // Network port availability check packet
-                if (tBase instanceof NetworkAvailabilityCheckPacket) {
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("received udp network availability check packet.");
+                    // Network port availability check packet
+                    if (tBase instanceof NetworkAvailabilityCheckPacket) {
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("received udp network availability check packet.");
+                        }
+                        receiver.responseOK(packet);
+                        continue;
                     }
-                    responseOK();
-                    return;
+                    // dispatch signifies business logic execution
+                    receiver.getDispatchHandler().dispatchSendMessage(tBase, bytes, Header.HEADER_SIZE, packet.getLength());
                 }
-                // dispatch signifies business logic execution
-                receiver.getDispatchHandler().dispatchSendMessage(tBase, packet.getData(), Header.HEADER_SIZE, packet.getLength());
             } catch (TException e) {
                 if (logger.isWarnEnabled()) {
-                    logger.warn("packet serialize error. SendSocketAddress:{} Cause:{}", packet.getSocketAddress(), e.getMessage(), e);
+                    logger.warn("packet serialize error. SendSocketAddress:{} Cause:{}", packet.getRemoteAddress(), e.getMessage(), e);
                 }
                 if (logger.isDebugEnabled()) {
-                    logger.debug("packet dump hex:{}", PacketUtils.dumpDatagramPacket(packet));
+                    logger.debug("packet dump hex:{}", PacketUtils.dumpByteArray(bytes, 0, packet.getLength()));
                 }
             } catch (Exception e) {
                 // there are cases where invalid headers are received
                 if (logger.isWarnEnabled()) {
-                    logger.warn("Unexpected error. SendSocketAddress:{} Cause:{} tBase:{}", packet.getSocketAddress(), e.getMessage(), tBase, e);
+                    logger.warn("Unexpected error. SendSocketAddress:{} Cause:{} tBase:{}", packet.getRemoteAddress(), e.getMessage(), tBase, e);
                 }
                 if (logger.isDebugEnabled()) {
-                    logger.debug("packet dump hex:{}", PacketUtils.dumpDatagramPacket(packet));
+                    logger.debug("packet dump hex:{}", PacketUtils.dumpByteArray(bytes, 0, packet.getLength()));
                 }
             } finally {
-                receiver.getDatagramPacketPool().returnObject(packet);
+                packet.release();
                 // what should we do when an exception is thrown?
                 time.stop();
             }
         }
-
-        private void responseOK() {
-            try {
-                byte[] okBytes = NetworkAvailabilityCheckPacket.DATA_OK;
-                DatagramPacket pongPacket = new DatagramPacket(okBytes, okBytes.length, packet.getSocketAddress());
-                receiver.getSocket().send(pongPacket);
-            } catch (IOException e) {
-                if (logger.isWarnEnabled()) {
-                    logger.warn("pong error. SendSocketAddress:{} Cause:{}", packet.getSocketAddress(), e.getMessage(), e);
-                }
-                if (logger.isDebugEnabled()) {
-                    logger.debug("packet dump hex:{}", PacketUtils.dumpDatagramPacket(packet));
-                }
-            }
-        }
     }
 
 }
@@ -18,14 +18,13 @@ package com.navercorp.pinpoint.collector.receiver.udp;
 
 import com.codahale.metrics.Timer;
 import com.navercorp.pinpoint.collector.receiver.DispatchHandler;
+import com.navercorp.pinpoint.collector.util.PacketBuffer;
 import com.navercorp.pinpoint.collector.util.PacketUtils;
 import com.navercorp.pinpoint.thrift.io.*;
 
 import org.apache.thrift.TBase;
 import org.apache.thrift.TException;
 
-import java.io.IOException;
-import java.net.*;
 import java.util.List;
 
 /**
@@ -43,15 +42,15 @@ public class ChunkedUDPReceiver extends AbstractUDPReceiver {
     }
     
     @Override
-    Runnable getPacketDispatcher(AbstractUDPReceiver receiver, DatagramPacket packet) {
+    Runnable getPacketDispatcher(AbstractUDPReceiver receiver, PacketBuffer packet) {
         return new DispatchPacket(receiver, packet);
     }
 
     private class DispatchPacket implements Runnable {
         private final AbstractUDPReceiver receiver;
-        private final DatagramPacket packet;
+        private final PacketBuffer packet;
 
-        private DispatchPacket(AbstractUDPReceiver receiver, DatagramPacket packet) {
+        private DispatchPacket(AbstractUDPReceiver receiver, PacketBuffer packet) {
             if (packet == null) {
                 throw new NullPointerException("packet must not be null");
             }
@@ -64,8 +63,9 @@ public class ChunkedUDPReceiver extends AbstractUDPReceiver {
             Timer.Context time = receiver.getTimer().time();
 
             final ChunkHeaderTBaseDeserializer deserializer = deserializerFactory.createDeserializer();
+            final byte[] bytes = receiver.readPacket(packet);
             try {
-                List<TBase<?, ?>> list = deserializer.deserialize(packet.getData(), packet.getOffset(), packet.getLength());
+                List<TBase<?, ?>> list = deserializer.deserialize(bytes, 0, packet.getLength());
                 if (list == null) {
                     return;
                 }
@@ -83,46 +83,31 @@ public class ChunkedUDPReceiver extends AbstractUDPReceiver {
                         if (logger.isDebugEnabled()) {
                             logger.debug("received udp network availability check packet.");
                         }
-                        responseOK();
+                        receiver.responseOK(packet);
                         continue;
                     }
                     // dispatch signifies business logic execution
-                    receiver.getDispatchHandler().dispatchSendMessage(tBase, packet.getData(), Header.HEADER_SIZE, packet.getLength());
+                    receiver.getDispatchHandler().dispatchSendMessage(tBase, bytes, Header.HEADER_SIZE, packet.getLength());
                 }
             } catch (TException e) {
                 if (logger.isWarnEnabled()) {
-                    logger.warn("packet serialize error. SendSocketAddress:{} Cause:{}", packet.getSocketAddress(), e.getMessage(), e);
+                    logger.warn("packet serialize error. SendSocketAddress:{} Cause:{}", packet.getRemoteAddress(), e.getMessage(), e);
                 }
                 if (logger.isDebugEnabled()) {
-                    logger.debug("packet dump hex:{}", PacketUtils.dumpDatagramPacket(packet));
+                    logger.debug("packet dump hex:{}", PacketUtils.dumpByteArray(bytes, 0, packet.getLength()));
                 }
             } catch (Exception e) {
                 if (logger.isWarnEnabled()) {
-                    logger.warn("Unexpected error. SendSocketAddress:{} Cause:{} ", packet.getSocketAddress(), e.getMessage(), e);
+                    logger.warn("Unexpected error. SendSocketAddress:{} Cause:{} ", packet.getRemoteAddress(), e.getMessage(), e);
                 }
                 if (logger.isDebugEnabled()) {
-                    logger.debug("packet dump hex:{}", PacketUtils.dumpDatagramPacket(packet));
+                    logger.debug("packet dump hex:{}", PacketUtils.dumpByteArray(bytes, 0, packet.getLength()));
                 }
             } finally {
-                receiver.getDatagramPacketPool().returnObject(packet);
+                packet.release();
                 time.stop();
             }
         }
-
-        private void responseOK() {
-            try {
-                byte[] okBytes = NetworkAvailabilityCheckPacket.DATA_OK;
-                DatagramPacket pongPacket = new DatagramPacket(okBytes, okBytes.length, packet.getSocketAddress());
-                receiver.getSocket().send(pongPacket);
-            } catch (IOException e) {
-                if (logger.isWarnEnabled()) {
-                    logger.warn("pong error. SendSocketAddress:{} Cause:{}", packet.getSocketAddress(), e.getMessage(), e);
-                }
-                if (logger.isDebugEnabled()) {
-                    logger.debug("packet dump hex:{}", PacketUtils.dumpDatagramPacket(packet));
-                }
-            }
-        }
     }
 
 }
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.receiver.udp;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.navercorp.pinpoint.collector.receiver.DataReceiver;
+import com.navercorp.pinpoint.collector.receiver.DispatchHandler;
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
+import com.navercorp.pinpoint.thrift.io.ChunkHeaderTBaseDeserializer;
+import com.navercorp.pinpoint.thrift.io.ChunkHeaderTBaseDeserializerFactory;
+import com.navercorp.pinpoint.thrift.io.Header;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseDeserializer;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseDeserializerFactory;
+import com.navercorp.pinpoint.thrift.io.L4Packet;
+import com.navercorp.pinpoint.thrift.io.NetworkAvailabilityCheckPacket;
+
+import org.apache.thrift.TBase;
+import org.apache.thrift.TException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.util.Assert;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shard-per-thread UDP receiver.
+ * Binds one {@link DatagramChannel} per io thread to the same port with SO_REUSEPORT, so that the kernel spreads packets across the channels.
+ * Each io thread reads into its own direct buffer and decodes/dispatches on the same thread. There is no worker queue to overflow.
+ * <p>
+ * When SO_REUSEPORT is not available (JDK 8 or lower), all io threads share a single channel and only the decoding is spread across them.
+ * Both plain(profiler.collector.span.sender.type=UDP) and chunked(NIO_UDP) packets are accepted.
+ * <p>
+ * Selected with collector.receiver.udp.span.type=NIO.
+ *
+ * @author agent
+ */
+public class NioUDPReceiver implements DataReceiver {
+
+    private static final int ACCEPTED_SIZE = 65507;
+
+    protected final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+    private final String receiverName;
+    private final DispatchHandler dispatchHandler;
+    private final String bindAddress;
+    private final int port;
+    private final int receiverBufferSize;
+    private final int ioThreadSize;
+
+    @Autowired
+    private MetricRegistry metricRegistry;
+
+    private Timer timer;
+    private Counter errorCounter;
+
+    private final List<DatagramChannel> channelList = new ArrayList<DatagramChannel>();
+    private ExecutorService io;
+
+    private final AtomicBoolean state = new AtomicBoolean(true);
+
+    public NioUDPReceiver(String receiverName, DispatchHandler dispatchHandler, String bindAddress, int port, int receiverBufferSize, int ioThreadSize) {
+        if (receiverName == null) {
+            throw new NullPointerException("receiverName must not be null");
+        }
+        if (dispatchHandler == null) {
+            throw new NullPointerException("dispatchHandler must not be null");
+        }
+        if (bindAddress == null) {
+            throw new NullPointerException("bindAddress must not be null");
+        }
+        if (ioThreadSize <= 0) {
+            throw new IllegalArgumentException("ioThreadSize must be greater than 0");
+        }
+        this.receiverName = receiverName;
+        this.dispatchHandler = dispatchHandler;
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.receiverBufferSize = receiverBufferSize;
+        this.ioThreadSize = ioThreadSize;
+    }
+
+    public void setMetricRegistry(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    public void afterPropertiesSet() {
+        Assert.notNull(metricRegistry, "metricRegistry must not be null");
+
+        this.timer = metricRegistry.timer(receiverName + "-timer");
+        this.errorCounter = metricRegistry.counter(receiverName + "-error");
+        this.io = Executors.newFixedThreadPool(ioThreadSize, new PinpointThreadFactory(receiverName + "-Io", true));
+
+        createChannels();
+    }
+
+    private void createChannels() {
+        final InetSocketAddress bindSocketAddress = new InetSocketAddress(bindAddress, port);
+
+        // the first channel decides whether the port is sharded or shared.
+        final boolean tryReusePort = ioThreadSize > 1 && ReusePortSupport.isAvailable();
+        final DatagramChannel first = openChannel();
+        channelList.add(first);
+        final boolean reusePort = tryReusePort && ReusePortSupport.enable(first);
+        bindChannel(first, bindSocketAddress);
+        if (!reusePort) {
+            if (ioThreadSize > 1) {
+                logger.warn("{} SO_REUSEPORT not available(requires JDK 9+). the port is NOT sharded, {} io threads share a single channel.", receiverName, ioThreadSize);
+            }
+            return;
+        }
+        for (int i = 1; i < ioThreadSize; i++) {
+            final DatagramChannel channel = openChannel();
+            channelList.add(channel);
+            if (!ReusePortSupport.enable(channel)) {
+                closeChannels();
+                throw new IllegalStateException("SO_REUSEPORT set fail. port:" + port);
+            }
+            bindChannel(channel, bindSocketAddress);
+        }
+        logger.info("{} SO_REUSEPORT enabled. channel:{}", receiverName, channelList.size());
+    }
+
+    private DatagramChannel openChannel() {
+        DatagramChannel channel = null;
+        try {
+            channel = DatagramChannel.open();
+            channel.configureBlocking(true);
+            channel.socket().setReceiveBufferSize(receiverBufferSize);
+            if (logger.isWarnEnabled()) {
+                final int checkReceiveBufferSize = channel.socket().getReceiveBufferSize();
+                if (receiverBufferSize != checkReceiveBufferSize) {
+                    logger.warn("DatagramChannel.setReceiveBufferSize() error. {}!={}", receiverBufferSize, checkReceiveBufferSize);
+                }
+            }
+            return channel;
+        } catch (IOException ex) {
+            closeChannel(channel);
+            closeChannels();
+            throw new RuntimeException("DatagramChannel create Fail. port:" + port + " Caused:" + ex.getMessage(), ex);
+        }
+    }
+
+    private void bindChannel(DatagramChannel channel, InetSocketAddress bindSocketAddress) {
+        try {
+            channel.socket().bind(bindSocketAddress);
+        } catch (IOException ex) {
+            closeChannels();
+            throw new RuntimeException("DatagramChannel bind Fail. port:" + port + " Caused:" + ex.getMessage(), ex);
+        }
+    }
+
+    @PostConstruct
+    @Override
+    public void start() {
+        logger.info("{} start.", receiverName);
+        afterPropertiesSet();
+
+        logger.info("UDP Packet reader:{} started.", ioThreadSize);
+        for (int i = 0; i < ioThreadSize; i++) {
+            final DatagramChannel channel = channelList.get(i % channelList.size());
+            io.execute(new Runnable() {
+                @Override
+                public void run() {
+                    receive(channel);
+                }
+            });
+        }
+    }
+
+    private void receive(DatagramChannel channel) {
+        if (logger.isInfoEnabled()) {
+            logger.info("start ioThread localAddress:{}, IoThread:{}", channel.socket().getLocalSocketAddress(), Thread.currentThread().getName());
+        }
+        // owned by this thread.
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(ACCEPTED_SIZE);
+        final byte[] packet = new byte[ACCEPTED_SIZE];
+        final ChunkHeaderTBaseDeserializer chunkDeserializer = ChunkHeaderTBaseDeserializerFactory.DEFAULT_FACTORY.createDeserializer();
+        final HeaderTBaseDeserializer deserializer = HeaderTBaseDeserializerFactory.DEFAULT_FACTORY.createDeserializer();
+
+        while (state.get()) {
+            buffer.clear();
+            final SocketAddress remoteAddress;
+            try {
+                remoteAddress = channel.receive(buffer);
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                if (state.get()) {
+                    logger.error("IoError, Caused:{}", e.getMessage(), e);
+                }
+                continue;
+            }
+            if (remoteAddress == null) {
+                continue;
+            }
+            buffer.flip();
+            final int length = buffer.remaining();
+            if (length == 0) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("length is 0 remoteAddress:{}", remoteAddress);
+                }
+                continue;
+            }
+            buffer.get(packet, 0, length);
+            dispatch(channel, chunkDeserializer, deserializer, remoteAddress, packet, length);
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info("stop ioThread IoThread:{}", Thread.currentThread().getName());
+        }
+    }
+
+    private void dispatch(DatagramChannel channel, ChunkHeaderTBaseDeserializer chunkDeserializer, HeaderTBaseDeserializer deserializer, SocketAddress remoteAddress, byte[] packet, int length) {
+        final Timer.Context time = timer.time();
+        try {
+            final List<TBase<?, ?>> list = UDPPacketDecoder.decode(chunkDeserializer, deserializer, packet, length);
+            for (TBase<?, ?> tBase : list) {
+                if (tBase instanceof L4Packet) {
+                    if (logger.isDebugEnabled()) {
+                        L4Packet l4Packet = (L4Packet) tBase;
+                        logger.debug("udp l4 packet {}", l4Packet.getHeader());
+                    }
+                    continue;
+                }
+                // Network port availability check packet
+                if (tBase instanceof NetworkAvailabilityCheckPacket) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("received udp network availability check packet.");
+                    }
+                    responseOK(channel, remoteAddress);
+                    continue;
+                }
+                // dispatch signifies business logic execution
+                dispatchHandler.dispatchSendMessage(tBase, packet, Header.HEADER_SIZE, length);
+            }
+        } catch (TException e) {
+            errorCounter.inc();
+            if (logger.isWarnEnabled()) {
+                logger.warn("packet serialize error. SendSocketAddress:{} Cause:{}", remoteAddress, e.getMessage(), e);
+            }
+        } catch (Exception e) {
+            errorCounter.inc();
+            if (logger.isWarnEnabled()) {
+                logger.warn("Unexpected error. SendSocketAddress:{} Cause:{}", remoteAddress, e.getMessage(), e);
+            }
+        } finally {
+            time.stop();
+        }
+    }
+
+    private void responseOK(DatagramChannel channel, SocketAddress remoteAddress) {
+        try {
+            channel.send(ByteBuffer.wrap(NetworkAvailabilityCheckPacket.DATA_OK), remoteAddress);
+        } catch (IOException e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("pong error. SendSocketAddress:{} Cause:{}", remoteAddress, e.getMessage(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void shutdown() {
+        logger.info("{} shutdown.", this.receiverName);
+        state.set(false);
+        closeChannels();
+        if (io != null) {
+            io.shutdown();
+            try {
+                io.awaitTermination(1000 * 10, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                logger.info("IoExecutor.shutdown() Interrupted", e);
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void closeChannels() {
+        for (DatagramChannel channel : channelList) {
+            closeChannel(channel);
+        }
+    }
+
+    private void closeChannel(DatagramChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ignore) {
+            // skip
+        }
+    }
+
+    int getChannelCount() {
+        return channelList.size();
+    }
+}
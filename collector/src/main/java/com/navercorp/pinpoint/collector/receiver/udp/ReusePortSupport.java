@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.receiver.udp;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.channels.DatagramChannel;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SO_REUSEPORT for {@link DatagramChannel}.
+ * The option is only exposed from JDK 9 (StandardSocketOptions.SO_REUSEPORT), so it is looked up by reflection.
+ *
+ * @author agent
+ */
+final class ReusePortSupport {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReusePortSupport.class);
+
+    private static final Object SO_REUSEPORT = findReusePortOption();
+    private static final Method SET_OPTION = findMethod("setOption", "java.net.SocketOption", Object.class);
+    private static final Method SUPPORTED_OPTIONS = findMethod("supportedOptions");
+
+    private ReusePortSupport() {
+    }
+
+    private static Object findReusePortOption() {
+        try {
+            final Class<?> standardSocketOptions = Class.forName("java.net.StandardSocketOptions");
+            final Field field = standardSocketOptions.getField("SO_REUSEPORT");
+            return field.get(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static Method findMethod(String name, Object... parameterTypes) {
+        try {
+            final Class<?>[] types = new Class<?>[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                final Object type = parameterTypes[i];
+                if (type instanceof String) {
+                    types[i] = Class.forName((String) type);
+                } else {
+                    types[i] = (Class<?>) type;
+                }
+            }
+            return DatagramChannel.class.getMethod(name, types);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    static boolean isAvailable() {
+        return SO_REUSEPORT != null && SET_OPTION != null && SUPPORTED_OPTIONS != null;
+    }
+
+    /**
+     * must be called before bind.
+     * @return true if SO_REUSEPORT is set.
+     */
+    static boolean enable(DatagramChannel channel) {
+        if (!isAvailable()) {
+            return false;
+        }
+        try {
+            final Set<?> supportedOptions = (Set<?>) SUPPORTED_OPTIONS.invoke(channel);
+            if (!supportedOptions.contains(SO_REUSEPORT)) {
+                return false;
+            }
+            SET_OPTION.invoke(channel, SO_REUSEPORT, Boolean.TRUE);
+            return true;
+        } catch (Exception e) {
+            logger.warn("SO_REUSEPORT set fail. Caused:{}", e.getMessage(), e);
+            return false;
+        }
+    }
+}
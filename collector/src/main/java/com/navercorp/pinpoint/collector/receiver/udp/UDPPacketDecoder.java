@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.receiver.udp;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.thrift.TBase;
+import org.apache.thrift.TException;
+
+import com.navercorp.pinpoint.thrift.io.ChunkHeaderTBaseDeserializer;
+import com.navercorp.pinpoint.thrift.io.DefaultTBaseLocator;
+import com.navercorp.pinpoint.thrift.io.Header;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseDeserializer;
+import com.navercorp.pinpoint.thrift.io.TBaseLocator;
+
+/**
+ * decodes both plain(profiler.collector.span.sender.type=UDP) and chunked(NIO_UDP) datagrams.
+ *
+ * @author agent
+ */
+final class UDPPacketDecoder {
+
+    private static final TBaseLocator LOCATOR = new DefaultTBaseLocator();
+
+    private UDPPacketDecoder() {
+    }
+
+    static List<TBase<?, ?>> decode(ChunkHeaderTBaseDeserializer chunkDeserializer, HeaderTBaseDeserializer deserializer, byte[] packet, int length) throws TException {
+        if (isChunked(packet, length)) {
+            return chunkDeserializer.deserialize(packet, 0, length);
+        }
+        // ChunkHeaderTBaseDeserializer expects a second header after the first one, so a plain packet needs its own deserializer.
+        final TBase<?, ?> tBase = deserializer.deserialize(packet);
+        if (tBase == null) {
+            return Collections.emptyList();
+        }
+        return Collections.<TBase<?, ?>>singletonList(tBase);
+    }
+
+    static boolean isChunked(byte[] packet, int length) {
+        if (length < Header.HEADER_SIZE) {
+            return false;
+        }
+        // signature, version, type(2 bytes)
+        final short type = (short) (((packet[2] & 0xff) << 8) | (packet[3] & 0xff));
+        return LOCATOR.isChunkHeader(type);
+    }
+}
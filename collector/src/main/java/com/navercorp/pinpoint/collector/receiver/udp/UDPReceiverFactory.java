@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.receiver.udp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.navercorp.pinpoint.collector.config.CollectorConfiguration;
+import com.navercorp.pinpoint.collector.receiver.DataReceiver;
+import com.navercorp.pinpoint.collector.receiver.DispatchHandler;
+
+/**
+ * creates the udp span receiver selected by collector.receiver.udp.span.type.
+ *
+ * @author agent
+ */
+public final class UDPReceiverFactory {
+
+    public static final String SPAN_RECEIVER_TYPE_BASE = "BASE";
+    public static final String SPAN_RECEIVER_TYPE_NIO = "NIO";
+
+    private static final Logger logger = LoggerFactory.getLogger(UDPReceiverFactory.class);
+
+    private UDPReceiverFactory() {
+    }
+
+    public static DataReceiver createSpanReceiver(String receiverName, DispatchHandler dispatchHandler, CollectorConfiguration configuration) {
+        if (configuration == null) {
+            throw new NullPointerException("configuration must not be null");
+        }
+        final String receiverType = configuration.getUdpSpanReceiverType();
+        if (SPAN_RECEIVER_TYPE_NIO.equalsIgnoreCase(receiverType)) {
+            logger.info("{} receiver type:{}", receiverName, SPAN_RECEIVER_TYPE_NIO);
+            return new NioUDPReceiver(receiverName, dispatchHandler, configuration.getUdpSpanListenIp(), configuration.getUdpSpanListenPort(),
+                    configuration.getUdpSpanSocketReceiveBufferSize(), configuration.getUdpSpanIoThread());
+        }
+        if (!SPAN_RECEIVER_TYPE_BASE.equalsIgnoreCase(receiverType)) {
+            logger.warn("Unknown udp span receiver type:{}. use {}", receiverType, SPAN_RECEIVER_TYPE_BASE);
+        }
+        final BaseUDPReceiver receiver = new BaseUDPReceiver(receiverName, dispatchHandler, configuration.getUdpSpanListenIp(), configuration.getUdpSpanListenPort(),
+                configuration.getUdpSpanSocketReceiveBufferSize(), configuration.getUdpSpanWorkerThread(), configuration.getUdpSpanWorkerQueueSize());
+        receiver.setPacketSizeClasses(configuration.getUdpSpanPacketSizeClasses());
+        receiver.setPacketPoolCapacity(configuration.getUdpSpanPacketPoolCapacity());
+        return receiver;
+    }
+}
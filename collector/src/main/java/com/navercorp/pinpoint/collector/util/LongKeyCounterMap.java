@@ -0,0 +1,274 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free counter map on primitive long keys.
+ * The table is pre-sized and grows by doubling.
+ * Each key owns stripeSize cells picked by thread id, so threads counting a hot key rarely write the same cell.
+ * <p>
+ * {@link #seal()} retires every counter and returns the counts. an increment that meets a sealed map returns false,
+ * so the caller can retry on a new map and no increment is lost.
+ * <p>
+ * 0 is reserved for the empty slot and can not be used as a key.
+ *
+ * @author agent
+ */
+public class LongKeyCounterMap {
+
+    public static final int DEFAULT_INITIAL_CAPACITY = 1024;
+    public static final int DEFAULT_STRIPE_SIZE = 4;
+
+    private static final long EMPTY = 0;
+    private static final long RETIRED = Long.MIN_VALUE;
+    private static final int FULL = -1;
+
+    private final int stripeMask;
+
+    private final Object lock = new Object();
+    private volatile Table table;
+    private volatile boolean sealed = false;
+
+    public LongKeyCounterMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_STRIPE_SIZE);
+    }
+
+    public LongKeyCounterMap(int initialCapacity, int stripeSize) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("initialCapacity must be greater than 0");
+        }
+        if (stripeSize <= 0) {
+            throw new IllegalArgumentException("stripeSize must be greater than 0");
+        }
+        this.stripeMask = roundToPowerOfTwo(stripeSize) - 1;
+        // keeps the load factor under 0.5
+        this.table = new Table(roundToPowerOfTwo(initialCapacity * 2), stripeMask + 1);
+    }
+
+    private static int roundToPowerOfTwo(int value) {
+        int size = 1;
+        while (size < value) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    /**
+     * @return false if the map was sealed.
+     */
+    public boolean increment(long key, long increment) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("key must not be 0");
+        }
+        final int stripe = stripe();
+        while (true) {
+            final Table table = this.table;
+            final int slot = table.slot(key, false);
+            if (slot == FULL) {
+                if (sealed) {
+                    return false;
+                }
+                grow(table);
+                continue;
+            }
+            if (table.add(slot, stripe, increment)) {
+                return true;
+            }
+            // retired. the table is replaced before grow() retires it and the map is sealed before seal() retires it.
+            if (sealed && this.table == table) {
+                return false;
+            }
+        }
+    }
+
+    private int stripe() {
+        final long threadId = Thread.currentThread().getId();
+        return (int) ((threadId * 0x9E3779B97F4A7C15L) >>> 32) & stripeMask;
+    }
+
+    private void grow(Table old) {
+        synchronized (lock) {
+            if (sealed || this.table != old) {
+                return;
+            }
+            final Table newTable = new Table(old.capacity * 2, old.stripeSize);
+            this.table = newTable;
+            for (int slot = 0; slot < old.capacity; slot++) {
+                final long value = old.retire(slot);
+                if (value != 0) {
+                    final long key = old.keys.get(slot);
+                    newTable.add(newTable.slot(key, true), 0, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Retires all counters. increments after seal() return false.
+     * @return non zero counts of the map.
+     */
+    public Snapshot seal() {
+        synchronized (lock) {
+            this.sealed = true;
+            final Table table = this.table;
+            long[] keys = new long[table.size.get()];
+            long[] values = new long[keys.length];
+            int size = 0;
+            for (int slot = 0; slot < table.capacity; slot++) {
+                final long value = table.retire(slot);
+                if (value == 0) {
+                    continue;
+                }
+                if (size == keys.length) {
+                    // keys inserted while sealing
+                    keys = Arrays.copyOf(keys, size * 2 + 1);
+                    values = Arrays.copyOf(values, keys.length);
+                }
+                // the key is written before the counter, so a counted slot has its key.
+                keys[size] = table.keys.get(slot);
+                values[size] = value;
+                size++;
+            }
+            return new Snapshot(keys, values, size);
+        }
+    }
+
+    public boolean isSealed() {
+        return sealed;
+    }
+
+    /**
+     * @return the number of keys. keys are not removed until the map is sealed.
+     */
+    public int size() {
+        return table.size.get();
+    }
+
+    public static class Snapshot {
+        private final long[] keys;
+        private final long[] values;
+        private final int size;
+
+        private Snapshot(long[] keys, long[] values, int size) {
+            this.keys = keys;
+            this.values = values;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public long getKey(int index) {
+            checkIndex(index);
+            return keys[index];
+        }
+
+        public long getValue(int index) {
+            checkIndex(index);
+            return values[index];
+        }
+
+        private void checkIndex(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("index:" + index + " size:" + size);
+            }
+        }
+    }
+
+    private static final class Table {
+        private final int capacity;
+        private final int mask;
+        private final int threshold;
+        private final int stripeSize;
+
+        private final AtomicLongArray keys;
+        // stripe-major. the stripes of a key are a table apart to avoid false sharing.
+        private final AtomicLongArray cells;
+        private final AtomicInteger size = new AtomicInteger();
+
+        private Table(int capacity, int stripeSize) {
+            this.capacity = capacity;
+            this.mask = capacity - 1;
+            this.threshold = capacity / 2;
+            this.stripeSize = stripeSize;
+            this.keys = new AtomicLongArray(capacity);
+            this.cells = new AtomicLongArray(capacity * stripeSize);
+        }
+
+        private int slot(long key, boolean ignoreThreshold) {
+            int slot = hash(key) & mask;
+            for (int probe = 0; probe < capacity; probe++) {
+                final long current = keys.get(slot);
+                if (current == key) {
+                    return slot;
+                }
+                if (current == EMPTY) {
+                    if (!ignoreThreshold && size.get() >= threshold) {
+                        return FULL;
+                    }
+                    if (keys.compareAndSet(slot, EMPTY, key)) {
+                        size.incrementAndGet();
+                        return slot;
+                    }
+                    if (keys.get(slot) == key) {
+                        return slot;
+                    }
+                }
+                slot = (slot + 1) & mask;
+            }
+            return FULL;
+        }
+
+        private static int hash(long key) {
+            final long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32));
+        }
+
+        private boolean add(int slot, int stripe, long increment) {
+            final int index = stripe * capacity + slot;
+            while (true) {
+                final long value = cells.get(index);
+                if (value == RETIRED) {
+                    return false;
+                }
+                if (cells.compareAndSet(index, value, value + increment)) {
+                    return true;
+                }
+            }
+        }
+
+        private long retire(int slot) {
+            long sum = 0;
+            for (int stripe = 0; stripe < stripeSize; stripe++) {
+                final long value = cells.getAndSet(stripe * capacity + slot, RETIRED);
+                if (value != RETIRED) {
+                    sum += value;
+                }
+            }
+            return sum;
+        }
+    }
+}
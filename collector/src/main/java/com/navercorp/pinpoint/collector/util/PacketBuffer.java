@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.util;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reference counted packet buffer allocated from {@link PacketBufferPool}.
+ * The buffer goes back to the pool when the last reference is released.
+ *
+ * @author agent
+ */
+public final class PacketBuffer {
+
+    private final PacketBufferPool pool;
+    // -1 : unpooled
+    private final int sizeClassIndex;
+    private final ByteBuffer buffer;
+
+    private final AtomicInteger refCount = new AtomicInteger();
+
+    private SocketAddress remoteAddress;
+
+    PacketBuffer(PacketBufferPool pool, int sizeClassIndex, ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new NullPointerException("buffer must not be null");
+        }
+        this.pool = pool;
+        this.sizeClassIndex = sizeClassIndex;
+        this.buffer = buffer;
+    }
+
+    void init(int length) {
+        this.buffer.clear();
+        this.buffer.limit(length);
+        this.remoteAddress = null;
+        this.refCount.set(1);
+    }
+
+    int getSizeClassIndex() {
+        return sizeClassIndex;
+    }
+
+    public boolean isPooled() {
+        return sizeClassIndex != -1;
+    }
+
+    /**
+     * copies src into this buffer. The length of src must be equal to or less than the allocated length.
+     */
+    public void write(ByteBuffer src) {
+        buffer.clear();
+        buffer.put(src);
+        buffer.flip();
+    }
+
+    public void read(byte[] dst) {
+        buffer.position(0);
+        buffer.get(dst, 0, buffer.limit());
+    }
+
+    public int getLength() {
+        return buffer.limit();
+    }
+
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    public SocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    public void setRemoteAddress(SocketAddress remoteAddress) {
+        this.remoteAddress = remoteAddress;
+    }
+
+    public int refCount() {
+        return refCount.get();
+    }
+
+    public PacketBuffer retain() {
+        while (true) {
+            final int count = refCount.get();
+            if (count <= 0) {
+                throw new IllegalStateException("already released. refCount:" + count);
+            }
+            if (refCount.compareAndSet(count, count + 1)) {
+                return this;
+            }
+        }
+    }
+
+    /**
+     * @return true if the last reference was released and the buffer was returned to the pool.
+     */
+    public boolean release() {
+        final int count = refCount.decrementAndGet();
+        if (count == 0) {
+            if (pool != null) {
+                pool.recycle(this);
+            }
+            return true;
+        }
+        if (count < 0) {
+            refCount.incrementAndGet();
+            throw new IllegalStateException("already released.");
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "PacketBuffer{" +
+                "length=" + buffer.limit() +
+                ", capacity=" + buffer.capacity() +
+                ", pooled=" + isPooled() +
+                ", refCount=" + refCount.get() +
+                '}';
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Off-heap packet buffer pool.
+ * Buffers are sliced out of direct memory slabs per size class. Slabs are allocated lazily up to maxCapacity and are never freed,
+ * so the heap holds only small {@link PacketBuffer} handles instead of 64KB arrays.
+ * <p>
+ * When a size class is exhausted a larger size class is used. When every class is exhausted an unpooled heap buffer is returned
+ * and counted as exhausted.
+ *
+ * @author agent
+ */
+public class PacketBufferPool {
+
+    public static final int MAX_PACKET_SIZE = 65507;
+    public static final int DEFAULT_SLAB_SIZE = 1024 * 1024;
+    public static final String DEFAULT_SIZE_CLASSES = "1024,4096,16384," + MAX_PACKET_SIZE;
+
+    private static final int UNPOOLED = -1;
+
+    private final SizeClass[] sizeClasses;
+    private final int slabSize;
+    private final long maxCapacity;
+
+    private final AtomicLong allocatedCapacity = new AtomicLong();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger highWaterMark = new AtomicInteger();
+    private final AtomicLong exhaustedCount = new AtomicLong();
+
+    public PacketBufferPool(int[] sizeClasses, long maxCapacity) {
+        this(sizeClasses, DEFAULT_SLAB_SIZE, maxCapacity);
+    }
+
+    public PacketBufferPool(int[] sizeClasses, int slabSize, long maxCapacity) {
+        if (sizeClasses == null) {
+            throw new NullPointerException("sizeClasses must not be null");
+        }
+        if (sizeClasses.length == 0) {
+            throw new IllegalArgumentException("sizeClasses is empty");
+        }
+        if (slabSize <= 0) {
+            throw new IllegalArgumentException("slabSize must be greater than 0");
+        }
+        if (maxCapacity < 0) {
+            throw new IllegalArgumentException("maxCapacity must not be negative");
+        }
+        final int[] sorted = normalize(sizeClasses);
+        this.sizeClasses = new SizeClass[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            this.sizeClasses[i] = new SizeClass(i, sorted[i]);
+        }
+        this.slabSize = slabSize;
+        this.maxCapacity = maxCapacity;
+    }
+
+    private static int[] normalize(int[] sizeClasses) {
+        final int[] copy = Arrays.copyOf(sizeClasses, sizeClasses.length);
+        Arrays.sort(copy);
+        final List<Integer> result = new ArrayList<Integer>(copy.length + 1);
+        for (int size : copy) {
+            if (size <= 0 || size > MAX_PACKET_SIZE) {
+                throw new IllegalArgumentException("invalid sizeClass:" + size);
+            }
+            if (result.isEmpty() || result.get(result.size() - 1) != size) {
+                result.add(size);
+            }
+        }
+        // every packet must fit in a size class.
+        if (result.get(result.size() - 1) != MAX_PACKET_SIZE) {
+            result.add(MAX_PACKET_SIZE);
+        }
+        final int[] normalized = new int[result.size()];
+        for (int i = 0; i < normalized.length; i++) {
+            normalized[i] = result.get(i);
+        }
+        return normalized;
+    }
+
+    /**
+     * @param sizeClasses comma separated sizes. ex) "1024,4096,16384,65507"
+     */
+    public static int[] parseSizeClasses(String sizeClasses) {
+        if (sizeClasses == null) {
+            throw new NullPointerException("sizeClasses must not be null");
+        }
+        final String[] tokens = sizeClasses.split(",");
+        final List<Integer> result = new ArrayList<Integer>(tokens.length);
+        for (String token : tokens) {
+            final String trim = token.trim();
+            if (trim.isEmpty()) {
+                continue;
+            }
+            try {
+                result.add(Integer.parseInt(trim));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid sizeClass:" + trim, e);
+            }
+        }
+        if (result.isEmpty()) {
+            return new int[] {MAX_PACKET_SIZE};
+        }
+        final int[] parsed = new int[result.size()];
+        for (int i = 0; i < parsed.length; i++) {
+            parsed[i] = result.get(i);
+        }
+        return parsed;
+    }
+
+    public PacketBuffer allocate(int length) {
+        if (length < 0 || length > MAX_PACKET_SIZE) {
+            throw new IllegalArgumentException("invalid length:" + length);
+        }
+        for (int i = findSizeClassIndex(length); i < sizeClasses.length; i++) {
+            final PacketBuffer buffer = sizeClasses[i].poll();
+            if (buffer != null) {
+                updateInUse(inUse.incrementAndGet());
+                buffer.init(length);
+                return buffer;
+            }
+        }
+        exhaustedCount.incrementAndGet();
+        final PacketBuffer unpooled = new PacketBuffer(null, UNPOOLED, ByteBuffer.allocate(length));
+        unpooled.init(length);
+        return unpooled;
+    }
+
+    private void updateInUse(int current) {
+        while (true) {
+            final int max = highWaterMark.get();
+            if (current <= max) {
+                return;
+            }
+            if (highWaterMark.compareAndSet(max, current)) {
+                return;
+            }
+        }
+    }
+
+    void recycle(PacketBuffer buffer) {
+        final int index = buffer.getSizeClassIndex();
+        if (index == UNPOOLED) {
+            return;
+        }
+        inUse.decrementAndGet();
+        sizeClasses[index].offer(buffer);
+    }
+
+    private int findSizeClassIndex(int length) {
+        for (int i = 0; i < sizeClasses.length; i++) {
+            if (length <= sizeClasses[i].size) {
+                return i;
+            }
+        }
+        return sizeClasses.length - 1;
+    }
+
+    /**
+     * @return the size class that fits length.
+     */
+    public int getSizeClass(int length) {
+        return sizeClasses[findSizeClassIndex(length)].size;
+    }
+
+    public int[] getSizeClasses() {
+        final int[] sizes = new int[sizeClasses.length];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = sizeClasses[i].size;
+        }
+        return sizes;
+    }
+
+    public int getInUse() {
+        return inUse.get();
+    }
+
+    public int getHighWaterMark() {
+        return highWaterMark.get();
+    }
+
+    public long getExhaustedCount() {
+        return exhaustedCount.get();
+    }
+
+    public long getAllocatedCapacity() {
+        return allocatedCapacity.get();
+    }
+
+    public long getMaxCapacity() {
+        return maxCapacity;
+    }
+
+    private final class SizeClass {
+        private final int index;
+        private final int size;
+        private final int slotPerSlab;
+        private final Queue<PacketBuffer> free = new ConcurrentLinkedQueue<PacketBuffer>();
+
+        private SizeClass(int index, int size) {
+            this.index = index;
+            this.size = size;
+            this.slotPerSlab = Math.max(slabSize / size, 1);
+        }
+
+        private PacketBuffer poll() {
+            final PacketBuffer buffer = free.poll();
+            if (buffer != null) {
+                return buffer;
+            }
+            return grow();
+        }
+
+        private synchronized PacketBuffer grow() {
+            final PacketBuffer buffer = free.poll();
+            if (buffer != null) {
+                return buffer;
+            }
+            final int slabBytes = slotPerSlab * size;
+            while (true) {
+                final long allocated = allocatedCapacity.get();
+                if (allocated + slabBytes > maxCapacity) {
+                    return null;
+                }
+                if (allocatedCapacity.compareAndSet(allocated, allocated + slabBytes)) {
+                    break;
+                }
+            }
+            final ByteBuffer slab = ByteBuffer.allocateDirect(slabBytes);
+            for (int i = 1; i < slotPerSlab; i++) {
+                free.offer(new PacketBuffer(PacketBufferPool.this, index, slice(slab, i)));
+            }
+            return new PacketBuffer(PacketBufferPool.this, index, slice(slab, 0));
+        }
+
+        private ByteBuffer slice(ByteBuffer slab, int slot) {
+            final int offset = slot * size;
+            slab.limit(offset + size);
+            slab.position(offset);
+            return slab.slice();
+        }
+
+        private void offer(PacketBuffer buffer) {
+            free.offer(buffer);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PacketBufferPool{" +
+                "sizeClasses=" + Arrays.toString(getSizeClasses()) +
+                ", inUse=" + inUse.get() +
+                ", highWaterMark=" + highWaterMark.get() +
+                ", exhaustedCount=" + exhaustedCount.get() +
+                ", allocatedCapacity=" + allocatedCapacity.get() +
+                ", maxCapacity=" + maxCapacity +
+                '}';
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free counters over a sliding time window.
+ * The window is split into slotCount time slots kept in a ring. A slot is cleared when the ring comes back to it,
+ * so {@link #sum(int, long)} only sees the slots of the last windowMillis.
+ * <p>
+ * a counter kept in a map can be dropped with {@link #retireIfIdle(long)}. writers wrap their adds with
+ * {@link #acquire()} and {@link #release()}, and put a new counter when acquire fails because the counter was retired.
+ *
+ * @author agent
+ */
+public class SlidingWindowCounter {
+
+    private static final long EMPTY_EPOCH = -1;
+    private static final int RETIRED = -1;
+
+    private final int metricCount;
+    private final int slotCount;
+    private final long slotMillis;
+
+    // epoch(timestamp / slotMillis) each slot currently holds
+    private final AtomicLongArray slotEpochs;
+    // slot-major. metricCount cells per slot
+    private final AtomicLongArray counts;
+
+    private volatile long lastUpdateTime;
+
+    // number of writers between acquire and release. RETIRED once retired
+    private final AtomicInteger writerCount = new AtomicInteger();
+
+    public SlidingWindowCounter(int metricCount, long windowMillis, int slotCount) {
+        if (metricCount <= 0) {
+            throw new IllegalArgumentException("metricCount must be greater than 0");
+        }
+        if (slotCount <= 0) {
+            throw new IllegalArgumentException("slotCount must be greater than 0");
+        }
+        if (windowMillis < slotCount) {
+            throw new IllegalArgumentException("windowMillis must be greater than slotCount");
+        }
+        this.metricCount = metricCount;
+        this.slotCount = slotCount;
+        this.slotMillis = windowMillis / slotCount;
+        this.slotEpochs = new AtomicLongArray(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slotEpochs.set(i, EMPTY_EPOCH);
+        }
+        this.counts = new AtomicLongArray(slotCount * metricCount);
+    }
+
+    public void add(int metric, long delta, long timestamp) {
+        final long epoch = timestamp / slotMillis;
+        final int slot = (int) (epoch % slotCount);
+        long slotEpoch = slotEpochs.get(slot);
+        if (slotEpoch != epoch) {
+            if (slotEpoch > epoch || !rotate(slot, epoch)) {
+                // older than the window
+                return;
+            }
+        }
+        counts.addAndGet(slot * metricCount + metric, delta);
+        this.lastUpdateTime = timestamp;
+    }
+
+    private boolean rotate(int slot, long epoch) {
+        synchronized (this) {
+            final long slotEpoch = slotEpochs.get(slot);
+            if (slotEpoch >= epoch) {
+                return slotEpoch == epoch;
+            }
+            final int offset = slot * metricCount;
+            for (int i = 0; i < metricCount; i++) {
+                counts.set(offset + i, 0);
+            }
+            slotEpochs.set(slot, epoch);
+            return true;
+        }
+    }
+
+    /**
+     * @return the sum of the metric over the window ending at timestamp.
+     */
+    public long sum(int metric, long timestamp) {
+        final long lastEpoch = timestamp / slotMillis;
+        final long firstEpoch = lastEpoch - slotCount + 1;
+        long sum = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            final long slotEpoch = slotEpochs.get(slot);
+            if (slotEpoch >= firstEpoch && slotEpoch <= lastEpoch) {
+                sum += counts.get(slot * metricCount + metric);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @return false if the counter was retired. adds to a retired counter are lost.
+     */
+    public boolean acquire() {
+        while (true) {
+            final int count = writerCount.get();
+            if (count == RETIRED) {
+                return false;
+            }
+            if (writerCount.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        writerCount.decrementAndGet();
+    }
+
+    /**
+     * retires the counter if nothing was added since expireTime and no writer holds it.
+     * a retired counter can not be acquired again, so it can be removed from its map without losing adds.
+     */
+    public boolean retireIfIdle(long expireTime) {
+        if (lastUpdateTime >= expireTime) {
+            return false;
+        }
+        if (!writerCount.compareAndSet(0, RETIRED)) {
+            return false;
+        }
+        // a writer may have added between the check above and the cas
+        if (lastUpdateTime >= expireTime) {
+            writerCount.set(0);
+            return false;
+        }
+        return true;
+    }
+
+    public boolean isRetired() {
+        return writerCount.get() == RETIRED;
+    }
+
+    public long getLastUpdateTime() {
+        return lastUpdateTime;
+    }
+
+    public long getWindowMillis() {
+        return slotMillis * slotCount;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.alarm;
+
+import com.navercorp.pinpoint.common.ServiceType;
+import com.navercorp.pinpoint.common.bo.AlarmWindowBo;
+import com.navercorp.pinpoint.thrift.dto.TAgentStat;
+import com.navercorp.pinpoint.thrift.dto.TCpuLoad;
+import com.navercorp.pinpoint.thrift.dto.TJvmGc;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class AlarmWindowAggregatorTest {
+
+    private AlarmWindowAggregator aggregator;
+
+    @Before
+    public void setUp() throws Exception {
+        aggregator = new AlarmWindowAggregator();
+        aggregator.setEnable(true);
+    }
+
+    @Test
+    public void testResponseTime() throws Exception {
+        aggregator.updateResponseTime("app", ServiceType.STAND_ALONE, 10, true);
+        aggregator.updateResponseTime("app", ServiceType.STAND_ALONE, 10, false);
+        aggregator.updateResponseTime("app", ServiceType.STAND_ALONE, 10000, false);
+
+        final AlarmWindowBo alarmWindow = aggregator.createAlarmWindow(System.currentTimeMillis());
+        final AlarmWindowBo.Count response = alarmWindow.findApplicationWindow("app").getResponse();
+        Assert.assertEquals(response.getSlowCount(), 1L);
+        Assert.assertEquals(response.getErrorCount(), 1L);
+        Assert.assertEquals(response.getTotalCount(), 3L);
+        // counted for less than a window
+        Assert.assertFalse(alarmWindow.isComplete());
+    }
+
+    @Test
+    public void testCaller() throws Exception {
+        aggregator.updateCaller("app", "MYSQL_DB", ServiceType.MYSQL, "10.0.0.1:3306", 10, true, 1);
+        aggregator.updateCaller("app", "MYSQL_DB", ServiceType.MYSQL, "10.0.0.1:3306", 10, false, 3);
+        aggregator.updateCaller("app", "backend", ServiceType.STAND_ALONE, null, 10, false, 2);
+
+        final AlarmWindowBo alarmWindow = aggregator.createAlarmWindow(System.currentTimeMillis());
+        final AlarmWindowBo.ApplicationWindow applicationWindow = alarmWindow.findApplicationWindow("app");
+        Assert.assertEquals(applicationWindow.getCalleeMap().get("10.0.0.1:3306").getErrorCount(), 1L);
+        Assert.assertEquals(applicationWindow.getCalleeMap().get("10.0.0.1:3306").getTotalCount(), 4L);
+        // no host, identified by the application name
+        Assert.assertEquals(applicationWindow.getCalleeMap().get("backend").getTotalCount(), 2L);
+        // the caller did not receive any request
+        Assert.assertEquals(applicationWindow.getResponse().getTotalCount(), 0L);
+    }
+
+    @Test
+    public void testAgentStat() throws Exception {
+        aggregator.updateAgentInfo("agent1", "app");
+
+        final long now = System.currentTimeMillis();
+        aggregator.updateAgentStat("agent1", createAgentStat(now - 1000, 90, 100, 0.2D, 3));
+        aggregator.updateAgentStat("agent1", createAgentStat(now, 80, 100, 0.4D, 5));
+        // application unknown
+        aggregator.updateAgentStat("agent2", createAgentStat(now, 10, 100, 0.1D, 1));
+
+        final AlarmWindowBo alarmWindow = aggregator.createAlarmWindow(now);
+        final AlarmWindowBo.ApplicationWindow applicationWindow = alarmWindow.findApplicationWindow("app");
+        Assert.assertEquals(applicationWindow.getAgentStatMap().size(), 1);
+        final AlarmWindowBo.AgentStat agentStat = applicationWindow.getAgentStatMap().get("agent1");
+        Assert.assertEquals(agentStat.getHeapUsed(), 170L);
+        Assert.assertEquals(agentStat.getHeapMax(), 200L);
+        Assert.assertEquals(agentStat.getJvmCpuUsage(), 60L);
+        Assert.assertEquals(agentStat.getJvmCpuSampleCount(), 2L);
+        Assert.assertEquals(agentStat.getGcOldCount(), 2L);
+    }
+
+    @Test
+    public void testUpdateAfterEvict() throws Exception {
+        aggregator.updateAgentInfo("agent1", "app");
+        aggregator.updateResponseTime("app", ServiceType.STAND_ALONE, 10, false);
+        aggregator.updateCaller("app", "backend", ServiceType.STAND_ALONE, null, 10, false, 1);
+        aggregator.updateAgentStat("agent1", createAgentStat(System.currentTimeMillis(), 10, 100, 0.1D, 1));
+        Assert.assertEquals(aggregator.getWindowCount(), 3);
+
+        // idle for more than a window
+        aggregator.evictIdle(System.currentTimeMillis() + aggregator.getWindowMillis() + 1000);
+        Assert.assertEquals(aggregator.getWindowCount(), 0);
+
+        final long now = System.currentTimeMillis();
+        aggregator.updateResponseTime("app", ServiceType.STAND_ALONE, 10, false);
+        aggregator.updateCaller("app", "backend", ServiceType.STAND_ALONE, null, 10, false, 1);
+        aggregator.updateAgentStat("agent1", createAgentStat(now, 10, 100, 0.1D, 1));
+
+        final AlarmWindowBo.ApplicationWindow applicationWindow = aggregator.createAlarmWindow(now).findApplicationWindow("app");
+        Assert.assertEquals(applicationWindow.getResponse().getTotalCount(), 1L);
+        Assert.assertEquals(applicationWindow.getCalleeMap().get("backend").getTotalCount(), 1L);
+        Assert.assertEquals(applicationWindow.getAgentStatMap().get("agent1").getHeapUsed(), 10L);
+    }
+
+    @Test
+    public void testRetiredAgentStatWindow() throws Exception {
+        final AgentStatWindow window = new AgentStatWindow(1000);
+        Assert.assertTrue(window.add(500, 10, 100, 0.1D, 1));
+        // updated after expireTime
+        Assert.assertFalse(window.retireIfIdle(500));
+
+        Assert.assertTrue(window.retireIfIdle(1000));
+        // the writer has to put a new window
+        Assert.assertFalse(window.add(600, 10, 100, 0.1D, 1));
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        aggregator.setEnable(false);
+        aggregator.updateResponseTime("app", ServiceType.STAND_ALONE, 10, false);
+        Assert.assertEquals(aggregator.getWindowCount(), 0);
+    }
+
+    private TAgentStat createAgentStat(long timestamp, long heapUsed, long heapMax, double jvmCpuLoad, long gcOldCount) {
+        TJvmGc gc = new TJvmGc();
+        gc.setJvmMemoryHeapUsed(heapUsed);
+        gc.setJvmMemoryHeapMax(heapMax);
+        gc.setJvmGcOldCount(gcOldCount);
+        TCpuLoad cpuLoad = new TCpuLoad();
+        cpuLoad.setJvmCpuLoad(jvmCpuLoad);
+        TAgentStat agentStat = new TAgentStat();
+        agentStat.setTimestamp(timestamp);
+        agentStat.setGc(gc);
+        agentStat.setCpuLoad(cpuLoad);
+        return agentStat;
+    }
+}
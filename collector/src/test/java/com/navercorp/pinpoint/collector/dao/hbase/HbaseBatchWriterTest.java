@@ -0,0 +1,250 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.dao.hbase;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.hbase.client.Put;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.codahale.metrics.MetricRegistry;
+import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+
+/**
+ * @author agent
+ */
+public class HbaseBatchWriterTest {
+
+    private static final String TABLE_NAME = "TestTable";
+
+    private HbaseOperations2 hbaseTemplate;
+    private MetricRegistry metricRegistry;
+    private HbaseBatchWriter batchWriter;
+
+    private final BlockingQueue<Integer> batchSizeQueue = new LinkedBlockingQueue<Integer>();
+    private final AtomicInteger batchPutCount = new AtomicInteger();
+    private final AtomicInteger singlePutCount = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        this.hbaseTemplate = mock(HbaseOperations2.class);
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                final List<?> batch = (List<?>) invocation.getArguments()[1];
+                batchPutCount.addAndGet(batch.size());
+                batchSizeQueue.add(batch.size());
+                return null;
+            }
+        }).when(hbaseTemplate).put(anyString(), any(List.class));
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                singlePutCount.incrementAndGet();
+                return null;
+            }
+        }).when(hbaseTemplate).put(anyString(), any(Put.class));
+
+        this.metricRegistry = new MetricRegistry();
+    }
+
+    @After
+    public void tearDown() {
+        if (batchWriter != null) {
+            batchWriter.shutdown();
+        }
+    }
+
+    private HbaseBatchWriter newBatchWriter(int batchSize, long flushInterval, int maxPendingSize) {
+        final HbaseBatchWriter batchWriter = new HbaseBatchWriter(TABLE_NAME, hbaseTemplate);
+        batchWriter.setMetricRegistry(metricRegistry);
+        batchWriter.setBucketSize(1);
+        batchWriter.setBatchSize(batchSize);
+        batchWriter.setFlushInterval(flushInterval);
+        batchWriter.setMaxPendingSize(maxPendingSize);
+        batchWriter.setOfferTimeout(0);
+        batchWriter.setWriterThreadSize(2);
+        batchWriter.setWriterQueueSize(16);
+        batchWriter.initialize();
+        this.batchWriter = batchWriter;
+        return batchWriter;
+    }
+
+    @Test
+    public void batchBySize() throws InterruptedException {
+        final HbaseBatchWriter batchWriter = newBatchWriter(10, TimeUnit.HOURS.toMillis(1), 100);
+
+        for (int i = 0; i < 25; i++) {
+            Assert.assertTrue(batchWriter.put(newPut(i)));
+        }
+
+        Assert.assertEquals(Integer.valueOf(10), batchSizeQueue.poll(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Integer.valueOf(10), batchSizeQueue.poll(5, TimeUnit.SECONDS));
+        // the rest waits for the flush interval
+        Assert.assertNull(batchSizeQueue.poll(100, TimeUnit.MILLISECONDS));
+        awaitPendingSize(batchWriter, 5);
+    }
+
+    @Test
+    public void batchByTime() throws InterruptedException {
+        final HbaseBatchWriter batchWriter = newBatchWriter(100, 50, 100);
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(batchWriter.put(newPut(i)));
+        }
+
+        Assert.assertEquals(Integer.valueOf(3), batchSizeQueue.poll(5, TimeUnit.SECONDS));
+        awaitPendingSize(batchWriter, 0);
+        Assert.assertEquals(0, singlePutCount.get());
+    }
+
+    @Test
+    public void dropWhenPendingFull() throws InterruptedException {
+        final CountDownLatch writeLatch = new CountDownLatch(1);
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                writeLatch.await();
+                final List<?> batch = (List<?>) invocation.getArguments()[1];
+                batchPutCount.addAndGet(batch.size());
+                return null;
+            }
+        }).when(hbaseTemplate).put(anyString(), any(List.class));
+        final HbaseBatchWriter batchWriter = newBatchWriter(2, TimeUnit.HOURS.toMillis(1), 4);
+
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(batchWriter.put(newPut(i)));
+        }
+        Assert.assertEquals(4, batchWriter.getPendingSize());
+
+        Assert.assertFalse(batchWriter.put(newPut(4)));
+        Assert.assertFalse(batchWriter.put(newPut(5)));
+        Assert.assertEquals(2, batchWriter.getDropCount());
+        Assert.assertEquals(2, metricRegistry.counter(TABLE_NAME + "-writer-dropped").getCount());
+
+        writeLatch.countDown();
+        awaitPendingSize(batchWriter, 0);
+        Assert.assertEquals(4, batchPutCount.get());
+
+        Assert.assertTrue(batchWriter.put(newPut(6)));
+        Assert.assertEquals(2, batchWriter.getDropCount());
+    }
+
+    @Test
+    public void releasePermitOnWriteFailure() throws InterruptedException {
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                throw new RuntimeException("test");
+            }
+        }).when(hbaseTemplate).put(anyString(), any(List.class));
+        final HbaseBatchWriter batchWriter = newBatchWriter(2, TimeUnit.HOURS.toMillis(1), 4);
+
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(batchWriter.put(newPut(i)));
+        }
+
+        awaitPendingSize(batchWriter, 0);
+        Assert.assertEquals(4, metricRegistry.counter(TABLE_NAME + "-writer-failed").getCount());
+        Assert.assertEquals(0, batchWriter.getDropCount());
+        // permits are back, nothing is dropped
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(batchWriter.put(newPut(i)));
+        }
+        Assert.assertEquals(0, batchWriter.getDropCount());
+    }
+
+    @Test
+    public void shutdownDrain() {
+        final HbaseBatchWriter batchWriter = newBatchWriter(100, TimeUnit.HOURS.toMillis(1), 100);
+
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(batchWriter.put(newPut(i)));
+        }
+        Assert.assertEquals(0, batchPutCount.get());
+
+        batchWriter.shutdown();
+        Assert.assertEquals(5, batchPutCount.get());
+        Assert.assertEquals(0, batchWriter.getPendingSize());
+
+        // written synchronously after shutdown
+        Assert.assertTrue(batchWriter.put(newPut(5)));
+        Assert.assertEquals(1, singlePutCount.get());
+    }
+
+    @Test
+    public void shutdownWhilePutting() throws InterruptedException {
+        final HbaseBatchWriter batchWriter = newBatchWriter(7, TimeUnit.HOURS.toMillis(1), 1024);
+
+        final int threadSize = 4;
+        final AtomicInteger acceptCount = new AtomicInteger();
+        final CountDownLatch startLatch = new CountDownLatch(threadSize);
+        final List<Thread> threadList = new ArrayList<Thread>();
+        for (int i = 0; i < threadSize; i++) {
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    startLatch.countDown();
+                    for (int j = 0; j < 2000; j++) {
+                        if (batchWriter.put(newPut(j))) {
+                            acceptCount.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threadList.add(thread);
+            thread.start();
+        }
+        startLatch.await();
+        batchWriter.shutdown();
+        for (Thread thread : threadList) {
+            thread.join();
+        }
+
+        // every accepted put is written either in a batch or on its own, and no permit is left behind
+        Assert.assertEquals(acceptCount.get(), batchPutCount.get() + singlePutCount.get());
+        Assert.assertEquals(0, batchWriter.getPendingSize());
+    }
+
+    private Put newPut(int i) {
+        return new Put(new byte[] {(byte) i, 1, 2, 3});
+    }
+
+    private void awaitPendingSize(HbaseBatchWriter batchWriter, int expected) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (batchWriter.getPendingSize() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(expected, batchWriter.getPendingSize());
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase.statistics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class StatisticsKeyPoolTest {
+
+    @Test
+    public void increment() {
+        StatisticsKeyPool pool = new StatisticsKeyPool();
+        pool.increment(new TestRowKey("row1"), new TestColumnName("col1"), 1);
+        pool.increment(new TestRowKey("row1"), new TestColumnName("col1"), 2);
+        pool.increment(new TestRowKey("row1"), new TestColumnName("col2"), 3);
+        pool.increment(new TestRowKey("row2"), new TestColumnName("col1"), 4);
+
+        StatisticsKeyPool.Snapshot snapshot = pool.snapshotAndReset();
+        Assert.assertEquals(3, snapshot.size());
+        Map<String, Long> counts = toMap(snapshot);
+        Assert.assertEquals(Long.valueOf(3), counts.get("row1:col1"));
+        Assert.assertEquals(Long.valueOf(3), counts.get("row1:col2"));
+        Assert.assertEquals(Long.valueOf(4), counts.get("row2:col1"));
+
+        // entries of the same row have the same row id
+        for (int i = 0; i < snapshot.size(); i++) {
+            for (int j = 0; j < snapshot.size(); j++) {
+                boolean sameRow = new String(snapshot.getRowKey(i)).equals(new String(snapshot.getRowKey(j)));
+                Assert.assertEquals(sameRow, snapshot.getRowId(i) == snapshot.getRowId(j));
+            }
+        }
+
+        Assert.assertTrue(pool.snapshotAndReset().isEmpty());
+    }
+
+    @Test
+    public void internKey() {
+        StatisticsKeyPool pool = new StatisticsKeyPool();
+        TestRowKey rowKey1 = new TestRowKey("row");
+        TestRowKey rowKey2 = new TestRowKey("row");
+        TestColumnName columnName1 = new TestColumnName("col");
+        TestColumnName columnName2 = new TestColumnName("col");
+        pool.increment(rowKey1, columnName1, 1);
+        pool.increment(rowKey2, columnName2, 1);
+
+        StatisticsKeyPool.Snapshot snapshot = pool.snapshotAndReset();
+        Assert.assertEquals(1, snapshot.size());
+        Assert.assertEquals(2, snapshot.getCount(0));
+        // serialized once per key, not once per increment
+        Assert.assertEquals(1, rowKey1.serializeCount.get() + rowKey2.serializeCount.get());
+        Assert.assertEquals(1, columnName1.serializeCount.get() + columnName2.serializeCount.get());
+    }
+
+    @Test
+    public void reuseAfterFlush() {
+        StatisticsKeyPool pool = new StatisticsKeyPool();
+        TestRowKey rowKey = new TestRowKey("row");
+        TestColumnName columnName = new TestColumnName("col");
+
+        pool.increment(rowKey, columnName, 1);
+        StatisticsKeyPool.Snapshot first = pool.snapshotAndReset();
+
+        pool.increment(rowKey, columnName, 5);
+        StatisticsKeyPool.Snapshot second = pool.snapshotAndReset();
+        Assert.assertEquals(1, second.size());
+        Assert.assertEquals(5, second.getCount(0));
+        // the bytes of a key in use are carried over to the next generation
+        Assert.assertSame(first.getRowKey(0), second.getRowKey(0));
+        Assert.assertSame(first.getColumnName(0), second.getColumnName(0));
+        Assert.assertEquals(1, rowKey.serializeCount.get());
+        Assert.assertEquals(1, columnName.serializeCount.get());
+
+        // not used for a whole generation
+        Assert.assertTrue(pool.snapshotAndReset().isEmpty());
+
+        pool.increment(rowKey, columnName, 7);
+        StatisticsKeyPool.Snapshot fourth = pool.snapshotAndReset();
+        Assert.assertEquals(7, fourth.getCount(0));
+        Assert.assertEquals("row", new String(fourth.getRowKey(0)));
+        Assert.assertEquals(2, rowKey.serializeCount.get());
+        Assert.assertEquals(2, columnName.serializeCount.get());
+    }
+
+    @Test
+    public void incrementWhileFlushing() throws InterruptedException {
+        final StatisticsKeyPool pool = new StatisticsKeyPool(64);
+        final int threadSize = 4;
+        final int incrementCount = 20000;
+        final AtomicInteger finished = new AtomicInteger();
+        final CountDownLatch startLatch = new CountDownLatch(threadSize);
+        final List<Thread> threadList = new ArrayList<Thread>();
+        for (int i = 0; i < threadSize; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    startLatch.countDown();
+                    for (int j = 0; j < incrementCount; j++) {
+                        pool.increment(new TestRowKey("row" + (j % 100)), new TestColumnName("col" + (j % 7)), 1);
+                    }
+                    finished.incrementAndGet();
+                }
+            });
+            threadList.add(thread);
+            thread.start();
+        }
+        startLatch.await();
+
+        long total = 0;
+        while (finished.get() < threadSize) {
+            total += sum(pool.snapshotAndReset());
+        }
+        for (Thread thread : threadList) {
+            thread.join();
+        }
+        total += sum(pool.snapshotAndReset());
+
+        Assert.assertEquals((long) threadSize * incrementCount, total);
+    }
+
+    private long sum(StatisticsKeyPool.Snapshot snapshot) {
+        long sum = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            sum += snapshot.getCount(i);
+        }
+        return sum;
+    }
+
+    private Map<String, Long> toMap(StatisticsKeyPool.Snapshot snapshot) {
+        Map<String, Long> map = new HashMap<String, Long>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            String key = new String(snapshot.getRowKey(i)) + ":" + new String(snapshot.getColumnName(i));
+            Assert.assertNull("duplicated key " + key, map.put(key, snapshot.getCount(i)));
+        }
+        return map;
+    }
+
+    private static class TestRowKey implements RowKey {
+        private final String name;
+        private final AtomicInteger serializeCount = new AtomicInteger();
+
+        private TestRowKey(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public byte[] getRowKey() {
+            serializeCount.incrementAndGet();
+            return name.getBytes();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return name.equals(((TestRowKey) o).name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+    }
+
+    private static class TestColumnName implements ColumnName {
+        private final String name;
+        private final AtomicInteger serializeCount = new AtomicInteger();
+        private long callCount;
+
+        private TestColumnName(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public byte[] getColumnName() {
+            serializeCount.incrementAndGet();
+            return name.getBytes();
+        }
+
+        @Override
+        public long getCallCount() {
+            return callCount;
+        }
+
+        @Override
+        public void setCallCount(long callCount) {
+            this.callCount = callCount;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return name.equals(((TestColumnName) o).name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+    }
+}
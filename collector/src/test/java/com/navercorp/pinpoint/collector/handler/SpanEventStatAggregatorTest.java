@@ -0,0 +1,69 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.handler;
+
+import com.navercorp.pinpoint.common.ServiceType;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author agent
+ */
+public class SpanEventStatAggregatorTest {
+
+    @Test
+    public void aggregate() {
+        SpanEventStatAggregator aggregator = new SpanEventStatAggregator();
+        // same slot
+        aggregator.add("db", ServiceType.STAND_ALONE, "127.0.0.1:3306", 10, false);
+        aggregator.add("db", ServiceType.STAND_ALONE, "127.0.0.1:3306", 20, false);
+        aggregator.add("db", ServiceType.STAND_ALONE, "127.0.0.1:3306", 30, false);
+        // error slot
+        aggregator.add("db", ServiceType.STAND_ALONE, "127.0.0.1:3306", 10, true);
+        // other endpoint
+        aggregator.add("db", ServiceType.STAND_ALONE, null, 10, false);
+
+        List<SpanEventStatAggregator.SpanEventStat> stats = new ArrayList<SpanEventStatAggregator.SpanEventStat>(aggregator.getStats());
+        Assert.assertEquals(3, stats.size());
+
+        SpanEventStatAggregator.SpanEventStat first = stats.get(0);
+        Assert.assertEquals("db", first.getDestinationId());
+        Assert.assertEquals("127.0.0.1:3306", first.getEndPoint());
+        Assert.assertEquals(10, first.getElapsed());
+        Assert.assertFalse(first.isError());
+        Assert.assertEquals(3, first.getCount());
+
+        Assert.assertTrue(stats.get(1).isError());
+        Assert.assertEquals(1, stats.get(1).getCount());
+
+        Assert.assertNull(stats.get(2).getEndPoint());
+        Assert.assertEquals(1, stats.get(2).getCount());
+    }
+
+    @Test
+    public void differentSlot() {
+        SpanEventStatAggregator aggregator = new SpanEventStatAggregator();
+        aggregator.add("db", ServiceType.STAND_ALONE, "127.0.0.1:3306", 10, false);
+        aggregator.add("db", ServiceType.STAND_ALONE, "127.0.0.1:3306", 1000 * 60, false);
+
+        Assert.assertEquals(2, aggregator.getStats().size());
+    }
+}
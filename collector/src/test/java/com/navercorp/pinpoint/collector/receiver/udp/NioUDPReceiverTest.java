@@ -0,0 +1,188 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.receiver.udp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.thrift.TBase;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+import com.navercorp.pinpoint.collector.receiver.DispatchHandler;
+import com.navercorp.pinpoint.thrift.dto.TAgentStat;
+import com.navercorp.pinpoint.thrift.io.ChunkHeaderBufferedTBaseSerializer;
+import com.navercorp.pinpoint.thrift.io.ChunkHeaderBufferedTBaseSerializerFlushHandler;
+import com.navercorp.pinpoint.thrift.io.ChunkHeaderTBaseDeserializer;
+import com.navercorp.pinpoint.thrift.io.ChunkHeaderTBaseDeserializerFactory;
+import com.navercorp.pinpoint.thrift.io.DefaultTBaseLocator;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseDeserializer;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseDeserializerFactory;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializerFactory;
+
+/**
+ * @author agent
+ */
+public class NioUDPReceiverTest {
+
+    private static final int ACCEPTED_SIZE = 65507;
+
+    private final ChunkHeaderTBaseDeserializer chunkDeserializer = ChunkHeaderTBaseDeserializerFactory.DEFAULT_FACTORY.createDeserializer();
+    private final HeaderTBaseDeserializer deserializer = HeaderTBaseDeserializerFactory.DEFAULT_FACTORY.createDeserializer();
+
+    @Test
+    public void decodePlain() throws TException {
+        final byte[] packet = plainPacket("agent-1");
+
+        // the receiver reads into a reused buffer bigger than the packet
+        final byte[] buffer = new byte[ACCEPTED_SIZE];
+        System.arraycopy(packet, 0, buffer, 0, packet.length);
+        final List<TBase<?, ?>> list = UDPPacketDecoder.decode(chunkDeserializer, deserializer, buffer, packet.length);
+
+        Assert.assertEquals(1, list.size());
+        Assert.assertEquals("agent-1", ((TAgentStat) list.get(0)).getAgentId());
+    }
+
+    @Test
+    public void decodeChunked() throws TException {
+        final byte[] packet = chunkedPacket("agent-1", "agent-2", "agent-3");
+
+        final List<TBase<?, ?>> list = UDPPacketDecoder.decode(chunkDeserializer, deserializer, packet, packet.length);
+
+        Assert.assertEquals(3, list.size());
+        Assert.assertEquals("agent-1", ((TAgentStat) list.get(0)).getAgentId());
+        Assert.assertEquals("agent-2", ((TAgentStat) list.get(1)).getAgentId());
+        Assert.assertEquals("agent-3", ((TAgentStat) list.get(2)).getAgentId());
+    }
+
+    @Test
+    public void receive() throws Exception {
+        final int port = findAvailablePort();
+        final BlockingQueue<TBase<?, ?>> received = new LinkedBlockingQueue<TBase<?, ?>>();
+        final NioUDPReceiver receiver = new NioUDPReceiver("test", new DispatchHandler() {
+            @Override
+            public void dispatchSendMessage(TBase<?, ?> tBase, byte[] packet, int offset, int length) {
+                received.add(tBase);
+            }
+
+            @Override
+            public TBase dispatchRequestMessage(TBase<?, ?> tBase, byte[] packet, int offset, int length) {
+                return null;
+            }
+        }, "127.0.0.1", port, 1024 * 64, 2);
+        receiver.setMetricRegistry(new MetricRegistry());
+        receiver.start();
+
+        final DatagramSocket socket = new DatagramSocket();
+        try {
+            // one channel per io thread with SO_REUSEPORT, otherwise the io threads share one channel
+            final int expectedChannelCount = ReusePortSupport.isAvailable() ? 2 : 1;
+            Assert.assertEquals(expectedChannelCount, receiver.getChannelCount());
+
+            final InetSocketAddress address = new InetSocketAddress("127.0.0.1", port);
+            final byte[] plain = plainPacket("plain");
+            socket.send(new DatagramPacket(plain, plain.length, address));
+            final byte[] chunked = chunkedPacket("chunk-1", "chunk-2");
+            socket.send(new DatagramPacket(chunked, chunked.length, address));
+
+            final List<String> agentIdList = new ArrayList<String>();
+            for (int i = 0; i < 3; i++) {
+                final TBase<?, ?> tBase = received.poll(5, TimeUnit.SECONDS);
+                Assert.assertNotNull("received:" + agentIdList, tBase);
+                agentIdList.add(((TAgentStat) tBase).getAgentId());
+            }
+            Assert.assertTrue(agentIdList.contains("plain"));
+            Assert.assertTrue(agentIdList.contains("chunk-1"));
+            Assert.assertTrue(agentIdList.contains("chunk-2"));
+        } finally {
+            socket.close();
+            receiver.shutdown();
+        }
+    }
+
+    @Test
+    public void singleIoThread() throws IOException {
+        final NioUDPReceiver receiver = new NioUDPReceiver("test", new DispatchHandler() {
+            @Override
+            public void dispatchSendMessage(TBase<?, ?> tBase, byte[] packet, int offset, int length) {
+            }
+
+            @Override
+            public TBase dispatchRequestMessage(TBase<?, ?> tBase, byte[] packet, int offset, int length) {
+                return null;
+            }
+        }, "127.0.0.1", findAvailablePort(), 1024 * 64, 1);
+        receiver.setMetricRegistry(new MetricRegistry());
+        receiver.start();
+        try {
+            // SO_REUSEPORT is not tried for a single io thread
+            Assert.assertEquals(1, receiver.getChannelCount());
+        } finally {
+            receiver.shutdown();
+        }
+    }
+
+    private byte[] plainPacket(String agentId) throws TException {
+        return HeaderTBaseSerializerFactory.DEFAULT_FACTORY.createSerializer().serialize(newAgentStat(agentId));
+    }
+
+    private byte[] chunkedPacket(String... agentIds) throws TException {
+        final ChunkHeaderBufferedTBaseSerializer serializer = new ChunkHeaderBufferedTBaseSerializer(new ByteArrayOutputStream(), new TCompactProtocol.Factory(), new DefaultTBaseLocator());
+        final List<byte[]> flushed = new ArrayList<byte[]>();
+        serializer.setFlushHandler(new ChunkHeaderBufferedTBaseSerializerFlushHandler() {
+            @Override
+            public void handle(byte[] buffer, int offset, int length) {
+                final byte[] copy = new byte[length];
+                System.arraycopy(buffer, offset, copy, 0, length);
+                flushed.add(copy);
+            }
+        });
+        for (String agentId : agentIds) {
+            serializer.add(newAgentStat(agentId));
+        }
+        serializer.flush();
+        Assert.assertEquals(1, flushed.size());
+        return flushed.get(0);
+    }
+
+    private TAgentStat newAgentStat(String agentId) {
+        final TAgentStat agentStat = new TAgentStat();
+        agentStat.setAgentId(agentId);
+        agentStat.setTimestamp(System.currentTimeMillis());
+        return agentStat;
+    }
+
+    private int findAvailablePort() throws IOException {
+        final DatagramSocket socket = new DatagramSocket(0);
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.receiver.udp;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.DatagramChannel;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class ReusePortSupportTest {
+
+    @Test
+    public void bindSamePort() throws IOException {
+        final DatagramChannel first = DatagramChannel.open();
+        final DatagramChannel second = DatagramChannel.open();
+        try {
+            final boolean firstEnabled = ReusePortSupport.enable(first);
+            final boolean secondEnabled = ReusePortSupport.enable(second);
+            if (!ReusePortSupport.isAvailable()) {
+                // JDK 8 or lower. NioUDPReceiver falls back to a single channel
+                Assert.assertFalse(firstEnabled);
+                Assert.assertFalse(secondEnabled);
+                return;
+            }
+            if (!firstEnabled) {
+                // the platform does not support the option
+                Assert.assertFalse(secondEnabled);
+                return;
+            }
+            Assert.assertTrue(secondEnabled);
+            first.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+            final int port = first.socket().getLocalPort();
+            second.socket().bind(new InetSocketAddress("127.0.0.1", port));
+            Assert.assertEquals(port, second.socket().getLocalPort());
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test
+    public void enableAfterClose() throws IOException {
+        final DatagramChannel channel = DatagramChannel.open();
+        channel.close();
+        // must not throw, the receiver treats it as not supported
+        Assert.assertFalse(ReusePortSupport.enable(channel));
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.receiver.udp;
+
+import java.util.Properties;
+
+import org.apache.thrift.TBase;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.navercorp.pinpoint.collector.config.CollectorConfiguration;
+import com.navercorp.pinpoint.collector.receiver.DataReceiver;
+import com.navercorp.pinpoint.collector.receiver.DispatchHandler;
+
+/**
+ * @author agent
+ */
+public class UDPReceiverFactoryTest {
+
+    private final DispatchHandler dispatchHandler = new DispatchHandler() {
+        @Override
+        public void dispatchSendMessage(TBase<?, ?> tBase, byte[] packet, int offset, int length) {
+        }
+
+        @Override
+        public TBase dispatchRequestMessage(TBase<?, ?> tBase, byte[] packet, int offset, int length) {
+            return null;
+        }
+    };
+
+    @Test
+    public void createBaseReceiver() throws Exception {
+        Assert.assertTrue(createSpanReceiver("BASE") instanceof BaseUDPReceiver);
+        // unknown type
+        Assert.assertTrue(createSpanReceiver("UNKNOWN") instanceof BaseUDPReceiver);
+        // default
+        Assert.assertTrue(createSpanReceiver(null) instanceof BaseUDPReceiver);
+    }
+
+    @Test
+    public void createNioReceiver() throws Exception {
+        Assert.assertTrue(createSpanReceiver("NIO") instanceof NioUDPReceiver);
+        Assert.assertTrue(createSpanReceiver("nio") instanceof NioUDPReceiver);
+    }
+
+    private DataReceiver createSpanReceiver(String receiverType) throws Exception {
+        final Properties properties = new Properties();
+        if (receiverType != null) {
+            properties.setProperty("collector.receiver.udp.span.type", receiverType);
+        }
+        final CollectorConfiguration configuration = new CollectorConfiguration();
+        configuration.setProperties(properties);
+        configuration.afterPropertiesSet();
+        // the socket is bound on start()
+        return UDPReceiverFactory.createSpanReceiver("test", dispatchHandler, configuration);
+    }
+}
@@ -16,16 +16,31 @@
 
 package com.navercorp.pinpoint.collector.receiver.udp;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import com.navercorp.pinpoint.collector.receiver.DataReceiver;
 import com.navercorp.pinpoint.collector.receiver.DispatchHandler;
 import com.navercorp.pinpoint.collector.receiver.udp.BaseUDPReceiver;
+import com.navercorp.pinpoint.thrift.dto.TAgentStat;
+import com.navercorp.pinpoint.thrift.io.ChunkHeaderBufferedTBaseSerializer;
+import com.navercorp.pinpoint.thrift.io.ChunkHeaderBufferedTBaseSerializerFlushHandler;
+import com.navercorp.pinpoint.thrift.io.DefaultTBaseLocator;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializerFactory;
 
 import org.junit.Assert;
 
+import com.codahale.metrics.MetricRegistry;
+
 import org.apache.thrift.TBase;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TCompactProtocol;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -88,4 +103,82 @@ public class UDPReceiverTest {
         datagramSocket.send(datagramPacket);
         datagramSocket.close();
     }
+
+    @Test
+    public void receivePlainAndChunked() throws Exception {
+        final int port = findAvailablePort();
+        final BlockingQueue<TBase<?, ?>> received = new LinkedBlockingQueue<TBase<?, ?>>();
+        final BaseUDPReceiver receiver = new BaseUDPReceiver("test", new DispatchHandler() {
+            @Override
+            public void dispatchSendMessage(TBase<?, ?> tBase, byte[] packet, int offset, int length) {
+                received.add(tBase);
+            }
+
+            @Override
+            public TBase dispatchRequestMessage(TBase<?, ?> tBase, byte[] packet, int offset, int length) {
+                return null;
+            }
+        }, "127.0.0.1", port, 1024 * 64, 1, 10);
+        receiver.setMetricRegistry(new MetricRegistry());
+        receiver.start();
+
+        final DatagramSocket socket = new DatagramSocket();
+        try {
+            final InetSocketAddress address = new InetSocketAddress("127.0.0.1", port);
+            // profiler.collector.span.sender.type=UDP
+            final byte[] plain = HeaderTBaseSerializerFactory.DEFAULT_FACTORY.createSerializer().serialize(newAgentStat("plain"));
+            socket.send(new DatagramPacket(plain, plain.length, address));
+            // profiler.collector.span.sender.type=NIO_UDP
+            final byte[] chunked = chunkedPacket("chunk-1", "chunk-2");
+            socket.send(new DatagramPacket(chunked, chunked.length, address));
+
+            final List<String> agentIdList = new ArrayList<String>();
+            for (int i = 0; i < 3; i++) {
+                final TBase<?, ?> tBase = received.poll(5, TimeUnit.SECONDS);
+                Assert.assertNotNull("received:" + agentIdList, tBase);
+                agentIdList.add(((TAgentStat) tBase).getAgentId());
+            }
+            Assert.assertTrue(agentIdList.contains("plain"));
+            Assert.assertTrue(agentIdList.contains("chunk-1"));
+            Assert.assertTrue(agentIdList.contains("chunk-2"));
+        } finally {
+            socket.close();
+            receiver.shutdown();
+        }
+    }
+
+    private byte[] chunkedPacket(String... agentIds) throws TException {
+        final ChunkHeaderBufferedTBaseSerializer serializer = new ChunkHeaderBufferedTBaseSerializer(new ByteArrayOutputStream(), new TCompactProtocol.Factory(), new DefaultTBaseLocator());
+        final List<byte[]> flushed = new ArrayList<byte[]>();
+        serializer.setFlushHandler(new ChunkHeaderBufferedTBaseSerializerFlushHandler() {
+            @Override
+            public void handle(byte[] buffer, int offset, int length) {
+                final byte[] copy = new byte[length];
+                System.arraycopy(buffer, offset, copy, 0, length);
+                flushed.add(copy);
+            }
+        });
+        for (String agentId : agentIds) {
+            serializer.add(newAgentStat(agentId));
+        }
+        serializer.flush();
+        Assert.assertEquals(1, flushed.size());
+        return flushed.get(0);
+    }
+
+    private TAgentStat newAgentStat(String agentId) {
+        final TAgentStat agentStat = new TAgentStat();
+        agentStat.setAgentId(agentId);
+        agentStat.setTimestamp(System.currentTimeMillis());
+        return agentStat;
+    }
+
+    private int findAvailablePort() throws IOException {
+        final DatagramSocket socket = new DatagramSocket(0);
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
 }
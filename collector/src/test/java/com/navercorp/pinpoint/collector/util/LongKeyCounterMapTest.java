@@ -0,0 +1,122 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * @author agent
+ */
+public class LongKeyCounterMapTest {
+
+    @Test
+    public void increment() {
+        LongKeyCounterMap counter = new LongKeyCounterMap();
+        Assert.assertTrue(counter.increment(1L, 1L));
+        Assert.assertTrue(counter.increment(1L, 2L));
+        Assert.assertTrue(counter.increment(Long.MAX_VALUE, 5L));
+
+        Map<Long, Long> snapshot = toMap(counter.seal());
+        Assert.assertEquals(2, snapshot.size());
+        Assert.assertEquals(3L, snapshot.get(1L).longValue());
+        Assert.assertEquals(5L, snapshot.get(Long.MAX_VALUE).longValue());
+
+        Assert.assertFalse(counter.increment(1L, 1L));
+        Assert.assertFalse(counter.increment(2L, 1L));
+        Assert.assertTrue(counter.seal().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyKey() {
+        LongKeyCounterMap counter = new LongKeyCounterMap();
+        counter.increment(0L, 1L);
+    }
+
+    @Test
+    public void grow() {
+        LongKeyCounterMap counter = new LongKeyCounterMap(2, 4);
+        for (long key = 1; key <= 1000; key++) {
+            Assert.assertTrue(counter.increment(key, key));
+        }
+        Assert.assertEquals(1000, counter.size());
+
+        Map<Long, Long> snapshot = toMap(counter.seal());
+        Assert.assertEquals(1000, snapshot.size());
+        for (long key = 1; key <= 1000; key++) {
+            Assert.assertEquals(key, snapshot.get(key).longValue());
+        }
+    }
+
+    @Test
+    public void concurrentIncrement() throws InterruptedException {
+        final int threadSize = 4;
+        final int loop = 100000;
+        final CountDownLatch done = new CountDownLatch(threadSize);
+        final LongKeyCounterMap[] current = {new LongKeyCounterMap(4, 4)};
+        for (int i = 0; i < threadSize; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < loop; j++) {
+                        while (true) {
+                            final LongKeyCounterMap counter;
+                            synchronized (current) {
+                                counter = current[0];
+                            }
+                            if (counter.increment((j % 64) + 1, 1L)) {
+                                break;
+                            }
+                        }
+                    }
+                    done.countDown();
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        long total = 0;
+        boolean finished = false;
+        while (!finished) {
+            // the last snapshot is taken after every writer finished
+            finished = done.getCount() == 0;
+            final LongKeyCounterMap old;
+            synchronized (current) {
+                old = current[0];
+                current[0] = new LongKeyCounterMap(4, 4);
+            }
+            LongKeyCounterMap.Snapshot snapshot = old.seal();
+            for (int i = 0; i < snapshot.size(); i++) {
+                total += snapshot.getValue(i);
+            }
+        }
+        Assert.assertEquals((long) threadSize * loop, total);
+    }
+
+    private Map<Long, Long> toMap(LongKeyCounterMap.Snapshot snapshot) {
+        Map<Long, Long> map = new HashMap<Long, Long>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            map.put(snapshot.getKey(i), snapshot.getValue(i));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author agent
+ */
+public class PacketBufferPoolTest {
+
+    @Test
+    public void sizeClass() {
+        PacketBufferPool pool = new PacketBufferPool(new int[] {4096, 1024}, 1024 * 1024);
+        Assert.assertArrayEquals(new int[] {1024, 4096, PacketBufferPool.MAX_PACKET_SIZE}, pool.getSizeClasses());
+
+        PacketBuffer small = pool.allocate(100);
+        Assert.assertEquals(1024, small.capacity());
+        Assert.assertEquals(100, small.getLength());
+
+        PacketBuffer large = pool.allocate(2000);
+        Assert.assertEquals(4096, large.capacity());
+
+        Assert.assertEquals(2, pool.getInUse());
+        small.release();
+        large.release();
+        Assert.assertEquals(0, pool.getInUse());
+        Assert.assertEquals(2, pool.getHighWaterMark());
+    }
+
+    @Test
+    public void parseSizeClasses() {
+        Assert.assertArrayEquals(new int[] {1024, 4096}, PacketBufferPool.parseSizeClasses(" 1024, 4096,"));
+        Assert.assertArrayEquals(new int[] {PacketBufferPool.MAX_PACKET_SIZE}, PacketBufferPool.parseSizeClasses(""));
+    }
+
+    @Test
+    public void readWrite() {
+        PacketBufferPool pool = new PacketBufferPool(new int[] {1024}, 1024 * 1024);
+        PacketBuffer buffer = pool.allocate(3);
+        buffer.write(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+
+        byte[] bytes = new byte[3];
+        buffer.read(bytes);
+        Assert.assertArrayEquals(new byte[] {1, 2, 3}, bytes);
+        Assert.assertTrue(buffer.isPooled());
+        buffer.release();
+    }
+
+    @Test
+    public void reuse() {
+        PacketBufferPool pool = new PacketBufferPool(new int[] {1024}, 1024, 1024);
+        PacketBuffer first = pool.allocate(10);
+        first.release();
+        PacketBuffer second = pool.allocate(10);
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1024, pool.getAllocatedCapacity());
+        second.release();
+    }
+
+    @Test
+    public void exhausted() {
+        PacketBufferPool pool = new PacketBufferPool(new int[] {1024}, 1024, 1024);
+        PacketBuffer pooled = pool.allocate(10);
+        // no capacity left
+        PacketBuffer unpooled = pool.allocate(10);
+        Assert.assertFalse(unpooled.isPooled());
+        Assert.assertEquals(1, pool.getExhaustedCount());
+
+        unpooled.release();
+        pooled.release();
+        Assert.assertEquals(0, pool.getInUse());
+    }
+
+    @Test
+    public void refCount() {
+        PacketBufferPool pool = new PacketBufferPool(new int[] {1024}, 1024 * 1024);
+        PacketBuffer buffer = pool.allocate(10);
+        buffer.retain();
+        Assert.assertFalse(buffer.release());
+        Assert.assertEquals(1, pool.getInUse());
+        Assert.assertTrue(buffer.release());
+        Assert.assertEquals(0, pool.getInUse());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void doubleRelease() {
+        PacketBufferPool pool = new PacketBufferPool(new int[] {1024}, 1024 * 1024);
+        PacketBuffer buffer = pool.allocate(10);
+        buffer.release();
+        buffer.release();
+    }
+}
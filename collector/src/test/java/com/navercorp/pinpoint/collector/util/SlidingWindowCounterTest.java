@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class SlidingWindowCounterTest {
+
+    @Test
+    public void testSum() throws Exception {
+        SlidingWindowCounter counter = new SlidingWindowCounter(2, 1000, 10);
+        counter.add(0, 1, 0);
+        counter.add(0, 2, 150);
+        counter.add(1, 5, 999);
+
+        Assert.assertEquals(counter.sum(0, 999), 3L);
+        Assert.assertEquals(counter.sum(1, 999), 5L);
+    }
+
+    @Test
+    public void testSlide() throws Exception {
+        SlidingWindowCounter counter = new SlidingWindowCounter(1, 1000, 10);
+        counter.add(0, 1, 0);
+        counter.add(0, 1, 500);
+        // the slot of 0 is out of the window
+        Assert.assertEquals(counter.sum(0, 1000), 1L);
+        Assert.assertEquals(counter.sum(0, 2000), 0L);
+
+        // the ring comes back to the slot of 0
+        counter.add(0, 3, 1050);
+        Assert.assertEquals(counter.sum(0, 1050), 4L);
+        Assert.assertEquals(counter.sum(0, 1600), 3L);
+    }
+
+    @Test
+    public void testOlderThanWindow() throws Exception {
+        SlidingWindowCounter counter = new SlidingWindowCounter(1, 1000, 10);
+        counter.add(0, 1, 1050);
+        counter.add(0, 1, 50);
+
+        Assert.assertEquals(counter.sum(0, 1050), 1L);
+    }
+
+    @Test
+    public void testConcurrentAdd() throws Exception {
+        final SlidingWindowCounter counter = new SlidingWindowCounter(1, 60 * 1000, 6);
+        final long timestamp = 30 * 1000;
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        counter.add(0, 1, timestamp + (j % 1000));
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(counter.sum(0, timestamp + 1000), 40000L);
+    }
+
+    @Test
+    public void testRetireIfIdle() throws Exception {
+        SlidingWindowCounter counter = new SlidingWindowCounter(1, 1000, 10);
+        counter.add(0, 1, 500);
+        // updated after expireTime
+        Assert.assertFalse(counter.retireIfIdle(500));
+
+        Assert.assertTrue(counter.acquire());
+        // held by a writer
+        Assert.assertFalse(counter.retireIfIdle(1000));
+        counter.release();
+
+        Assert.assertTrue(counter.retireIfIdle(1000));
+        Assert.assertTrue(counter.isRetired());
+        Assert.assertFalse(counter.acquire());
+    }
+}
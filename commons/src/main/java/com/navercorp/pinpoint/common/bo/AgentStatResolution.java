@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.bo;
+
+import com.navercorp.pinpoint.common.hbase.HBaseTables;
+
+/**
+ * resolutions of the agent statistics tables.
+ * RAW is the AgentStat table written by the agent every 5 seconds, the others are rollups aggregated by the collector.
+ *
+ * @author agent
+ */
+public enum AgentStatResolution {
+
+    RAW(5 * 1000L, HBaseTables.AGENT_STAT),
+    ONE_MINUTE(60 * 1000L, HBaseTables.AGENT_STAT_ROLLUP_1M),
+    TEN_MINUTES(10 * 60 * 1000L, HBaseTables.AGENT_STAT_ROLLUP_10M),
+    ONE_HOUR(60 * 60 * 1000L, HBaseTables.AGENT_STAT_ROLLUP_1H);
+
+    private static final AgentStatResolution[] ROLLUPS = {ONE_MINUTE, TEN_MINUTES, ONE_HOUR};
+
+    private final long windowSize;
+    private final String tableName;
+
+    private AgentStatResolution(long windowSize, String tableName) {
+        this.windowSize = windowSize;
+        this.tableName = tableName;
+    }
+
+    public long getWindowSize() {
+        return windowSize;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public boolean isRollup() {
+        return this != RAW;
+    }
+
+    /**
+     * start time of the window the timestamp belongs to.
+     */
+    public long getWindowStart(long timestamp) {
+        return timestamp - (timestamp % windowSize);
+    }
+
+    public static AgentStatResolution[] getRollups() {
+        return ROLLUPS.clone();
+    }
+
+    /**
+     * returns the coarsest resolution whose window still fits into the given time slot, RAW if none of the rollups do.
+     */
+    public static AgentStatResolution select(long timeSlotSize) {
+        AgentStatResolution selected = RAW;
+        for (AgentStatResolution rollup : ROLLUPS) {
+            if (rollup.windowSize <= timeSlotSize) {
+                selected = rollup;
+            }
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.bo;
+
+import com.navercorp.pinpoint.common.buffer.AutomaticBuffer;
+import com.navercorp.pinpoint.common.buffer.Buffer;
+import com.navercorp.pinpoint.common.buffer.FixedBuffer;
+
+/**
+ * min/max/sum/count of the agent statistics collected within one window of an {@link AgentStatResolution}.
+ * not thread safe.
+ *
+ * @author agent
+ */
+public class AgentStatRollupBo {
+
+    private static final byte VERSION = 0;
+
+    private final String agentId;
+    private final long timestamp;
+    private String gcType;
+
+    private final LongSummary jvmMemoryHeapUsed = new LongSummary();
+    private final LongSummary jvmMemoryHeapMax = new LongSummary();
+    private final LongSummary jvmMemoryNonHeapUsed = new LongSummary();
+    private final LongSummary jvmMemoryNonHeapMax = new LongSummary();
+    private final LongSummary jvmGcOldCount = new LongSummary();
+    private final LongSummary jvmGcOldTime = new LongSummary();
+    private final DoubleSummary jvmCpuLoad = new DoubleSummary();
+    private final DoubleSummary systemCpuLoad = new DoubleSummary();
+
+    public AgentStatRollupBo(String agentId, long timestamp) {
+        if (agentId == null) {
+            throw new NullPointerException("agentId must not be null");
+        }
+        this.agentId = agentId;
+        this.timestamp = timestamp;
+    }
+
+    public AgentStatRollupBo(byte[] value) {
+        if (value == null) {
+            throw new NullPointerException("value must not be null");
+        }
+        final Buffer buffer = new FixedBuffer(value);
+        final byte version = buffer.readByte();
+        if (version != VERSION) {
+            throw new IllegalStateException("unknown version :" + version);
+        }
+        this.agentId = buffer.readPrefixedString();
+        this.timestamp = buffer.readLong();
+        this.gcType = buffer.readPrefixedString();
+        this.jvmMemoryHeapUsed.read(buffer);
+        this.jvmMemoryHeapMax.read(buffer);
+        this.jvmMemoryNonHeapUsed.read(buffer);
+        this.jvmMemoryNonHeapMax.read(buffer);
+        this.jvmGcOldCount.read(buffer);
+        this.jvmGcOldTime.read(buffer);
+        this.jvmCpuLoad.read(buffer);
+        this.systemCpuLoad.read(buffer);
+    }
+
+    public String getAgentId() {
+        return agentId;
+    }
+
+    /**
+     * start time of the window
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getGcType() {
+        return gcType;
+    }
+
+    public LongSummary getJvmMemoryHeapUsed() {
+        return jvmMemoryHeapUsed;
+    }
+
+    public LongSummary getJvmMemoryHeapMax() {
+        return jvmMemoryHeapMax;
+    }
+
+    public LongSummary getJvmMemoryNonHeapUsed() {
+        return jvmMemoryNonHeapUsed;
+    }
+
+    public LongSummary getJvmMemoryNonHeapMax() {
+        return jvmMemoryNonHeapMax;
+    }
+
+    public LongSummary getJvmGcOldCount() {
+        return jvmGcOldCount;
+    }
+
+    public LongSummary getJvmGcOldTime() {
+        return jvmGcOldTime;
+    }
+
+    public DoubleSummary getJvmCpuLoad() {
+        return jvmCpuLoad;
+    }
+
+    public DoubleSummary getSystemCpuLoad() {
+        return systemCpuLoad;
+    }
+
+    public void add(AgentStatMemoryGcBo memoryGc) {
+        if (memoryGc == null) {
+            return;
+        }
+        this.gcType = memoryGc.getGcType();
+        this.jvmMemoryHeapUsed.add(memoryGc.getJvmMemoryHeapUsed());
+        this.jvmMemoryHeapMax.add(memoryGc.getJvmMemoryHeapMax());
+        this.jvmMemoryNonHeapUsed.add(memoryGc.getJvmMemoryNonHeapUsed());
+        this.jvmMemoryNonHeapMax.add(memoryGc.getJvmMemoryNonHeapMax());
+        this.jvmGcOldCount.add(memoryGc.getJvmGcOldCount());
+        this.jvmGcOldTime.add(memoryGc.getJvmGcOldTime());
+    }
+
+    public void add(AgentStatCpuLoadBo cpuLoad) {
+        if (cpuLoad == null) {
+            return;
+        }
+        this.jvmCpuLoad.add(cpuLoad.getJvmCpuLoad());
+        this.systemCpuLoad.add(cpuLoad.getSystemCpuLoad());
+    }
+
+    /**
+     * merges partial rollups of the same window, e.g. written by different collectors.
+     */
+    public void merge(AgentStatRollupBo other) {
+        if (other == null) {
+            throw new NullPointerException("other must not be null");
+        }
+        if (other.gcType != null) {
+            this.gcType = other.gcType;
+        }
+        this.jvmMemoryHeapUsed.merge(other.jvmMemoryHeapUsed);
+        this.jvmMemoryHeapMax.merge(other.jvmMemoryHeapMax);
+        this.jvmMemoryNonHeapUsed.merge(other.jvmMemoryNonHeapUsed);
+        this.jvmMemoryNonHeapMax.merge(other.jvmMemoryNonHeapMax);
+        this.jvmGcOldCount.merge(other.jvmGcOldCount);
+        this.jvmGcOldTime.merge(other.jvmGcOldTime);
+        this.jvmCpuLoad.merge(other.jvmCpuLoad);
+        this.systemCpuLoad.merge(other.systemCpuLoad);
+    }
+
+    public byte[] writeValue() {
+        final Buffer buffer = new AutomaticBuffer(128);
+        buffer.put(VERSION);
+        buffer.putPrefixedString(this.agentId);
+        buffer.put(this.timestamp);
+        buffer.putPrefixedString(this.gcType);
+        this.jvmMemoryHeapUsed.write(buffer);
+        this.jvmMemoryHeapMax.write(buffer);
+        this.jvmMemoryNonHeapUsed.write(buffer);
+        this.jvmMemoryNonHeapMax.write(buffer);
+        this.jvmGcOldCount.write(buffer);
+        this.jvmGcOldTime.write(buffer);
+        this.jvmCpuLoad.write(buffer);
+        this.systemCpuLoad.write(buffer);
+        return buffer.getBuffer();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("AgentStatRollupBo{");
+        sb.append("agentId='").append(this.agentId).append('\'');
+        sb.append(", timestamp=").append(this.timestamp);
+        sb.append(", gcType='").append(this.gcType).append('\'');
+        sb.append(", jvmMemoryHeapUsed=").append(this.jvmMemoryHeapUsed);
+        sb.append(", jvmMemoryHeapMax=").append(this.jvmMemoryHeapMax);
+        sb.append(", jvmMemoryNonHeapUsed=").append(this.jvmMemoryNonHeapUsed);
+        sb.append(", jvmMemoryNonHeapMax=").append(this.jvmMemoryNonHeapMax);
+        sb.append(", jvmGcOldCount=").append(this.jvmGcOldCount);
+        sb.append(", jvmGcOldTime=").append(this.jvmGcOldTime);
+        sb.append(", jvmCpuLoad=").append(this.jvmCpuLoad);
+        sb.append(", systemCpuLoad=").append(this.systemCpuLoad);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    public static final class LongSummary {
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+        private long sum;
+        private long count;
+
+        public void add(long value) {
+            if (value < min) {
+                min = value;
+            }
+            if (value > max) {
+                max = value;
+            }
+            sum += value;
+            count++;
+        }
+
+        public void merge(LongSummary other) {
+            if (other.count == 0) {
+                return;
+            }
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            sum += other.sum;
+            count += other.count;
+        }
+
+        public long getMin() {
+            return min;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getAvg() {
+            if (count == 0) {
+                return 0;
+            }
+            return sum / count;
+        }
+
+        private void write(Buffer buffer) {
+            buffer.putVar(count);
+            if (count == 0) {
+                return;
+            }
+            buffer.putSVar(min);
+            buffer.putSVar(max);
+            buffer.putSVar(sum);
+        }
+
+        private void read(Buffer buffer) {
+            this.count = buffer.readVarLong();
+            if (count == 0) {
+                return;
+            }
+            this.min = buffer.readSVarLong();
+            this.max = buffer.readSVarLong();
+            this.sum = buffer.readSVarLong();
+        }
+
+        @Override
+        public String toString() {
+            return "{min=" + min + ", max=" + max + ", sum=" + sum + ", count=" + count + '}';
+        }
+    }
+
+    /**
+     * negative values mean the value is not supported by the agent and are skipped.
+     */
+    public static final class DoubleSummary {
+        private double min = Double.MAX_VALUE;
+        private double max = -Double.MAX_VALUE;
+        private double sum;
+        private long count;
+
+        public void add(double value) {
+            if (value < 0) {
+                return;
+            }
+            if (value < min) {
+                min = value;
+            }
+            if (value > max) {
+                max = value;
+            }
+            sum += value;
+            count++;
+        }
+
+        public void merge(DoubleSummary other) {
+            if (other.count == 0) {
+                return;
+            }
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            sum += other.sum;
+            count += other.count;
+        }
+
+        public double getMin() {
+            return min;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+        public double getSum() {
+            return sum;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getAvg() {
+            if (count == 0) {
+                return 0;
+            }
+            return sum / count;
+        }
+
+        private void write(Buffer buffer) {
+            buffer.putVar(count);
+            if (count == 0) {
+                return;
+            }
+            buffer.put(min);
+            buffer.put(max);
+            buffer.put(sum);
+        }
+
+        private void read(Buffer buffer) {
+            this.count = buffer.readVarLong();
+            if (count == 0) {
+                return;
+            }
+            this.min = buffer.readDouble();
+            this.max = buffer.readDouble();
+            this.sum = buffer.readDouble();
+        }
+
+        @Override
+        public String toString() {
+            return "{min=" + min + ", max=" + max + ", sum=" + sum + ", count=" + count + '}';
+        }
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.bo;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.navercorp.pinpoint.common.buffer.AutomaticBuffer;
+import com.navercorp.pinpoint.common.buffer.Buffer;
+import com.navercorp.pinpoint.common.buffer.FixedBuffer;
+
+/**
+ * the values the alarm checkers need, summed over the window ending at timestamp.
+ * each collector only sees the data sent to it, so the windows of all collectors have to be merged before checking.
+ * not thread safe.
+ *
+ * @author agent
+ */
+public class AlarmWindowBo {
+
+    private static final byte VERSION = 0;
+
+    private final long timestamp;
+    private final long windowMillis;
+    private final long startTime;
+
+    private final Map<String, ApplicationWindow> applicationWindowMap = new HashMap<String, ApplicationWindow>();
+
+    /**
+     * @param timestamp end of the window
+     * @param startTime time the collector started to count. the window misses data sent before it.
+     */
+    public AlarmWindowBo(long timestamp, long windowMillis, long startTime) {
+        this.timestamp = timestamp;
+        this.windowMillis = windowMillis;
+        this.startTime = startTime;
+    }
+
+    public AlarmWindowBo(byte[] value) {
+        if (value == null) {
+            throw new NullPointerException("value must not be null");
+        }
+        final Buffer buffer = new FixedBuffer(value);
+        final byte version = buffer.readByte();
+        if (version != VERSION) {
+            throw new IllegalStateException("unknown version :" + version);
+        }
+        this.timestamp = buffer.readLong();
+        this.windowMillis = buffer.readVarLong();
+        this.startTime = buffer.readLong();
+        final int applicationSize = buffer.readVarInt();
+        for (int i = 0; i < applicationSize; i++) {
+            final ApplicationWindow applicationWindow = new ApplicationWindow(buffer.readPrefixedString());
+            applicationWindow.read(buffer);
+            this.applicationWindowMap.put(applicationWindow.getApplicationName(), applicationWindow);
+        }
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * @return false while the collector has counted for less than a window.
+     */
+    public boolean isComplete() {
+        return timestamp - startTime >= windowMillis;
+    }
+
+    public ApplicationWindow getApplicationWindow(String applicationName) {
+        if (applicationName == null) {
+            throw new NullPointerException("applicationName must not be null");
+        }
+        ApplicationWindow applicationWindow = applicationWindowMap.get(applicationName);
+        if (applicationWindow == null) {
+            applicationWindow = new ApplicationWindow(applicationName);
+            applicationWindowMap.put(applicationName, applicationWindow);
+        }
+        return applicationWindow;
+    }
+
+    public ApplicationWindow findApplicationWindow(String applicationName) {
+        return applicationWindowMap.get(applicationName);
+    }
+
+    public Collection<ApplicationWindow> getApplicationWindowList() {
+        return applicationWindowMap.values();
+    }
+
+    /**
+     * adds the counts of a window of another collector.
+     */
+    public void merge(AlarmWindowBo other) {
+        if (other == null) {
+            throw new NullPointerException("other must not be null");
+        }
+        for (ApplicationWindow otherApplicationWindow : other.applicationWindowMap.values()) {
+            getApplicationWindow(otherApplicationWindow.getApplicationName()).merge(otherApplicationWindow);
+        }
+    }
+
+    public byte[] writeValue() {
+        final Buffer buffer = new AutomaticBuffer(256);
+        buffer.put(VERSION);
+        buffer.put(this.timestamp);
+        buffer.putVar(this.windowMillis);
+        buffer.put(this.startTime);
+        buffer.putVar(this.applicationWindowMap.size());
+        for (ApplicationWindow applicationWindow : this.applicationWindowMap.values()) {
+            buffer.putPrefixedString(applicationWindow.getApplicationName());
+            applicationWindow.write(buffer);
+        }
+        return buffer.getBuffer();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("AlarmWindowBo{");
+        sb.append("timestamp=").append(this.timestamp);
+        sb.append(", windowMillis=").append(this.windowMillis);
+        sb.append(", startTime=").append(this.startTime);
+        sb.append(", applicationWindowMap=").append(this.applicationWindowMap);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    public static final class ApplicationWindow {
+        private final String applicationName;
+        private final Count response = new Count();
+        // calleeHost(or callee applicationName) -> count
+        private final Map<String, Count> calleeMap = new HashMap<String, Count>();
+        private final Map<String, AgentStat> agentStatMap = new HashMap<String, AgentStat>();
+
+        private ApplicationWindow(String applicationName) {
+            this.applicationName = applicationName;
+        }
+
+        public String getApplicationName() {
+            return applicationName;
+        }
+
+        public Count getResponse() {
+            return response;
+        }
+
+        public Count getCallee(String calleeKey) {
+            if (calleeKey == null) {
+                throw new NullPointerException("calleeKey must not be null");
+            }
+            Count count = calleeMap.get(calleeKey);
+            if (count == null) {
+                count = new Count();
+                calleeMap.put(calleeKey, count);
+            }
+            return count;
+        }
+
+        public Map<String, Count> getCalleeMap() {
+            return calleeMap;
+        }
+
+        public AgentStat getAgentStat(String agentId) {
+            if (agentId == null) {
+                throw new NullPointerException("agentId must not be null");
+            }
+            AgentStat agentStat = agentStatMap.get(agentId);
+            if (agentStat == null) {
+                agentStat = new AgentStat();
+                agentStatMap.put(agentId, agentStat);
+            }
+            return agentStat;
+        }
+
+        public Map<String, AgentStat> getAgentStatMap() {
+            return agentStatMap;
+        }
+
+        private void merge(ApplicationWindow other) {
+            this.response.merge(other.response);
+            for (Map.Entry<String, Count> entry : other.calleeMap.entrySet()) {
+                getCallee(entry.getKey()).merge(entry.getValue());
+            }
+            for (Map.Entry<String, AgentStat> entry : other.agentStatMap.entrySet()) {
+                getAgentStat(entry.getKey()).merge(entry.getValue());
+            }
+        }
+
+        private void write(Buffer buffer) {
+            response.write(buffer);
+            buffer.putVar(calleeMap.size());
+            for (Map.Entry<String, Count> entry : calleeMap.entrySet()) {
+                buffer.putPrefixedString(entry.getKey());
+                entry.getValue().write(buffer);
+            }
+            buffer.putVar(agentStatMap.size());
+            for (Map.Entry<String, AgentStat> entry : agentStatMap.entrySet()) {
+                buffer.putPrefixedString(entry.getKey());
+                entry.getValue().write(buffer);
+            }
+        }
+
+        private void read(Buffer buffer) {
+            response.read(buffer);
+            final int calleeSize = buffer.readVarInt();
+            for (int i = 0; i < calleeSize; i++) {
+                getCallee(buffer.readPrefixedString()).read(buffer);
+            }
+            final int agentSize = buffer.readVarInt();
+            for (int i = 0; i < agentSize; i++) {
+                getAgentStat(buffer.readPrefixedString()).read(buffer);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "{response=" + response + ", calleeMap=" + calleeMap + ", agentStatMap=" + agentStatMap + '}';
+        }
+    }
+
+    public static final class Count {
+        private long slowCount;
+        private long errorCount;
+        private long totalCount;
+
+        public void add(long slowCount, long errorCount, long totalCount) {
+            this.slowCount += slowCount;
+            this.errorCount += errorCount;
+            this.totalCount += totalCount;
+        }
+
+        private void merge(Count other) {
+            add(other.slowCount, other.errorCount, other.totalCount);
+        }
+
+        public long getSlowCount() {
+            return slowCount;
+        }
+
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        private void write(Buffer buffer) {
+            buffer.putVar(slowCount);
+            buffer.putVar(errorCount);
+            buffer.putVar(totalCount);
+        }
+
+        private void read(Buffer buffer) {
+            this.slowCount = buffer.readVarLong();
+            this.errorCount = buffer.readVarLong();
+            this.totalCount = buffer.readVarLong();
+        }
+
+        @Override
+        public String toString() {
+            return "{slow=" + slowCount + ", error=" + errorCount + ", total=" + totalCount + '}';
+        }
+    }
+
+    /**
+     * sums of the agent stat samples in the window, in the units the web alarm checkers use.
+     */
+    public static final class AgentStat {
+        private long heapUsed;
+        private long heapMax;
+        // jvm cpu load * 100 per sample
+        private long jvmCpuUsage;
+        private long jvmCpuSampleCount;
+        private long gcOldCount;
+
+        public void add(long heapUsed, long heapMax, long jvmCpuUsage, long jvmCpuSampleCount, long gcOldCount) {
+            this.heapUsed += heapUsed;
+            this.heapMax += heapMax;
+            this.jvmCpuUsage += jvmCpuUsage;
+            this.jvmCpuSampleCount += jvmCpuSampleCount;
+            this.gcOldCount += gcOldCount;
+        }
+
+        private void merge(AgentStat other) {
+            add(other.heapUsed, other.heapMax, other.jvmCpuUsage, other.jvmCpuSampleCount, other.gcOldCount);
+        }
+
+        public long getHeapUsed() {
+            return heapUsed;
+        }
+
+        public long getHeapMax() {
+            return heapMax;
+        }
+
+        public long getJvmCpuUsage() {
+            return jvmCpuUsage;
+        }
+
+        public long getJvmCpuSampleCount() {
+            return jvmCpuSampleCount;
+        }
+
+        public long getGcOldCount() {
+            return gcOldCount;
+        }
+
+        private void write(Buffer buffer) {
+            buffer.putVar(heapUsed);
+            buffer.putVar(heapMax);
+            buffer.putVar(jvmCpuUsage);
+            buffer.putVar(jvmCpuSampleCount);
+            buffer.putSVar(gcOldCount);
+        }
+
+        private void read(Buffer buffer) {
+            this.heapUsed = buffer.readVarLong();
+            this.heapMax = buffer.readVarLong();
+            this.jvmCpuUsage = buffer.readVarLong();
+            this.jvmCpuSampleCount = buffer.readVarLong();
+            this.gcOldCount = buffer.readSVarLong();
+        }
+
+        @Override
+        public String toString() {
+            return "{heapUsed=" + heapUsed + ", heapMax=" + heapMax + ", jvmCpuUsage=" + jvmCpuUsage + ", jvmCpuSampleCount=" + jvmCpuSampleCount + ", gcOldCount=" + gcOldCount + '}';
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.bo;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import com.navercorp.pinpoint.common.buffer.Buffer;
+import com.navercorp.pinpoint.common.buffer.OffsetFixedBuffer;
+
+/**
+ * offsets of the fields left out of the projection in the value buffer of a span or span event.
+ * a field is decoded on its own when it is accessed, the fields around it are not read again.
+ * not thread safe.
+ *
+ * @author agent
+ */
+final class LazySpanFields {
+
+    private static final int NONE = -1;
+
+    private final byte[] bytes;
+    private final Set<SpanField> projection;
+    private final int[] offsets = new int[SpanField.ALL.size()];
+
+    LazySpanFields(byte[] bytes, Set<SpanField> projection) {
+        if (bytes == null) {
+            throw new NullPointerException("bytes must not be null");
+        }
+        if (projection == null) {
+            throw new NullPointerException("projection must not be null");
+        }
+        this.bytes = bytes;
+        this.projection = projection;
+        Arrays.fill(offsets, NONE);
+    }
+
+    /**
+     * reads the field at the position of buffer, or skips it and keeps its offset when it is not in the projection.
+     */
+    static String readString(Buffer buffer, SpanField field, LazySpanFields lazyFields) {
+        if (lazyFields == null || lazyFields.projection.contains(field)) {
+            return buffer.readPrefixedString();
+        }
+        lazyFields.offsets[field.ordinal()] = buffer.getOffset();
+        buffer.skipPrefixedBytes();
+        return null;
+    }
+
+    /**
+     * @return true if the field at the position of buffer is left undecoded. the caller has to skip it.
+     */
+    static boolean skip(Buffer buffer, SpanField field, LazySpanFields lazyFields) {
+        if (lazyFields == null || lazyFields.projection.contains(field)) {
+            return false;
+        }
+        lazyFields.offsets[field.ordinal()] = buffer.getOffset();
+        return true;
+    }
+
+    /**
+     * @return the decoded field, or current if the field was decoded or set already.
+     */
+    String decodeString(SpanField field, String current) {
+        final Buffer buffer = decodeBuffer(field);
+        if (buffer == null) {
+            return current;
+        }
+        return buffer.readPrefixedString();
+    }
+
+    /**
+     * @return a buffer positioned at the field, or null if the field was decoded or set already.
+     */
+    Buffer decodeBuffer(SpanField field) {
+        final int offset = offsets[field.ordinal()];
+        if (offset == NONE) {
+            return null;
+        }
+        offsets[field.ordinal()] = NONE;
+        return new OffsetFixedBuffer(bytes, offset);
+    }
+
+    /**
+     * the field was set, its encoded value must not be decoded anymore.
+     */
+    void remove(SpanField field) {
+        offsets[field.ordinal()] = NONE;
+    }
+}
@@ -18,6 +18,7 @@ package com.navercorp.pinpoint.common.bo;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import com.navercorp.pinpoint.common.ServiceType;
 import com.navercorp.pinpoint.common.buffer.AutomaticBuffer;
@@ -77,6 +78,9 @@ public class SpanBo implements com.navercorp.pinpoint.common.bo.Span {
     
     private String remoteAddr; // optional
 
+    // fields left out of the projection. see readValue(byte[], int, Set)
+    private LazySpanFields lazyFields;
+
     public SpanBo(TSpan span) {
         if (span == null) {
             throw new NullPointerException("span must not be null");
@@ -163,19 +167,23 @@ public class SpanBo implements com.navercorp.pinpoint.common.bo.Span {
     }
     
     public String getAgentId() {
+        this.agentId = decodeLazyField(SpanField.AGENT_ID, this.agentId);
         return agentId;
     }
 
     public void setAgentId(String agentId) {
         this.agentId = agentId;
+        clearLazyField(SpanField.AGENT_ID);
     }
 
     public String getApplicationId() {
+        this.applicationId = decodeLazyField(SpanField.APPLICATION_ID, this.applicationId);
         return applicationId;
     }
 
     public void setApplicationId(String applicationId) {
         this.applicationId = applicationId;
+        clearLazyField(SpanField.APPLICATION_ID);
     }
 
     public long getAgentStartTime() {
@@ -231,11 +239,13 @@ public class SpanBo implements com.navercorp.pinpoint.common.bo.Span {
 
 
     public String getRpc() {
+        this.rpc = decodeLazyField(SpanField.RPC, this.rpc);
         return rpc;
     }
 
     public void setRpc(String rpc) {
         this.rpc = rpc;
+        clearLazyField(SpanField.RPC);
     }
 
 
@@ -264,11 +274,13 @@ public class SpanBo implements com.navercorp.pinpoint.common.bo.Span {
     }
 
     public String getEndPoint() {
+        this.endPoint = decodeLazyField(SpanField.END_POINT, this.endPoint);
         return endPoint;
     }
 
     public void setEndPoint(String endPoint) {
         this.endPoint = endPoint;
+        clearLazyField(SpanField.END_POINT);
     }
 
     public int getApiId() {
@@ -329,11 +341,13 @@ public class SpanBo implements com.navercorp.pinpoint.common.bo.Span {
     }
 
     public String getRemoteAddr() {
+        this.remoteAddr = decodeLazyField(SpanField.REMOTE_ADDR, this.remoteAddr);
         return remoteAddr;
     }
 
     public void setRemoteAddr(String remoteAddr) {
         this.remoteAddr = remoteAddr;
+        clearLazyField(SpanField.REMOTE_ADDR);
     }
 
     public long getCollectorAcceptTime() {
@@ -357,6 +371,7 @@ public class SpanBo implements com.navercorp.pinpoint.common.bo.Span {
     }
 
     public String getExceptionMessage() {
+        this.exceptionMessage = decodeLazyField(SpanField.EXCEPTION_MESSAGE, this.exceptionMessage);
         return exceptionMessage;
     }
 
@@ -388,6 +403,7 @@ public class SpanBo implements com.navercorp.pinpoint.common.bo.Span {
            However just use automatic incremental buffer for convenience's sake.
            Consider to reuse getBufferLength when memory can be used more efficiently later.
         */
+        decodeLazyFields();
         final Buffer buffer = new AutomaticBuffer(256);
 
         buffer.put(version);
@@ -439,6 +455,24 @@ public class SpanBo implements com.navercorp.pinpoint.common.bo.Span {
     }
 
     public int readValue(byte[] bytes, int offset) {
+        return readValue(bytes, offset, SpanField.ALL);
+    }
+
+    /**
+     * decodes the fields of the projection only. the other fields are decoded from bytes when one of them is accessed,
+     * so bytes must not be modified while this object is in use.
+     */
+    public int readValue(byte[] bytes, int offset, Set<SpanField> projection) {
+        if (projection == null) {
+            throw new NullPointerException("projection must not be null");
+        }
+        final LazySpanFields lazyFields = projection.size() == SpanField.ALL.size() ? null : new LazySpanFields(bytes, projection);
+        final int endOffset = readValue0(bytes, offset, lazyFields);
+        this.lazyFields = lazyFields;
+        return endOffset;
+    }
+
+    private int readValue0(byte[] bytes, int offset, LazySpanFields lazyFields) {
         final Buffer buffer = new OffsetFixedBuffer(bytes, offset);
 
         this.version = buffer.readByte();
@@ -446,7 +480,7 @@ public class SpanBo implements com.navercorp.pinpoint.common.bo.Span {
         // this.mostTraceID = buffer.readLong();
         // this.leastTraceID = buffer.readLong();
 
-        this.agentId = buffer.readPrefixedString();
+        this.agentId = LazySpanFields.readString(buffer, SpanField.AGENT_ID, lazyFields);
         this.agentStartTime = buffer.readVarLong();
 
         // this.spanID = buffer.readLong();
@@ -455,11 +489,11 @@ public class SpanBo implements com.navercorp.pinpoint.common.bo.Span {
         this.startTime = buffer.readVarLong();
         this.elapsed = buffer.readVarInt();
 
-        this.rpc = buffer.readPrefixedString();
-        this.applicationId = buffer.readPrefixedString();
+        this.rpc = LazySpanFields.readString(buffer, SpanField.RPC, lazyFields);
+        this.applicationId = LazySpanFields.readString(buffer, SpanField.APPLICATION_ID, lazyFields);
         this.serviceType = buffer.readShort();
-        this.endPoint = buffer.readPrefixedString();
-        this.remoteAddr = buffer.readPrefixedString();
+        this.endPoint = LazySpanFields.readString(buffer, SpanField.END_POINT, lazyFields);
+        this.remoteAddr = LazySpanFields.readString(buffer, SpanField.REMOTE_ADDR, lazyFields);
         this.apiId = buffer.readSVarInt();
         
         this.errCode = buffer.readSVarInt();
@@ -467,7 +501,7 @@ public class SpanBo implements com.navercorp.pinpoint.common.bo.Span {
         this.hasException = buffer.readBoolean();
         if (hasException) {
             this.exceptionId = buffer.readSVarInt();
-            this.exceptionMessage = buffer.readPrefixedString();
+            this.exceptionMessage = LazySpanFields.readString(buffer, SpanField.EXCEPTION_MESSAGE, lazyFields);
         }
 
         this.flag = buffer.readShort();
@@ -484,8 +518,35 @@ public class SpanBo implements com.navercorp.pinpoint.common.bo.Span {
         return buffer.getOffset();
     }
 
+    private String decodeLazyField(SpanField field, String current) {
+        if (lazyFields == null) {
+            return current;
+        }
+        return lazyFields.decodeString(field, current);
+    }
+
+    private void decodeLazyFields() {
+        if (lazyFields == null) {
+            return;
+        }
+        this.agentId = decodeLazyField(SpanField.AGENT_ID, this.agentId);
+        this.applicationId = decodeLazyField(SpanField.APPLICATION_ID, this.applicationId);
+        this.rpc = decodeLazyField(SpanField.RPC, this.rpc);
+        this.endPoint = decodeLazyField(SpanField.END_POINT, this.endPoint);
+        this.remoteAddr = decodeLazyField(SpanField.REMOTE_ADDR, this.remoteAddr);
+        this.exceptionMessage = decodeLazyField(SpanField.EXCEPTION_MESSAGE, this.exceptionMessage);
+        this.lazyFields = null;
+    }
+
+    private void clearLazyField(SpanField field) {
+        if (lazyFields != null) {
+            lazyFields.remove(field);
+        }
+    }
+
     @Override
     public String toString() {
+        decodeLazyFields();
         final StringBuilder sb = new StringBuilder(256);
         sb.append("SpanBo{");
         sb.append("version=").append(version);
@@ -18,6 +18,7 @@ package com.navercorp.pinpoint.common.bo;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import com.navercorp.pinpoint.common.ServiceType;
 import com.navercorp.pinpoint.common.buffer.AutomaticBuffer;
@@ -73,6 +74,9 @@ public class SpanEventBo implements Span {
     private int asyncId = -1;
     private int nextAsyncId = -1;
 
+    // fields left out of the projection. see readValue(byte[], int, int, Set)
+    private LazySpanFields lazyFields;
+
     public SpanEventBo() {
     }
 
@@ -208,11 +212,13 @@ public class SpanEventBo implements Span {
     }
 
     public String getAgentId() {
+        this.agentId = decodeLazyField(SpanField.AGENT_ID, this.agentId);
         return agentId;
     }
 
     public void setAgentId(String agentId) {
         this.agentId = agentId;
+        clearLazyField(SpanField.AGENT_ID);
     }
 
     public long getAgentStartTime() {
@@ -280,11 +286,13 @@ public class SpanEventBo implements Span {
     }
 
     public String getRpc() {
+        this.rpc = decodeLazyField(SpanField.RPC, this.rpc);
         return rpc;
     }
 
     public void setRpc(String rpc) {
         this.rpc = rpc;
+        clearLazyField(SpanField.RPC);
     }
 
     public short getServiceType() {
@@ -296,11 +304,13 @@ public class SpanEventBo implements Span {
     }
 
     public String getEndPoint() {
+        this.endPoint = decodeLazyField(SpanField.END_POINT, this.endPoint);
         return endPoint;
     }
 
     public void setEndPoint(String endPoint) {
         this.endPoint = endPoint;
+        clearLazyField(SpanField.END_POINT);
     }
 
     public int getApiId() {
@@ -312,15 +322,18 @@ public class SpanEventBo implements Span {
     }
 
     public String getDestinationId() {
+        this.destinationId = decodeLazyField(SpanField.DESTINATION_ID, this.destinationId);
         return destinationId;
     }
 
     public void setDestinationId(String destinationId) {
         this.destinationId = destinationId;
+        clearLazyField(SpanField.DESTINATION_ID);
     }
 
 
     public List<AnnotationBo> getAnnotationBoList() {
+        decodeLazyAnnotation();
         return annotationBoList;
     }
 
@@ -349,6 +362,7 @@ public class SpanEventBo implements Span {
             boList.add(new AnnotationBo(ano));
         }
         this.annotationBoList = boList;
+        clearLazyField(SpanField.ANNOTATION);
     }
 
     public void setAnnotationBoList(List<AnnotationBo> anoList) {
@@ -356,6 +370,7 @@ public class SpanEventBo implements Span {
             return;
         }
         this.annotationBoList = anoList;
+        clearLazyField(SpanField.ANNOTATION);
     }
     
     public boolean hasException() {
@@ -367,6 +382,7 @@ public class SpanEventBo implements Span {
     }
 
     public String getExceptionMessage() {
+        this.exceptionMessage = decodeLazyField(SpanField.EXCEPTION_MESSAGE, this.exceptionMessage);
         return exceptionMessage;
     }
 
@@ -395,6 +411,7 @@ public class SpanEventBo implements Span {
     }
 
     public byte[] writeValue() {
+        decodeLazyFields();
         final Buffer buffer = new AutomaticBuffer(512);
 
         buffer.put(version);
@@ -441,6 +458,24 @@ public class SpanEventBo implements Span {
     }
 
     public int readValue(byte[] bytes, int offset, int length) {
+        return readValue(bytes, offset, length, SpanField.ALL);
+    }
+
+    /**
+     * decodes the fields of the projection only. the other fields are decoded from bytes when one of them is accessed,
+     * so bytes must not be modified while this object is in use.
+     */
+    public int readValue(byte[] bytes, int offset, int length, Set<SpanField> projection) {
+        if (projection == null) {
+            throw new NullPointerException("projection must not be null");
+        }
+        final LazySpanFields lazyFields = projection.size() == SpanField.ALL.size() ? null : new LazySpanFields(bytes, projection);
+        final int endOffset = readValue0(bytes, offset, length, lazyFields);
+        this.lazyFields = lazyFields;
+        return endOffset;
+    }
+
+    private int readValue0(byte[] bytes, int offset, int length, LazySpanFields lazyFields) {
         final int endOffset = offset + length;
         final Buffer buffer = new OffsetFixedBuffer(bytes, offset);
 
@@ -449,8 +484,8 @@ public class SpanEventBo implements Span {
         // this.mostTraceID = buffer.readLong();
         // this.leastTraceID = buffer.readLong();
 
-        this.agentId = buffer.readPrefixedString();
-        this.applicationId = buffer.readPrefixedString();
+        this.agentId = LazySpanFields.readString(buffer, SpanField.AGENT_ID, lazyFields);
+        this.applicationId = LazySpanFields.readString(buffer, SpanField.APPLICATION_ID, lazyFields);
         this.agentStartTime = buffer.readVarLong();
 
         this.startElapsed = buffer.readVarInt();
@@ -460,10 +495,10 @@ public class SpanEventBo implements Span {
         // this.sequence = buffer.readShort();
 
 
-        this.rpc = buffer.readPrefixedString();
+        this.rpc = LazySpanFields.readString(buffer, SpanField.RPC, lazyFields);
         this.serviceType = buffer.readShort();
-        this.endPoint = buffer.readPrefixedString();
-        this.destinationId = buffer.readPrefixedString();
+        this.endPoint = LazySpanFields.readString(buffer, SpanField.END_POINT, lazyFields);
+        this.destinationId = LazySpanFields.readString(buffer, SpanField.DESTINATION_ID, lazyFields);
         this.apiId = buffer.readSVarInt();
 
         this.depth = buffer.readSVarInt();
@@ -472,10 +507,14 @@ public class SpanEventBo implements Span {
         this.hasException = buffer.readBoolean();
         if (hasException) {
             this.exceptionId = buffer.readSVarInt();
-            this.exceptionMessage = buffer.readPrefixedString();
+            this.exceptionMessage = LazySpanFields.readString(buffer, SpanField.EXCEPTION_MESSAGE, lazyFields);
         }
 
-        this.annotationBoList = readAnnotation(buffer);
+        if (LazySpanFields.skip(buffer, SpanField.ANNOTATION, lazyFields)) {
+            skipAnnotation(buffer);
+        } else {
+            this.annotationBoList = readAnnotation(buffer);
+        }
         if(buffer.getOffset() < endOffset) {
             nextAsyncId = buffer.readSVarInt();            
         }
@@ -489,8 +528,57 @@ public class SpanEventBo implements Span {
         return annotationBoList.getAnnotationBoList();
     }
 
+    private void skipAnnotation(Buffer buffer) {
+        final int size = buffer.readVarInt();
+        for (int i = 0; i < size; i++) {
+            // version, key, valueType, value. see AnnotationBo.readValue()
+            buffer.readByte();
+            buffer.readSVarInt();
+            buffer.readByte();
+            buffer.skipPrefixedBytes();
+        }
+    }
+
+    private String decodeLazyField(SpanField field, String current) {
+        if (lazyFields == null) {
+            return current;
+        }
+        return lazyFields.decodeString(field, current);
+    }
+
+    private void decodeLazyAnnotation() {
+        if (lazyFields == null) {
+            return;
+        }
+        final Buffer buffer = lazyFields.decodeBuffer(SpanField.ANNOTATION);
+        if (buffer != null) {
+            this.annotationBoList = readAnnotation(buffer);
+        }
+    }
+
+    private void decodeLazyFields() {
+        if (lazyFields == null) {
+            return;
+        }
+        this.agentId = decodeLazyField(SpanField.AGENT_ID, this.agentId);
+        this.applicationId = decodeLazyField(SpanField.APPLICATION_ID, this.applicationId);
+        this.rpc = decodeLazyField(SpanField.RPC, this.rpc);
+        this.endPoint = decodeLazyField(SpanField.END_POINT, this.endPoint);
+        this.destinationId = decodeLazyField(SpanField.DESTINATION_ID, this.destinationId);
+        this.exceptionMessage = decodeLazyField(SpanField.EXCEPTION_MESSAGE, this.exceptionMessage);
+        decodeLazyAnnotation();
+        this.lazyFields = null;
+    }
+
+    private void clearLazyField(SpanField field) {
+        if (lazyFields != null) {
+            lazyFields.remove(field);
+        }
+    }
+
     @Override
     public String toString() {
+        decodeLazyFields();
         StringBuilder builder = new StringBuilder();
         builder.append("{version=");
         builder.append(version);
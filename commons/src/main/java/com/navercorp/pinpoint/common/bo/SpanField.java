@@ -0,0 +1,45 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.bo;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * variable-length fields of the span and span event values that may be left undecoded.
+ * fixed-size fields are always decoded because they have to be read to find the next field anyway.
+ * fields of the projection are decoded right away and the others are decoded from the value buffer on first access.
+ * see {@link LazySpanFields}
+ *
+ * @author agent
+ */
+public enum SpanField {
+    AGENT_ID,
+    APPLICATION_ID,
+    RPC,
+    END_POINT,
+    // span only
+    REMOTE_ADDR,
+    // span event only
+    DESTINATION_ID,
+    EXCEPTION_MESSAGE,
+    // span event only
+    ANNOTATION;
+
+    public static final Set<SpanField> ALL = Collections.unmodifiableSet(EnumSet.allOf(SpanField.class));
+}
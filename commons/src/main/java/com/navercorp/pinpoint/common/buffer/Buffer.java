@@ -156,6 +156,11 @@ public interface Buffer {
 
     String read4PrefixedString();
 
+    /**
+     * moves the offset over the value written by {@link #putPrefixedBytes(byte[])} or {@link #putPrefixedString(String)} without reading it.
+     */
+    void skipPrefixedBytes();
+
     byte[] getBuffer();
 
     byte[] copyBuffer();
@@ -445,6 +445,14 @@ public class FixedBuffer implements Buffer {
     }
 
 
+    @Override
+    public void skipPrefixedBytes() {
+        final int size = readSVarInt();
+        if (size > 0) {
+            this.offset = offset + size;
+        }
+    }
+
     private String readString(final int size) {
         final String s = newString(size);
         this.offset = offset + size;
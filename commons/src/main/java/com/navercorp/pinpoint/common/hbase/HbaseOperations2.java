@@ -65,6 +65,16 @@ public interface HbaseOperations2 extends HbaseOperations {
 
     <T> List<T> get(String tableName, final List<Get> get, final RowMapper<T> mapper);
 
+    /**
+     * gets the rows in chunks of chunkSize, fetching and mapping the chunks concurrently.
+     * the mapped rows are handed to the handler in the caller thread in the order of getList.
+     * a chunk that arrives early waits for the chunks before it.
+     * the gets are split in the order of getList, neither sorted by row key nor grouped by region.
+     * the row keys are hash distributed, and the multi-get of each chunk is already batched per region server by the hbase client.
+     * only a bounded number of chunks is fetched ahead of the handler, so the memory does not grow with the size of getList.
+     */
+    <T> void getParallel(String tableName, final List<Get> getList, final RowMapper<T> mapper, RowHandler<T> handler, int chunkSize);
+
 
     void put(String tableName, final byte[] rowName, final byte[] familyName, final byte[] qualifier, final byte[] value);
 
@@ -94,6 +104,21 @@ public interface HbaseOperations2 extends HbaseOperations {
     
     <T> T find(String tableName, final Scan scan, final AbstractRowKeyDistributor rowKeyDistributor, final ResultsExtractor<T> action);
 
+    /**
+     * same as {@link #find(String, Scan, AbstractRowKeyDistributor, ResultsExtractor)} but the buckets of the row key distributor are scanned concurrently.
+     * the extractor still sees the rows ordered by their original row key, so it can stream them out without collecting the whole result.
+     */
+    <T> T findParallel(String tableName, final Scan scan, final AbstractRowKeyDistributor rowKeyDistributor, final ResultsExtractor<T> action);
+
+    <T> List<T> findParallel(String tableName, final Scan scan, final AbstractRowKeyDistributor rowKeyDistributor, final RowMapper<T> action);
+
+    <T> List<T> findParallel(String tableName, final Scan scan, final AbstractRowKeyDistributor rowKeyDistributor, int limit, final RowMapper<T> action);
+
+    /**
+     * the fetches of the buckets still in flight are stopped as soon as the limit is reached.
+     */
+    <T> List<T> findParallel(String tableName, final Scan scan, final AbstractRowKeyDistributor rowKeyDistributor, int limit, final RowMapper<T> action, final LimitEventHandler limitEventHandler);
+
     Result increment(String tableName, final Increment increment);
 
     /**
@@ -16,6 +16,7 @@
 
 package com.navercorp.pinpoint.common.hbase;
 
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
 import com.navercorp.pinpoint.common.util.StopWatch;
 import com.sematext.hbase.wd.AbstractRowKeyDistributor;
 import com.sematext.hbase.wd.DistributedScanner;
@@ -31,7 +32,10 @@ import org.springframework.util.Assert;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.*;
 
 /**
@@ -39,30 +43,33 @@ import java.util.concurrent.*;
  */
 public class HbaseTemplate2 extends HbaseTemplate implements HbaseOperations2, InitializingBean, DisposableBean {
 
+    private static final int DEFAULT_PARALLEL_FETCH_SIZE = 256;
+    private static final int DEFAULT_PARALLEL_SCAN_THREAD_SIZE = 32;
+    private static final int DEFAULT_PARALLEL_SCAN_QUEUE_SIZE = 1024;
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private PooledHTableFactory pooledHTableFactory;
     private int poolSize = PooledHTableFactory.DEFAULT_POOL_SIZE;
 
-    private ExecutorService executor = newCachedThreadPool();
+    // fetches of the parallel scans. a saturated pool makes the scan fetch in the caller thread.
+    private ExecutorService parallelScanExecutor;
+    private boolean parallelScanEnable = true;
+    private int parallelScanThreadSize = DEFAULT_PARALLEL_SCAN_THREAD_SIZE;
+    private int parallelScanQueueSize = DEFAULT_PARALLEL_SCAN_QUEUE_SIZE;
 
     public HbaseTemplate2() {
     }
 
-    public ExecutorService newCachedThreadPool() {
-        return new ThreadPoolExecutor(0, 128,
+    ExecutorService newParallelScanExecutor() {
+        // idle core threads time out, the pool never grows beyond its core size with a queue in front
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelScanThreadSize, parallelScanThreadSize,
                 60L, TimeUnit.SECONDS,
-                new LinkedBlockingQueue<Runnable>());
+                new LinkedBlockingQueue<Runnable>(parallelScanQueueSize), new PinpointThreadFactory("Pinpoint-HbaseParallelScan", true));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
-//    public Executor getExecutor() {
-//        return executor;
-//    }
-
-//    public void setExecutor(Executor executor) {
-//        this.executor = executor;
-//    }
-
     public HbaseTemplate2(Configuration configuration) {
         Assert.notNull(configuration);
     }
@@ -80,12 +87,51 @@ public class HbaseTemplate2 extends HbaseTemplate implements HbaseOperations2, I
         this.poolSize = hTablePoolSize;
     }
 
+    public boolean isParallelScanEnable() {
+        return parallelScanEnable;
+    }
+
+    /**
+     * findParallel() scans the buckets one after another, the same as find(), when disabled.
+     * getParallel() gets the chunks one after another as well.
+     */
+    public void setParallelScanEnable(boolean parallelScanEnable) {
+        this.parallelScanEnable = parallelScanEnable;
+    }
+
+    public int getParallelScanThreadSize() {
+        return parallelScanThreadSize;
+    }
+
+    public void setParallelScanThreadSize(int parallelScanThreadSize) {
+        this.parallelScanThreadSize = parallelScanThreadSize;
+    }
+
+    public int getParallelScanQueueSize() {
+        return parallelScanQueueSize;
+    }
+
+    public void setParallelScanQueueSize(int parallelScanQueueSize) {
+        this.parallelScanQueueSize = parallelScanQueueSize;
+    }
+
+    ExecutorService getParallelScanExecutor() {
+        return parallelScanExecutor;
+    }
+
+    void setParallelScanExecutor(ExecutorService parallelScanExecutor) {
+        this.parallelScanExecutor = parallelScanExecutor;
+    }
+
     @Override
     public void afterPropertiesSet() {
         Configuration configuration = getConfiguration();
         Assert.notNull(configuration, "configuration is required");
         this.pooledHTableFactory = new PooledHTableFactory(configuration, poolSize);
         this.setTableFactory(pooledHTableFactory);
+        if (parallelScanEnable) {
+            this.parallelScanExecutor = newParallelScanExecutor();
+        }
     }
 
     @Override
@@ -94,7 +140,7 @@ public class HbaseTemplate2 extends HbaseTemplate implements HbaseOperations2, I
             this.pooledHTableFactory.destroy();
         }
 
-        final ExecutorService executor = this.executor;
+        final ExecutorService executor = this.parallelScanExecutor;
         if (executor != null) {
             executor.shutdown();
             try {
@@ -153,60 +199,6 @@ public class HbaseTemplate2 extends HbaseTemplate implements HbaseOperations2, I
         return find(tableName, scan, new RowMapperResultsExtractor<T>(action));
     }
 
-//    public class ParallelScan<T> {
-//        private String tableName;
-//        private Scan scan;
-//        private RowMapper<T> mapper;
-//
-//        public String getTableName() {
-//            return tableName;
-//        }
-//
-//        public void setTableName(String tableName) {
-//            this.tableName = tableName;
-//        }
-//
-//        public Scan getScan() {
-//            return scan;
-//        }
-//
-//        public void setScan(Scan scan) {
-//            this.scan = scan;
-//        }
-//
-//        public RowMapper<T> getMapper() {
-//            return mapper;
-//        }
-//
-//        public void setMapper(RowMapper<T> action) {
-//            this.mapper = action;
-//        }
-//    }
-//
-//    /**
-//     * API for running a scanner in parallel
-//     * for now comment out, you don't know how scanner's implementation can execute in parallel.
-//     * @return
-//     */
-//    public <T> List<Future<List<T>>> findParallel(final ParallelScan<T> parallelScans) {
-//        Callable<List<T>> tCallable = new Callable<List<T>>() {
-//            @Override
-//            public List<T> call() throws Exception {
-//                return find(parallelScans.getTableName(), parallelScans.getScan(), parallelScans.getMapper());
-//            }
-//        };
-//        ArrayList<Callable<List<T>>> callables = new ArrayList<Callable<List<T>>>();
-//        callables.add(tCallable);
-//
-//        List<Future<List<T>>> futures = null;
-//        try {
-//            futures = this.executor.invokeAll(callables);
-//        } catch (InterruptedException e) {
-//            Thread.currentThread().interrupt();
-//        }
-//        return futures;
-//    }
-
     @Override
     public <T> T get(String tableName, String rowName, final RowMapper<T> mapper) {
         return get(tableName, rowName, null, null, mapper);
@@ -295,6 +287,105 @@ public class HbaseTemplate2 extends HbaseTemplate implements HbaseOperations2, I
         });
     }
 
+    @Override
+    public <T> void getParallel(final String tableName, final List<Get> getList, final RowMapper<T> mapper, RowHandler<T> handler, int chunkSize) {
+        if (getList == null) {
+            throw new NullPointerException("getList must not be null");
+        }
+        if (mapper == null) {
+            throw new NullPointerException("mapper must not be null");
+        }
+        if (handler == null) {
+            throw new NullPointerException("handler must not be null");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive:" + chunkSize);
+        }
+        final List<List<Get>> chunkList = splitGets(getList, chunkSize);
+        if (parallelScanExecutor == null) {
+            for (List<Get> chunk : chunkList) {
+                handleRows(get(tableName, chunk, mapper), handler);
+            }
+            return;
+        }
+
+        // chunks are handed over in submission order. the ones behind the head keep fetching while it is waited for
+        final Queue<Future<List<T>>> pendingQueue = new LinkedList<Future<List<T>>>();
+        final Iterator<List<Get>> chunks = chunkList.iterator();
+        final int maxPendingChunks = Math.max(1, parallelScanThreadSize);
+        boolean success = false;
+        try {
+            while (pendingQueue.size() < maxPendingChunks && chunks.hasNext()) {
+                pendingQueue.add(submitChunk(tableName, chunks.next(), mapper));
+            }
+            while (!pendingQueue.isEmpty()) {
+                final List<T> rows = getChunk(pendingQueue.peek());
+                pendingQueue.poll();
+                // keep the fetches going while the handler works
+                if (chunks.hasNext()) {
+                    pendingQueue.add(submitChunk(tableName, chunks.next(), mapper));
+                }
+                handleRows(rows, handler);
+            }
+            success = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HbaseSystemException(e);
+        } finally {
+            if (!success) {
+                for (Future<List<T>> pending : pendingQueue) {
+                    pending.cancel(false);
+                }
+            }
+        }
+    }
+
+    private List<List<Get>> splitGets(List<Get> getList, int chunkSize) {
+        final List<List<Get>> chunkList = new ArrayList<List<Get>>(getList.size() / chunkSize + 1);
+        for (int from = 0; from < getList.size(); from += chunkSize) {
+            final int to = Math.min(from + chunkSize, getList.size());
+            chunkList.add(new ArrayList<Get>(getList.subList(from, to)));
+        }
+        return chunkList;
+    }
+
+    private <T> Future<List<T>> submitChunk(final String tableName, final List<Get> chunk, final RowMapper<T> mapper) {
+        final FutureTask<List<T>> fetch = new FutureTask<List<T>>(new Callable<List<T>>() {
+            @Override
+            public List<T> call() throws Exception {
+                return get(tableName, chunk, mapper);
+            }
+        });
+        try {
+            parallelScanExecutor.execute(fetch);
+        } catch (RejectedExecutionException e) {
+            // executor is saturated. fetch in the caller thread
+            fetch.run();
+        }
+        return fetch;
+    }
+
+    private <T> List<T> getChunk(Future<List<T>> completed) throws InterruptedException {
+        try {
+            return completed.get();
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new HbaseSystemException((Exception) cause);
+        }
+    }
+
+    private <T> void handleRows(List<T> rows, RowHandler<T> handler) {
+        for (T row : rows) {
+            handler.handleRow(row);
+        }
+    }
+
 
     public void put(String tableName, final byte[] rowName, final byte[] familyName, final byte[] qualifier, final byte[] value) {
         put(tableName, rowName, familyName, qualifier, null, value);
@@ -483,22 +574,68 @@ public class HbaseTemplate2 extends HbaseTemplate implements HbaseOperations2, I
         });
     }
 
+    @Override
+    public <T> T findParallel(String tableName, final Scan scan, final AbstractRowKeyDistributor rowKeyDistributor, final ResultsExtractor<T> action) {
+        if (parallelScanExecutor == null) {
+            return find(tableName, scan, rowKeyDistributor, action);
+        }
+        return execute(tableName, new TableCallback<T>() {
+            @Override
+            public T doInTable(HTableInterface htable) throws Throwable {
+                final ResultScanner scanner = createParallelDistributeScanner(htable, scan, rowKeyDistributor);
+                try {
+                    return action.extractData(scanner);
+                } finally {
+                    // stops the fetches in flight when the extractor did not read to the end, e.g. the limit was reached
+                    scanner.close();
+                }
+            }
+        });
+    }
+
+    @Override
+    public <T> List<T> findParallel(String tableName, Scan scan, AbstractRowKeyDistributor rowKeyDistributor, RowMapper<T> action) {
+        return findParallel(tableName, scan, rowKeyDistributor, new RowMapperResultsExtractor<T>(action));
+    }
+
+    @Override
+    public <T> List<T> findParallel(String tableName, Scan scan, AbstractRowKeyDistributor rowKeyDistributor, int limit, RowMapper<T> action) {
+        return findParallel(tableName, scan, rowKeyDistributor, new LimitRowMapperResultsExtractor<T>(action, limit));
+    }
+
+    @Override
+    public <T> List<T> findParallel(String tableName, Scan scan, AbstractRowKeyDistributor rowKeyDistributor, int limit, RowMapper<T> action, LimitEventHandler limitEventHandler) {
+        return findParallel(tableName, scan, rowKeyDistributor, new LimitRowMapperResultsExtractor<T>(action, limit, limitEventHandler));
+    }
+
+    private ResultScanner createParallelDistributeScanner(HTableInterface htable, Scan originalScan, AbstractRowKeyDistributor rowKeyDistributor) throws IOException {
+        // a batch of the consumer is one scanner rpc of each bucket. the batch size of the scan (Scan.setBatch()) is kept as is.
+        final int caching = originalScan.getCaching();
+        final int fetchSize = caching > 0 ? caching : DEFAULT_PARALLEL_FETCH_SIZE;
+        final ResultScanner[] scanners = openDistributedScanners(htable, originalScan, rowKeyDistributor, fetchSize);
+        return new ParallelResultScanner(rowKeyDistributor, scanners, parallelScanExecutor, fetchSize);
+    }
+
     public ResultScanner createDistributeScanner(HTableInterface htable, Scan originalScan, AbstractRowKeyDistributor rowKeyDistributor) throws IOException {
+        ResultScanner[] scanner = openDistributedScanners(htable, originalScan, rowKeyDistributor, originalScan.getCaching());
+        return new DistributedScanner(rowKeyDistributor, scanner);
+    }
 
+    private ResultScanner[] openDistributedScanners(HTableInterface htable, Scan originalScan, AbstractRowKeyDistributor rowKeyDistributor, int caching) throws IOException {
         Scan[] scans = rowKeyDistributor.getDistributedScans(originalScan);
         final int length = scans.length;
         for(int i = 0; i < length; i++) {
             Scan scan = scans[i];
             scan.setId(originalScan.getId() + "-" + i);
             // is it okay to set only a caching?
-            scan.setCaching(originalScan.getCaching());
+            scan.setCaching(caching);
         }
 
         ResultScanner[] scanner = new ResultScanner[length];
         boolean success = false;
         try {
             for (int i = 0; i < length; i++) {
-                scanner[i] = htable.getScanner(scans[i]);
+                scanner[i] = openScanner(htable, scans[i]);
             }
             success = true;
         } finally {
@@ -506,8 +643,11 @@ public class HbaseTemplate2 extends HbaseTemplate implements HbaseOperations2, I
                 closeScanner(scanner);
             }
         }
+        return scanner;
+    }
 
-        return new DistributedScanner(rowKeyDistributor, scanner);
+    ResultScanner openScanner(HTableInterface htable, Scan scan) throws IOException {
+        return htable.getScanner(scan);
     }
 
     private void closeScanner(ResultScanner[] scannerList ) {
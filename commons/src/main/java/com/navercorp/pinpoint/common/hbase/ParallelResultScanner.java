@@ -0,0 +1,271 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.hbase;
+
+import com.sematext.hbase.wd.AbstractRowKeyDistributor;
+
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * scans the buckets of a distributed table concurrently and merges them by their original row key, the same order as DistributedScanner.
+ * <p>
+ * every bucket prefetches its next batch on the executor while the current one is consumed.
+ * there is at most one fetch per bucket in flight and a fetch never waits for the consumer,
+ * so a bounded or busy executor only costs parallelism and can not deadlock.
+ * <p>
+ * not thread safe, used by a single consumer thread.
+ *
+ * @author agent
+ */
+public class ParallelResultScanner implements ResultScanner {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final AbstractRowKeyDistributor rowKeyDistributor;
+    private final ExecutorService executor;
+    private final int fetchSize;
+    private final Bucket[] buckets;
+
+    private boolean closed = false;
+
+    public ParallelResultScanner(AbstractRowKeyDistributor rowKeyDistributor, ResultScanner[] scanners, ExecutorService executor, int fetchSize) {
+        if (rowKeyDistributor == null) {
+            throw new NullPointerException("rowKeyDistributor must not be null");
+        }
+        if (scanners == null) {
+            throw new NullPointerException("scanners must not be null");
+        }
+        if (executor == null) {
+            throw new NullPointerException("executor must not be null");
+        }
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("fetchSize must be positive:" + fetchSize);
+        }
+        this.rowKeyDistributor = rowKeyDistributor;
+        this.executor = executor;
+        this.fetchSize = fetchSize;
+        this.buckets = new Bucket[scanners.length];
+        for (int i = 0; i < scanners.length; i++) {
+            this.buckets[i] = new Bucket(scanners[i]);
+        }
+        // start all buckets at once
+        for (Bucket bucket : buckets) {
+            bucket.prefetch();
+        }
+    }
+
+    @Override
+    public Result next() throws IOException {
+        if (closed) {
+            return null;
+        }
+        Bucket selected = null;
+        byte[] selectedKey = null;
+        for (Bucket bucket : buckets) {
+            final Result head = bucket.peek();
+            if (head == null) {
+                continue;
+            }
+            final byte[] originalKey = rowKeyDistributor.getOriginalKey(head.getRow());
+            if (selected == null || Bytes.compareTo(originalKey, selectedKey) < 0) {
+                selected = bucket;
+                selectedKey = originalKey;
+            }
+        }
+        if (selected == null) {
+            return null;
+        }
+        return selected.poll();
+    }
+
+    @Override
+    public Result[] next(int nbRows) throws IOException {
+        final List<Result> resultList = new ArrayList<Result>(nbRows);
+        for (int i = 0; i < nbRows; i++) {
+            final Result next = next();
+            if (next == null) {
+                break;
+            }
+            resultList.add(next);
+        }
+        return resultList.toArray(new Result[resultList.size()]);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Bucket bucket : buckets) {
+            bucket.close();
+        }
+    }
+
+    @Override
+    public Iterator<Result> iterator() {
+        return new Iterator<Result>() {
+            private Result next = null;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = ParallelResultScanner.this.next();
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Result next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final Result result = next;
+                next = null;
+                return result;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private class Bucket {
+        private final ResultScanner scanner;
+        private Future<Result[]> pending;
+        private Result[] current;
+        private int index;
+        private boolean exhausted;
+
+        private Bucket(ResultScanner scanner) {
+            if (scanner == null) {
+                throw new NullPointerException("scanner must not be null");
+            }
+            this.scanner = scanner;
+        }
+
+        private void prefetch() {
+            if (exhausted || pending != null) {
+                return;
+            }
+            final FutureTask<Result[]> fetch = new FutureTask<Result[]>(new Callable<Result[]>() {
+                @Override
+                public Result[] call() throws Exception {
+                    return scanner.next(fetchSize);
+                }
+            });
+            try {
+                executor.execute(fetch);
+            } catch (RejectedExecutionException e) {
+                // executor is saturated. fetch in the caller thread
+                fetch.run();
+            }
+            this.pending = fetch;
+        }
+
+        private Result peek() throws IOException {
+            if (current != null && index < current.length) {
+                return current[index];
+            }
+            if (exhausted) {
+                return null;
+            }
+            final Result[] fetched = await();
+            if (fetched == null || fetched.length == 0) {
+                exhausted = true;
+                current = null;
+                return null;
+            }
+            current = fetched;
+            index = 0;
+            if (fetched.length < fetchSize) {
+                // the scanner returns fewer rows only when it is exhausted
+                exhausted = true;
+            } else {
+                prefetch();
+            }
+            return current[0];
+        }
+
+        private Result poll() {
+            return current[index++];
+        }
+
+        private Result[] await() throws IOException {
+            final Future<Result[]> pending = this.pending;
+            this.pending = null;
+            if (pending == null) {
+                return null;
+            }
+            try {
+                return pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("parallel scan interrupted");
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw new IOException("parallel scan failed. Caused:" + cause.getMessage(), cause);
+            }
+        }
+
+        private void close() {
+            final Future<Result[]> pending = this.pending;
+            this.pending = null;
+            if (pending != null && !pending.cancel(false)) {
+                // wait for the fetch in flight before closing the scanner under it
+                try {
+                    pending.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception ignore) {
+                    // closing
+                }
+            }
+            try {
+                scanner.close();
+            } catch (Exception e) {
+                logger.warn("Scanner.close() error Caused:{}", e.getMessage(), e);
+            }
+        }
+    }
+}
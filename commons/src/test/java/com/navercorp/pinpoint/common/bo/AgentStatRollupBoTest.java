@@ -0,0 +1,122 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.bo;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class AgentStatRollupBoTest {
+
+    private static final double DELTA = 1e-4;
+
+    @Test
+    public void testAdd() {
+        final AgentStatRollupBo rollup = new AgentStatRollupBo("agentId", 60000);
+        rollup.add(createMemoryGcBo(100, 3));
+        rollup.add(createMemoryGcBo(300, 5));
+        rollup.add(createCpuLoadBo(0.1D, -1D));
+        rollup.add(createCpuLoadBo(0.3D, -1D));
+
+        assertEquals("CMS", rollup.getGcType());
+        assertEquals(100, rollup.getJvmMemoryHeapUsed().getMin());
+        assertEquals(300, rollup.getJvmMemoryHeapUsed().getMax());
+        assertEquals(200, rollup.getJvmMemoryHeapUsed().getAvg());
+        assertEquals(2, rollup.getJvmMemoryHeapUsed().getCount());
+        assertEquals(3, rollup.getJvmGcOldCount().getMin());
+        assertEquals(5, rollup.getJvmGcOldCount().getMax());
+
+        assertEquals(0.2D, rollup.getJvmCpuLoad().getAvg(), DELTA);
+        // unsupported
+        assertEquals(0, rollup.getSystemCpuLoad().getCount());
+    }
+
+    @Test
+    public void testMerge() {
+        final AgentStatRollupBo rollup1 = new AgentStatRollupBo("agentId", 60000);
+        rollup1.add(createMemoryGcBo(100, 3));
+        rollup1.add(createCpuLoadBo(0.1D, 0.5D));
+        final AgentStatRollupBo rollup2 = new AgentStatRollupBo("agentId", 60000);
+        rollup2.add(createMemoryGcBo(500, 4));
+        rollup2.add(createCpuLoadBo(0.3D, 0.7D));
+        final AgentStatRollupBo empty = new AgentStatRollupBo("agentId", 60000);
+
+        rollup1.merge(rollup2);
+        rollup1.merge(empty);
+
+        assertEquals(100, rollup1.getJvmMemoryHeapUsed().getMin());
+        assertEquals(500, rollup1.getJvmMemoryHeapUsed().getMax());
+        assertEquals(300, rollup1.getJvmMemoryHeapUsed().getAvg());
+        assertEquals(2, rollup1.getJvmMemoryHeapUsed().getCount());
+        assertEquals(0.1D, rollup1.getJvmCpuLoad().getMin(), DELTA);
+        assertEquals(0.7D, rollup1.getSystemCpuLoad().getMax(), DELTA);
+    }
+
+    @Test
+    public void testByteArrayConversion() {
+        final AgentStatRollupBo testBo = new AgentStatRollupBo("agentId", 600000);
+        testBo.add(createMemoryGcBo(100, 3));
+        testBo.add(createMemoryGcBo(-1, 0));
+        testBo.add(createCpuLoadBo(0.22871734201908112D, -1D));
+
+        final AgentStatRollupBo deserializedBo = new AgentStatRollupBo(testBo.writeValue());
+
+        assertEquals(testBo.getAgentId(), deserializedBo.getAgentId());
+        assertEquals(testBo.getTimestamp(), deserializedBo.getTimestamp());
+        assertEquals(testBo.getGcType(), deserializedBo.getGcType());
+        assertEquals(-1, deserializedBo.getJvmMemoryHeapUsed().getMin());
+        assertEquals(100, deserializedBo.getJvmMemoryHeapUsed().getMax());
+        assertEquals(99, deserializedBo.getJvmMemoryHeapUsed().getSum());
+        assertEquals(2, deserializedBo.getJvmMemoryHeapUsed().getCount());
+        assertEquals(0.22871734201908112D, deserializedBo.getJvmCpuLoad().getMax(), DELTA);
+        assertEquals(0, deserializedBo.getSystemCpuLoad().getCount());
+    }
+
+    @Test
+    public void testSelectResolution() {
+        assertEquals(AgentStatResolution.RAW, AgentStatResolution.select(5000));
+        assertEquals(AgentStatResolution.RAW, AgentStatResolution.select(55000));
+        assertEquals(AgentStatResolution.ONE_MINUTE, AgentStatResolution.select(60000));
+        assertEquals(AgentStatResolution.ONE_MINUTE, AgentStatResolution.select(430000));
+        assertEquals(AgentStatResolution.TEN_MINUTES, AgentStatResolution.select(3025000));
+        assertEquals(AgentStatResolution.ONE_HOUR, AgentStatResolution.select(12960000));
+
+        assertEquals(120000, AgentStatResolution.ONE_MINUTE.getWindowStart(150000));
+    }
+
+    private AgentStatMemoryGcBo createMemoryGcBo(long heapUsed, long gcOldCount) {
+        AgentStatMemoryGcBo.Builder builder = new AgentStatMemoryGcBo.Builder("agentId", 0, 60000);
+        builder.gcType("CMS");
+        builder.jvmMemoryHeapUsed(heapUsed);
+        builder.jvmMemoryHeapMax(1000);
+        builder.jvmMemoryNonHeapUsed(10);
+        builder.jvmMemoryNonHeapMax(100);
+        builder.jvmGcOldCount(gcOldCount);
+        builder.jvmGcOldTime(gcOldCount * 10);
+        return builder.build();
+    }
+
+    private AgentStatCpuLoadBo createCpuLoadBo(double jvmCpuLoad, double systemCpuLoad) {
+        AgentStatCpuLoadBo.Builder builder = new AgentStatCpuLoadBo.Builder("agentId", 0, 60000);
+        builder.jvmCpuLoad(jvmCpuLoad);
+        builder.systemCpuLoad(systemCpuLoad);
+        return builder.build();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.bo;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class AlarmWindowBoTest {
+
+    @Test
+    public void testWriteAndRead() {
+        final AlarmWindowBo window = new AlarmWindowBo(400000, 300000, 1000);
+        final AlarmWindowBo.ApplicationWindow applicationWindow = window.getApplicationWindow("app");
+        applicationWindow.getResponse().add(1, 2, 10);
+        applicationWindow.getCallee("callee:8080").add(3, 0, 5);
+        applicationWindow.getAgentStat("agent").add(100, 1000, 30, 2, 1);
+        window.getApplicationWindow("emptyApp");
+
+        final AlarmWindowBo read = new AlarmWindowBo(window.writeValue());
+
+        assertEquals(400000, read.getTimestamp());
+        assertEquals(300000, read.getWindowMillis());
+        assertEquals(1000, read.getStartTime());
+        assertTrue(read.isComplete());
+        assertEquals(2, read.getApplicationWindowList().size());
+
+        final AlarmWindowBo.ApplicationWindow readApplicationWindow = read.findApplicationWindow("app");
+        assertEquals(1, readApplicationWindow.getResponse().getSlowCount());
+        assertEquals(2, readApplicationWindow.getResponse().getErrorCount());
+        assertEquals(10, readApplicationWindow.getResponse().getTotalCount());
+        assertEquals(3, readApplicationWindow.getCalleeMap().get("callee:8080").getSlowCount());
+        assertEquals(5, readApplicationWindow.getCalleeMap().get("callee:8080").getTotalCount());
+
+        final AlarmWindowBo.AgentStat agentStat = readApplicationWindow.getAgentStatMap().get("agent");
+        assertEquals(100, agentStat.getHeapUsed());
+        assertEquals(1000, agentStat.getHeapMax());
+        assertEquals(30, agentStat.getJvmCpuUsage());
+        assertEquals(2, agentStat.getJvmCpuSampleCount());
+        assertEquals(1, agentStat.getGcOldCount());
+    }
+
+    @Test
+    public void testMerge() {
+        final AlarmWindowBo window1 = new AlarmWindowBo(400000, 300000, 0);
+        window1.getApplicationWindow("app").getResponse().add(1, 1, 10);
+        window1.getApplicationWindow("app").getCallee("callee").add(0, 1, 2);
+
+        final AlarmWindowBo window2 = new AlarmWindowBo(401000, 300000, 0);
+        window2.getApplicationWindow("app").getResponse().add(2, 0, 5);
+        window2.getApplicationWindow("app").getAgentStat("agent").add(100, 1000, 30, 2, 1);
+        window2.getApplicationWindow("otherApp").getResponse().add(0, 0, 1);
+
+        window1.merge(window2);
+
+        final AlarmWindowBo.ApplicationWindow applicationWindow = window1.findApplicationWindow("app");
+        assertEquals(3, applicationWindow.getResponse().getSlowCount());
+        assertEquals(1, applicationWindow.getResponse().getErrorCount());
+        assertEquals(15, applicationWindow.getResponse().getTotalCount());
+        assertEquals(2, applicationWindow.getCalleeMap().get("callee").getTotalCount());
+        assertEquals(100, applicationWindow.getAgentStatMap().get("agent").getHeapUsed());
+        assertEquals(1, window1.findApplicationWindow("otherApp").getResponse().getTotalCount());
+    }
+
+    @Test
+    public void testIncomplete() {
+        final AlarmWindowBo window = new AlarmWindowBo(100000, 300000, 0);
+        assertFalse(window.isComplete());
+        assertNull(window.findApplicationWindow("app"));
+    }
+}
@@ -25,6 +25,8 @@ import org.slf4j.LoggerFactory;
 
 import com.navercorp.pinpoint.common.ServiceType;
 
+import java.util.EnumSet;
+
 /**
  * @author emeroad
  */
@@ -125,6 +127,49 @@ public class SpanBoTest {
         Assert.assertEquals(spanBo.getApplicationServiceType(), spanBo.getApplicationServiceType());
     }
 
+    @Test
+    public void serializeProjection() {
+        SpanBo spanBo = new SpanBo();
+        spanBo.setAgentId("agentId");
+        spanBo.setApplicationId("applicationId");
+        spanBo.setEndPoint("end");
+        spanBo.setRpc("rpc");
+        spanBo.setRemoteAddr("remote");
+        spanBo.setParentSpanId(5);
+        spanBo.setElapsed(4);
+        spanBo.setErrCode(1);
+        spanBo.setServiceType(ServiceType.STAND_ALONE.getCode());
+        byte[] bytes = spanBo.writeValue();
+
+        SpanBo newSpanBo = new SpanBo();
+        int i = newSpanBo.readValue(bytes, 0, EnumSet.of(SpanField.APPLICATION_ID));
+        Assert.assertEquals(bytes.length, i);
+        Assert.assertEquals(newSpanBo.getApplicationId(), "applicationId");
+        Assert.assertEquals(newSpanBo.getParentSpanId(), 5);
+        Assert.assertEquals(newSpanBo.getElapsed(), 4);
+        Assert.assertEquals(newSpanBo.getErrCode(), 1);
+        Assert.assertEquals(newSpanBo.getServiceType(), ServiceType.STAND_ALONE.getCode());
+
+        // set before the lazy fields are decoded
+        newSpanBo.setRpc("newRpc");
+        newSpanBo.setElapsed(10);
+        newSpanBo.setServiceType(ServiceType.UNKNOWN.getCode());
+
+        Assert.assertEquals(newSpanBo.getAgentId(), "agentId");
+        Assert.assertEquals(newSpanBo.getEndPoint(), "end");
+        Assert.assertEquals(newSpanBo.getRemoteAddr(), "remote");
+        Assert.assertEquals(newSpanBo.getRpc(), "newRpc");
+        // the fixed-size fields are not read again by the lazy decode
+        Assert.assertEquals(newSpanBo.getElapsed(), 10);
+        Assert.assertEquals(newSpanBo.getServiceType(), ServiceType.UNKNOWN.getCode());
+
+        SpanBo rewritten = new SpanBo();
+        rewritten.readValue(newSpanBo.writeValue(), 0);
+        Assert.assertEquals(rewritten.getRpc(), "newRpc");
+        Assert.assertEquals(rewritten.getApplicationId(), "applicationId");
+        Assert.assertEquals(rewritten.getElapsed(), 10);
+    }
+
     private String createString(int size) {
         StringBuilder sb = new StringBuilder(size);
         for (int i = 0; i < size; i++) {
@@ -23,6 +23,9 @@ import org.junit.Assert;
 
 import org.junit.Test;
 
+import java.util.Collections;
+import java.util.EnumSet;
+
 /**
  * @author emeroad
  */
@@ -83,4 +86,45 @@ public class SpanEventBoTest {
         newSpanEventBo.setSequence((short) 3);
         Assert.assertEquals(spanEventBo.getSequence(), newSpanEventBo.getSequence());
     }
+
+    @Test
+    public void testSerializeProjection() throws Exception {
+        SpanEventBo spanEventBo = new SpanEventBo();
+        spanEventBo.setAgentId("test");
+        spanEventBo.setDestinationId("testdest");
+        spanEventBo.setEndElapsed(2);
+        spanEventBo.setEndPoint("endpoint");
+        spanEventBo.setNextSpanId(4);
+        spanEventBo.setRpc("rpc");
+        spanEventBo.setServiceType(ServiceType.STAND_ALONE.getCode());
+        spanEventBo.setNextAsyncId(7);
+
+        AnnotationBo annotationBo = new AnnotationBo();
+        annotationBo.setKey(10);
+        annotationBo.setByteValue("value".getBytes("UTF-8"));
+        spanEventBo.setAnnotationBoList(Collections.singletonList(annotationBo));
+
+        byte[] bytes = spanEventBo.writeValue();
+
+        SpanEventBo newSpanEventBo = new SpanEventBo();
+        int i = newSpanEventBo.readValue(bytes, 0, bytes.length, EnumSet.of(SpanField.DESTINATION_ID, SpanField.END_POINT));
+        Assert.assertEquals(bytes.length, i);
+        Assert.assertEquals(spanEventBo.getDestinationId(), newSpanEventBo.getDestinationId());
+        Assert.assertEquals(spanEventBo.getEndPoint(), newSpanEventBo.getEndPoint());
+        Assert.assertEquals(spanEventBo.getEndElapsed(), newSpanEventBo.getEndElapsed());
+        Assert.assertEquals(spanEventBo.getNextSpanId(), newSpanEventBo.getNextSpanId());
+        Assert.assertEquals(spanEventBo.getNextAsyncId(), newSpanEventBo.getNextAsyncId());
+
+        // set before the lazy fields are decoded
+        newSpanEventBo.setEndElapsed(9);
+        newSpanEventBo.setAgentId("newAgent");
+
+        // decoded on access
+        Assert.assertEquals(spanEventBo.getRpc(), newSpanEventBo.getRpc());
+        Assert.assertEquals("newAgent", newSpanEventBo.getAgentId());
+        // the fixed-size fields are not read again by the lazy decode
+        Assert.assertEquals(9, newSpanEventBo.getEndElapsed());
+        Assert.assertEquals(newSpanEventBo.getAnnotationBoList().size(), 1);
+        Assert.assertEquals(newSpanEventBo.getAnnotationBoList().get(0).getKey(), 10);
+    }
 }
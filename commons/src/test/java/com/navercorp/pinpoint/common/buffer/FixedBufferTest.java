@@ -68,6 +68,21 @@ public class FixedBufferTest {
         Assert.assertEquals(expected, i);
     }
 
+    @Test
+    public void testSkipPrefixedBytes() throws Exception {
+        Buffer buffer = new FixedBuffer(1024);
+        buffer.putPrefixedString("test");
+        buffer.putPrefixedString(null);
+        buffer.putPrefixedString("");
+        buffer.put(3333);
+
+        Buffer actual = new FixedBuffer(buffer.getBuffer());
+        actual.skipPrefixedBytes();
+        actual.skipPrefixedBytes();
+        actual.skipPrefixedBytes();
+        Assert.assertEquals(3333, actual.readInt());
+    }
+
     @Test
     public void testPadBytes() throws Exception {
         int TOTAL_LENGTH = 20;
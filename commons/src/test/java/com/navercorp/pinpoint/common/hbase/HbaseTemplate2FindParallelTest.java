@@ -0,0 +1,268 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.hbase;
+
+import com.navercorp.pinpoint.common.hbase.distributor.RangeOneByteSimpleHash;
+import com.sematext.hbase.wd.AbstractRowKeyDistributor;
+import com.sematext.hbase.wd.RowKeyDistributorByHashPrefix;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.hadoop.hbase.HbaseSystemException;
+import org.springframework.data.hadoop.hbase.RowMapper;
+import org.springframework.data.hadoop.hbase.TableCallback;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author agent
+ */
+public class HbaseTemplate2FindParallelTest {
+
+    private static final int BUCKET_SIZE = 4;
+    private static final byte[] FAMILY = Bytes.toBytes("F");
+    private static final String TABLE_NAME = "table";
+
+    private static final AbstractRowKeyDistributor ROW_KEY_DISTRIBUTOR = new RowKeyDistributorByHashPrefix(new RangeOneByteSimpleHash(0, 8, BUCKET_SIZE));
+
+    private static final RowMapper<Long> ROW_MAPPER = new RowMapper<Long>() {
+        @Override
+        public Long mapRow(Result result, int rowNum) throws Exception {
+            return Bytes.toLong(ROW_KEY_DISTRIBUTOR.getOriginalKey(result.getRow()));
+        }
+    };
+
+    private StubHbaseTemplate2 template;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        template = new StubHbaseTemplate2(100);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        template.destroy();
+    }
+
+    @Test
+    public void parallelScanPool() throws Exception {
+        template.setConfiguration(new Configuration());
+        template.setParallelScanThreadSize(3);
+        template.setParallelScanQueueSize(5);
+        template.afterPropertiesSet();
+
+        final ThreadPoolExecutor pool = (ThreadPoolExecutor) template.getParallelScanExecutor();
+        Assert.assertEquals(3, pool.getCorePoolSize());
+        Assert.assertEquals(3, pool.getMaximumPoolSize());
+        Assert.assertEquals(5, pool.getQueue().remainingCapacity());
+        Assert.assertTrue(pool.allowsCoreThreadTimeOut());
+    }
+
+    @Test
+    public void parallelScanDisabled() throws Exception {
+        template.setConfiguration(new Configuration());
+        template.setParallelScanEnable(false);
+        template.afterPropertiesSet();
+        Assert.assertNull(template.getParallelScanExecutor());
+
+        final List<Long> rowList = template.findParallel(TABLE_NAME, new Scan(), ROW_KEY_DISTRIBUTOR, ROW_MAPPER);
+
+        // falls back to the DistributedScanner, every bucket is read by the caller
+        assertSequence(rowList, 100);
+        Assert.assertEquals(Collections.singleton(Thread.currentThread().getName()), template.getReadThreadNameSet());
+        template.assertClosed();
+    }
+
+    @Test
+    public void parallelScan() {
+        template.setParallelScanThreadSize(2);
+        executor = template.newParallelScanExecutor();
+        template.setParallelScanExecutor(executor);
+
+        final Scan scan = new Scan();
+        scan.setCaching(3);
+        final List<Long> rowList = template.findParallel(TABLE_NAME, scan, ROW_KEY_DISTRIBUTOR, ROW_MAPPER);
+
+        assertSequence(rowList, 100);
+        final Set<String> readThreadNameSet = template.getReadThreadNameSet();
+        Assert.assertTrue(readThreadNameSet.toString(), readThreadNameSet.size() <= 2);
+        for (String threadName : readThreadNameSet) {
+            Assert.assertTrue(threadName, threadName.startsWith("Pinpoint-HbaseParallelScan"));
+        }
+        // a fetch is one scanner rpc of Scan.getCaching() rows
+        Assert.assertEquals(Collections.singleton(3), template.getCachingSet());
+        template.assertClosed();
+    }
+
+    @Test
+    public void defaultFetchSize() {
+        executor = template.newParallelScanExecutor();
+        template.setParallelScanExecutor(executor);
+
+        template.findParallel(TABLE_NAME, new Scan(), ROW_KEY_DISTRIBUTOR, ROW_MAPPER);
+
+        Assert.assertEquals(Collections.singleton(256), template.getCachingSet());
+    }
+
+    @Test
+    public void limitStopsFetch() {
+        template.setParallelScanThreadSize(2);
+        executor = template.newParallelScanExecutor();
+        template.setParallelScanExecutor(executor);
+
+        final int fetchSize = 2;
+        final Scan scan = new Scan();
+        scan.setCaching(fetchSize);
+        final List<Long> rowList = template.findParallel(TABLE_NAME, scan, ROW_KEY_DISTRIBUTOR, 5, ROW_MAPPER);
+
+        assertSequence(rowList, 5);
+        template.assertClosed();
+        // every bucket fetched at most its consumed batches and one batch ahead, far from the 100 rows of the table
+        final int readCount = template.getReadCount();
+        Assert.assertTrue("readCount:" + readCount, readCount <= BUCKET_SIZE * fetchSize * 3);
+    }
+
+    private void assertSequence(List<Long> rowList, int size) {
+        Assert.assertEquals(size, rowList.size());
+        for (int i = 0; i < size; i++) {
+            Assert.assertEquals(Long.valueOf(i), rowList.get(i));
+        }
+    }
+
+    private static class StubHbaseTemplate2 extends HbaseTemplate2 {
+        private final List<List<Result>> buckets = new ArrayList<List<Result>>();
+        private final List<ListResultScanner> scannerList = Collections.synchronizedList(new ArrayList<ListResultScanner>());
+        private final Set<Integer> cachingSet = Collections.synchronizedSet(new HashSet<Integer>());
+        private final Set<String> readThreadNameSet = Collections.synchronizedSet(new HashSet<String>());
+        private final AtomicInteger readCount = new AtomicInteger();
+
+        private StubHbaseTemplate2(int rowSize) {
+            for (int i = 0; i < BUCKET_SIZE; i++) {
+                buckets.add(new ArrayList<Result>());
+            }
+            for (long i = 0; i < rowSize; i++) {
+                byte[] distributedKey = ROW_KEY_DISTRIBUTOR.getDistributedKey(Bytes.toBytes(i));
+                KeyValue keyValue = new KeyValue(distributedKey, FAMILY, FAMILY, FAMILY);
+                buckets.get(distributedKey[0]).add(new Result(new KeyValue[] {keyValue}));
+            }
+        }
+
+        @Override
+        public <T> T execute(String tableName, TableCallback<T> action) {
+            try {
+                return action.doInTable(null);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Throwable th) {
+                throw new HbaseSystemException(new Exception(th));
+            }
+        }
+
+        @Override
+        ResultScanner openScanner(HTableInterface htable, Scan scan) throws IOException {
+            cachingSet.add(scan.getCaching());
+            // the first byte of a distributed row key is the bucket
+            final ListResultScanner scanner = new ListResultScanner(buckets.get(scan.getStartRow()[0]));
+            scannerList.add(scanner);
+            return scanner;
+        }
+
+        private Set<Integer> getCachingSet() {
+            return cachingSet;
+        }
+
+        private Set<String> getReadThreadNameSet() {
+            return readThreadNameSet;
+        }
+
+        private int getReadCount() {
+            return readCount.get();
+        }
+
+        private void assertClosed() {
+            Assert.assertEquals(BUCKET_SIZE, scannerList.size());
+            for (ListResultScanner scanner : scannerList) {
+                Assert.assertTrue(scanner.closed);
+            }
+        }
+
+        private class ListResultScanner implements ResultScanner {
+            private final Iterator<Result> iterator;
+            private volatile boolean closed;
+
+            private ListResultScanner(List<Result> resultList) {
+                this.iterator = resultList.iterator();
+            }
+
+            @Override
+            public Result next() throws IOException {
+                readThreadNameSet.add(Thread.currentThread().getName());
+                if (iterator.hasNext()) {
+                    readCount.incrementAndGet();
+                    return iterator.next();
+                }
+                return null;
+            }
+
+            @Override
+            public Result[] next(int nbRows) throws IOException {
+                List<Result> resultList = new ArrayList<Result>();
+                for (int i = 0; i < nbRows; i++) {
+                    Result next = next();
+                    if (next == null) {
+                        break;
+                    }
+                    resultList.add(next);
+                }
+                return resultList.toArray(new Result[resultList.size()]);
+            }
+
+            @Override
+            public void close() {
+                closed = true;
+            }
+
+            @Override
+            public Iterator<Result> iterator() {
+                throw new UnsupportedOperationException();
+            }
+        }
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.hbase;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.hadoop.hbase.HbaseSystemException;
+import org.springframework.data.hadoop.hbase.RowMapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author agent
+ */
+public class HbaseTemplate2ParallelGetTest {
+
+    private static final byte[] FAMILY = Bytes.toBytes("F");
+    private static final String TABLE_NAME = "table";
+
+    private static final RowMapper<Long> ROW_MAPPER = new RowMapper<Long>() {
+        @Override
+        public Long mapRow(Result result, int rowNum) throws Exception {
+            return Bytes.toLong(result.getRow());
+        }
+    };
+
+    private StubHbaseTemplate2 template;
+    private RecordingExecutor executor;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setUp() {
+        template = new StubHbaseTemplate2();
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void chunkOrder() {
+        executor = new RecordingExecutor(4, new LinkedBlockingQueue<Runnable>());
+        template.setParallelScanExecutor(executor);
+        template.setParallelScanThreadSize(4);
+        // the first chunks are the slowest, so the later chunks complete first
+        template.delayUntil = 30;
+
+        RecordingHandler handler = new RecordingHandler();
+        template.getParallel(TABLE_NAME, createGets(100), ROW_MAPPER, handler, 7);
+
+        assertSequence(handler.rowList, 100);
+        Assert.assertEquals(15, template.chunkSizeList.size());
+        Assert.assertEquals(15, executor.taskList.size());
+        int total = 0;
+        for (int chunkSize : template.chunkSizeList) {
+            Assert.assertTrue(chunkSize == 7 || chunkSize == 2);
+            total += chunkSize;
+        }
+        Assert.assertEquals(100, total);
+    }
+
+    @Test
+    public void emptyGetList() {
+        executor = new RecordingExecutor(2, new LinkedBlockingQueue<Runnable>());
+        template.setParallelScanExecutor(executor);
+
+        RecordingHandler handler = new RecordingHandler();
+        template.getParallel(TABLE_NAME, Collections.<Get>emptyList(), ROW_MAPPER, handler, 7);
+
+        Assert.assertTrue(handler.rowList.isEmpty());
+        Assert.assertTrue(executor.taskList.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidChunkSize() {
+        template.getParallel(TABLE_NAME, createGets(10), ROW_MAPPER, new RecordingHandler(), 0);
+    }
+
+    @Test
+    public void boundedPending() {
+        executor = new RecordingExecutor(8, new LinkedBlockingQueue<Runnable>());
+        template.setParallelScanExecutor(executor);
+        template.setParallelScanThreadSize(2);
+
+        final List<Integer> submittedList = new ArrayList<Integer>();
+        final RecordingHandler handler = new RecordingHandler() {
+            @Override
+            public void handleRow(Long row) {
+                if (row % 5 == 0) {
+                    submittedList.add(executor.taskList.size());
+                }
+                super.handleRow(row);
+            }
+        };
+        template.getParallel(TABLE_NAME, createGets(50), ROW_MAPPER, handler, 5);
+
+        assertSequence(handler.rowList, 50);
+        Assert.assertEquals(10, submittedList.size());
+        for (int chunkIndex = 0; chunkIndex < submittedList.size(); chunkIndex++) {
+            // the handled chunk plus at most 2 chunks fetched ahead
+            final int submitted = submittedList.get(chunkIndex);
+            Assert.assertTrue("chunk:" + chunkIndex + " submitted:" + submitted, submitted <= chunkIndex + 1 + 2);
+        }
+    }
+
+    @Test
+    public void failure() {
+        executor = new RecordingExecutor(4, new LinkedBlockingQueue<Runnable>());
+        template.setParallelScanExecutor(executor);
+        template.setParallelScanThreadSize(4);
+        template.failRow = 23;
+
+        RecordingHandler handler = new RecordingHandler();
+        try {
+            template.getParallel(TABLE_NAME, createGets(100), ROW_MAPPER, handler, 10);
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+            Assert.assertEquals("row:23", expected.getMessage());
+        }
+        // the chunks before the failed one are handed over
+        assertSequence(handler.rowList, 20);
+    }
+
+    @Test
+    public void cancelOnFailure() {
+        executor = new RecordingExecutor(4, new LinkedBlockingQueue<Runnable>());
+        template.setParallelScanExecutor(executor);
+        template.setParallelScanThreadSize(4);
+        template.failRow = 0;
+        template.blockLatch = release;
+
+        RecordingHandler handler = new RecordingHandler();
+        try {
+            template.getParallel(TABLE_NAME, createGets(100), ROW_MAPPER, handler, 10);
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+
+        Assert.assertTrue(handler.rowList.isEmpty());
+        // no chunk is submitted beyond the pending window
+        Assert.assertEquals(4, executor.taskList.size());
+        for (int i = 1; i < executor.taskList.size(); i++) {
+            Assert.assertTrue(((Future<?>) executor.taskList.get(i)).isCancelled());
+        }
+    }
+
+    @Test
+    public void interrupted() {
+        executor = new RecordingExecutor(4, new LinkedBlockingQueue<Runnable>());
+        template.setParallelScanExecutor(executor);
+        template.setParallelScanThreadSize(4);
+        template.blockLatch = release;
+
+        RecordingHandler handler = new RecordingHandler();
+        Thread.currentThread().interrupt();
+        try {
+            template.getParallel(TABLE_NAME, createGets(100), ROW_MAPPER, handler, 10);
+            Assert.fail();
+        } catch (HbaseSystemException expected) {
+            // expected
+        } finally {
+            Assert.assertTrue(Thread.interrupted());
+        }
+
+        Assert.assertTrue(handler.rowList.isEmpty());
+        Assert.assertEquals(4, executor.taskList.size());
+        for (Runnable task : executor.taskList) {
+            Assert.assertTrue(((Future<?>) task).isCancelled());
+        }
+    }
+
+    @Test
+    public void callerRuns() throws InterruptedException {
+        // a single busy thread without a queue rejects every fetch
+        executor = new RecordingExecutor(1, new SynchronousQueue<Runnable>());
+        final CountDownLatch blocked = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                blocked.countDown();
+                await(release);
+            }
+        });
+        blocked.await();
+        template.setParallelScanExecutor(executor);
+        template.setParallelScanThreadSize(4);
+
+        RecordingHandler handler = new RecordingHandler();
+        template.getParallel(TABLE_NAME, createGets(30), ROW_MAPPER, handler, 7);
+
+        assertSequence(handler.rowList, 30);
+        Assert.assertEquals(5, template.threadList.size());
+        for (Thread thread : template.threadList) {
+            Assert.assertSame(Thread.currentThread(), thread);
+        }
+    }
+
+    @Test
+    public void serial() {
+        template.setParallelScanThreadSize(4);
+
+        RecordingHandler handler = new RecordingHandler();
+        template.getParallel(TABLE_NAME, createGets(30), ROW_MAPPER, handler, 7);
+
+        assertSequence(handler.rowList, 30);
+        Assert.assertEquals(5, template.chunkSizeList.size());
+        for (Thread thread : template.threadList) {
+            Assert.assertSame(Thread.currentThread(), thread);
+        }
+    }
+
+    private List<Get> createGets(int size) {
+        List<Get> getList = new ArrayList<Get>(size);
+        for (long i = 0; i < size; i++) {
+            getList.add(new Get(Bytes.toBytes(i)));
+        }
+        return getList;
+    }
+
+    private void assertSequence(List<Long> rowList, int size) {
+        Assert.assertEquals(size, rowList.size());
+        for (int i = 0; i < size; i++) {
+            Assert.assertEquals(Long.valueOf(i), rowList.get(i));
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class StubHbaseTemplate2 extends HbaseTemplate2 {
+        private final List<Integer> chunkSizeList = Collections.synchronizedList(new ArrayList<Integer>());
+        private final List<Thread> threadList = Collections.synchronizedList(new ArrayList<Thread>());
+        private volatile long failRow = -1;
+        private volatile long delayUntil = -1;
+        private volatile CountDownLatch blockLatch;
+
+        @Override
+        public <T> List<T> get(String tableName, List<Get> getList, RowMapper<T> mapper) {
+            chunkSizeList.add(getList.size());
+            threadList.add(Thread.currentThread());
+            final List<T> rowList = new ArrayList<T>(getList.size());
+            for (int i = 0; i < getList.size(); i++) {
+                final byte[] row = getList.get(i).getRow();
+                final long rowValue = Bytes.toLong(row);
+                if (rowValue == failRow) {
+                    throw new IllegalStateException("row:" + rowValue);
+                }
+                if (rowValue < delayUntil) {
+                    sleep(40 - rowValue);
+                }
+                try {
+                    rowList.add(mapper.mapRow(new Result(new KeyValue[] {new KeyValue(row, FAMILY, FAMILY, FAMILY)}), i));
+                } catch (Exception e) {
+                    throw new HbaseSystemException(e);
+                }
+            }
+            final CountDownLatch blockLatch = this.blockLatch;
+            if (blockLatch != null) {
+                await(blockLatch);
+            }
+            return rowList;
+        }
+
+        private void sleep(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static class RecordingExecutor extends ThreadPoolExecutor {
+        private final List<Runnable> taskList = Collections.synchronizedList(new ArrayList<Runnable>());
+
+        private RecordingExecutor(int threadSize, BlockingQueue<Runnable> queue) {
+            super(threadSize, threadSize, 60L, TimeUnit.SECONDS, queue);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            super.execute(command);
+            taskList.add(command);
+        }
+    }
+
+    private static class RecordingHandler implements RowHandler<Long> {
+        private final List<Long> rowList = new ArrayList<Long>();
+
+        @Override
+        public void handleRow(Long row) {
+            rowList.add(row);
+        }
+    }
+}
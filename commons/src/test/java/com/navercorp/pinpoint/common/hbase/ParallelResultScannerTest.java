@@ -0,0 +1,203 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.hbase;
+
+import com.navercorp.pinpoint.common.hbase.distributor.RangeOneByteSimpleHash;
+import com.sematext.hbase.wd.AbstractRowKeyDistributor;
+import com.sematext.hbase.wd.RowKeyDistributorByHashPrefix;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @author agent
+ */
+public class ParallelResultScannerTest {
+
+    private static final int BUCKET_SIZE = 4;
+    private static final byte[] FAMILY = Bytes.toBytes("F");
+
+    private final AbstractRowKeyDistributor rowKeyDistributor = new RowKeyDistributorByHashPrefix(new RangeOneByteSimpleHash(0, 8, BUCKET_SIZE));
+
+    private ExecutorService executor;
+
+    @After
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testMergeOrder() throws IOException {
+        executor = Executors.newFixedThreadPool(BUCKET_SIZE);
+        ListResultScanner[] scanners = createScanners(100);
+
+        ParallelResultScanner scanner = new ParallelResultScanner(rowKeyDistributor, scanners, executor, 3);
+        assertSequence(scanner, 100);
+        Assert.assertNull(scanner.next());
+        scanner.close();
+
+        assertClosed(scanners);
+    }
+
+    @Test
+    public void testSingleThreadExecutor() throws IOException {
+        // fetches never wait for the consumer, a single thread must not deadlock
+        executor = Executors.newSingleThreadExecutor();
+        ListResultScanner[] scanners = createScanners(50);
+
+        ParallelResultScanner scanner = new ParallelResultScanner(rowKeyDistributor, scanners, executor, 2);
+        assertSequence(scanner, 50);
+        scanner.close();
+
+        assertClosed(scanners);
+    }
+
+    @Test
+    public void testNextRows() throws IOException {
+        executor = Executors.newFixedThreadPool(2);
+        ListResultScanner[] scanners = createScanners(10);
+
+        ParallelResultScanner scanner = new ParallelResultScanner(rowKeyDistributor, scanners, executor, 4);
+        Assert.assertEquals(7, scanner.next(7).length);
+        Assert.assertEquals(3, scanner.next(7).length);
+        Assert.assertEquals(0, scanner.next(7).length);
+        scanner.close();
+    }
+
+    @Test
+    public void testCloseEarly() throws IOException {
+        executor = Executors.newFixedThreadPool(2);
+        ListResultScanner[] scanners = createScanners(100);
+
+        ParallelResultScanner scanner = new ParallelResultScanner(rowKeyDistributor, scanners, executor, 3);
+        assertSequence(scanner, 5);
+        scanner.close();
+
+        assertClosed(scanners);
+        Assert.assertNull(scanner.next());
+    }
+
+    @Test
+    public void testFetchError() throws IOException {
+        executor = Executors.newFixedThreadPool(2);
+        ListResultScanner[] scanners = createScanners(100);
+        scanners[1].error = true;
+
+        ParallelResultScanner scanner = new ParallelResultScanner(rowKeyDistributor, scanners, executor, 3);
+        try {
+            for (int i = 0; i < 100; i++) {
+                scanner.next();
+            }
+            Assert.fail();
+        } catch (IOException expected) {
+            // expected
+        } finally {
+            scanner.close();
+        }
+        assertClosed(scanners);
+    }
+
+    private void assertSequence(ParallelResultScanner scanner, int size) throws IOException {
+        for (int i = 0; i < size; i++) {
+            Result result = scanner.next();
+            Assert.assertNotNull(result);
+            byte[] originalKey = rowKeyDistributor.getOriginalKey(result.getRow());
+            Assert.assertEquals(i, Bytes.toLong(originalKey));
+        }
+    }
+
+    private void assertClosed(ListResultScanner[] scanners) {
+        for (ListResultScanner scanner : scanners) {
+            Assert.assertTrue(scanner.closed);
+        }
+    }
+
+    private ListResultScanner[] createScanners(int rowSize) {
+        List<List<Result>> buckets = new ArrayList<List<Result>>();
+        for (int i = 0; i < BUCKET_SIZE; i++) {
+            buckets.add(new ArrayList<Result>());
+        }
+        for (long i = 0; i < rowSize; i++) {
+            byte[] distributedKey = rowKeyDistributor.getDistributedKey(Bytes.toBytes(i));
+            KeyValue keyValue = new KeyValue(distributedKey, FAMILY, FAMILY, FAMILY);
+            buckets.get(distributedKey[0]).add(new Result(new KeyValue[] {keyValue}));
+        }
+        ListResultScanner[] scanners = new ListResultScanner[BUCKET_SIZE];
+        for (int i = 0; i < BUCKET_SIZE; i++) {
+            scanners[i] = new ListResultScanner(buckets.get(i));
+        }
+        return scanners;
+    }
+
+    private static class ListResultScanner implements ResultScanner {
+        private final Iterator<Result> iterator;
+        private volatile boolean closed;
+        private volatile boolean error;
+
+        private ListResultScanner(List<Result> resultList) {
+            this.iterator = resultList.iterator();
+        }
+
+        @Override
+        public Result next() throws IOException {
+            if (error) {
+                throw new IOException("test");
+            }
+            if (iterator.hasNext()) {
+                return iterator.next();
+            }
+            return null;
+        }
+
+        @Override
+        public Result[] next(int nbRows) throws IOException {
+            List<Result> resultList = new ArrayList<Result>();
+            for (int i = 0; i < nbRows; i++) {
+                Result next = next();
+                if (next == null) {
+                    break;
+                }
+                resultList.add(next);
+            }
+            return resultList.toArray(new Result[resultList.size()]);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public Iterator<Result> iterator() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -137,7 +137,7 @@ public class StandardHostValveInvokeInterceptor extends SpanSimpleAroundIntercep
             return trace;
         } else {
             final TraceContext traceContext = getTraceContext();
-            final Trace trace = traceContext.newTraceObject();
+            final Trace trace = traceContext.newTraceObject(request.getRequestURI());
             if (trace.canSampled()) {
                 recordRootSpan(trace, request);
                 setTraceMetadata(request, trace);
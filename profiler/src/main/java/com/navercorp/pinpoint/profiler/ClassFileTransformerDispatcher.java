@@ -20,6 +20,7 @@ import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
 import java.security.ProtectionDomain;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,7 +58,9 @@ public class ClassFileTransformerDispatcher implements ClassFileTransformer {
     private final ProfilerConfig profilerConfig;
 
     private final ClassFileFilter skipFilter;
-    
+
+    private final TransformStatistics transformStatistics = new TransformStatistics();
+
     public ClassFileTransformerDispatcher(DefaultAgent agent, ByteCodeInstrumentor byteCodeInstrumentor, ClassFileRetransformer retransformer, List<DefaultProfilerPluginContext> pluginContexts) {
         if (agent == null) {
             throw new NullPointerException("agent must not be null");
@@ -79,6 +82,21 @@ public class ClassFileTransformerDispatcher implements ClassFileTransformer {
 
     @Override
     public byte[] transform(ClassLoader classLoader, String jvmClassName, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classFileBuffer) throws IllegalClassFormatException {
+        final long startTime = System.nanoTime();
+        final byte[] modified = transform0(classLoader, jvmClassName, classBeingRedefined, protectionDomain, classFileBuffer);
+        final long elapsed = System.nanoTime() - startTime;
+        if (modified == null) {
+            transformStatistics.skipped(elapsed);
+        } else {
+            transformStatistics.modified(jvmClassName, elapsed);
+            if (isDebug) {
+                logger.debug("[transform] className:{} elapsed:{}us", jvmClassName, TimeUnit.NANOSECONDS.toMicros(elapsed));
+            }
+        }
+        return modified;
+    }
+
+    private byte[] transform0(ClassLoader classLoader, String jvmClassName, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classFileBuffer) {
         if (skipFilter.doFilter(classLoader, jvmClassName, classBeingRedefined, protectionDomain, classFileBuffer)) {
             return null;
         }
@@ -118,6 +136,10 @@ public class ClassFileTransformerDispatcher implements ClassFileTransformer {
         }
     }
 
+    public TransformStatistics getTransformStatistics() {
+        return transformStatistics;
+    }
+
     private ClassLoader getContextClassLoader(Thread thread) throws Throwable {
         try {
             return thread.getContextClassLoader();
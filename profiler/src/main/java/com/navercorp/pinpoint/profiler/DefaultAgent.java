@@ -24,10 +24,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.Slf4jReporter;
+
 import com.navercorp.pinpoint.ProductInfo;
 import com.navercorp.pinpoint.bootstrap.Agent;
 import com.navercorp.pinpoint.bootstrap.AgentOption;
@@ -53,15 +58,22 @@ import com.navercorp.pinpoint.profiler.interceptor.InterceptorRegistryBinder;
 import com.navercorp.pinpoint.profiler.interceptor.bci.JavaAssistByteCodeInstrumentor;
 import com.navercorp.pinpoint.profiler.logging.Slf4jLoggerBinder;
 import com.navercorp.pinpoint.profiler.monitor.AgentStatMonitor;
+import com.navercorp.pinpoint.profiler.monitor.codahale.MetricMonitorRegistry;
 import com.navercorp.pinpoint.profiler.plugin.DefaultProfilerPluginContext;
 import com.navercorp.pinpoint.profiler.plugin.DefaultPluginClassLoaderFactory;
 import com.navercorp.pinpoint.profiler.receiver.CommandDispatcher;
 import com.navercorp.pinpoint.profiler.receiver.service.EchoService;
 import com.navercorp.pinpoint.profiler.receiver.service.ThreadDumpService;
 import com.navercorp.pinpoint.profiler.sampler.SamplerFactory;
+import com.navercorp.pinpoint.profiler.sender.AsyncQueueFactory;
 import com.navercorp.pinpoint.profiler.sender.DataSender;
+import com.navercorp.pinpoint.profiler.sender.DrainMetric;
+import com.navercorp.pinpoint.profiler.sender.DrainPolicy;
+import com.navercorp.pinpoint.profiler.sender.DropCounter;
 import com.navercorp.pinpoint.profiler.sender.EnhancedDataSender;
+import com.navercorp.pinpoint.profiler.sender.NioUdpDataSender;
 import com.navercorp.pinpoint.profiler.sender.TcpDataSender;
+import com.navercorp.pinpoint.profiler.sender.TcpSpanDataSender;
 import com.navercorp.pinpoint.profiler.sender.UdpDataSender;
 import com.navercorp.pinpoint.profiler.util.ApplicationServerTypeResolver;
 import com.navercorp.pinpoint.profiler.util.PreparedStatementUtils;
@@ -78,18 +90,27 @@ import com.navercorp.pinpoint.rpc.client.PinpointSocketFactory;
  */
 public class DefaultAgent implements Agent {
 
+    private static final String SPAN_SENDER_TYPE_UDP = "UDP";
+    private static final String SPAN_SENDER_TYPE_NIO_UDP = "NIO_UDP";
+    private static final String SPAN_SENDER_TYPE_TCP = "TCP";
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private final PLoggerBinder binder;
 
     private final JavaAssistByteCodeInstrumentor byteCodeInstrumentor;
     private final ClassFileTransformer classFileTransformer;
+    private final TransformStatistics transformStatistics;
     
     private final ProfilerConfig profilerConfig;
 
     private final AgentInfoSender agentInfoSender;
     private final AgentStatMonitor agentStatMonitor;
 
+    // shared by the data senders and the agent stat monitor
+    private final MetricMonitorRegistry monitorRegistry;
+    private final Slf4jReporter senderMetricReporter;
+
     private final TraceContext traceContext;
 
     private PinpointSocketFactory factory;
@@ -175,7 +196,9 @@ public class DefaultAgent implements Agent {
         pluginClassLoaderFactory = new DefaultPluginClassLoaderFactory(agentOption.getPluginJars());
         pluginContexts = loadProfilerPlugins(agentOption.getPluginJars());
 
-        this.classFileTransformer = new ClassFileTransformerDispatcher(this, byteCodeInstrumentor, retransformer, pluginContexts);
+        final ClassFileTransformerDispatcher classFileTransformerDispatcher = new ClassFileTransformerDispatcher(this, byteCodeInstrumentor, retransformer, pluginContexts);
+        this.transformStatistics = classFileTransformerDispatcher.getTransformStatistics();
+        this.classFileTransformer = classFileTransformerDispatcher;
 
         instrumentation.addTransformer(this.classFileTransformer);
 
@@ -188,6 +211,9 @@ public class DefaultAgent implements Agent {
         this.agentInformation = agentInformationFactory.createAgentInformation(typeResolver.resolve());
         logger.info("agentInformation:{}", agentInformation);
         
+        this.monitorRegistry = new MetricMonitorRegistry();
+        this.senderMetricReporter = createSenderMetricReporter();
+
         CommandDispatcher commandDispatcher = createCommandDispatcher();
         this.tcpDataSender = createTcpDataSender(commandDispatcher);
 
@@ -205,13 +231,30 @@ public class DefaultAgent implements Agent {
         this.agentInfoSender = new AgentInfoSender(tcpDataSender, profilerConfig.getAgentInfoSendRetryInterval(), this.agentInformation);
         this.serverMetaDataHolder.addListener(this.agentInfoSender);
 
-        this.agentStatMonitor = new AgentStatMonitor(this.statDataSender, this.agentInformation.getAgentId(), this.agentInformation.getStartTime());
+        this.agentStatMonitor = new AgentStatMonitor(this.statDataSender, this.agentInformation.getAgentId(), this.agentInformation.getStartTime(), this.monitorRegistry);
         
         preLoadClass();
 
     }
 
 
+    private Slf4jReporter createSenderMetricReporter() {
+        final long reportInterval = this.profilerConfig.getSenderMetricReportInterval();
+        if (reportInterval <= 0) {
+            return null;
+        }
+        final Logger reportLogger = LoggerFactory.getLogger(DrainMetric.class);
+        return Slf4jReporter.forRegistry(this.monitorRegistry.getRegistry())
+                .outputTo(reportLogger)
+                .filter(new MetricFilter() {
+                    @Override
+                    public boolean matches(String name, Metric metric) {
+                        return name.startsWith(DrainMetric.METRIC_NAME_PREFIX);
+                    }
+                })
+                .build();
+    }
+
     private CommandDispatcher createCommandDispatcher() {
         CommandDispatcher commandDispatcher = new CommandDispatcher();
         commandDispatcher.registerCommandService(new ThreadDumpService());
@@ -246,6 +289,10 @@ public class DefaultAgent implements Agent {
         return classFileTransformer;
     }
 
+    public TransformStatistics getTransformStatistics() {
+        return transformStatistics;
+    }
+
     private void dumpSystemProperties() {
         if (logger.isInfoEnabled()) {
             Properties properties = System.getProperties();
@@ -309,11 +356,13 @@ public class DefaultAgent implements Agent {
     }
 
     private Sampler createSampler() {
-        boolean samplingEnable = this.profilerConfig.isSamplingEnable();
-        int samplingRate = this.profilerConfig.getSamplingRate();
+        DropCounter dropCounter = null;
+        if (this.spanDataSender instanceof DropCounter) {
+            dropCounter = (DropCounter) this.spanDataSender;
+        }
 
         SamplerFactory samplerFactory = new SamplerFactory();
-        return samplerFactory.createSampler(samplingEnable, samplingRate);
+        return samplerFactory.createSampler(this.profilerConfig, dropCounter);
     }
     
     protected ServerMetaDataHolder createServerMetaDataHolder() {
@@ -363,15 +412,32 @@ public class DefaultAgent implements Agent {
     protected EnhancedDataSender createTcpDataSender(CommandDispatcher commandDispatcher) {
         this.factory = createPinpointSocketFactory(commandDispatcher);
         this.socket = createPinpointSocket(this.profilerConfig.getCollectorTcpServerIp(), this.profilerConfig.getCollectorTcpServerPort(), factory);
-        return new TcpDataSender(socket);
+        final AsyncQueueFactory queueFactory = AsyncQueueFactory.valueOf(this.profilerConfig.getTcpDataSenderWriteQueueType(), this.profilerConfig.getTcpDataSenderWriteQueueWaitStrategy());
+        return new TcpDataSender(socket, queueFactory, this.monitorRegistry);
     }
 
     protected DataSender createUdpStatDataSender(int port, String threadName, int writeQueueSize, int timeout, int sendBufferSize) {
-        return new UdpDataSender(this.profilerConfig.getCollectorStatServerIp(), port, threadName, writeQueueSize, timeout, sendBufferSize);
+        final AsyncQueueFactory queueFactory = AsyncQueueFactory.valueOf(this.profilerConfig.getStatDataSenderWriteQueueType(), this.profilerConfig.getStatDataSenderWriteQueueWaitStrategy());
+        final DrainPolicy drainPolicy = DrainPolicy.adaptive(this.profilerConfig.getStatDataSenderDrainMaxSize(), this.profilerConfig.getStatDataSenderDrainLingerTime());
+        return new UdpDataSender(this.profilerConfig.getCollectorStatServerIp(), port, threadName, writeQueueSize, timeout, sendBufferSize, queueFactory, drainPolicy, this.monitorRegistry);
     }
     
     protected DataSender createUdpSpanDataSender(int port, String threadName, int writeQueueSize, int timeout, int sendBufferSize) {
-        return new UdpDataSender(this.profilerConfig.getCollectorSpanServerIp(), port, threadName, writeQueueSize, timeout, sendBufferSize);
+        final AsyncQueueFactory queueFactory = AsyncQueueFactory.valueOf(this.profilerConfig.getSpanDataSenderWriteQueueType(), this.profilerConfig.getSpanDataSenderWriteQueueWaitStrategy());
+        final DrainPolicy drainPolicy = DrainPolicy.adaptive(this.profilerConfig.getSpanDataSenderDrainMaxSize(), this.profilerConfig.getSpanDataSenderDrainLingerTime());
+        final String senderType = this.profilerConfig.getCollectorSpanSenderType();
+        if (SPAN_SENDER_TYPE_NIO_UDP.equalsIgnoreCase(senderType)) {
+            return new NioUdpDataSender(this.profilerConfig.getCollectorSpanServerIp(), port, threadName, writeQueueSize, timeout, sendBufferSize, queueFactory, drainPolicy, this.monitorRegistry);
+        }
+        if (SPAN_SENDER_TYPE_TCP.equalsIgnoreCase(senderType)) {
+            // shares the tcp connection of tcpDataSender. the span port and the socket timeout are not used.
+            final int windowTimeout = this.profilerConfig.getSpanDataSenderTcpWindowTimeout();
+            return new TcpSpanDataSender(this.socket, threadName, writeQueueSize, windowTimeout, queueFactory, drainPolicy, this.monitorRegistry);
+        }
+        if (!SPAN_SENDER_TYPE_UDP.equalsIgnoreCase(senderType)) {
+            logger.warn("Unknown span sender type:{}. use {}", senderType, SPAN_SENDER_TYPE_UDP);
+        }
+        return new UdpDataSender(this.profilerConfig.getCollectorSpanServerIp(), port, threadName, writeQueueSize, timeout, sendBufferSize, queueFactory, drainPolicy, this.monitorRegistry);
     }
 
     protected EnhancedDataSender getTcpDataSender() {
@@ -412,9 +478,12 @@ public class DefaultAgent implements Agent {
                 return;
             }
         }
-        logger.info("Starting {} Agent.", ProductInfo.NAME);
+        logger.info("Starting {} Agent. {}", ProductInfo.NAME, transformStatistics);
         this.agentInfoSender.start();
         this.agentStatMonitor.start();
+        if (this.senderMetricReporter != null) {
+            this.senderMetricReporter.start(this.profilerConfig.getSenderMetricReportInterval(), TimeUnit.MILLISECONDS);
+        }
     }
 
     @Override
@@ -427,10 +496,13 @@ public class DefaultAgent implements Agent {
                 return;
             }
         }
-        logger.info("Stopping {} Agent.", ProductInfo.NAME);
+        logger.info("Stopping {} Agent. {}", ProductInfo.NAME, transformStatistics);
 
         this.agentInfoSender.stop();
         this.agentStatMonitor.stop();
+        if (this.senderMetricReporter != null) {
+            this.senderMetricReporter.stop();
+        }
 
         // Need to process stop
         this.spanDataSender.stop();
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time spent in {@link ClassFileTransformerDispatcher} to see the class loading overhead of the agent.
+ * The slowest modified classes are kept by name.
+ *
+ * @author agent
+ */
+public class TransformStatistics {
+
+    public static final int DEFAULT_SLOW_CLASS_SIZE = 10;
+
+    private final AtomicLong classCount = new AtomicLong();
+    private final AtomicLong totalTime = new AtomicLong();
+    private final AtomicLong modifiedClassCount = new AtomicLong();
+    private final AtomicLong modifiedTime = new AtomicLong();
+
+    private final int slowClassSize;
+    // sorted by elapsed time, descending. modified classes only, a few hundred at most.
+    private final List<ClassTime> slowClasses = new ArrayList<ClassTime>();
+
+    public TransformStatistics() {
+        this(DEFAULT_SLOW_CLASS_SIZE);
+    }
+
+    public TransformStatistics(int slowClassSize) {
+        if (slowClassSize < 0) {
+            throw new IllegalArgumentException("slowClassSize must not be negative");
+        }
+        this.slowClassSize = slowClassSize;
+    }
+
+    public void skipped(long elapsedNanos) {
+        classCount.incrementAndGet();
+        totalTime.addAndGet(elapsedNanos);
+    }
+
+    public void modified(String className, long elapsedNanos) {
+        skipped(elapsedNanos);
+        modifiedClassCount.incrementAndGet();
+        modifiedTime.addAndGet(elapsedNanos);
+        addSlowClass(className, elapsedNanos);
+    }
+
+    private void addSlowClass(String className, long elapsedNanos) {
+        if (slowClassSize == 0) {
+            return;
+        }
+        synchronized (slowClasses) {
+            final int size = slowClasses.size();
+            if (size == slowClassSize && slowClasses.get(size - 1).elapsedNanos >= elapsedNanos) {
+                return;
+            }
+            int index = size;
+            while (index > 0 && slowClasses.get(index - 1).elapsedNanos < elapsedNanos) {
+                index--;
+            }
+            slowClasses.add(index, new ClassTime(className, elapsedNanos));
+            if (slowClasses.size() > slowClassSize) {
+                slowClasses.remove(slowClasses.size() - 1);
+            }
+        }
+    }
+
+    public long getClassCount() {
+        return classCount.get();
+    }
+
+    public long getTotalTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalTime.get());
+    }
+
+    public long getModifiedClassCount() {
+        return modifiedClassCount.get();
+    }
+
+    public long getModifiedTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(modifiedTime.get());
+    }
+
+    /**
+     * @return "className=elapsedMillis" of the slowest modified classes
+     */
+    public List<String> getSlowClasses() {
+        synchronized (slowClasses) {
+            final List<String> result = new ArrayList<String>(slowClasses.size());
+            for (ClassTime classTime : slowClasses) {
+                result.add(classTime.toString());
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("TransformStatistics{");
+        sb.append("classCount=").append(getClassCount());
+        sb.append(", totalTime=").append(getTotalTimeMillis()).append("ms");
+        sb.append(", modifiedClassCount=").append(getModifiedClassCount());
+        sb.append(", modifiedTime=").append(getModifiedTimeMillis()).append("ms");
+        sb.append(", slowClasses=").append(getSlowClasses());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static final class ClassTime {
+        private final String className;
+        private final long elapsedNanos;
+
+        private ClassTime(String className, long elapsedNanos) {
+            this.className = className;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return className + "=" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + "ms";
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.context;
+
+import com.navercorp.pinpoint.exception.PinpointException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author agent
+ */
+abstract class AbstractCallStack implements CallStack {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbstractCallStack.class);
+
+    static final int STACK_SIZE = 8;
+
+    private final Span span;
+
+    AbstractCallStack(Span span) {
+        if (span == null) {
+            throw new NullPointerException("span  must not be null");
+        }
+        this.span = span;
+    }
+
+    @Override
+    public Span getSpan() {
+        return span;
+    }
+
+    // grow geometrically. deep call trees should not copy the stack on every few frames.
+    static int nextStackSize(int stackSize) {
+        return Math.max(stackSize << 1, STACK_SIZE);
+    }
+
+    PinpointException createStackException(String stackApiPoint, final int index) {
+        final PinpointException ex = new PinpointException("Profiler CallStack check. index:" + index + " stackApiPoint:" + stackApiPoint);
+        if (logger.isWarnEnabled()) {
+            // need to dump stack.
+            logger.warn("invalid callStack found stack dump:{}", this, ex);
+        }
+        return ex;
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.context;
+
+import com.navercorp.pinpoint.bootstrap.util.StringUtils;
+import com.navercorp.pinpoint.thrift.dto.TAnnotation;
+import com.navercorp.pinpoint.thrift.dto.TIntStringStringValue;
+
+import org.apache.thrift.TBase;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TField;
+import org.apache.thrift.protocol.TList;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TStruct;
+import org.apache.thrift.protocol.TType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Annotations of a single {@link SpanEventRecord}, kept in parallel arrays that survive recycling.
+ * They are either encoded directly to the wire or turned into {@link Annotation} by the sender thread.
+ *
+ * @author agent
+ */
+final class AnnotationArena {
+
+    private static final int INITIAL_SIZE = 4;
+
+    private static final byte TYPE_OBJECT = 0;
+    private static final byte TYPE_INT = 1;
+    private static final byte TYPE_INT_STRING_STRING = 2;
+    private static final byte TYPE_ANNOTATION = 3;
+
+    // same as TAnnotation, TAnnotationValue and TIntStringStringValue
+    private static final TStruct ANNOTATION_STRUCT = new TStruct("TAnnotation");
+    private static final TField KEY_FIELD = new TField("key", TType.I32, (short) 1);
+    private static final TField VALUE_FIELD = new TField("value", TType.STRUCT, (short) 2);
+    private static final TStruct ANNOTATION_VALUE_STRUCT = new TStruct("TAnnotationValue");
+    private static final TField STRING_VALUE_FIELD = new TField("stringValue", TType.STRING, (short) 1);
+    private static final TField INT_VALUE_FIELD = new TField("intValue", TType.I32, (short) 3);
+    private static final TField INT_STRING_STRING_VALUE_FIELD = new TField("intStringStringValue", TType.STRUCT, (short) 10);
+    private static final TStruct INT_STRING_STRING_VALUE_STRUCT = new TStruct("TIntStringStringValue");
+    private static final TField ISS_INT_VALUE_FIELD = new TField("intValue", TType.I32, (short) 1);
+    private static final TField ISS_STRING_VALUE1_FIELD = new TField("stringValue1", TType.STRING, (short) 2);
+    private static final TField ISS_STRING_VALUE2_FIELD = new TField("stringValue2", TType.STRING, (short) 3);
+
+    private int[] keys = new int[INITIAL_SIZE];
+    private byte[] types = new byte[INITIAL_SIZE];
+    private int[] intValues = new int[INITIAL_SIZE];
+    private Object[] values1 = new Object[INITIAL_SIZE];
+    private Object[] values2 = new Object[INITIAL_SIZE];
+
+    private int size = 0;
+
+    public void addObject(int key, Object value) {
+        final int index = next();
+        keys[index] = key;
+        types[index] = TYPE_OBJECT;
+        values1[index] = toImmutableValue(value);
+    }
+
+    public void addInt(int key, int value) {
+        final int index = next();
+        keys[index] = key;
+        types[index] = TYPE_INT;
+        intValues[index] = value;
+    }
+
+    public void addIntStringString(int key, int intValue, String stringValue1, String stringValue2) {
+        final int index = next();
+        keys[index] = key;
+        types[index] = TYPE_INT_STRING_STRING;
+        intValues[index] = intValue;
+        values1[index] = stringValue1;
+        values2[index] = stringValue2;
+    }
+
+    public void addAnnotation(Annotation annotation) {
+        final int index = next();
+        keys[index] = annotation.getKey();
+        types[index] = TYPE_ANNOTATION;
+        values1[index] = annotation;
+    }
+
+    /**
+     * The value is read later by the sender thread.
+     * Immutable values are kept as they are, anything else is converted on the recording thread the same way AnnotationValueMapper does.
+     */
+    private Object toImmutableValue(Object value) {
+        if (value == null || value instanceof String || value instanceof byte[] || isBoxedPrimitive(value)) {
+            return value;
+        }
+        if (value instanceof TBase) {
+            throw new IllegalArgumentException("TBase not supported. Class:" + value.getClass());
+        }
+        return StringUtils.drop(value.toString());
+    }
+
+    private boolean isBoxedPrimitive(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Boolean || value instanceof Byte
+                || value instanceof Float || value instanceof Double || value instanceof Short;
+    }
+
+    private int next() {
+        final int index = size;
+        if (index == keys.length) {
+            final int newLength = index << 1;
+            keys = Arrays.copyOf(keys, newLength);
+            types = Arrays.copyOf(types, newLength);
+            intValues = Arrays.copyOf(intValues, newLength);
+            values1 = Arrays.copyOf(values1, newLength);
+            values2 = Arrays.copyOf(values2, newLength);
+        }
+        size = index + 1;
+        return index;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public List<TAnnotation> toAnnotationList() {
+        final int size = this.size;
+        final List<TAnnotation> annotationList = new ArrayList<TAnnotation>(size);
+        for (int i = 0; i < size; i++) {
+            annotationList.add(toAnnotation(i));
+        }
+        return annotationList;
+    }
+
+    private Annotation toAnnotation(int index) {
+        final int key = keys[index];
+        switch (types[index]) {
+            case TYPE_INT:
+                return new Annotation(key, intValues[index]);
+            case TYPE_INT_STRING_STRING:
+                final TIntStringStringValue value = new TIntStringStringValue(intValues[index]);
+                if (values1[index] != null) {
+                    value.setStringValue1((String) values1[index]);
+                }
+                if (values2[index] != null) {
+                    value.setStringValue2((String) values2[index]);
+                }
+                return new Annotation(key, value);
+            case TYPE_ANNOTATION:
+                return (Annotation) values1[index];
+            default:
+                return new Annotation(key, values1[index]);
+        }
+    }
+
+    /**
+     * writes the annotation list the way TSpanEvent.write() does.
+     * int, String and TIntStringStringValue values are written directly, other values go through {@link Annotation}.
+     */
+    public void write(TProtocol protocol) throws TException {
+        final int size = this.size;
+        protocol.writeListBegin(new TList(TType.STRUCT, size));
+        for (int i = 0; i < size; i++) {
+            final byte type = types[i];
+            if (type == TYPE_INT) {
+                writeAnnotationBegin(protocol, keys[i]);
+                protocol.writeFieldBegin(INT_VALUE_FIELD);
+                protocol.writeI32(intValues[i]);
+                protocol.writeFieldEnd();
+                writeAnnotationEnd(protocol);
+            } else if (type == TYPE_INT_STRING_STRING) {
+                writeAnnotationBegin(protocol, keys[i]);
+                protocol.writeFieldBegin(INT_STRING_STRING_VALUE_FIELD);
+                writeIntStringStringValue(protocol, intValues[i], (String) values1[i], (String) values2[i]);
+                protocol.writeFieldEnd();
+                writeAnnotationEnd(protocol);
+            } else if (type == TYPE_OBJECT && values1[i] instanceof String) {
+                writeAnnotationBegin(protocol, keys[i]);
+                protocol.writeFieldBegin(STRING_VALUE_FIELD);
+                protocol.writeString((String) values1[i]);
+                protocol.writeFieldEnd();
+                writeAnnotationEnd(protocol);
+            } else {
+                toAnnotation(i).write(protocol);
+            }
+        }
+        protocol.writeListEnd();
+    }
+
+    private void writeAnnotationBegin(TProtocol protocol, int key) throws TException {
+        protocol.writeStructBegin(ANNOTATION_STRUCT);
+        protocol.writeFieldBegin(KEY_FIELD);
+        protocol.writeI32(key);
+        protocol.writeFieldEnd();
+        protocol.writeFieldBegin(VALUE_FIELD);
+        // TAnnotationValue is a union. exactly one field follows.
+        protocol.writeStructBegin(ANNOTATION_VALUE_STRUCT);
+    }
+
+    private void writeAnnotationEnd(TProtocol protocol) throws TException {
+        protocol.writeFieldStop();
+        protocol.writeStructEnd();
+        protocol.writeFieldEnd();
+        protocol.writeFieldStop();
+        protocol.writeStructEnd();
+    }
+
+    private void writeIntStringStringValue(TProtocol protocol, int intValue, String stringValue1, String stringValue2) throws TException {
+        protocol.writeStructBegin(INT_STRING_STRING_VALUE_STRUCT);
+        protocol.writeFieldBegin(ISS_INT_VALUE_FIELD);
+        protocol.writeI32(intValue);
+        protocol.writeFieldEnd();
+        if (stringValue1 != null) {
+            protocol.writeFieldBegin(ISS_STRING_VALUE1_FIELD);
+            protocol.writeString(stringValue1);
+            protocol.writeFieldEnd();
+        }
+        if (stringValue2 != null) {
+            protocol.writeFieldBegin(ISS_STRING_VALUE2_FIELD);
+            protocol.writeString(stringValue2);
+            protocol.writeFieldEnd();
+        }
+        protocol.writeFieldStop();
+        protocol.writeStructEnd();
+    }
+
+    public void reset() {
+        // drop references so that recycled records do not keep strings alive
+        Arrays.fill(values1, 0, size, null);
+        Arrays.fill(values2, 0, size, null);
+        size = 0;
+    }
+}
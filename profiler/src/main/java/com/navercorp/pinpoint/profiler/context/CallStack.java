@@ -14,154 +14,36 @@
  * limitations under the License.
  */
 
-package com.navercorp.pinpoint.profiler.context;
-
-import com.navercorp.pinpoint.exception.PinpointException;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
+package com.navercorp.pinpoint.profiler.context;
 
 /**
+ * Only the thread owning the trace changes the stack. {@link #copyStackFrame()} may be called from any thread.
+ *
  * @author netspider
  * @author emeroad
  */
-public class CallStack {
-
-    private static final Logger logger = LoggerFactory.getLogger(CallStack.class);
-
-    private static final int STACK_SIZE = 8;
-    private static final int STACK_INCREASE_SIZE = 8;
-
-    private final Span span;
-    
-    // We have to find some way to copy call stack in concurrent situation. 
-    private StackFrame[] stack = new StackFrame[STACK_SIZE];
-
-
-    private int index = -1;
-
-    public CallStack(Span span) {
-        if (span == null) {
-            throw new NullPointerException("span  must not be null");
-        }
-        this.span = span;
-    }
-
-    public Span getSpan() {
-        return span;
-    }
-
-    // without synchronization for the present.
-//    public synchronized int getIndex() {
-    public int getIndex() {
-       return index;
-    }
-
-    
-    // We could handle synchronization more precisely.
-    // Maybe synchonizing push, pop, copy would be enough.
-    public synchronized StackFrame getCurrentStackFrame() {
-        return stack[index];
-    }
-
-    public synchronized StackFrame getParentStackFrame() {
-        if (index > 0) {
-            return stack[index - 1];
-        }
-        return null;
-    }
-
-    public synchronized void setStackFrame(StackFrame stackFrame) {
-        if (stackFrame == null) {
-            throw new NullPointerException("stackFrame must not be null");
-        }
-        stack[index] = stackFrame;
-    }
-
-    public synchronized int push() {
-        checkExtend(index + 1);
-        return ++index;
-    }
+public interface CallStack {
 
-    private void checkExtend(final int index) {
-        final StackFrame[] originalStack = this.stack;
-        if (index >= originalStack.length) {
-            final int copyStackSize = originalStack.length + STACK_INCREASE_SIZE;
-            final StackFrame[] copyStack = new StackFrame[copyStackSize];
-            System.arraycopy(originalStack, 0, copyStack, 0, originalStack.length);
-            this.stack = copyStack;
-        }
-    }
+    Span getSpan();
 
-    public synchronized int getStackFrameIndex() {
-        return index;
-    }
+    int getIndex();
 
-    public synchronized void popRoot() {
-        pop("popRoot");
-        // check empty root index
-        if (index != -1) {
-            PinpointException ex = createStackException("invalid root stack found", this.index);
-            throw ex;
-        }
-    }
+    StackFrame getCurrentStackFrame();
 
-    public synchronized StackFrame pop() {
-        pop("pop");
-        if (index == -1) {
-            return null;
-        } else {
-            return getCurrentStackFrame();
-        }
-    }
+    StackFrame getParentStackFrame();
 
-    private synchronized void pop(String stackApiPoint) {
-        final int currentIndex = this.index;
-        final StackFrame[] currentStack = this.stack;
-        if (currentIndex >= 0) {
-            currentStack[currentIndex] = null;
-            this.index = currentIndex - 1;
-        } else {
-            PinpointException ex = createStackException(stackApiPoint, this.index);
-            throw ex;
-        }
-    }
+    void setStackFrame(StackFrame stackFrame);
 
+    int push();
 
-    private PinpointException createStackException(String stackApiPoint, final int index) {
-        final PinpointException ex = new PinpointException("Profiler CallStack check. index:" + index + " stackApiPoint:" + stackApiPoint);
-        if (logger.isWarnEnabled()) {
-            // need to dump stack.
-            logger.warn("invalid callStack found stack dump:{}", this, ex);
-        }
-        return ex;
-    }
+    int getStackFrameIndex();
 
+    void popRoot();
 
-    public synchronized void currentStackFrameClear() {
-        stack[index] = null;
-    }
+    StackFrame pop();
 
-    public StackFrame[] copyStackFrame() {
-        int currentIndex;
-        StackFrame[] currentStack;
-        synchronized (this) {
-            // copy reference
-            currentIndex = this.index;
-            currentStack = this.stack;
-        }
-        StackFrame[] copy = new StackFrame[currentIndex];
-        System.arraycopy(currentStack, 0, copy, 0, currentIndex);
-        return copy;
-    }
+    void currentStackFrameClear();
 
-    @Override
-    public String toString() {
-        return "CallStack{" +
-                "stack=" + (stack == null ? null : Arrays.toString(stack)) +
-                ", index=" + index +
-                '}';
-    }
+    StackFrame[] copyStackFrame();
 }
@@ -44,12 +44,12 @@ public class DefaultAsyncTrace implements AsyncTrace {
     private final AtomicInteger state = new AtomicInteger(STATE_INIT);
 
     private int asyncId = NON_REGIST;
-    private SpanEvent spanEvent;
+    private SpanEventRecord spanEvent;
 
     private Storage storage;
     private TimerTask timeoutTask;
 
-    public DefaultAsyncTrace(SpanEvent spanEvent) {
+    public DefaultAsyncTrace(SpanEventRecord spanEvent) {
         this.spanEvent = spanEvent;
     }
 
@@ -91,12 +91,12 @@ public class DefaultAsyncTrace implements AsyncTrace {
 
     @Override
     public void markBeforeTime() {
-        spanEvent.markStartTime();
+        spanEvent.markBeforeTime();
     }
 
     @Override
     public long getBeforeTime() {
-        return spanEvent.getStartTime();
+        return spanEvent.getBeforeTime();
     }
 
     @Override
@@ -136,18 +136,18 @@ public class DefaultAsyncTrace implements AsyncTrace {
 
     @Override
     public void recordAttribute(final AnnotationKey key, final String value) {
-        spanEvent.addAnnotation(new Annotation(key.getCode(), value));
+        spanEvent.recordAnnotation(key.getCode(), value);
     }
 
     @Override
     public void recordAttribute(final AnnotationKey key, final int value) {
-        spanEvent.addAnnotation(new Annotation(key.getCode(), value));
+        spanEvent.recordAnnotation(key.getCode(), value);
     }
 
 
     @Override
     public void recordAttribute(final AnnotationKey key, final Object value) {
-        spanEvent.addAnnotation(new Annotation(key.getCode(), value));
+        spanEvent.recordAnnotation(key.getCode(), value);
     }
 
     @Override
@@ -172,7 +172,7 @@ public class DefaultAsyncTrace implements AsyncTrace {
         this.spanEvent.setEndPoint(endPoint);
     }
 
-    private void logSpan(SpanEvent spanEvent) {
+    private void logSpan(SpanEventRecord spanEvent) {
         try {
             if (isTrace) {
                 Thread thread = Thread.currentThread();
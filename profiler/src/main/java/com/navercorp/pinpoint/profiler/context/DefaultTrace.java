@@ -19,6 +19,7 @@ package com.navercorp.pinpoint.profiler.context;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.navercorp.pinpoint.bootstrap.config.ProfilerConfig;
 import com.navercorp.pinpoint.bootstrap.context.AsyncTraceId;
 import com.navercorp.pinpoint.bootstrap.context.Trace;
 import com.navercorp.pinpoint.bootstrap.context.TraceContext;
@@ -68,7 +69,7 @@ public final class DefaultTrace implements Trace {
         this.traceId = new DefaultTraceId(traceContext.getAgentId(), traceContext.getAgentStartTime(), transactionId);
 
         final Span span = createSpan(traceId);
-        this.callStack = new CallStack(span);
+        this.callStack = createCallStack(span);
         this.latestStackIndex = this.callStack.push();
 
         final StackFrame stackFrame = createSpanStackFrame(ROOT_STACKID, callStack.getSpan());
@@ -88,6 +89,14 @@ public final class DefaultTrace implements Trace {
         return span;
     }
 
+    private CallStack createCallStack(Span span) {
+        final ProfilerConfig profilerConfig = traceContext.getProfilerConfig();
+        if (profilerConfig == null || profilerConfig.isCallStackThreadConfined()) {
+            return new ThreadConfinedCallStack(span);
+        }
+        return new DefaultCallStack(span);
+    }
+
     public DefaultTrace(TraceContext traceContext, TraceId continueTraceId) {
         if (traceContext == null) {
             throw new NullPointerException("traceContext must not be null");
@@ -98,7 +107,7 @@ public final class DefaultTrace implements Trace {
         this.traceContext = traceContext;
         this.traceId = continueTraceId;
         final Span span = createSpan(continueTraceId);
-        this.callStack = new CallStack(span);
+        this.callStack = createCallStack(span);
         latestStackIndex = this.callStack.push();
         StackFrame stackFrame = createSpanStackFrame(ROOT_STACKID, callStack.getSpan());
         this.callStack.setStackFrame(stackFrame);
@@ -126,11 +135,9 @@ public final class DefaultTrace implements Trace {
     }
 
 
-    private StackFrame createSpanEventStackFrame(int stackId) {
-        SpanEvent spanEvent = new SpanEvent(callStack.getSpan());
-
-        // Set properties for the case when stackFrame is not used as part of Span.
-        SpanEventStackFrame stackFrame = new SpanEventStackFrame(spanEvent);
+    private SpanEventRecord createSpanEventStackFrame(int stackId) {
+        // recycled record. converted to thrift on the sender thread.
+        final SpanEventRecord stackFrame = SpanEventRecordPool.currentThreadPool().acquire(callStack.getSpan());
         stackFrame.setStackFrameId(stackId);
         stackFrame.setSequence(nextSequence());
         return stackFrame;
@@ -171,12 +178,11 @@ public final class DefaultTrace implements Trace {
     @Override
     public void traceBlockBegin(final int stackId) {
         final int currentStackIndex = callStack.push();
-        final StackFrame stackFrame = createSpanEventStackFrame(stackId);
+        final SpanEventRecord stackFrame = createSpanEventStackFrame(stackId);
 
         if (latestStackIndex != currentStackIndex) {
             latestStackIndex = currentStackIndex;
-            SpanEvent spanEvent = ((SpanEventStackFrame) stackFrame).getSpanEvent();
-            spanEvent.setDepth(latestStackIndex);
+            stackFrame.setDepth(latestStackIndex);
         }
 
         callStack.setStackFrame(stackFrame);
@@ -249,7 +255,7 @@ public final class DefaultTrace implements Trace {
         if (currentStackFrame instanceof RootStackFrame) {
             logSpan(((RootStackFrame) currentStackFrame).getSpan());
         } else {
-            logSpan(((SpanEventStackFrame) currentStackFrame).getSpanEvent());
+            logSpan((SpanEventRecord) currentStackFrame);
         }
     }
 
@@ -279,12 +285,12 @@ public final class DefaultTrace implements Trace {
         this.sampling = sampling;
     }
 
-    private void logSpan(SpanEvent spanEvent) {
+    private void logSpan(SpanEventRecord spanEventRecord) {
         if (isTrace) {
             final Thread th = Thread.currentThread();
-            logger.trace("[WRITE SpanEvent]{} Thread ID={} Name={}", spanEvent, th.getId(), th.getName());
+            logger.trace("[WRITE SpanEvent]{} Thread ID={} Name={}", spanEventRecord, th.getId(), th.getName());
         }
-        this.storage.store(spanEvent);
+        this.storage.store(spanEventRecord);
     }
 
     private void logSpan(Span span) {
@@ -430,19 +436,19 @@ public final class DefaultTrace implements Trace {
 
     private void recordSqlParam(TIntStringStringValue tIntStringStringValue) {
         final StackFrame currentStackFrame = this.currentStackFrame;
-        currentStackFrame.addAnnotation(new Annotation(AnnotationKey.SQL_ID.getCode(), tIntStringStringValue));
+        currentStackFrame.recordAnnotation(AnnotationKey.SQL_ID.getCode(), tIntStringStringValue);
     }
 
     @Override
     public void recordAttribute(final AnnotationKey key, final String value) {
         final StackFrame currentStackFrame = this.currentStackFrame;
-        currentStackFrame.addAnnotation(new Annotation(key.getCode(), value));
+        currentStackFrame.recordAnnotation(key.getCode(), value);
     }
 
     @Override
     public void recordAttribute(final AnnotationKey key, final int value) {
         final StackFrame currentStackFrame = this.currentStackFrame;
-        currentStackFrame.addAnnotation(new Annotation(key.getCode(), value));
+        currentStackFrame.recordAnnotation(key.getCode(), value);
     }
 
     public void recordApiId(final int apiId) {
@@ -453,7 +459,7 @@ public final class DefaultTrace implements Trace {
     @Override
     public void recordAttribute(final AnnotationKey key, final Object value) {
         final StackFrame currentStackFrame = this.currentStackFrame;
-        currentStackFrame.addAnnotation(new Annotation(key.getCode(), value));
+        currentStackFrame.recordAnnotation(key.getCode(), value);
     }
 
 
@@ -473,8 +479,8 @@ public final class DefaultTrace implements Trace {
     @Override
     public void recordDestinationId(final String destinationId) {
         StackFrame currentStackFrame = this.currentStackFrame;
-        if (currentStackFrame instanceof SpanEventStackFrame) {
-            ((SpanEventStackFrame) currentStackFrame).setDestinationId(destinationId);
+        if (currentStackFrame instanceof SpanEventRecord) {
+            ((SpanEventRecord) currentStackFrame).setDestinationId(destinationId);
         } else {
             throw new PinpointTraceException("not SpanEventStackFrame");
         }
@@ -504,8 +510,8 @@ public final class DefaultTrace implements Trace {
             return;
         }
         StackFrame currentStackFrame = this.currentStackFrame;
-        if (currentStackFrame instanceof  SpanEventStackFrame) {
-            ((SpanEventStackFrame) currentStackFrame).setNextSpanId(nextSpanId);
+        if (currentStackFrame instanceof SpanEventRecord) {
+            ((SpanEventRecord) currentStackFrame).setNextSpanId(nextSpanId);
         } else {
             throw new PinpointTraceException("not SpanEventStackFrame");
         }
@@ -554,8 +560,8 @@ public final class DefaultTrace implements Trace {
     @Override
     public void recordAsyncId(int asyncId) {
         StackFrame currentStackFrame = this.currentStackFrame;
-        if(currentStackFrame instanceof SpanEventStackFrame) {
-            ((SpanEventStackFrame) currentStackFrame).setAsyncId(asyncId);
+        if(currentStackFrame instanceof SpanEventRecord) {
+            ((SpanEventRecord) currentStackFrame).setAsyncId(asyncId);
         } else {
             throw new PinpointException("not SpanEventStackFrame");
         }
@@ -564,8 +570,8 @@ public final class DefaultTrace implements Trace {
     @Override
     public void recordNextAsyncId(int asyncId) {
         StackFrame currentStackFrame = this.currentStackFrame;
-        if(currentStackFrame instanceof SpanEventStackFrame) {
-            ((SpanEventStackFrame) currentStackFrame).setNextAsyncId(asyncId);
+        if(currentStackFrame instanceof SpanEventRecord) {
+            ((SpanEventRecord) currentStackFrame).setNextAsyncId(asyncId);
         } else {
             throw new PinpointException("not SpanEventStackFrame");
         }
@@ -162,6 +162,11 @@ public class DefaultTraceContext implements TraceContext {
         return traceFactory.newTraceObject();
     }
 
+    @Override
+    public Trace newTraceObject(String entryPoint) {
+        return traceFactory.newTraceObject(entryPoint);
+    }
+
     public void attachTraceObject(Trace trace) {
         this.traceFactory.attachTraceObject(trace);
     }
@@ -65,7 +65,7 @@ public class MetricTrace implements Trace {
         this.transactionId = transactionId;
 
         final Span span = createSpan();
-        this.callStack = new CallStack(span);
+        this.callStack = new DefaultCallStack(span);
         this.latestStackIndex = this.callStack.push();
 
         final StackFrame stackFrame = createSpanStackFrame(ROOT_STACKID, callStack.getSpan());
@@ -88,7 +88,7 @@ public class MetricTrace implements Trace {
         this.traceContext = traceContext;
         this.traceId = continueTraceId;
         final Span span = createSpan();
-        this.callStack = new CallStack(span);
+        this.callStack = new DefaultCallStack(span);
         latestStackIndex = this.callStack.push();
         StackFrame stackFrame = createSpanStackFrame(ROOT_STACKID, callStack.getSpan());
         this.callStack.setStackFrame(stackFrame);
@@ -16,6 +16,8 @@
 
 package com.navercorp.pinpoint.profiler.context;
 
+import com.navercorp.pinpoint.thrift.dto.TIntStringStringValue;
+
 
 /**
  * @author emeroad
@@ -105,6 +107,21 @@ public class RootStackFrame implements StackFrame {
         this.span.addAnnotation(annotation);
     }
 
+    @Override
+    public void recordAnnotation(int key, Object value) {
+        this.span.addAnnotation(new Annotation(key, value));
+    }
+
+    @Override
+    public void recordAnnotation(int key, int value) {
+        this.span.addAnnotation(new Annotation(key, value));
+    }
+
+    @Override
+    public void recordAnnotation(int key, TIntStringStringValue value) {
+        this.span.addAnnotation(new Annotation(key, value));
+    }
+
     public void setRemoteAddress(String remoteAddress) {
         this.span.setRemoteAddr(remoteAddress);
     }
@@ -20,6 +20,15 @@ import com.navercorp.pinpoint.bootstrap.context.TraceId;
 import com.navercorp.pinpoint.common.util.TransactionIdUtils;
 import com.navercorp.pinpoint.thrift.dto.TIntStringValue;
 import com.navercorp.pinpoint.thrift.dto.TSpan;
+import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
+import com.navercorp.pinpoint.thrift.io.TReplaceListProtocol;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TProtocol;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * Span represent RPC
@@ -28,6 +37,12 @@ import com.navercorp.pinpoint.thrift.dto.TSpan;
  * @author emeroad
  */
 public class Span extends TSpan {
+
+    private static final String SPAN_EVENT_LIST_FIELD_NAME = "spanEventList";
+
+    private List<SpanEventRecord> spanEventRecordList;
+    private SpanEventEncoder spanEventEncoder;
+
     public Span() {
     }
 
@@ -103,5 +118,83 @@ public class Span extends TSpan {
         super.setErr(exception);
     }
 
+    /**
+     * span events are converted to thrift only when this object is serialized or read, that is on the sender thread.
+     */
+    public void setSpanEventRecordList(List<SpanEventRecord> spanEventRecordList) {
+        this.spanEventRecordList = spanEventRecordList;
+    }
+
+    /**
+     * span events already encoded by {@link SpanEventEncoder}. they are copied to the wire as they are.
+     */
+    public synchronized void setEncodedSpanEventList(SpanEventEncoder spanEventEncoder) {
+        this.spanEventEncoder = spanEventEncoder;
+        // placeholder so that the list field is written
+        super.setSpanEventList(Collections.<TSpanEvent>emptyList());
+    }
+
+    private synchronized void convertSpanEventRecord() {
+        final List<SpanEventRecord> spanEventRecordList = this.spanEventRecordList;
+        if (spanEventRecordList != null) {
+            this.spanEventRecordList = null;
+            super.setSpanEventList(SpanEventRecord.toSpanEventList(spanEventRecordList));
+        }
+    }
+
+    private synchronized void decodeSpanEvent() {
+        convertSpanEventRecord();
+        final SpanEventEncoder spanEventEncoder = this.spanEventEncoder;
+        if (spanEventEncoder != null) {
+            try {
+                super.setSpanEventList(spanEventEncoder.decode());
+            } catch (TException e) {
+                throw new PinpointTraceException("spanEvent decode fail. Caused:" + e.getMessage(), e);
+            }
+            this.spanEventEncoder = null;
+        }
+    }
+
+    private synchronized SpanEventEncoder getSpanEventEncoder() {
+        return spanEventEncoder;
+    }
+
+    @Override
+    public void write(TProtocol oprot) throws TException {
+        convertSpanEventRecord();
+        final SpanEventEncoder spanEventEncoder = getSpanEventEncoder();
+        if (spanEventEncoder == null) {
+            super.write(oprot);
+            return;
+        }
+        final TReplaceListProtocol replaceListProtocol = new TReplaceListProtocol(oprot);
+        replaceListProtocol.addReplaceField(SPAN_EVENT_LIST_FIELD_NAME, spanEventEncoder, spanEventEncoder.getCount());
+        super.write(replaceListProtocol);
+    }
+
+    @Override
+    public List<TSpanEvent> getSpanEventList() {
+        decodeSpanEvent();
+        return super.getSpanEventList();
+    }
+
+    @Override
+    public int getSpanEventListSize() {
+        decodeSpanEvent();
+        return super.getSpanEventListSize();
+    }
+
+    @Override
+    public Iterator<TSpanEvent> getSpanEventListIterator() {
+        decodeSpanEvent();
+        return super.getSpanEventListIterator();
+    }
+
+    @Override
+    public synchronized boolean isSetSpanEventList() {
+        // called by write() as well. must not convert.
+        return spanEventRecordList != null || super.isSetSpanEventList();
+    }
+
 
 }
@@ -17,19 +17,116 @@
 package com.navercorp.pinpoint.profiler.context;
 
 
-import java.util.List;
-
 import com.navercorp.pinpoint.thrift.dto.TSpanChunk;
+import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
+import com.navercorp.pinpoint.thrift.io.TReplaceListProtocol;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TProtocol;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * @author emeroad
  */
 public class SpanChunk extends TSpanChunk {
 
-    public SpanChunk(List<SpanEvent> spanEventList) {
-        if (spanEventList == null) {
-            throw new NullPointerException("spanEventList must not be null");
+    private static final String SPAN_EVENT_LIST_FIELD_NAME = "spanEventList";
+
+    private List<SpanEventRecord> spanEventRecordList;
+    private SpanEventEncoder spanEventEncoder;
+
+    public SpanChunk(List<SpanEventRecord> spanEventRecordList) {
+        if (spanEventRecordList == null) {
+            throw new NullPointerException("spanEventRecordList must not be null");
+        }
+        setSpanEventRecordList(spanEventRecordList);
+    }
+
+    public SpanChunk(SpanEventEncoder spanEventEncoder) {
+        if (spanEventEncoder == null) {
+            throw new NullPointerException("spanEventEncoder must not be null");
+        }
+        setEncodedSpanEventList(spanEventEncoder);
+    }
+
+    /**
+     * span events are converted to thrift only when this object is serialized or read, that is on the sender thread.
+     */
+    public void setSpanEventRecordList(List<SpanEventRecord> spanEventRecordList) {
+        this.spanEventRecordList = spanEventRecordList;
+    }
+
+    /**
+     * span events already encoded by {@link SpanEventEncoder}. they are copied to the wire as they are.
+     */
+    public synchronized void setEncodedSpanEventList(SpanEventEncoder spanEventEncoder) {
+        this.spanEventEncoder = spanEventEncoder;
+        // placeholder so that the list field is written
+        super.setSpanEventList(Collections.<TSpanEvent>emptyList());
+    }
+
+    private synchronized void convertSpanEventRecord() {
+        final List<SpanEventRecord> spanEventRecordList = this.spanEventRecordList;
+        if (spanEventRecordList != null) {
+            this.spanEventRecordList = null;
+            super.setSpanEventList(SpanEventRecord.toSpanEventList(spanEventRecordList));
         }
-        setSpanEventList((List) spanEventList);
+    }
+
+    private synchronized void decodeSpanEvent() {
+        convertSpanEventRecord();
+        final SpanEventEncoder spanEventEncoder = this.spanEventEncoder;
+        if (spanEventEncoder != null) {
+            try {
+                super.setSpanEventList(spanEventEncoder.decode());
+            } catch (TException e) {
+                throw new PinpointTraceException("spanEvent decode fail. Caused:" + e.getMessage(), e);
+            }
+            this.spanEventEncoder = null;
+        }
+    }
+
+    private synchronized SpanEventEncoder getSpanEventEncoder() {
+        return spanEventEncoder;
+    }
+
+    @Override
+    public void write(TProtocol oprot) throws TException {
+        convertSpanEventRecord();
+        final SpanEventEncoder spanEventEncoder = getSpanEventEncoder();
+        if (spanEventEncoder == null) {
+            super.write(oprot);
+            return;
+        }
+        final TReplaceListProtocol replaceListProtocol = new TReplaceListProtocol(oprot);
+        replaceListProtocol.addReplaceField(SPAN_EVENT_LIST_FIELD_NAME, spanEventEncoder, spanEventEncoder.getCount());
+        super.write(replaceListProtocol);
+    }
+
+    @Override
+    public List<TSpanEvent> getSpanEventList() {
+        decodeSpanEvent();
+        return super.getSpanEventList();
+    }
+
+    @Override
+    public int getSpanEventListSize() {
+        decodeSpanEvent();
+        return super.getSpanEventListSize();
+    }
+
+    @Override
+    public Iterator<TSpanEvent> getSpanEventListIterator() {
+        decodeSpanEvent();
+        return super.getSpanEventListIterator();
+    }
+
+    @Override
+    public synchronized boolean isSetSpanEventList() {
+        // called by write() as well. must not convert.
+        return spanEventRecordList != null || super.isSetSpanEventList();
     }
 }
@@ -34,7 +34,7 @@ public class SpanChunkFactory {
         this.agentInformation = agentInformation;
     }
 
-    public SpanChunk create(final List<SpanEvent> flushData) {
+    public SpanChunk create(final List<SpanEventRecord> flushData) {
         if (flushData == null) {
             throw new NullPointerException("flushData must not be null");
         }
@@ -45,14 +45,27 @@ public class SpanChunkFactory {
         }
 
 
-        final SpanEvent first = flushData.get(0);
+        final SpanEventRecord first = flushData.get(0);
         if (first == null) {
             throw new IllegalStateException("first SpanEvent is null");
         }
-        final Span parentSpan = first.getSpan();
-        final String agentId = this.agentInformation.getAgentId();
-
         final SpanChunk spanChunk = new SpanChunk(flushData);
+        return fill(spanChunk, first.getSpan());
+    }
+
+    public SpanChunk create(final SpanEventEncoder spanEventEncoder) {
+        if (spanEventEncoder == null) {
+            throw new NullPointerException("spanEventEncoder must not be null");
+        }
+        if (spanEventEncoder.isEmpty()) {
+            throw new IllegalArgumentException("spanEventEncoder is empty");
+        }
+        final SpanChunk spanChunk = new SpanChunk(spanEventEncoder);
+        return fill(spanChunk, spanEventEncoder.getSpan());
+    }
+
+    private SpanChunk fill(SpanChunk spanChunk, Span parentSpan) {
+        final String agentId = this.agentInformation.getAgentId();
         spanChunk.setAgentId(agentId);
         spanChunk.setApplicationName(this.agentInformation.getApplicationName());
         spanChunk.setAgentStartTime(this.agentInformation.getStartTime());
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.navercorp.pinpoint.profiler.context;
+
+import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
+import com.navercorp.pinpoint.thrift.io.ByteArrayOutput;
+import com.navercorp.pinpoint.thrift.io.ByteArrayOutputStreamTransport;
+import com.navercorp.pinpoint.thrift.io.UnsafeByteArrayOutputStream;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TMemoryInputTransport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes span events into a growable buffer as they complete, in the same compact protocol format
+ * as the spanEventList field of TSpan and TSpanChunk.
+ * The buffer is spliced into the list field when the span is written, so no TSpanEvent is built on the way to the wire.
+ * Not thread safe. BufferedStorage guards it.
+ *
+ * @author agent
+ */
+public final class SpanEventEncoder implements ByteArrayOutput {
+
+    private static final int DEFAULT_BUFFER_SIZE = 512;
+
+    private final EncoderBuffer buffer;
+    private final TProtocol protocol;
+
+    private Span span;
+    private int count;
+
+    public SpanEventEncoder() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public SpanEventEncoder(int bufferSize) {
+        this.buffer = new EncoderBuffer(bufferSize);
+        this.protocol = new TCompactProtocol(new ByteArrayOutputStreamTransport(buffer));
+    }
+
+    /**
+     * writes the record and returns it to its pool. the record must not be used afterwards.
+     */
+    public void encode(SpanEventRecord spanEventRecord) throws TException {
+        if (spanEventRecord == null) {
+            throw new NullPointerException("spanEventRecord must not be null");
+        }
+        if (span == null) {
+            span = spanEventRecord.getSpan();
+        }
+        final int mark = buffer.size();
+        try {
+            spanEventRecord.write(protocol);
+            count++;
+        } catch (TException e) {
+            // drop the partially written event
+            buffer.truncate(mark);
+            protocol.reset();
+            throw e;
+        } finally {
+            spanEventRecord.release();
+        }
+    }
+
+    /**
+     * parent span of the first encoded event
+     */
+    public Span getSpan() {
+        return span;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getSize() {
+        return buffer.size();
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        buffer.writeTo(out);
+    }
+
+    /**
+     * reads the encoded events back. only for code that needs the event objects, the wire path does not decode.
+     */
+    public List<TSpanEvent> decode() throws TException {
+        final List<TSpanEvent> spanEventList = new ArrayList<TSpanEvent>(count);
+        final TProtocol inputProtocol = new TCompactProtocol(new TMemoryInputTransport(buffer.toByteArray()));
+        for (int i = 0; i < count; i++) {
+            final TSpanEvent spanEvent = new TSpanEvent();
+            spanEvent.read(inputProtocol);
+            spanEventList.add(spanEvent);
+        }
+        return spanEventList;
+    }
+
+    @Override
+    public String toString() {
+        return "SpanEventEncoder{" +
+                "count=" + count +
+                ", size=" + buffer.size() +
+                '}';
+    }
+
+    private static class EncoderBuffer extends UnsafeByteArrayOutputStream {
+        private EncoderBuffer(int size) {
+            super(size);
+        }
+
+        private void truncate(int size) {
+            this.count = size;
+        }
+    }
+}
@@ -0,0 +1,464 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.context;
+
+import com.navercorp.pinpoint.thrift.dto.TIntStringStringValue;
+import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TField;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TStruct;
+import org.apache.thrift.protocol.TType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact, recyclable record of a span event.
+ * The traced thread only writes primitive fields here. {@link #toSpanEvent()} builds the thrift object on the sender thread and recycles the record.
+ *
+ * @author agent
+ */
+public final class SpanEventRecord implements StackFrame {
+
+    private static final int START_ELAPSED = 1;
+    private static final int END_ELAPSED = 1 << 1;
+    private static final int SERVICE_TYPE = 1 << 2;
+    private static final int DEPTH = 1 << 3;
+    private static final int NEXT_SPAN_ID = 1 << 4;
+    private static final int API_ID = 1 << 5;
+    private static final int ASYNC_ID = 1 << 6;
+    private static final int NEXT_ASYNC_ID = 1 << 7;
+    private static final int EXCEPTION = 1 << 8;
+
+    // same as TSpanEvent
+    private static final TStruct SPAN_EVENT_STRUCT = new TStruct("TSpanEvent");
+    private static final TField SEQUENCE_FIELD = new TField("sequence", TType.I16, (short) 8);
+    private static final TField START_ELAPSED_FIELD = new TField("startElapsed", TType.I32, (short) 9);
+    private static final TField END_ELAPSED_FIELD = new TField("endElapsed", TType.I32, (short) 10);
+    private static final TField RPC_FIELD = new TField("rpc", TType.STRING, (short) 11);
+    private static final TField SERVICE_TYPE_FIELD = new TField("serviceType", TType.I16, (short) 12);
+    private static final TField END_POINT_FIELD = new TField("endPoint", TType.STRING, (short) 13);
+    private static final TField ANNOTATIONS_FIELD = new TField("annotations", TType.LIST, (short) 14);
+    private static final TField DEPTH_FIELD = new TField("depth", TType.I32, (short) 15);
+    private static final TField NEXT_SPAN_ID_FIELD = new TField("nextSpanId", TType.I64, (short) 16);
+    private static final TField DESTINATION_ID_FIELD = new TField("destinationId", TType.STRING, (short) 20);
+    private static final TField API_ID_FIELD = new TField("apiId", TType.I32, (short) 25);
+    private static final TField EXCEPTION_INFO_FIELD = new TField("exceptionInfo", TType.STRUCT, (short) 26);
+    private static final TField ASYNC_ID_FIELD = new TField("asyncId", TType.I32, (short) 30);
+    private static final TField NEXT_ASYNC_ID_FIELD = new TField("nextAsyncId", TType.I32, (short) 31);
+    // same as TIntStringValue
+    private static final TStruct INT_STRING_VALUE_STRUCT = new TStruct("TIntStringValue");
+    private static final TField INT_VALUE_FIELD = new TField("intValue", TType.I32, (short) 1);
+    private static final TField STRING_VALUE_FIELD = new TField("stringValue", TType.STRING, (short) 2);
+
+    private final SpanEventRecordPool pool;
+    // link of the free list in SpanEventRecordPool
+    SpanEventRecord nextFree;
+
+    private final AnnotationArena annotations = new AnnotationArena();
+
+    private Span span;
+    private int stackId;
+    private Object frameObject;
+
+    private int setFields;
+    private short sequence;
+    private int startElapsed;
+    private int endElapsed;
+    private short serviceType;
+    private int depth;
+    private long nextSpanId;
+    private int apiId;
+    private int asyncId;
+    private int nextAsyncId;
+    private String rpc;
+    private String endPoint;
+    private String destinationId;
+    private int exceptionId;
+    private String exceptionMessage;
+
+    public SpanEventRecord(Span span) {
+        this((SpanEventRecordPool) null);
+        init(span);
+    }
+
+    SpanEventRecord(SpanEventRecordPool pool) {
+        this.pool = pool;
+    }
+
+    void init(Span span) {
+        if (span == null) {
+            throw new NullPointerException("span must not be null");
+        }
+        this.span = span;
+    }
+
+    public Span getSpan() {
+        return span;
+    }
+
+    @Override
+    public int getStackFrameId() {
+        return stackId;
+    }
+
+    @Override
+    public void setStackFrameId(int stackId) {
+        this.stackId = stackId;
+    }
+
+    public short getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(short sequence) {
+        this.sequence = sequence;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+        this.setFields |= DEPTH;
+    }
+
+    @Override
+    public void markBeforeTime() {
+        // If startElapsed is 0, logic without mark is useless. Don't do that.
+        // The first SpanEvent of a Span could result in 0. Not likely afterwards.
+        this.startElapsed = (int) (System.currentTimeMillis() - span.getStartTime());
+        this.setFields |= START_ELAPSED;
+    }
+
+    @Override
+    public long getBeforeTime() {
+        return span.getStartTime() + startElapsed;
+    }
+
+    @Override
+    public void markAfterTime() {
+        if (!isSet(START_ELAPSED)) {
+            throw new PinpointTraceException("startTime is not set");
+        }
+        final int endElapsed = (int) (System.currentTimeMillis() - getBeforeTime());
+        if (endElapsed != 0) {
+            this.endElapsed = endElapsed;
+            this.setFields |= END_ELAPSED;
+        }
+    }
+
+    @Override
+    public long getAfterTime() {
+        if (!isSet(START_ELAPSED)) {
+            throw new PinpointTraceException("startTime is not set");
+        }
+        return span.getStartTime() + startElapsed + endElapsed;
+    }
+
+    @Override
+    public int getElapsedTime() {
+        return endElapsed;
+    }
+
+    @Override
+    public void setEndPoint(String endPoint) {
+        this.endPoint = endPoint;
+    }
+
+    @Override
+    public void setRpc(String rpc) {
+        this.rpc = rpc;
+    }
+
+    @Override
+    public void setApiId(int apiId) {
+        this.apiId = apiId;
+        this.setFields |= API_ID;
+    }
+
+    @Override
+    public void setExceptionInfo(int exceptionId, String exceptionMessage) {
+        this.exceptionId = exceptionId;
+        this.exceptionMessage = exceptionMessage;
+        this.setFields |= EXCEPTION;
+    }
+
+    @Override
+    public void setServiceType(short serviceType) {
+        this.serviceType = serviceType;
+        this.setFields |= SERVICE_TYPE;
+    }
+
+    @Override
+    public short getServiceType() {
+        return serviceType;
+    }
+
+    @Override
+    public void addAnnotation(Annotation annotation) {
+        annotations.addAnnotation(annotation);
+    }
+
+    @Override
+    public void recordAnnotation(int key, Object value) {
+        annotations.addObject(key, value);
+    }
+
+    @Override
+    public void recordAnnotation(int key, int value) {
+        annotations.addInt(key, value);
+    }
+
+    @Override
+    public void recordAnnotation(int key, TIntStringStringValue value) {
+        annotations.addIntStringString(key, value.getIntValue(), value.getStringValue1(), value.getStringValue2());
+    }
+
+    public void setDestinationId(String destinationId) {
+        this.destinationId = destinationId;
+    }
+
+    public void setNextSpanId(long nextSpanId) {
+        this.nextSpanId = nextSpanId;
+        this.setFields |= NEXT_SPAN_ID;
+    }
+
+    public void setAsyncId(int asyncId) {
+        this.asyncId = asyncId;
+        this.setFields |= ASYNC_ID;
+    }
+
+    public void setNextAsyncId(int nextAsyncId) {
+        this.nextAsyncId = nextAsyncId;
+        this.setFields |= NEXT_ASYNC_ID;
+    }
+
+    @Override
+    public Object attachFrameObject(Object frameObject) {
+        Object copy = this.frameObject;
+        this.frameObject = frameObject;
+        return copy;
+    }
+
+    @Override
+    public Object getFrameObject() {
+        return this.frameObject;
+    }
+
+    @Override
+    public Object detachFrameObject() {
+        Object copy = this.frameObject;
+        this.frameObject = null;
+        return copy;
+    }
+
+    private boolean isSet(int field) {
+        return (setFields & field) != 0;
+    }
+
+    /**
+     * builds the thrift span event and returns this record to its pool. the record must not be used afterwards.
+     */
+    public SpanEvent toSpanEvent() {
+        final SpanEvent spanEvent = new SpanEvent(span);
+        spanEvent.setSequence(sequence);
+        if (isSet(START_ELAPSED)) {
+            spanEvent.setStartElapsed(startElapsed);
+        }
+        if (isSet(END_ELAPSED)) {
+            spanEvent.setEndElapsed(endElapsed);
+        }
+        if (isSet(SERVICE_TYPE)) {
+            spanEvent.setServiceType(serviceType);
+        }
+        if (isSet(DEPTH)) {
+            spanEvent.setDepth(depth);
+        }
+        if (isSet(NEXT_SPAN_ID)) {
+            spanEvent.setNextSpanId(nextSpanId);
+        }
+        if (isSet(API_ID)) {
+            spanEvent.setApiId(apiId);
+        }
+        if (isSet(ASYNC_ID)) {
+            spanEvent.setAsyncId(asyncId);
+        }
+        if (isSet(NEXT_ASYNC_ID)) {
+            spanEvent.setNextAsyncId(nextAsyncId);
+        }
+        if (isSet(EXCEPTION)) {
+            spanEvent.setExceptionInfo(exceptionId, exceptionMessage);
+        }
+        if (rpc != null) {
+            spanEvent.setRpc(rpc);
+        }
+        if (endPoint != null) {
+            spanEvent.setEndPoint(endPoint);
+        }
+        if (destinationId != null) {
+            spanEvent.setDestinationId(destinationId);
+        }
+        if (annotations.size() > 0) {
+            spanEvent.setAnnotations(annotations.toAnnotationList());
+        }
+        release();
+        return spanEvent;
+    }
+
+    /**
+     * writes the record the way TSpanEvent.write() does, without building the thrift object.
+     */
+    void write(TProtocol protocol) throws TException {
+        protocol.writeStructBegin(SPAN_EVENT_STRUCT);
+        protocol.writeFieldBegin(SEQUENCE_FIELD);
+        protocol.writeI16(sequence);
+        protocol.writeFieldEnd();
+        protocol.writeFieldBegin(START_ELAPSED_FIELD);
+        protocol.writeI32(startElapsed);
+        protocol.writeFieldEnd();
+        if (isSet(END_ELAPSED)) {
+            protocol.writeFieldBegin(END_ELAPSED_FIELD);
+            protocol.writeI32(endElapsed);
+            protocol.writeFieldEnd();
+        }
+        if (rpc != null) {
+            protocol.writeFieldBegin(RPC_FIELD);
+            protocol.writeString(rpc);
+            protocol.writeFieldEnd();
+        }
+        protocol.writeFieldBegin(SERVICE_TYPE_FIELD);
+        protocol.writeI16(serviceType);
+        protocol.writeFieldEnd();
+        if (endPoint != null) {
+            protocol.writeFieldBegin(END_POINT_FIELD);
+            protocol.writeString(endPoint);
+            protocol.writeFieldEnd();
+        }
+        if (annotations.size() > 0) {
+            protocol.writeFieldBegin(ANNOTATIONS_FIELD);
+            annotations.write(protocol);
+            protocol.writeFieldEnd();
+        }
+        if (isSet(DEPTH)) {
+            protocol.writeFieldBegin(DEPTH_FIELD);
+            protocol.writeI32(depth);
+            protocol.writeFieldEnd();
+        }
+        if (isSet(NEXT_SPAN_ID)) {
+            protocol.writeFieldBegin(NEXT_SPAN_ID_FIELD);
+            protocol.writeI64(nextSpanId);
+            protocol.writeFieldEnd();
+        }
+        if (destinationId != null) {
+            protocol.writeFieldBegin(DESTINATION_ID_FIELD);
+            protocol.writeString(destinationId);
+            protocol.writeFieldEnd();
+        }
+        if (isSet(API_ID)) {
+            protocol.writeFieldBegin(API_ID_FIELD);
+            protocol.writeI32(apiId);
+            protocol.writeFieldEnd();
+        }
+        if (isSet(EXCEPTION)) {
+            protocol.writeFieldBegin(EXCEPTION_INFO_FIELD);
+            writeExceptionInfo(protocol);
+            protocol.writeFieldEnd();
+        }
+        if (isSet(ASYNC_ID)) {
+            protocol.writeFieldBegin(ASYNC_ID_FIELD);
+            protocol.writeI32(asyncId);
+            protocol.writeFieldEnd();
+        }
+        if (isSet(NEXT_ASYNC_ID)) {
+            protocol.writeFieldBegin(NEXT_ASYNC_ID_FIELD);
+            protocol.writeI32(nextAsyncId);
+            protocol.writeFieldEnd();
+        }
+        protocol.writeFieldStop();
+        protocol.writeStructEnd();
+    }
+
+    private void writeExceptionInfo(TProtocol protocol) throws TException {
+        protocol.writeStructBegin(INT_STRING_VALUE_STRUCT);
+        protocol.writeFieldBegin(INT_VALUE_FIELD);
+        protocol.writeI32(exceptionId);
+        protocol.writeFieldEnd();
+        if (exceptionMessage != null && !exceptionMessage.isEmpty()) {
+            protocol.writeFieldBegin(STRING_VALUE_FIELD);
+            protocol.writeString(exceptionMessage);
+            protocol.writeFieldEnd();
+        }
+        protocol.writeFieldStop();
+        protocol.writeStructEnd();
+    }
+
+    /**
+     * converts and recycles every record of the list
+     */
+    static List<TSpanEvent> toSpanEventList(List<SpanEventRecord> spanEventRecordList) {
+        final List<TSpanEvent> spanEventList = new ArrayList<TSpanEvent>(spanEventRecordList.size());
+        for (SpanEventRecord spanEventRecord : spanEventRecordList) {
+            spanEventList.add(spanEventRecord.toSpanEvent());
+        }
+        return spanEventList;
+    }
+
+    void release() {
+        reset();
+        if (pool != null) {
+            pool.release(this);
+        }
+    }
+
+    private void reset() {
+        annotations.reset();
+        span = null;
+        stackId = 0;
+        frameObject = null;
+        setFields = 0;
+        sequence = 0;
+        startElapsed = 0;
+        endElapsed = 0;
+        serviceType = 0;
+        depth = 0;
+        nextSpanId = 0;
+        apiId = 0;
+        asyncId = 0;
+        nextAsyncId = 0;
+        rpc = null;
+        endPoint = null;
+        destinationId = null;
+        exceptionId = 0;
+        exceptionMessage = null;
+    }
+
+    @Override
+    public String toString() {
+        return "SpanEventRecord{" +
+                "sequence=" + sequence +
+                ", depth=" + (isSet(DEPTH) ? depth : -1) +
+                ", startElapsed=" + startElapsed +
+                ", endElapsed=" + endElapsed +
+                ", serviceType=" + serviceType +
+                ", apiId=" + apiId +
+                ", rpc='" + rpc + '\'' +
+                ", endPoint='" + endPoint + '\'' +
+                ", destinationId='" + destinationId + '\'' +
+                ", annotations=" + annotations.size() +
+                '}';
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.context;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Per-thread pool of {@link SpanEventRecord}.
+ * Records are acquired by the owner thread only and released by the sender thread once they have been converted.
+ * Released records are pushed onto a lock-free stack and the owner takes the whole stack at once when its local free list runs out.
+ *
+ * @author agent
+ */
+final class SpanEventRecordPool {
+
+    static final int DEFAULT_MAX_SIZE = 1024;
+
+    private static final ThreadLocal<SpanEventRecordPool> POOL = new ThreadLocal<SpanEventRecordPool>() {
+        @Override
+        protected SpanEventRecordPool initialValue() {
+            return new SpanEventRecordPool(DEFAULT_MAX_SIZE);
+        }
+    };
+
+    static SpanEventRecordPool currentThreadPool() {
+        return POOL.get();
+    }
+
+    private final int maxSize;
+
+    // owner thread only
+    private SpanEventRecord free;
+    private int created;
+
+    private final AtomicReference<SpanEventRecord> released = new AtomicReference<SpanEventRecord>();
+
+    SpanEventRecordPool(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    SpanEventRecord acquire(Span span) {
+        SpanEventRecord record = this.free;
+        if (record == null) {
+            record = released.getAndSet(null);
+        }
+        if (record == null) {
+            if (created >= maxSize) {
+                // too many records in flight. do not pool
+                return new SpanEventRecord(span);
+            }
+            created++;
+            record = new SpanEventRecord(this);
+        }
+        this.free = record.nextFree;
+        record.nextFree = null;
+        record.init(span);
+        return record;
+    }
+
+    void release(SpanEventRecord record) {
+        SpanEventRecord head;
+        do {
+            head = released.get();
+            record.nextFree = head;
+        } while (!released.compareAndSet(head, record));
+    }
+
+    int getCreatedCount() {
+        return created;
+    }
+}
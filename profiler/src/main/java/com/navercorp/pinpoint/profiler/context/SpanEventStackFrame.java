@@ -16,6 +16,8 @@
 
 package com.navercorp.pinpoint.profiler.context;
 
+import com.navercorp.pinpoint.thrift.dto.TIntStringStringValue;
+
 
 /**
  * @author emeroad
@@ -105,6 +107,21 @@ public class SpanEventStackFrame implements StackFrame {
         this.spanEvent.addAnnotation(annotation);
     }
 
+    @Override
+    public void recordAnnotation(int key, Object value) {
+        this.spanEvent.addAnnotation(new Annotation(key, value));
+    }
+
+    @Override
+    public void recordAnnotation(int key, int value) {
+        this.spanEvent.addAnnotation(new Annotation(key, value));
+    }
+
+    @Override
+    public void recordAnnotation(int key, TIntStringStringValue value) {
+        this.spanEvent.addAnnotation(new Annotation(key, value));
+    }
+
     public void setDestinationId(String destinationId) {
         this.spanEvent.setDestinationId(destinationId);
     }
@@ -16,6 +16,8 @@
 
 package com.navercorp.pinpoint.profiler.context;
 
+import com.navercorp.pinpoint.thrift.dto.TIntStringStringValue;
+
 
 /**
  * @author emeroad
@@ -48,6 +50,12 @@ public interface StackFrame {
 
     void addAnnotation(Annotation annotation);
 
+    void recordAnnotation(int key, Object value);
+
+    void recordAnnotation(int key, int value);
+
+    void recordAnnotation(int key, TIntStringStringValue value);
+
     short getServiceType();
 
     Object attachFrameObject(Object frameObject);
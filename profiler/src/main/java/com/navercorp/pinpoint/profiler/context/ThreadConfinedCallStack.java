@@ -0,0 +1,198 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.navercorp.pinpoint.profiler.context;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * CallStack without locking in the owning thread.
+ * A trace is bound to a single thread, so only the owner changes the stack.
+ * Other threads may only take a snapshot with {@link #copyStackFrame()}.
+ * The owner bumps a sequence before and after every change (odd while changing) and the snapshot is retried
+ * until it was taken between two reads of the same even sequence.
+ * <p>
+ * The owner only does ordered stores(lazySet), so a change costs no store-load fence on the hot path.
+ * Ordered stores become visible in program order, so a reader that sees any store of a change also sees the odd sequence before it.
+ * The reader side does volatile reads, so its frame reads cannot be reordered after its second read of the sequence,
+ * and a snapshot validated by the sequence never mixes two versions. A snapshot may be slightly stale.
+ *
+ * @author agent
+ */
+public class ThreadConfinedCallStack extends AbstractCallStack {
+
+    private static final int MAX_COPY_RETRY = 16;
+    private static final StackFrame[] EMPTY_STACK_FRAME = new StackFrame[0];
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ThreadConfinedCallStack, AtomicReferenceArray> STACK_UPDATER
+            = AtomicReferenceFieldUpdater.newUpdater(ThreadConfinedCallStack.class, AtomicReferenceArray.class, "stack");
+    private static final AtomicIntegerFieldUpdater<ThreadConfinedCallStack> INDEX_UPDATER
+            = AtomicIntegerFieldUpdater.newUpdater(ThreadConfinedCallStack.class, "index");
+    private static final AtomicIntegerFieldUpdater<ThreadConfinedCallStack> SEQUENCE_UPDATER
+            = AtomicIntegerFieldUpdater.newUpdater(ThreadConfinedCallStack.class, "sequence");
+
+    // written by the owner thread only, through lazySet
+    private volatile AtomicReferenceArray<StackFrame> stack = new AtomicReferenceArray<StackFrame>(STACK_SIZE);
+    private volatile int index = -1;
+    private volatile int sequence = 0;
+
+    public ThreadConfinedCallStack(Span span) {
+        super(span);
+    }
+
+    private void beginChange() {
+        SEQUENCE_UPDATER.lazySet(this, sequence + 1);
+    }
+
+    private void endChange() {
+        SEQUENCE_UPDATER.lazySet(this, sequence + 1);
+    }
+
+    private void setIndex(int index) {
+        INDEX_UPDATER.lazySet(this, index);
+    }
+
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public int getStackFrameIndex() {
+        return index;
+    }
+
+    @Override
+    public StackFrame getCurrentStackFrame() {
+        return stack.get(index);
+    }
+
+    @Override
+    public StackFrame getParentStackFrame() {
+        final int index = this.index;
+        if (index > 0) {
+            return stack.get(index - 1);
+        }
+        return null;
+    }
+
+    @Override
+    public void setStackFrame(StackFrame stackFrame) {
+        if (stackFrame == null) {
+            throw new NullPointerException("stackFrame must not be null");
+        }
+        beginChange();
+        stack.lazySet(index, stackFrame);
+        endChange();
+    }
+
+    @Override
+    public int push() {
+        final int nextIndex = index + 1;
+        beginChange();
+        final AtomicReferenceArray<StackFrame> currentStack = this.stack;
+        if (nextIndex >= currentStack.length()) {
+            STACK_UPDATER.lazySet(this, grow(currentStack));
+        }
+        setIndex(nextIndex);
+        endChange();
+        return nextIndex;
+    }
+
+    private static AtomicReferenceArray<StackFrame> grow(AtomicReferenceArray<StackFrame> originalStack) {
+        final int length = originalStack.length();
+        final AtomicReferenceArray<StackFrame> copyStack = new AtomicReferenceArray<StackFrame>(nextStackSize(length));
+        for (int i = 0; i < length; i++) {
+            copyStack.lazySet(i, originalStack.get(i));
+        }
+        return copyStack;
+    }
+
+    @Override
+    public void popRoot() {
+        pop("popRoot");
+        // check empty root index
+        if (index != -1) {
+            throw createStackException("invalid root stack found", this.index);
+        }
+    }
+
+    @Override
+    public StackFrame pop() {
+        pop("pop");
+        if (index == -1) {
+            return null;
+        } else {
+            return getCurrentStackFrame();
+        }
+    }
+
+    private void pop(String stackApiPoint) {
+        final int currentIndex = this.index;
+        if (currentIndex < 0) {
+            throw createStackException(stackApiPoint, currentIndex);
+        }
+        beginChange();
+        stack.lazySet(currentIndex, null);
+        setIndex(currentIndex - 1);
+        endChange();
+    }
+
+    @Override
+    public void currentStackFrameClear() {
+        beginChange();
+        stack.lazySet(index, null);
+        endChange();
+    }
+
+    /**
+     * may be called from any thread. returns an empty array if the owner kept changing the stack.
+     */
+    @Override
+    public StackFrame[] copyStackFrame() {
+        for (int retry = 0; retry < MAX_COPY_RETRY; retry++) {
+            final int before = sequence;
+            if ((before & 1) != 0) {
+                Thread.yield();
+                continue;
+            }
+            final AtomicReferenceArray<StackFrame> currentStack = this.stack;
+            final int size = this.index + 1;
+            if (size < 0 || size > currentStack.length()) {
+                // changed after the sequence read
+                continue;
+            }
+            final StackFrame[] copy = new StackFrame[size];
+            for (int i = 0; i < size; i++) {
+                copy[i] = currentStack.get(i);
+            }
+            if (sequence == before) {
+                return copy;
+            }
+        }
+        return EMPTY_STACK_FRAME;
+    }
+
+    @Override
+    public String toString() {
+        return "ThreadConfinedCallStack{" +
+                "stack=" + stack +
+                ", index=" + index +
+                '}';
+    }
+}
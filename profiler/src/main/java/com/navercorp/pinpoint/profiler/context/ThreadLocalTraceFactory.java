@@ -24,6 +24,7 @@ import com.navercorp.pinpoint.exception.PinpointException;
 import com.navercorp.pinpoint.profiler.context.storage.Storage;
 import com.navercorp.pinpoint.profiler.context.storage.StorageFactory;
 import com.navercorp.pinpoint.profiler.monitor.metric.MetricRegistry;
+import com.navercorp.pinpoint.profiler.sampler.EntryPointSampler;
 import com.navercorp.pinpoint.profiler.util.NamedThreadLocal;
 
 import org.slf4j.Logger;
@@ -149,6 +150,24 @@ public class ThreadLocalTraceFactory implements TraceFactory {
         checkBeforeTraceObject();
         // TODO need to modify how to inject a datasender
         final boolean sampling = sampler.isSampling();
+        return newTraceObject(sampling);
+    }
+
+    @Override
+    public Trace newTraceObject(String entryPoint) {
+        checkBeforeTraceObject();
+        final boolean sampling = isSampling(entryPoint);
+        return newTraceObject(sampling);
+    }
+
+    private boolean isSampling(String entryPoint) {
+        if (sampler instanceof EntryPointSampler) {
+            return ((EntryPointSampler) sampler).isSampling(entryPoint);
+        }
+        return sampler.isSampling();
+    }
+
+    private Trace newTraceObject(boolean sampling) {
         if (sampling) {
             final Storage storage = storageFactory.createStorage();
             final DefaultTrace trace = new DefaultTrace(traceContext, nextTransactionId());
@@ -38,6 +38,8 @@ public interface TraceFactory {
     
     Trace newTraceObject();
 
+    Trace newTraceObject(String entryPoint);
+
     void attachTraceObject(Trace trace);
     void detachTraceObject();
 }
@@ -19,12 +19,10 @@ package com.navercorp.pinpoint.profiler.context.storage;
 import com.navercorp.pinpoint.profiler.context.*;
 import com.navercorp.pinpoint.profiler.sender.DataSender;
 
+import org.apache.thrift.TException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * @author emeroad
  */
@@ -36,7 +34,8 @@ public class BufferedStorage implements Storage {
 
     private final int bufferSize;
 
-    private List<SpanEvent> storage ;
+    // span events are encoded as they complete. no event object is kept until the flush.
+    private SpanEventEncoder storage;
     private final DataSender dataSender;
     private final SpanChunkFactory spanChunkFactory;
     private boolean async;
@@ -55,20 +54,19 @@ public class BufferedStorage implements Storage {
         this.dataSender = dataSender;
         this.spanChunkFactory = spanChunkFactory;
         this.bufferSize = bufferSize;
-        this.storage = new ArrayList<SpanEvent>(bufferSize);
+        this.storage = new SpanEventEncoder();
     }
 
 
     @Override
-    public void store(SpanEvent spanEvent) {
+    public void store(SpanEventRecord spanEventRecord) {
 
-        List<SpanEvent> flushData = null;
+        SpanEventEncoder flushData = null;
         synchronized (this) {
-            addSpanEvent(spanEvent);
-            if (storage.size() >= bufferSize) {
-                // data copy
+            addSpanEvent(spanEventRecord);
+            if (storage != null && storage.getCount() >= bufferSize) {
                 flushData = storage;
-                storage = new ArrayList<SpanEvent>(bufferSize);
+                storage = new SpanEventEncoder();
             }
         }
         if (flushData != null) {
@@ -80,17 +78,21 @@ public class BufferedStorage implements Storage {
         }
     }
 
-    private void addSpanEvent(SpanEvent spanEvent) {
-        final List<SpanEvent> storage = this.storage;
+    private void addSpanEvent(SpanEventRecord spanEventRecord) {
+        final SpanEventEncoder storage = this.storage;
         if (storage == null) {
             if (logger.isErrorEnabled()) {
-                logger.error("storage is null. discard spanEvent:{}", spanEvent);
+                logger.error("storage is null. discard spanEvent:{}", spanEventRecord);
             }
             
             // Already flushed. This could happen with async processing.
             return;
         }
-        storage.add(spanEvent);
+        try {
+            storage.encode(spanEventRecord);
+        } catch (TException e) {
+            logger.warn("spanEvent encode fail. discard spanEvent. Caused:{}", e.getMessage(), e);
+        }
     }
 
 
@@ -100,7 +102,7 @@ public class BufferedStorage implements Storage {
     }
 
     private void flushAll(Span span) {
-        List<SpanEvent> spanEventList;
+        SpanEventEncoder spanEventList;
         synchronized (this) {
             spanEventList = storage;
             this.storage = null;
@@ -113,7 +115,7 @@ public class BufferedStorage implements Storage {
             }
         } else {
             if (spanEventList != null && !spanEventList.isEmpty()) {
-                span.setSpanEventList((List) spanEventList);
+                span.setEncodedSpanEventList(spanEventList);
             }
             dataSender.send(span);
         }
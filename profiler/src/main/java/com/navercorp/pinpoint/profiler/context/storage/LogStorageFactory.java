@@ -18,6 +18,7 @@ package com.navercorp.pinpoint.profiler.context.storage;
 
 import com.navercorp.pinpoint.profiler.context.Span;
 import com.navercorp.pinpoint.profiler.context.SpanEvent;
+import com.navercorp.pinpoint.profiler.context.SpanEventRecord;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,7 +39,9 @@ public class LogStorageFactory implements StorageFactory {
     public static class LogStorage implements Storage {
         private final Logger logger = LoggerFactory.getLogger(this.getClass());
         @Override
-        public void store(SpanEvent spanEvent) {
+        public void store(SpanEventRecord spanEventRecord) {
+            // converting releases the record
+            final SpanEvent spanEvent = spanEventRecord.toSpanEvent();
             logger.debug("log spanEvent:{}", spanEvent);
         }
 
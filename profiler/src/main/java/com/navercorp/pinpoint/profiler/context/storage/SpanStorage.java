@@ -17,9 +17,8 @@
 package com.navercorp.pinpoint.profiler.context.storage;
 
 import com.navercorp.pinpoint.profiler.context.Span;
-import com.navercorp.pinpoint.profiler.context.SpanEvent;
+import com.navercorp.pinpoint.profiler.context.SpanEventRecord;
 import com.navercorp.pinpoint.profiler.sender.DataSender;
-import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -29,7 +28,7 @@ import java.util.List;
  */
 public class SpanStorage implements Storage {
 
-    protected List<TSpanEvent> spanEventList = new ArrayList<TSpanEvent>(10);
+    protected List<SpanEventRecord> spanEventList = new ArrayList<SpanEventRecord>(10);
     private final DataSender dataSender;
 
     public SpanStorage(DataSender dataSender) {
@@ -40,13 +39,13 @@ public class SpanStorage implements Storage {
     }
 
     @Override
-    public void store(SpanEvent spanEvent) {
-        if (spanEvent == null) {
-            throw new NullPointerException("spanEvent must not be null");
+    public void store(SpanEventRecord spanEventRecord) {
+        if (spanEventRecord == null) {
+            throw new NullPointerException("spanEventRecord must not be null");
         }
-        final List<TSpanEvent> spanEventList = this.spanEventList;
+        final List<SpanEventRecord> spanEventList = this.spanEventList;
         if (spanEventList != null) {
-            spanEventList.add(spanEvent);
+            spanEventList.add(spanEventRecord);
         } else {
             throw new IllegalStateException("spanEventList is null");
         }
@@ -57,7 +56,7 @@ public class SpanStorage implements Storage {
         if (span == null) {
             throw new NullPointerException("span must not be null");
         }
-        span.setSpanEventList(spanEventList);
+        span.setSpanEventRecordList(spanEventList);
         spanEventList = null;
         this.dataSender.send(span);
     }
@@ -17,7 +17,7 @@
 package com.navercorp.pinpoint.profiler.context.storage;
 
 import com.navercorp.pinpoint.profiler.context.Span;
-import com.navercorp.pinpoint.profiler.context.SpanEvent;
+import com.navercorp.pinpoint.profiler.context.SpanEventRecord;
 
 /**
  * @author emeroad
@@ -26,9 +26,9 @@ public interface Storage {
 
     /**
      *
-     * @param spanEvent
+     * @param spanEventRecord
      */
-    void store(SpanEvent spanEvent);
+    void store(SpanEventRecord spanEventRecord);
 
     /**
      *
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.modifier;
+
+import java.util.Arrays;
+
+/**
+ * Character trie of class names.
+ * A lookup walks the name one character at a time and stops at the first character no registered name has,
+ * so most of the loaded classes are rejected within their package prefix without hashing the whole name.
+ * <p>
+ * Not thread safe for put(). get() is safe once the trie is completely built.
+ *
+ * @author agent
+ */
+public class ClassNameTrie<T> {
+
+    private static final char[] EMPTY_KEYS = new char[0];
+
+    private final Node<T> root = new Node<T>();
+    private int size;
+
+    /**
+     * @return the previous value of the className or null
+     */
+    public T put(String className, T value) {
+        if (className == null) {
+            throw new NullPointerException("className must not be null");
+        }
+        if (value == null) {
+            throw new NullPointerException("value must not be null");
+        }
+        Node<T> node = root;
+        final int length = className.length();
+        for (int i = 0; i < length; i++) {
+            node = node.getOrAddChild(className.charAt(i));
+        }
+        final T old = node.value;
+        node.value = value;
+        if (old == null) {
+            size++;
+        }
+        return old;
+    }
+
+    public T get(String className) {
+        if (className == null) {
+            return null;
+        }
+        Node<T> node = root;
+        final int length = className.length();
+        for (int i = 0; i < length; i++) {
+            node = node.getChild(className.charAt(i));
+            if (node == null) {
+                return null;
+            }
+        }
+        return node.value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static final class Node<T> {
+        // sorted
+        private char[] keys = EMPTY_KEYS;
+        private Node<T>[] children;
+        private T value;
+
+        private Node<T> getChild(char key) {
+            final char[] keys = this.keys;
+            // class names share a few long package prefixes, most nodes have a single child
+            if (keys.length == 1) {
+                return keys[0] == key ? children[0] : null;
+            }
+            final int index = Arrays.binarySearch(keys, key);
+            if (index < 0) {
+                return null;
+            }
+            return children[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        private Node<T> getOrAddChild(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index >= 0) {
+                return children[index];
+            }
+            index = -(index + 1);
+
+            final int length = keys.length;
+            final char[] newKeys = new char[length + 1];
+            final Node<T>[] newChildren = new Node[length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(keys, index, newKeys, index + 1, length - index);
+            if (children != null) {
+                System.arraycopy(children, 0, newChildren, 0, index);
+                System.arraycopy(children, index, newChildren, index + 1, length - index);
+            }
+            final Node<T> child = new Node<T>();
+            newKeys[index] = key;
+            newChildren[index] = child;
+
+            this.keys = newKeys;
+            this.children = newChildren;
+            return child;
+        }
+    }
+}
@@ -16,9 +16,6 @@
 
 package com.navercorp.pinpoint.profiler.modifier;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import com.navercorp.pinpoint.bootstrap.Agent;
 import com.navercorp.pinpoint.bootstrap.config.ProfilerConfig;
 import com.navercorp.pinpoint.bootstrap.instrument.ByteCodeInstrumentor;
@@ -88,8 +85,8 @@ import com.navercorp.pinpoint.profiler.modifier.spring.orm.ibatis.SqlMapClientTe
 public class DefaultModifierRegistry implements ModifierRegistry {
 
     // No concurrent issue because only one thread put entries to the map and get operations are started after the map is completely build.
-    // Set the map size big intentionally to keep hash collision low.
-    private final Map<String, AbstractModifier> registry = new HashMap<String, AbstractModifier>(512);
+    // findModifier() runs for every loaded class, a trie rejects most of the names in their package prefix.
+    private final ClassNameTrie<AbstractModifier> registry = new ClassNameTrie<AbstractModifier>();
 
     private final ByteCodeInstrumentor byteCodeInstrumentor;
     private final ProfilerConfig profilerConfig;
@@ -111,7 +111,7 @@ public class HttpServletInterceptor implements SimpleAroundInterceptor, ByteCode
                     }
                 }
             } else {
-                trace = traceContext.newTraceObject();
+                trace = traceContext.newTraceObject(requestURL);
                 if (!trace.canSampled()){
                     if (isDebug) {
                         logger.debug("TraceID not exist. camSampled is false. skip trace. requestUrl:{}, remoteAddr:{}", new Object[]{requestURL, remoteAddr});
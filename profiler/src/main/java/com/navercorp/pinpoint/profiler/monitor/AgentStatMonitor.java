@@ -24,6 +24,7 @@ import java.util.concurrent.TimeUnit;
 
 import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
 import com.navercorp.pinpoint.profiler.monitor.codahale.AgentStatCollectorFactory;
+import com.navercorp.pinpoint.profiler.monitor.codahale.MetricMonitorRegistry;
 import com.navercorp.pinpoint.profiler.monitor.codahale.cpu.CpuLoadCollector;
 import com.navercorp.pinpoint.profiler.monitor.codahale.gc.GarbageCollector;
 import com.navercorp.pinpoint.profiler.sender.DataSender;
@@ -59,10 +60,18 @@ public class AgentStatMonitor {
     private final long agentStartTime;
 
     public AgentStatMonitor(DataSender dataSender, String agentId, long startTime) {
-        this(dataSender, agentId, startTime, DEFAULT_COLLECTION_INTERVAL_MS, DEFAULT_NUM_COLLECTIONS_PER_SEND);
+        this(dataSender, agentId, startTime, new MetricMonitorRegistry());
+    }
+
+    public AgentStatMonitor(DataSender dataSender, String agentId, long startTime, MetricMonitorRegistry monitorRegistry) {
+        this(dataSender, agentId, startTime, DEFAULT_COLLECTION_INTERVAL_MS, DEFAULT_NUM_COLLECTIONS_PER_SEND, monitorRegistry);
     }
 
     public AgentStatMonitor(DataSender dataSender, String agentId, long startTime, long collectionInterval, int numCollectionsPerBatch) {
+        this(dataSender, agentId, startTime, collectionInterval, numCollectionsPerBatch, new MetricMonitorRegistry());
+    }
+
+    public AgentStatMonitor(DataSender dataSender, String agentId, long startTime, long collectionInterval, int numCollectionsPerBatch, MetricMonitorRegistry monitorRegistry) {
         if (dataSender == null) {
             throw new NullPointerException("dataSender must not be null");
         }
@@ -74,7 +83,7 @@ public class AgentStatMonitor {
         this.agentStartTime = startTime;
         this.collectionIntervalMs = collectionInterval;
         this.numCollectionsPerBatch = numCollectionsPerBatch;
-        this.agentStatCollectorFactory = new AgentStatCollectorFactory();
+        this.agentStatCollectorFactory = new AgentStatCollectorFactory(monitorRegistry);
     }
 
     public void start() {
@@ -46,14 +46,16 @@ public class AgentStatCollectorFactory {
     private final CpuLoadCollector cpuLoadCollector;
 
     public AgentStatCollectorFactory() {
-        this.monitorRegistry = createRegistry();
-        this.garbageCollector = createGarbageCollector();
-        this.cpuLoadCollector = createCpuLoadCollector();
+        this(new MetricMonitorRegistry());
     }
 
-    private MetricMonitorRegistry createRegistry() {
-        final MetricMonitorRegistry monitorRegistry = new MetricMonitorRegistry();
-        return monitorRegistry;
+    public AgentStatCollectorFactory(MetricMonitorRegistry monitorRegistry) {
+        if (monitorRegistry == null) {
+            throw new NullPointerException("monitorRegistry must not be null");
+        }
+        this.monitorRegistry = monitorRegistry;
+        this.garbageCollector = createGarbageCollector();
+        this.cpuLoadCollector = createCpuLoadCollector();
     }
 
     /**
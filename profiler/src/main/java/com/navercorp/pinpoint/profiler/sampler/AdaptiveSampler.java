@@ -0,0 +1,143 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sampler;
+
+import com.navercorp.pinpoint.bootstrap.sampler.Sampler;
+import com.navercorp.pinpoint.profiler.sender.DropCounter;
+import com.navercorp.pinpoint.profiler.util.StripedCounter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * lowers the sampling rate while the sender drops data.
+ * every checkInterval, the level goes up by one if the drop count increased, halving the traces chosen by the delegate.
+ * the level goes down by one after RECOVER_CHECK_COUNT checks without a drop.
+ * the check is done by the request thread that crosses the interval, no timer thread is needed.
+ * the entry point is passed to the delegate if it is an {@link EntryPointSampler}.
+ *
+ * @author agent
+ */
+public class AdaptiveSampler implements EntryPointSampler {
+
+    static final int MAX_LEVEL = 10;
+    static final int RECOVER_CHECK_COUNT = 5;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final Sampler delegate;
+    private final DropCounter dropCounter;
+    private final long checkInterval;
+
+    private final StripedCounter counter = new StripedCounter();
+    private final AtomicLong nextCheckTime = new AtomicLong();
+    private volatile int level = 0;
+
+    // updated only by the thread that won nextCheckTime
+    private long lastDropCount;
+    private int quietCheckCount;
+
+    public AdaptiveSampler(Sampler delegate, DropCounter dropCounter, long checkInterval) {
+        if (delegate == null) {
+            throw new NullPointerException("delegate must not be null");
+        }
+        if (dropCounter == null) {
+            throw new NullPointerException("dropCounter must not be null");
+        }
+        if (checkInterval <= 0) {
+            throw new IllegalArgumentException("Invalid checkInterval " + checkInterval);
+        }
+        this.delegate = delegate;
+        this.dropCounter = dropCounter;
+        this.checkInterval = checkInterval;
+        this.lastDropCount = dropCounter.getDropCount();
+    }
+
+    @Override
+    public boolean isSampling() {
+        if (!delegate.isSampling()) {
+            return false;
+        }
+        return isSampling(System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean isSampling(String entryPoint) {
+        if (!isDelegateSampling(entryPoint)) {
+            return false;
+        }
+        return isSampling(System.currentTimeMillis());
+    }
+
+    private boolean isDelegateSampling(String entryPoint) {
+        if (delegate instanceof EntryPointSampler) {
+            return ((EntryPointSampler) delegate).isSampling(entryPoint);
+        }
+        return delegate.isSampling();
+    }
+
+    boolean isSampling(long currentTimeMillis) {
+        check(currentTimeMillis);
+        final int level = this.level;
+        if (level == 0) {
+            return true;
+        }
+        final long mask = (1L << level) - 1;
+        return (counter.getAndIncrement() & mask) == 0;
+    }
+
+    private void check(long currentTimeMillis) {
+        final long checkTime = nextCheckTime.get();
+        if (currentTimeMillis < checkTime) {
+            return;
+        }
+        if (!nextCheckTime.compareAndSet(checkTime, currentTimeMillis + checkInterval)) {
+            return;
+        }
+        final long dropCount = dropCounter.getDropCount();
+        if (dropCount > lastDropCount) {
+            quietCheckCount = 0;
+            if (level < MAX_LEVEL) {
+                level++;
+                logger.info("data dropped:{}. decrease sampling. level:{}", dropCount - lastDropCount, level);
+            }
+        } else if (level > 0) {
+            quietCheckCount++;
+            if (quietCheckCount >= RECOVER_CHECK_COUNT) {
+                quietCheckCount = 0;
+                level--;
+                logger.info("increase sampling. level:{}", level);
+            }
+        }
+        lastDropCount = dropCount;
+    }
+
+    int getLevel() {
+        return level;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveSampler{" +
+                "delegate=" + delegate +
+                ", checkInterval=" + checkInterval +
+                ", level=" + level +
+                '}';
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sampler;
+
+import com.navercorp.pinpoint.bootstrap.sampler.Sampler;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * samples budgetPerSecond transactions of every entry point in addition to the transactions chosen by the delegate,
+ * so that rarely called entry points are traced even with a low sampling rate.
+ * <p>
+ * the entry point is normalized before lookup. the query string and path parameters are removed,
+ * and path segments that look like ids (digits, hex, uuid) are replaced with *, so /user/1234 and /user/5678 share a budget.
+ * the number of tracked entry points is bounded by maxEntryPointSize. entry points beyond it use the delegate only
+ * until the table is cleared. a full table is cleared at most once per RESET_INTERVAL.
+ *
+ * @author agent
+ */
+public class EntryPointBudgetSampler implements EntryPointSampler {
+
+    private static final long BUDGET_INTERVAL = 1000;
+    static final long RESET_INTERVAL = 60 * 1000;
+    static final String ID_SEGMENT = "*";
+
+    private final Sampler delegate;
+    private final int budgetPerSecond;
+    private final int maxEntryPointSize;
+
+    private final ConcurrentMap<String, Budget> budgetMap = new ConcurrentHashMap<String, Budget>();
+    private final AtomicInteger budgetMapSize = new AtomicInteger();
+    private final AtomicLong resetTime = new AtomicLong();
+
+    public EntryPointBudgetSampler(Sampler delegate, int budgetPerSecond, int maxEntryPointSize) {
+        if (delegate == null) {
+            throw new NullPointerException("delegate must not be null");
+        }
+        if (budgetPerSecond <= 0) {
+            throw new IllegalArgumentException("Invalid budgetPerSecond " + budgetPerSecond);
+        }
+        if (maxEntryPointSize <= 0) {
+            throw new IllegalArgumentException("Invalid maxEntryPointSize " + maxEntryPointSize);
+        }
+        this.delegate = delegate;
+        this.budgetPerSecond = budgetPerSecond;
+        this.maxEntryPointSize = maxEntryPointSize;
+    }
+
+    @Override
+    public boolean isSampling() {
+        return delegate.isSampling();
+    }
+
+    @Override
+    public boolean isSampling(String entryPoint) {
+        return isSampling(entryPoint, System.currentTimeMillis());
+    }
+
+    boolean isSampling(String entryPoint, long currentTimeMillis) {
+        if (delegate.isSampling()) {
+            return true;
+        }
+        if (entryPoint == null) {
+            return false;
+        }
+        final Budget budget = getBudget(normalize(entryPoint), currentTimeMillis);
+        if (budget == null) {
+            return false;
+        }
+        return budget.tryAcquire(currentTimeMillis);
+    }
+
+    private Budget getBudget(String entryPoint, long currentTimeMillis) {
+        final Budget budget = budgetMap.get(entryPoint);
+        if (budget != null) {
+            return budget;
+        }
+        if (budgetMapSize.get() >= maxEntryPointSize) {
+            if (!reset(currentTimeMillis)) {
+                return null;
+            }
+        }
+        final Budget newBudget = new Budget(budgetPerSecond);
+        final Budget before = budgetMap.putIfAbsent(entryPoint, newBudget);
+        if (before != null) {
+            return before;
+        }
+        budgetMapSize.incrementAndGet();
+        return newBudget;
+    }
+
+    private boolean reset(long currentTimeMillis) {
+        final long lastResetTime = resetTime.get();
+        if (currentTimeMillis - lastResetTime < RESET_INTERVAL) {
+            return false;
+        }
+        // only one thread clears the table
+        if (!resetTime.compareAndSet(lastResetTime, currentTimeMillis)) {
+            return false;
+        }
+        budgetMap.clear();
+        budgetMapSize.set(0);
+        return true;
+    }
+
+    static String normalize(String entryPoint) {
+        int end = entryPoint.length();
+        for (int i = 0; i < end; i++) {
+            final char c = entryPoint.charAt(i);
+            if (c == '?' || c == ';' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+        StringBuilder builder = null;
+        int segmentStart = 0;
+        for (int i = 0; i <= end; i++) {
+            if (i != end && entryPoint.charAt(i) != '/') {
+                continue;
+            }
+            final boolean id = isIdSegment(entryPoint, segmentStart, i);
+            if (id && builder == null) {
+                builder = new StringBuilder(end);
+                builder.append(entryPoint, 0, segmentStart);
+            }
+            if (builder != null) {
+                if (id) {
+                    builder.append(ID_SEGMENT);
+                } else {
+                    builder.append(entryPoint, segmentStart, i);
+                }
+                if (i != end) {
+                    builder.append('/');
+                }
+            }
+            segmentStart = i + 1;
+        }
+        if (builder != null) {
+            return builder.toString();
+        }
+        if (end != entryPoint.length()) {
+            return entryPoint.substring(0, end);
+        }
+        return entryPoint;
+    }
+
+    private static boolean isIdSegment(String entryPoint, int start, int end) {
+        boolean digit = false;
+        for (int i = start; i < end; i++) {
+            final char c = entryPoint.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digit = true;
+            } else if (!((c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F') || c == '-')) {
+                return false;
+            }
+        }
+        return digit;
+    }
+
+    int getEntryPointSize() {
+        return budgetMapSize.get();
+    }
+
+    private static class Budget {
+        private final int permits;
+        private final AtomicLong startTime = new AtomicLong();
+        private final AtomicInteger taken = new AtomicInteger();
+
+        private Budget(int permits) {
+            this.permits = permits;
+        }
+
+        private boolean tryAcquire(long currentTimeMillis) {
+            final long lastStartTime = startTime.get();
+            if (currentTimeMillis - lastStartTime >= BUDGET_INTERVAL) {
+                if (startTime.compareAndSet(lastStartTime, currentTimeMillis)) {
+                    taken.set(0);
+                }
+            }
+            // the entry point is rare by assumption. no need to stripe this counter.
+            if (taken.get() >= permits) {
+                return false;
+            }
+            return taken.incrementAndGet() <= permits;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "EntryPointBudgetSampler{" +
+                "delegate=" + delegate +
+                ", budgetPerSecond=" + budgetPerSecond +
+                ", maxEntryPointSize=" + maxEntryPointSize +
+                '}';
+    }
+}
@@ -14,25 +14,17 @@
  * limitations under the License.
  */
 
-package com.navercorp.pinpoint.collector.util;
+package com.navercorp.pinpoint.profiler.sampler;
 
-import java.net.DatagramPacket;
+import com.navercorp.pinpoint.bootstrap.sampler.Sampler;
 
 /**
+ * sampler that can also decide by the entry point (e.g. request uri) of a new transaction.
+ *
  * @author emeroad
  */
-public class DatagramPacketFactory implements ObjectPoolFactory<DatagramPacket> {
-
-    private static final int AcceptedSize = 65507;
+public interface EntryPointSampler extends Sampler {
 
-    @Override
-    public DatagramPacket create() {
-        byte[] bytes = new byte[AcceptedSize];
-        return new DatagramPacket(bytes, 0, bytes.length);
-    }
+    boolean isSampling(String entryPoint);
 
-    @Override
-    public void beforeReturn(DatagramPacket packet) {
-        packet.setLength(AcceptedSize);
-    }
 }
@@ -16,7 +16,9 @@
 
 package com.navercorp.pinpoint.profiler.sampler;
 
+import com.navercorp.pinpoint.bootstrap.config.ProfilerConfig;
 import com.navercorp.pinpoint.bootstrap.sampler.Sampler;
+import com.navercorp.pinpoint.profiler.sender.DropCounter;
 
 /**
  * @author emeroad
@@ -31,4 +33,32 @@ public class SamplerFactory {
         }
         return new SamplingRateSampler(samplingRate);
     }
+
+    /**
+     * @param dropCounter drop count of the span sender. the adaptive sampler is not applied if null.
+     */
+    public Sampler createSampler(ProfilerConfig profilerConfig, DropCounter dropCounter) {
+        if (profilerConfig == null) {
+            throw new NullPointerException("profilerConfig must not be null");
+        }
+        final boolean samplingEnable = profilerConfig.isSamplingEnable();
+        Sampler sampler = createSampler(samplingEnable, profilerConfig.getSamplingRate());
+        if (!samplingEnable) {
+            return sampler;
+        }
+
+        // the entry point budget is innermost. traces it adds are still lowered by the adaptive sampler and capped by the rate limit.
+        final int entryPointBudget = profilerConfig.getSamplingEntryPointBudget();
+        if (entryPointBudget > 0) {
+            sampler = new EntryPointBudgetSampler(sampler, entryPointBudget, profilerConfig.getSamplingEntryPointMaxSize());
+        }
+        if (profilerConfig.isSamplingAdaptiveEnable() && dropCounter != null) {
+            sampler = new AdaptiveSampler(sampler, dropCounter, profilerConfig.getSamplingAdaptiveCheckInterval());
+        }
+        final int rateLimit = profilerConfig.getSamplingRateLimit();
+        if (rateLimit > 0) {
+            sampler = new TokenBucketSampler(sampler, rateLimit);
+        }
+        return sampler;
+    }
 }
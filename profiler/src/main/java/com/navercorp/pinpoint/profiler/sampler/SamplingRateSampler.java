@@ -17,16 +17,15 @@
 package com.navercorp.pinpoint.profiler.sampler;
 
 import com.navercorp.pinpoint.bootstrap.sampler.Sampler;
-import com.navercorp.pinpoint.common.util.MathUtils;
-
-import java.util.concurrent.atomic.AtomicInteger;
+import com.navercorp.pinpoint.profiler.util.StripedCounter;
 
 /**
  * @author emeroad
  */
 public class SamplingRateSampler implements Sampler {
 
-    private final AtomicInteger counter = new AtomicInteger(0);
+    // counted per thread stripe. the sampling ratio holds for each stripe and therefore for the total.
+    private final StripedCounter counter = new StripedCounter();
     private final int samplingRate;
 
     public SamplingRateSampler(int samplingRate) {
@@ -40,9 +39,8 @@ public class SamplingRateSampler implements Sampler {
 
     @Override
     public boolean isSampling() {
-        int samplingCount = MathUtils.fastAbs(counter.getAndIncrement());
-        int isSampling = samplingCount % samplingRate;
-        return isSampling == 0;
+        final long samplingCount = counter.getAndIncrement();
+        return (samplingCount % samplingRate) == 0;
     }
 
     @Override
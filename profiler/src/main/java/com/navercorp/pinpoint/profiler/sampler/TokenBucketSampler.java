@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sampler;
+
+import com.navercorp.pinpoint.bootstrap.sampler.Sampler;
+import com.navercorp.pinpoint.profiler.util.StripedCounter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * limits the traces chosen by the delegate sampler to permitsPerSecond.
+ * the bucket is refilled once per second. taken permits are counted in a {@link StripedCounter},
+ * so once the bucket is empty the request threads only read the cells and do not write.
+ * concurrent threads may overshoot the limit by at most one permit each.
+ * the entry point is passed to the delegate if it is an {@link EntryPointSampler}.
+ *
+ * @author agent
+ */
+public class TokenBucketSampler implements EntryPointSampler {
+
+    private static final long REFILL_INTERVAL = 1000;
+
+    private final Sampler delegate;
+    private final int permitsPerSecond;
+
+    private final StripedCounter taken = new StripedCounter();
+    private final AtomicLong refillTime = new AtomicLong();
+
+    public TokenBucketSampler(Sampler delegate, int permitsPerSecond) {
+        if (delegate == null) {
+            throw new NullPointerException("delegate must not be null");
+        }
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("Invalid permitsPerSecond " + permitsPerSecond);
+        }
+        this.delegate = delegate;
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    @Override
+    public boolean isSampling() {
+        if (!delegate.isSampling()) {
+            return false;
+        }
+        return tryAcquire(System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean isSampling(String entryPoint) {
+        if (!isDelegateSampling(entryPoint)) {
+            return false;
+        }
+        return tryAcquire(System.currentTimeMillis());
+    }
+
+    private boolean isDelegateSampling(String entryPoint) {
+        if (delegate instanceof EntryPointSampler) {
+            return ((EntryPointSampler) delegate).isSampling(entryPoint);
+        }
+        return delegate.isSampling();
+    }
+
+    boolean tryAcquire(long currentTimeMillis) {
+        refill(currentTimeMillis);
+        if (taken.sum() >= permitsPerSecond) {
+            return false;
+        }
+        taken.increment();
+        return true;
+    }
+
+    private void refill(long currentTimeMillis) {
+        final long lastRefillTime = refillTime.get();
+        if (currentTimeMillis - lastRefillTime < REFILL_INTERVAL) {
+            return;
+        }
+        // only one thread resets the bucket
+        if (refillTime.compareAndSet(lastRefillTime, currentTimeMillis)) {
+            taken.reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TokenBucketSampler{" +
+                "delegate=" + delegate +
+                ", permitsPerSecond=" + permitsPerSecond +
+                '}';
+    }
+}
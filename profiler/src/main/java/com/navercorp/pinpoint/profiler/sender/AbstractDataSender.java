@@ -22,6 +22,7 @@ import org.apache.thrift.TBase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.navercorp.pinpoint.profiler.monitor.MonitorRegistry;
 import com.navercorp.pinpoint.rpc.FutureListener;
 import com.navercorp.pinpoint.rpc.ResponseMessage;
 import com.navercorp.pinpoint.thrift.io.HeaderTBaseDeserializer;
@@ -55,8 +56,19 @@ public abstract class AbstractDataSender implements DataSender {
         }
     }
 
-    protected AsyncQueueingExecutor<Object> createAsyncQueueingExecutor(int queueSize, String executorName) {
-        final AsyncQueueingExecutor<Object> executor = new AsyncQueueingExecutor<Object>(queueSize, executorName);
+    protected AsyncQueueingExecutor<Object> createAsyncQueueingExecutor(int queueSize, String executorName, AsyncQueueFactory queueFactory, MonitorRegistry monitorRegistry) {
+        return createAsyncQueueingExecutor(queueSize, executorName, queueFactory, DrainPolicy.DEFAULT_POLICY, monitorRegistry);
+    }
+
+    /**
+     * @param monitorRegistry the agent's registry. the drain and queue metrics of the executor are registered to it.
+     */
+    protected AsyncQueueingExecutor<Object> createAsyncQueueingExecutor(int queueSize, String executorName, AsyncQueueFactory queueFactory, DrainPolicy drainPolicy, MonitorRegistry monitorRegistry) {
+        if (queueFactory == null) {
+            throw new NullPointerException("queueFactory must not be null");
+        }
+        final AsyncQueue<Object> queue = queueFactory.createQueue(queueSize);
+        final AsyncQueueingExecutor<Object> executor = new AsyncQueueingExecutor<Object>(queue, executorName, drainPolicy, monitorRegistry);
         executor.setListener(new AsyncQueueingExecutorListener<Object>() {
             @Override
             public void execute(Collection<Object> messageList) {
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * creates the {@link AsyncQueue} of {@link AsyncQueueingExecutor}.
+ *
+ * <pre>
+ * profiler.spandatasender.write.queue.type=BLOCKING | RINGBUFFER
+ * profiler.spandatasender.write.queue.waitstrategy=SPIN | YIELD | PARK
+ * </pre>
+ *
+ * @author agent
+ */
+public class AsyncQueueFactory {
+
+    public static final AsyncQueueFactory DEFAULT_FACTORY = new AsyncQueueFactory(QueueType.BLOCKING, WaitStrategy.PARK);
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncQueueFactory.class);
+
+    public enum QueueType {
+        BLOCKING,
+        RINGBUFFER
+    }
+
+    private final QueueType queueType;
+    private final WaitStrategy waitStrategy;
+
+    public AsyncQueueFactory(QueueType queueType, WaitStrategy waitStrategy) {
+        if (queueType == null) {
+            throw new NullPointerException("queueType must not be null");
+        }
+        if (waitStrategy == null) {
+            throw new NullPointerException("waitStrategy must not be null");
+        }
+        this.queueType = queueType;
+        this.waitStrategy = waitStrategy;
+    }
+
+    public static AsyncQueueFactory valueOf(String queueTypeName, String waitStrategyName) {
+        final QueueType queueType = findQueueType(queueTypeName);
+        final WaitStrategy waitStrategy = WaitStrategy.getValue(waitStrategyName, WaitStrategy.PARK);
+        if (queueType == DEFAULT_FACTORY.queueType && waitStrategy == DEFAULT_FACTORY.waitStrategy) {
+            return DEFAULT_FACTORY;
+        }
+        return new AsyncQueueFactory(queueType, waitStrategy);
+    }
+
+    private static QueueType findQueueType(String queueTypeName) {
+        if (queueTypeName == null) {
+            return QueueType.BLOCKING;
+        }
+        for (QueueType queueType : QueueType.values()) {
+            if (queueType.name().equalsIgnoreCase(queueTypeName.trim())) {
+                return queueType;
+            }
+        }
+        logger.warn("Unknown queue type:{}. use {}", queueTypeName, QueueType.BLOCKING);
+        return QueueType.BLOCKING;
+    }
+
+    public <T> AsyncQueue<T> createQueue(int queueSize) {
+        switch (queueType) {
+            case RINGBUFFER:
+                return new MpscRingBufferAsyncQueue<T>(queueSize, waitStrategy);
+            case BLOCKING:
+            default:
+                return new BlockingAsyncQueue<T>(queueSize);
+        }
+    }
+
+    public QueueType getQueueType() {
+        return queueType;
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncQueueFactory{queueType=" + queueType + ", waitStrategy=" + waitStrategy + '}';
+    }
+}
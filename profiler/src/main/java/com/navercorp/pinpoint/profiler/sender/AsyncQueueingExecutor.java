@@ -17,7 +17,6 @@
 package com.navercorp.pinpoint.profiler.sender;
 
 import java.util.Collection;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -26,6 +25,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
+import com.navercorp.pinpoint.profiler.monitor.MonitorRegistry;
 
 /**
  * @author emeroad
@@ -37,30 +37,41 @@ public class AsyncQueueingExecutor<T> implements Runnable {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private final boolean isWarn = logger.isWarnEnabled();
 
-    private final LinkedBlockingQueue<T> queue;
+    private final AsyncQueue<T> queue;
     private final AtomicBoolean isRun = new AtomicBoolean(true);
     private final Thread executeThread;
     private final String executorName;
 
-    private final int maxDrainSize;
+    private final DrainPolicy drainPolicy;
+    private final DrainMetric drainMetric;
     // Caution. single thread only. this Collection is simpler than ArrayList.
     private final Collection<T> drain;
 
     private AsyncQueueingExecutorListener<T> listener = EMPTY_LISTENER;
 
 
-    public AsyncQueueingExecutor() {
-        this(1024 * 5, "Pinpoint-AsyncQueueingExecutor");
+    public AsyncQueueingExecutor(AsyncQueue<T> queue, String executorName, MonitorRegistry monitorRegistry) {
+        this(queue, executorName, DrainPolicy.DEFAULT_POLICY, monitorRegistry);
     }
 
-    public AsyncQueueingExecutor(int queueSize, String executorName) {
+    public AsyncQueueingExecutor(AsyncQueue<T> queue, String executorName, DrainPolicy drainPolicy, MonitorRegistry monitorRegistry) {
+        if (queue == null) {
+            throw new NullPointerException("queue must not be null");
+        }
         if (executorName == null) {
             throw new NullPointerException("executorName must not be null");
         }
+        if (drainPolicy == null) {
+            throw new NullPointerException("drainPolicy must not be null");
+        }
+        if (monitorRegistry == null) {
+            throw new NullPointerException("monitorRegistry must not be null");
+        }
         // before executeThread start
-        this.maxDrainSize = 10;
-        this.drain = new UnsafeArrayCollection<T>(maxDrainSize);
-        this.queue = new LinkedBlockingQueue<T>(queueSize);
+        this.drainPolicy = drainPolicy;
+        this.drainMetric = new DrainMetric(monitorRegistry, executorName);
+        this.drain = new UnsafeArrayCollection<T>(drainPolicy.getMaxDrainSize());
+        this.queue = queue;
 
         this.executeThread = this.createExecuteThread(executorName);
         this.executorName = executeThread.getName();
@@ -75,7 +86,7 @@ public class AsyncQueueingExecutor<T> implements Runnable {
 
     @Override
     public void run() {
-        logger.info("{} started.", executorName);
+        logger.info("{} started. {}", executorName, drainPolicy);
         doExecute();
     }
 
@@ -84,8 +95,12 @@ public class AsyncQueueingExecutor<T> implements Runnable {
         while (isRun()) {
             try {
                 Collection<T> dtoList = getDrainQueue();
-                int drainSize = takeN(dtoList, this.maxDrainSize);
+                final int queueSize = queue.size();
+                drainMetric.updateQueueDepth(queueSize);
+                final int targetSize = drainPolicy.nextDrainSize(queueSize);
+                int drainSize = takeN(dtoList, targetSize);
                 if (drainSize > 0) {
+                    linger(dtoList, drainSize);
                     doExecute(dtoList);
                     continue;
                 }
@@ -93,7 +108,14 @@ public class AsyncQueueingExecutor<T> implements Runnable {
                 while (isRun()) {
                     T dto = takeOne();
                     if (dto != null) {
-                        doExecute(dto);
+                        if (drainPolicy.isLinger(1)) {
+                            dtoList = getDrainQueue();
+                            dtoList.add(dto);
+                            linger(dtoList, 1);
+                            doExecute(dtoList);
+                        } else {
+                            doExecute(dto);
+                        }
                         continue drainStartEntry;
                     }
                 }
@@ -111,7 +133,7 @@ public class AsyncQueueingExecutor<T> implements Runnable {
         }
         while(true) {
             Collection<T> dtoList = getDrainQueue();
-           int drainSize = takeN(dtoList, this.maxDrainSize);
+            int drainSize = takeN(dtoList, drainPolicy.getMaxDrainSize());
             if (drainSize == 0) {
                 break;
             }
@@ -122,6 +144,40 @@ public class AsyncQueueingExecutor<T> implements Runnable {
         }
     }
 
+    /**
+     * waits up to lingerTime for more data so that a small batch is coalesced with the following data.
+     */
+    private int linger(Collection<T> dtoList, int drainSize) {
+        if (!drainPolicy.isLinger(drainSize)) {
+            return drainSize;
+        }
+        final int minDrainSize = drainPolicy.getMinDrainSize();
+        final long deadline = System.nanoTime() + drainPolicy.getLingerTimeNanos();
+        while (drainSize < minDrainSize) {
+            final long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                break;
+            }
+            final T dto = poll(remainingNanos);
+            if (dto == null) {
+                break;
+            }
+            dtoList.add(dto);
+            drainSize++;
+            drainSize += takeN(dtoList, minDrainSize - drainSize);
+        }
+        return drainSize;
+    }
+
+    private T poll(long timeoutNanos) {
+        try {
+            return queue.poll(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
     protected T takeOne() {
         try {
             return queue.poll(1000 * 2, TimeUnit.MILLISECONDS);
@@ -150,8 +206,9 @@ public class AsyncQueueingExecutor<T> implements Runnable {
         }
         boolean offer = queue.offer(data);
         if (!offer) {
+            final long drop = drainMetric.drop();
             if (isWarn) {
-                logger.warn("{} Drop data. queue is full. size:{}", executorName, queue.size());
+                logger.warn("{} Drop data. queue is full. size:{}, dropCount:{}", executorName, queue.size(), drop);
             }
         }
         return offer;
@@ -165,17 +222,47 @@ public class AsyncQueueingExecutor<T> implements Runnable {
     }
 
     private void doExecute(Collection<T> dtoList) {
-        this.listener.execute(dtoList);
+        final long startTime = System.nanoTime();
+        try {
+            this.listener.execute(dtoList);
+        } finally {
+            drainMetric.update(dtoList.size(), System.nanoTime() - startTime);
+        }
     }
 
     private void doExecute(T dto) {
-        this.listener.execute(dto);
+        final long startTime = System.nanoTime();
+        try {
+            this.listener.execute(dto);
+        } finally {
+            drainMetric.update(1, System.nanoTime() - startTime);
+        }
     }
 
     public boolean isEmpty() {
         return queue.isEmpty();
     }
 
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return queue.capacity();
+    }
+
+    public long getDropCount() {
+        return drainMetric.getDropCount();
+    }
+
+    public DrainPolicy getDrainPolicy() {
+        return drainPolicy;
+    }
+
+    public DrainMetric getDrainMetric() {
+        return drainMetric;
+    }
+
     public boolean isRun() {
         return isRun.get();
     }
@@ -194,7 +281,7 @@ public class AsyncQueueingExecutor<T> implements Runnable {
             logger.warn("{} stopped incompletely.", executorName);
         }
 
-        logger.info("{} stopped.", executorName);
+        logger.info("{} stopped. {}", executorName, drainMetric);
     }
 
     Collection<T> getDrainQueue() {
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import java.util.Collection;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * default {@link AsyncQueue} backed by {@link LinkedBlockingQueue}
+ *
+ * @author agent
+ */
+public class BlockingAsyncQueue<T> implements AsyncQueue<T> {
+
+    private final LinkedBlockingQueue<T> queue;
+    private final int capacity;
+
+    public BlockingAsyncQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity");
+        }
+        this.queue = new LinkedBlockingQueue<T>(capacity);
+        this.capacity = capacity;
+    }
+
+    @Override
+    public boolean offer(T data) {
+        return queue.offer(data);
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> drain, int maxElements) {
+        return queue.drainTo(drain, maxElements);
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "BlockingAsyncQueue{capacity=" + capacity + '}';
+    }
+}
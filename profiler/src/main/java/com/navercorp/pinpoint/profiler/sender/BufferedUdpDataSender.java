@@ -24,6 +24,8 @@ import org.apache.thrift.TBase;
 import org.apache.thrift.TException;
 
 import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
+import com.navercorp.pinpoint.profiler.monitor.MonitorRegistry;
+import com.navercorp.pinpoint.profiler.monitor.codahale.MetricMonitorRegistry;
 import com.navercorp.pinpoint.thrift.io.ChunkHeaderBufferedTBaseSerializer;
 import com.navercorp.pinpoint.thrift.io.ChunkHeaderBufferedTBaseSerializerFactory;
 import com.navercorp.pinpoint.thrift.io.ChunkHeaderBufferedTBaseSerializerFlushHandler;
@@ -51,7 +53,11 @@ public class BufferedUdpDataSender extends UdpDataSender {
     }
 
     public BufferedUdpDataSender(String host, int port, String threadName, int queueSize, int timeout, int sendBufferSize, int chunkSize) {
-        super(host, port, threadName, queueSize, timeout, sendBufferSize);
+        this(host, port, threadName, queueSize, timeout, sendBufferSize, chunkSize, AsyncQueueFactory.DEFAULT_FACTORY, DrainPolicy.DEFAULT_POLICY, new MetricMonitorRegistry());
+    }
+
+    public BufferedUdpDataSender(String host, int port, String threadName, int queueSize, int timeout, int sendBufferSize, int chunkSize, AsyncQueueFactory queueFactory, DrainPolicy drainPolicy, MonitorRegistry monitorRegistry) {
+        super(host, port, threadName, queueSize, timeout, sendBufferSize, queueFactory, drainPolicy, monitorRegistry);
 
         chunkHeaderBufferedSerializer.setChunkSize(chunkSize);
         chunkHeaderBufferedSerializer.setFlushHandler(new ChunkHeaderBufferedTBaseSerializerFlushHandler() {
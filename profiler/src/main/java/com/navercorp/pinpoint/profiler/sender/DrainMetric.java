@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import java.util.concurrent.TimeUnit;
+
+import com.navercorp.pinpoint.profiler.monitor.CounterMonitor;
+import com.navercorp.pinpoint.profiler.monitor.HistogramMonitor;
+import com.navercorp.pinpoint.profiler.monitor.MonitorName;
+import com.navercorp.pinpoint.profiler.monitor.MonitorRegistry;
+
+/**
+ * per-batch size and latency histograms, queue depth and drop count of {@link AsyncQueueingExecutor}.
+ * registered under {@link #METRIC_NAME_PREFIX} in the agent's monitor registry.
+ * Caution. updated by the executor thread only, except the drop counter.
+ *
+ * @author agent
+ */
+public class DrainMetric {
+
+    public static final String METRIC_NAME_PREFIX = "sender.";
+
+    private final HistogramMonitor batchSizeHistogram;
+    private final HistogramMonitor batchLatencyHistogram;
+    private final HistogramMonitor queueDepthHistogram;
+    private final CounterMonitor dropCounter;
+
+    private volatile long batchCount;
+    private volatile long itemCount;
+    private volatile int maxBatchSize;
+
+    public DrainMetric(MonitorRegistry monitorRegistry, String executorName) {
+        if (monitorRegistry == null) {
+            throw new NullPointerException("monitorRegistry must not be null");
+        }
+        if (executorName == null) {
+            throw new NullPointerException("executorName must not be null");
+        }
+        final String prefix = METRIC_NAME_PREFIX + executorName;
+        this.batchSizeHistogram = monitorRegistry.newHistogramMonitor(new MonitorName(prefix + ".drain.size"));
+        this.batchLatencyHistogram = monitorRegistry.newHistogramMonitor(new MonitorName(prefix + ".drain.latency.us"));
+        this.queueDepthHistogram = monitorRegistry.newHistogramMonitor(new MonitorName(prefix + ".queue.depth"));
+        this.dropCounter = monitorRegistry.newCounterMonitor(new MonitorName(prefix + ".queue.drop"));
+    }
+
+    void updateQueueDepth(int queueSize) {
+        queueDepthHistogram.update(queueSize);
+    }
+
+    long drop() {
+        // called by the producer threads
+        dropCounter.incr();
+        return dropCounter.getCount();
+    }
+
+    void update(int batchSize, long elapsedNanos) {
+        batchSizeHistogram.update(batchSize);
+        batchLatencyHistogram.update(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+        // single writer
+        batchCount++;
+        itemCount += batchSize;
+        if (batchSize > maxBatchSize) {
+            maxBatchSize = batchSize;
+        }
+    }
+
+    public HistogramMonitor getBatchSizeHistogram() {
+        return batchSizeHistogram;
+    }
+
+    public HistogramMonitor getBatchLatencyHistogram() {
+        return batchLatencyHistogram;
+    }
+
+    public HistogramMonitor getQueueDepthHistogram() {
+        return queueDepthHistogram;
+    }
+
+    public long getDropCount() {
+        return dropCounter.getCount();
+    }
+
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    public long getItemCount() {
+        return itemCount;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    @Override
+    public String toString() {
+        final long batchCount = this.batchCount;
+        final long itemCount = this.itemCount;
+        return "DrainMetric{" +
+                "batchCount=" + batchCount +
+                ", itemCount=" + itemCount +
+                ", avgBatchSize=" + (batchCount == 0 ? 0 : itemCount / batchCount) +
+                ", maxBatchSize=" + maxBatchSize +
+                ", dropCount=" + dropCounter.getCount() +
+                '}';
+    }
+}
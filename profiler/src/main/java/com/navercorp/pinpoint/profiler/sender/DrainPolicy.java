@@ -0,0 +1,96 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides how many items {@link AsyncQueueingExecutor} drains at once.
+ * The batch grows with the queue depth up to maxDrainSize.
+ * When lingerTime is set, a batch smaller than minDrainSize waits up to lingerTime for more data so that small batches coalesce.
+ *
+ * @author agent
+ */
+public class DrainPolicy {
+
+    public static final int DEFAULT_DRAIN_SIZE = 10;
+
+    public static final DrainPolicy DEFAULT_POLICY = new DrainPolicy(DEFAULT_DRAIN_SIZE, DEFAULT_DRAIN_SIZE, 0);
+
+    private final int minDrainSize;
+    private final int maxDrainSize;
+    private final long lingerTimeNanos;
+
+    public DrainPolicy(int minDrainSize, int maxDrainSize, long lingerTimeMillis) {
+        if (minDrainSize <= 0) {
+            throw new IllegalArgumentException("minDrainSize");
+        }
+        if (maxDrainSize < minDrainSize) {
+            throw new IllegalArgumentException("maxDrainSize must be greater than or equal to minDrainSize");
+        }
+        if (lingerTimeMillis < 0) {
+            throw new IllegalArgumentException("lingerTimeMillis");
+        }
+        this.minDrainSize = minDrainSize;
+        this.maxDrainSize = maxDrainSize;
+        this.lingerTimeNanos = TimeUnit.MILLISECONDS.toNanos(lingerTimeMillis);
+    }
+
+    public static DrainPolicy adaptive(int maxDrainSize, long lingerTimeMillis) {
+        final int min = Math.min(DEFAULT_DRAIN_SIZE, Math.max(1, maxDrainSize));
+        final int max = Math.max(min, maxDrainSize);
+        if (min == DEFAULT_DRAIN_SIZE && max == DEFAULT_DRAIN_SIZE && lingerTimeMillis <= 0) {
+            return DEFAULT_POLICY;
+        }
+        return new DrainPolicy(min, max, Math.max(0, lingerTimeMillis));
+    }
+
+    public int nextDrainSize(int queueSize) {
+        if (queueSize <= minDrainSize) {
+            return minDrainSize;
+        }
+        if (queueSize >= maxDrainSize) {
+            return maxDrainSize;
+        }
+        return queueSize;
+    }
+
+    public boolean isLinger(int drainSize) {
+        return lingerTimeNanos > 0 && drainSize < minDrainSize;
+    }
+
+    public int getMinDrainSize() {
+        return minDrainSize;
+    }
+
+    public int getMaxDrainSize() {
+        return maxDrainSize;
+    }
+
+    public long getLingerTimeNanos() {
+        return lingerTimeNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "DrainPolicy{" +
+                "minDrainSize=" + minDrainSize +
+                ", maxDrainSize=" + maxDrainSize +
+                ", lingerTimeMillis=" + TimeUnit.NANOSECONDS.toMillis(lingerTimeNanos) +
+                '}';
+    }
+}
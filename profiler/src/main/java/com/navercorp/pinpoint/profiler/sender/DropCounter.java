@@ -14,15 +14,15 @@
  * limitations under the License.
  */
 
-package com.navercorp.pinpoint.collector.dao.hbase.statistics;
+package com.navercorp.pinpoint.profiler.sender;
 
 /**
+ * exposes the number of data discarded because the send queue was full.
+ *
  * @author emeroad
  */
-public interface RowInfo {
-
-    RowKey getRowKey();
+public interface DropCounter {
 
-    ColumnName getColumnName();
+    long getDropCount();
 
 }
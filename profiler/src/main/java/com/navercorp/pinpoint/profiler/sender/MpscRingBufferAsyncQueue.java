@@ -0,0 +1,206 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Preallocated, lock-free multi-producer/single-consumer ring buffer.
+ * Each slot carries a sequence number so that producers only contend on a single CAS
+ * and no node is allocated per offer().
+ * <p>
+ * Caution. poll() and drainTo() must be called by a single consumer thread.
+ *
+ * @author agent
+ */
+public class MpscRingBufferAsyncQueue<T> implements AsyncQueue<T> {
+
+    private final int capacity;
+    private final int mask;
+
+    private final AtomicReferenceArray<T> buffer;
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong producerIndex = new PaddedAtomicLong(0);
+    // written by the consumer thread only. volatile for size()
+    private volatile long consumerIndex = 0;
+
+    private final WaitStrategy waitStrategy;
+
+    public MpscRingBufferAsyncQueue(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity");
+        }
+        if (waitStrategy == null) {
+            throw new NullPointerException("waitStrategy must not be null");
+        }
+        this.capacity = roundToPowerOfTwo(capacity);
+        this.mask = this.capacity - 1;
+        this.buffer = new AtomicReferenceArray<T>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.waitStrategy = waitStrategy;
+    }
+
+    static int roundToPowerOfTwo(int value) {
+        if (value > (1 << 30)) {
+            throw new IllegalArgumentException("capacity too large. capacity:" + value);
+        }
+        int result = 1;
+        while (result < value) {
+            result <<= 1;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean offer(T data) {
+        if (data == null) {
+            throw new NullPointerException("data must not be null");
+        }
+        long index;
+        int offset;
+        while (true) {
+            index = producerIndex.get();
+            offset = (int) (index & mask);
+            final long sequence = sequences.get(offset);
+            final long diff = sequence - index;
+            if (diff == 0) {
+                if (producerIndex.compareAndSet(index, index + 1)) {
+                    break;
+                }
+            } else if (diff < 0) {
+                // the consumer has not released this slot yet. queue is full
+                return false;
+            }
+            // another producer claimed this slot. retry
+        }
+        buffer.lazySet(offset, data);
+        // publish
+        sequences.lazySet(offset, index + 1);
+        return true;
+    }
+
+    private T pollNow() {
+        final long index = this.consumerIndex;
+        final int offset = (int) (index & mask);
+        final long sequence = sequences.get(offset);
+        if (sequence != index + 1) {
+            // empty, or a producer has claimed the slot and not published yet.
+            return null;
+        }
+        final T data = buffer.get(offset);
+        buffer.lazySet(offset, null);
+        // release the slot for the next lap
+        sequences.lazySet(offset, index + capacity);
+        this.consumerIndex = index + 1;
+        return data;
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        T data = pollNow();
+        if (data != null) {
+            return data;
+        }
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int idleCount = 0;
+        while (true) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            data = pollNow();
+            if (data != null) {
+                return data;
+            }
+            if (deadline - System.nanoTime() <= 0) {
+                return null;
+            }
+            idleCount = waitStrategy.idle(idleCount);
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> drain, int maxElements) {
+        int count = 0;
+        while (count < maxElements) {
+            final T data = pollNow();
+            if (data == null) {
+                break;
+            }
+            drain.add(data);
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public int size() {
+        // read the consumer index first. the result may be stale but never negative.
+        final long consumer = this.consumerIndex;
+        final long producer = this.producerIndex.get();
+        final long size = producer - consumer;
+        if (size < 0) {
+            return 0;
+        }
+        if (size > capacity) {
+            return capacity;
+        }
+        return (int) size;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    @Override
+    public String toString() {
+        return "MpscRingBufferAsyncQueue{capacity=" + capacity + ", waitStrategy=" + waitStrategy + '}';
+    }
+
+    /**
+     * keeps the hot producer index on its own cache line.
+     */
+    @SuppressWarnings("unused")
+    private static class PaddedAtomicLong extends AtomicLong {
+        private volatile long p1, p2, p3, p4, p5, p6 = 7L;
+
+        PaddedAtomicLong(long initialValue) {
+            super(initialValue);
+        }
+
+        long sumPaddingToPreventOptimisation() {
+            return p1 + p2 + p3 + p4 + p5 + p6;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.apache.thrift.TBase;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.navercorp.pinpoint.profiler.monitor.MonitorRegistry;
+import com.navercorp.pinpoint.profiler.monitor.codahale.MetricMonitorRegistry;
+import com.navercorp.pinpoint.thrift.io.BufferOverflowException;
+import com.navercorp.pinpoint.thrift.io.ByteBufferOutputTransport;
+import com.navercorp.pinpoint.thrift.io.BytesUtils;
+import com.navercorp.pinpoint.thrift.io.DefaultTBaseLocator;
+import com.navercorp.pinpoint.thrift.io.Header;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializer;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializerFactory;
+import com.navercorp.pinpoint.thrift.io.NetworkAvailabilityCheckPacket;
+import com.navercorp.pinpoint.thrift.io.TBaseLocator;
+
+/**
+ * UDP sender built on {@link DatagramChannel}.
+ * Messages are serialized straight into a preallocated direct buffer owned by the sender thread,
+ * and every drained batch is packed into as few datagrams as possible (chunk header + messages, up to UDP_MAX_PACKET_LENGTH).
+ * The chunk header and the message buffer go out with a single gathering write, so there is no heap to native copy.
+ * <p>
+ * The span receivers of the collector(BaseUDPReceiver, NioUDPReceiver) unpack the chunked datagrams.
+ *
+ * @author agent
+ */
+public class NioUdpDataSender extends AbstractDataSender implements DataSender, DropCounter {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final boolean isDebug = logger.isDebugEnabled();
+
+    private static final TBaseLocator LOCATOR = new DefaultTBaseLocator();
+
+    private final DatagramChannel channel;
+
+    // Caution. not thread safe. used by the executor thread only
+    private final ByteBuffer chunkHeaderBuffer;
+    private final ByteBuffer messageBuffer;
+    private final ByteBuffer[] gatheringBuffers;
+    private final ByteBufferOutputTransport transport;
+    private final TProtocol protocol;
+    private int messageCount = 0;
+
+    private final AsyncQueueingExecutor<Object> executor;
+
+    public NioUdpDataSender(String host, int port, String threadName, int queueSize, int timeout, int sendBufferSize) {
+        this(host, port, threadName, queueSize, timeout, sendBufferSize, AsyncQueueFactory.DEFAULT_FACTORY, DrainPolicy.DEFAULT_POLICY, new MetricMonitorRegistry());
+    }
+
+    public NioUdpDataSender(String host, int port, String threadName, int queueSize, int timeout, int sendBufferSize, AsyncQueueFactory queueFactory, DrainPolicy drainPolicy, MonitorRegistry monitorRegistry) {
+        if (host == null ) {
+            throw new NullPointerException("host must not be null");
+        }
+        if (threadName == null) {
+            throw new NullPointerException("threadName must not be null");
+        }
+        if (queueSize <= 0) {
+            throw new IllegalArgumentException("queueSize");
+        }
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("timeout");
+        }
+        if (sendBufferSize <= 0) {
+            throw new IllegalArgumentException("sendBufferSize");
+        }
+        if (queueFactory == null) {
+            throw new NullPointerException("queueFactory must not be null");
+        }
+        if (drainPolicy == null) {
+            throw new NullPointerException("drainPolicy must not be null");
+        }
+        if (monitorRegistry == null) {
+            throw new NullPointerException("monitorRegistry must not be null");
+        }
+
+        logger.info("NioUdpDataSender initialized. host={}, port={}, queue={}, drain={}", host, port, queueFactory, drainPolicy);
+        this.channel = createChannel(host, port, timeout, sendBufferSize);
+
+        this.chunkHeaderBuffer = createChunkHeaderBuffer();
+        this.messageBuffer = ByteBuffer.allocateDirect(UdpDataSender.UDP_MAX_PACKET_LENGTH - Header.HEADER_SIZE);
+        this.gatheringBuffers = new ByteBuffer[] {chunkHeaderBuffer, messageBuffer};
+        this.transport = new ByteBufferOutputTransport(messageBuffer);
+        this.protocol = new TCompactProtocol.Factory().getProtocol(transport);
+
+        this.executor = createAsyncQueueingExecutor(queueSize, threadName, queueFactory, drainPolicy, monitorRegistry);
+    }
+
+    private ByteBuffer createChunkHeaderBuffer() {
+        final Header chunkHeader = LOCATOR.getChunkHeader();
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(Header.HEADER_SIZE);
+        putHeader(buffer, chunkHeader);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void putHeader(ByteBuffer buffer, Header header) {
+        buffer.put(header.getSignature());
+        buffer.put(header.getVersion());
+        // fixed size regardless protocol
+        final short type = header.getType();
+        buffer.put(BytesUtils.writeShort1(type));
+        buffer.put(BytesUtils.writeShort2(type));
+    }
+
+    private DatagramChannel createChannel(String host, int port, int timeout, int sendBufferSize) {
+        DatagramChannel datagramChannel = null;
+        try {
+            datagramChannel = DatagramChannel.open();
+            final DatagramSocket socket = datagramChannel.socket();
+            // only used by isNetworkAvailable()
+            socket.setSoTimeout(timeout);
+            socket.setSendBufferSize(sendBufferSize);
+            if (logger.isWarnEnabled()) {
+                final int checkSendBufferSize = socket.getSendBufferSize();
+                if (sendBufferSize != checkSendBufferSize) {
+                    logger.warn("DatagramChannel.setSendBufferSize() error. {}!={}", sendBufferSize, checkSendBufferSize);
+                }
+            }
+            datagramChannel.connect(new InetSocketAddress(host, port));
+            return datagramChannel;
+        } catch (IOException e) {
+            closeChannel(datagramChannel);
+            throw new IllegalStateException("DatagramChannel create fail. Cause" + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean send(TBase<?, ?> data) {
+        return executor.execute(data);
+    }
+
+    @Override
+    public void stop() {
+        executor.stop();
+        closeChannel(channel);
+    }
+
+    private void closeChannel(DatagramChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("DatagramChannel close fail. Caused:{}", e.getMessage(), e);
+        }
+    }
+
+    public int getQueueSize() {
+        return executor.getQueueSize();
+    }
+
+    @Override
+    public long getDropCount() {
+        return executor.getDropCount();
+    }
+
+    public DrainMetric getDrainMetric() {
+        return executor.getDrainMetric();
+    }
+
+    @Override
+    public boolean isNetworkAvailable() {
+        final NetworkAvailabilityCheckPacket dto = new NetworkAvailabilityCheckPacket();
+        final HeaderTBaseSerializer serializer = HeaderTBaseSerializerFactory.DEFAULT_FACTORY.createSerializer();
+        try {
+            final byte[] data = serialize(serializer, dto);
+            final int size = serializer.getInterBufferSize();
+            final DatagramSocket socket = channel.socket();
+            socket.send(new DatagramPacket(data, 0, size));
+
+            final byte[] receiveData = new byte[NetworkAvailabilityCheckPacket.DATA_OK.length];
+            final DatagramPacket receivePacket = new DatagramPacket(receiveData, receiveData.length);
+            socket.receive(receivePacket);
+
+            return Arrays.equals(NetworkAvailabilityCheckPacket.DATA_OK, receiveData);
+        } catch (IOException e) {
+            logger.warn("packet send error {}", dto, e);
+            return false;
+        }
+    }
+
+    @Override
+    protected void sendPacketN(Collection<Object> messageList) {
+        // Cannot use toArray(T[] array) because passed messageList doesn't implement it properly.
+        final Object[] dataList = messageList.toArray();
+        final int size = messageList.size();
+        for (int i = 0; i < size; i++) {
+            try {
+                append(dataList[i]);
+            } catch (Throwable th) {
+                logger.warn("Unexpected Error. Cause:{}", th.getMessage(), th);
+            }
+        }
+        flush();
+    }
+
+    @Override
+    protected void sendPacket(Object message) {
+        append(message);
+        flush();
+    }
+
+    private void append(Object message) {
+        if (!(message instanceof TBase)) {
+            logger.warn("sendPacket fail. invalid type:{}", message != null ? message.getClass() : null);
+            return;
+        }
+        final TBase<?, ?> dto = (TBase<?, ?>) message;
+        if (write(dto)) {
+            return;
+        }
+        if (messageCount == 0) {
+            // When packet size is greater than UDP packet size limit, it's better to discard packet than let the socket API fails.
+            logger.warn("discard packet. Caused:too large message. {}", dto);
+            return;
+        }
+        // datagram is full. send it and retry
+        flush();
+        if (!write(dto)) {
+            logger.warn("discard packet. Caused:too large message. {}", dto);
+        }
+    }
+
+    private boolean write(TBase<?, ?> dto) {
+        final int mark = messageBuffer.position();
+        try {
+            final Header header = LOCATOR.headerLookup(dto);
+            if (messageBuffer.remaining() < Header.HEADER_SIZE) {
+                return false;
+            }
+            putHeader(messageBuffer, header);
+            dto.write(protocol);
+            messageCount++;
+            return true;
+        } catch (BufferOverflowException e) {
+            rollback(mark);
+            return false;
+        } catch (TException e) {
+            rollback(mark);
+            logger.warn("serialize fail. {} Caused:{}", dto, e.getMessage(), e);
+            // not retryable
+            return true;
+        }
+    }
+
+    private void rollback(int mark) {
+        messageBuffer.position(mark);
+        protocol.reset();
+    }
+
+    private void flush() {
+        if (messageCount == 0) {
+            return;
+        }
+        final int messageSize = messageBuffer.position();
+        messageBuffer.flip();
+        chunkHeaderBuffer.rewind();
+        try {
+            // gathering write sends chunk header + messages as one datagram
+            channel.write(gatheringBuffers);
+            if (isDebug) {
+                logger.debug("Data sent. size:{}, count:{}", messageSize + Header.HEADER_SIZE, messageCount);
+            }
+        } catch (IOException e) {
+            logger.warn("packet send error. size:{}, count:{}", messageSize + Header.HEADER_SIZE, messageCount, e);
+        } finally {
+            messageBuffer.clear();
+            messageCount = 0;
+        }
+    }
+}
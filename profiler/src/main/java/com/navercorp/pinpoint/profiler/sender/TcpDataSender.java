@@ -30,6 +30,8 @@ import org.jboss.netty.util.TimerTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.navercorp.pinpoint.profiler.monitor.MonitorRegistry;
+import com.navercorp.pinpoint.profiler.monitor.codahale.MetricMonitorRegistry;
 import com.navercorp.pinpoint.rpc.Future;
 import com.navercorp.pinpoint.rpc.FutureListener;
 import com.navercorp.pinpoint.rpc.ResponseMessage;
@@ -70,10 +72,14 @@ public class TcpDataSender extends AbstractDataSender implements EnhancedDataSen
     private AsyncQueueingExecutor<Object> executor;
 
     public TcpDataSender(PinpointSocket socket) {
+        this(socket, AsyncQueueFactory.DEFAULT_FACTORY, new MetricMonitorRegistry());
+    }
+
+    public TcpDataSender(PinpointSocket socket, AsyncQueueFactory queueFactory, MonitorRegistry monitorRegistry) {
         this.socket = socket;
         this.timer = createTimer();
         writeFailFutureListener = new WriteFailFutureListener(logger, "io write fail.", "host", -1);
-        this.executor = createAsyncQueueingExecutor(1024 * 5, "Pinpoint-TcpDataExecutor");
+        this.executor = createAsyncQueueingExecutor(1024 * 5, "Pinpoint-TcpDataExecutor", queueFactory, monitorRegistry);
     }
     
     private Timer createTimer() {
@@ -114,6 +120,14 @@ public class TcpDataSender extends AbstractDataSender implements EnhancedDataSen
         return this.socket.removePinpointSocketReconnectEventListener(eventListener);
     }
 
+    public int getQueueSize() {
+        return executor.getQueueSize();
+    }
+
+    public long getDropCount() {
+        return executor.getDropCount();
+    }
+
     @Override
     public void stop() {
         executor.stop();
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import org.apache.thrift.TBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.navercorp.pinpoint.rpc.client.PinpointSocket;
+import com.navercorp.pinpoint.rpc.client.TraceSendWindow;
+import com.navercorp.pinpoint.profiler.monitor.MonitorRegistry;
+import com.navercorp.pinpoint.profiler.monitor.codahale.MetricMonitorRegistry;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializer;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializerFactory;
+
+/**
+ * sends spans over the tcp connection of the agent as TraceSendPackets acknowledged by the collector.
+ * unacked spans are written again after a reconnect, so a collector pause doesn't lose them.
+ * the collector acks a span when it queues it, before the hbase write. spans in its queue are still lost when it dies.
+ * the sender thread waits while the window of unacked spans is full and the send queue absorbs the burst.
+ *
+ * @author agent
+ */
+public class TcpSpanDataSender extends AbstractDataSender implements DataSender, DropCounter {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final PinpointSocket socket;
+    private final long windowTimeoutMillis;
+
+    // Caution. not thread safe. used by the executor thread only
+    private final HeaderTBaseSerializer serializer = HeaderTBaseSerializerFactory.DEFAULT_FACTORY.createSerializer();
+
+    private final AsyncQueueingExecutor<Object> executor;
+
+    public TcpSpanDataSender(PinpointSocket socket, String threadName, int queueSize, int windowTimeoutMillis) {
+        this(socket, threadName, queueSize, windowTimeoutMillis, AsyncQueueFactory.DEFAULT_FACTORY, DrainPolicy.DEFAULT_POLICY, new MetricMonitorRegistry());
+    }
+
+    public TcpSpanDataSender(PinpointSocket socket, String threadName, int queueSize, int windowTimeoutMillis, AsyncQueueFactory queueFactory, DrainPolicy drainPolicy, MonitorRegistry monitorRegistry) {
+        if (socket == null) {
+            throw new NullPointerException("socket must not be null");
+        }
+        if (threadName == null) {
+            throw new NullPointerException("threadName must not be null");
+        }
+        if (queueSize <= 0) {
+            throw new IllegalArgumentException("queueSize");
+        }
+        if (windowTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("windowTimeoutMillis");
+        }
+        if (queueFactory == null) {
+            throw new NullPointerException("queueFactory must not be null");
+        }
+        if (drainPolicy == null) {
+            throw new NullPointerException("drainPolicy must not be null");
+        }
+        if (monitorRegistry == null) {
+            throw new NullPointerException("monitorRegistry must not be null");
+        }
+
+        logger.info("TcpSpanDataSender initialized. window={}, queue={}, drain={}", socket.getTraceSendWindow().getWindowSize(), queueFactory, drainPolicy);
+        this.socket = socket;
+        this.windowTimeoutMillis = windowTimeoutMillis;
+        this.executor = createAsyncQueueingExecutor(queueSize, threadName, queueFactory, drainPolicy, monitorRegistry);
+    }
+
+    @Override
+    public boolean send(TBase<?, ?> data) {
+        return executor.execute(data);
+    }
+
+    @Override
+    protected void sendPacket(Object message) {
+        if (!(message instanceof TBase)) {
+            logger.warn("sendPacket fail. invalid type:{}", message != null ? message.getClass() : null);
+            return;
+        }
+        // the window keeps the bytes until they are acked, so they must be a copy.
+        final byte[] copy = serialize(serializer, (TBase) message);
+        if (copy == null) {
+            return;
+        }
+        final boolean sent = socket.sendTrace(copy, windowTimeoutMillis);
+        if (!sent) {
+            if (logger.isWarnEnabled()) {
+                final TraceSendWindow window = socket.getTraceSendWindow();
+                logger.warn("TraceSendWindow full. span dropped. unacked:{} dropped:{}", window.getUnackedCount(), window.getDropCount());
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        executor.stop();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueueSize();
+    }
+
+    @Override
+    public long getDropCount() {
+        return executor.getDropCount() + socket.getTraceSendWindow().getDropCount();
+    }
+
+    public DrainMetric getDrainMetric() {
+        return executor.getDrainMetric();
+    }
+
+    @Override
+    public boolean isNetworkAvailable() {
+        return socket.isConnected();
+    }
+}
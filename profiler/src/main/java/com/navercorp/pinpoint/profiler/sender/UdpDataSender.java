@@ -23,6 +23,8 @@ import java.net.InetSocketAddress;
 import java.net.SocketException;
 import java.util.Arrays;
 
+import com.navercorp.pinpoint.profiler.monitor.MonitorRegistry;
+import com.navercorp.pinpoint.profiler.monitor.codahale.MetricMonitorRegistry;
 import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializer;
 import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializerFactory;
 import com.navercorp.pinpoint.thrift.io.NetworkAvailabilityCheckPacket;
@@ -36,7 +38,7 @@ import org.slf4j.LoggerFactory;
  * @author emeroad
  * @author koo.taejin
  */
-public class UdpDataSender extends AbstractDataSender implements DataSender {
+public class UdpDataSender extends AbstractDataSender implements DataSender, DropCounter {
 
     protected final Logger logger = LoggerFactory.getLogger(this.getClass());
     protected final boolean isTrace = logger.isTraceEnabled();
@@ -61,6 +63,14 @@ public class UdpDataSender extends AbstractDataSender implements DataSender {
     }
 
     public UdpDataSender(String host, int port, String threadName, int queueSize, int timeout, int sendBufferSize) {
+        this(host, port, threadName, queueSize, timeout, sendBufferSize, AsyncQueueFactory.DEFAULT_FACTORY);
+    }
+
+    public UdpDataSender(String host, int port, String threadName, int queueSize, int timeout, int sendBufferSize, AsyncQueueFactory queueFactory) {
+        this(host, port, threadName, queueSize, timeout, sendBufferSize, queueFactory, DrainPolicy.DEFAULT_POLICY, new MetricMonitorRegistry());
+    }
+
+    public UdpDataSender(String host, int port, String threadName, int queueSize, int timeout, int sendBufferSize, AsyncQueueFactory queueFactory, DrainPolicy drainPolicy, MonitorRegistry monitorRegistry) {
         if (host == null ) {
             throw new NullPointerException("host must not be null");
         }
@@ -76,12 +86,21 @@ public class UdpDataSender extends AbstractDataSender implements DataSender {
         if (sendBufferSize <= 0) {
             throw new IllegalArgumentException("sendBufferSize");
         }
+        if (queueFactory == null) {
+            throw new NullPointerException("queueFactory must not be null");
+        }
+        if (drainPolicy == null) {
+            throw new NullPointerException("drainPolicy must not be null");
+        }
+        if (monitorRegistry == null) {
+            throw new NullPointerException("monitorRegistry must not be null");
+        }
 
         // TODO If fail to create socket, stop agent start
-        logger.info("UdpDataSender initialized. host={}, port={}", host, port);
+        logger.info("UdpDataSender initialized. host={}, port={}, queue={}, drain={}", host, port, queueFactory, drainPolicy);
         this.udpSocket = createSocket(host, port, timeout, sendBufferSize);
 
-        this.executor = createAsyncQueueingExecutor(queueSize, threadName);
+        this.executor = createAsyncQueueingExecutor(queueSize, threadName, queueFactory, drainPolicy, monitorRegistry);
     }
 
     @Override
@@ -94,6 +113,19 @@ public class UdpDataSender extends AbstractDataSender implements DataSender {
         executor.stop();
     }
 
+    public int getQueueSize() {
+        return executor.getQueueSize();
+    }
+
+    @Override
+    public long getDropCount() {
+        return executor.getDropCount();
+    }
+
+    public DrainMetric getDrainMetric() {
+        return executor.getDrainMetric();
+    }
+
     public boolean isNetworkAvailable() {
         NetworkAvailabilityCheckPacket dto = new NetworkAvailabilityCheckPacket();
         try {
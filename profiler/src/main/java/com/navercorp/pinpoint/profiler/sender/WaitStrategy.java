@@ -0,0 +1,92 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How the consumer thread of {@link MpscRingBufferAsyncQueue} waits for data.
+ * Producers never signal the consumer, so the consumer must poll.
+ *
+ * @author agent
+ */
+public enum WaitStrategy {
+
+    /**
+     * busy spin. lowest latency, burns one cpu core.
+     */
+    SPIN {
+        @Override
+        int idle(int idleCount) {
+            return idleCount + 1;
+        }
+    },
+
+    /**
+     * spin for a while and then yield.
+     */
+    YIELD {
+        @Override
+        int idle(int idleCount) {
+            if (idleCount < SPIN_TRIES) {
+                return idleCount + 1;
+            }
+            Thread.yield();
+            return idleCount;
+        }
+    },
+
+    /**
+     * spin, yield and then park. cheapest cpu usage.
+     */
+    PARK {
+        @Override
+        int idle(int idleCount) {
+            if (idleCount < SPIN_TRIES) {
+                return idleCount + 1;
+            }
+            if (idleCount < SPIN_TRIES + YIELD_TRIES) {
+                Thread.yield();
+                return idleCount + 1;
+            }
+            LockSupport.parkNanos(PARK_NANOS);
+            return idleCount;
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = 1000 * 1000;
+
+    /**
+     * @param idleCount number of idle() calls since the last data arrived.
+     * @return next idleCount
+     */
+    abstract int idle(int idleCount);
+
+    public static WaitStrategy getValue(String name, WaitStrategy defaultStrategy) {
+        if (name == null) {
+            return defaultStrategy;
+        }
+        for (WaitStrategy waitStrategy : values()) {
+            if (waitStrategy.name().equalsIgnoreCase(name.trim())) {
+                return waitStrategy;
+            }
+        }
+        return defaultStrategy;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * counter split into cache line padded cells so that request threads do not update a single shared cache line.
+ * a thread always updates the same cell, so the sequence seen by a single thread is exact.
+ * sum() is not an atomic snapshot.
+ *
+ * @author agent
+ */
+public final class StripedCounter {
+
+    // 16 longs = 128 bytes. also covers the adjacent cache line prefetch.
+    private static final int PADDING = 16;
+    private static final int SHIFT = 4;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    public StripedCounter() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    public StripedCounter(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes must be positive. stripes:" + stripes);
+        }
+        final int size = nextPowerOfTwo(stripes);
+        this.mask = size - 1;
+        this.cells = new AtomicLongArray(size << SHIFT);
+    }
+
+    static int nextPowerOfTwo(int value) {
+        final int highestOneBit = Integer.highestOneBit(value);
+        if (highestOneBit == value) {
+            return value;
+        }
+        return highestOneBit << 1;
+    }
+
+    private int cellIndex() {
+        final long threadId = Thread.currentThread().getId();
+        int hash = (int) (threadId ^ (threadId >>> 32));
+        // spread sequential thread ids
+        hash *= 0x9E3779B9;
+        hash ^= (hash >>> 16);
+        return (hash & mask) << SHIFT;
+    }
+
+    public long getAndIncrement() {
+        return cells.getAndIncrement(cellIndex());
+    }
+
+    public void increment() {
+        cells.incrementAndGet(cellIndex());
+    }
+
+    public void add(long delta) {
+        cells.addAndGet(cellIndex(), delta);
+    }
+
+    public long sum() {
+        long sum = 0;
+        final int length = cells.length();
+        for (int i = 0; i < length; i += PADDING) {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+
+    public void reset() {
+        final int length = cells.length();
+        for (int i = 0; i < length; i += PADDING) {
+            cells.set(i, 0);
+        }
+    }
+
+    public int getStripes() {
+        return mask + 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(sum());
+    }
+}
@@ -21,6 +21,7 @@ import org.apache.thrift.TBase;
 
 import com.navercorp.pinpoint.profiler.context.Span;
 import com.navercorp.pinpoint.profiler.context.SpanEvent;
+import com.navercorp.pinpoint.profiler.context.SpanEventRecord;
 import com.navercorp.pinpoint.profiler.context.storage.Storage;
 
 /**
@@ -39,10 +40,11 @@ public final class SimpleSpanStorage implements Storage {
     }
 
     @Override
-    public void store(SpanEvent spanEvent) {
-        if (spanEvent == null) {
-            throw new NullPointerException("spanEvent must not be null");
+    public void store(SpanEventRecord spanEventRecord) {
+        if (spanEventRecord == null) {
+            throw new NullPointerException("spanEventRecord must not be null");
         }
+        final SpanEvent spanEvent = spanEventRecord.toSpanEvent();
         this.dataSender.send(spanEvent);
     }
 
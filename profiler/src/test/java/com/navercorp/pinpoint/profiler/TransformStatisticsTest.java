@@ -0,0 +1,52 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * @author agent
+ */
+public class TransformStatisticsTest {
+
+    @Test
+    public void count() {
+        TransformStatistics statistics = new TransformStatistics();
+        statistics.skipped(1000000);
+        statistics.skipped(1000000);
+        statistics.modified("a/A", 3000000);
+
+        Assert.assertEquals(3, statistics.getClassCount());
+        Assert.assertEquals(5, statistics.getTotalTimeMillis());
+        Assert.assertEquals(1, statistics.getModifiedClassCount());
+        Assert.assertEquals(3, statistics.getModifiedTimeMillis());
+    }
+
+    @Test
+    public void slowClasses() {
+        TransformStatistics statistics = new TransformStatistics(2);
+        statistics.modified("a/A", 1000000);
+        statistics.modified("a/B", 3000000);
+        statistics.modified("a/C", 2000000);
+        statistics.modified("a/D", 500000);
+
+        Assert.assertEquals(Arrays.asList("a/B=3ms", "a/C=2ms"), statistics.getSlowClasses());
+    }
+}
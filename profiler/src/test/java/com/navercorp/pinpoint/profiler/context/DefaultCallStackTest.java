@@ -33,7 +33,7 @@ import com.navercorp.pinpoint.profiler.context.StackFrame;
 /**
  * @author emeroad
  */
-public class CallStackTest {
+public class DefaultCallStackTest {
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
@@ -56,7 +56,7 @@ public class CallStackTest {
     public void testPush() throws Exception {
         final Span span = createSpan();
 
-        CallStack callStack = new CallStack(span);
+        CallStack callStack = new DefaultCallStack(span);
         int initialIndex = callStack.getStackFrameIndex();
         Assert.assertEquals("initial index", initialIndex, -1);
 
@@ -72,7 +72,7 @@ public class CallStackTest {
     public void testLargePush() {
         final Span span = createSpan();
 
-        CallStack callStack = new CallStack(span);
+        CallStack callStack = new DefaultCallStack(span);
         int initialIndex = callStack.getStackFrameIndex();
         Assert.assertEquals("initial index", initialIndex, -1);
 
@@ -97,7 +97,7 @@ public class CallStackTest {
 
     @Test
     public void testPushPop1() {
-        CallStack callStack = new CallStack(new Span());
+        CallStack callStack = new DefaultCallStack(new Span());
 
         callStack.push();
         callStack.popRoot();
@@ -106,7 +106,7 @@ public class CallStackTest {
 
     @Test
     public void testPushPop2() {
-        CallStack callStack = new CallStack(new Span());
+        CallStack callStack = new DefaultCallStack(new Span());
 
         callStack.push();
         callStack.push();
@@ -118,7 +118,7 @@ public class CallStackTest {
 
     @Test
     public void testRootPop_fail() {
-        CallStack callStack = new CallStack(new Span());
+        CallStack callStack = new DefaultCallStack(new Span());
 
         callStack.push();
         callStack.push();
@@ -133,7 +133,7 @@ public class CallStackTest {
 
     @Test
     public void testPop_Fail() {
-        CallStack callStack = new CallStack(new Span());
+        CallStack callStack = new DefaultCallStack(new Span());
 
         callStack.push();
         callStack.push();
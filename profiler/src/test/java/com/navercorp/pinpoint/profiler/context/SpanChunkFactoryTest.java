@@ -21,7 +21,7 @@ import com.navercorp.pinpoint.common.Version;
 import com.navercorp.pinpoint.profiler.AgentInformation;
 import com.navercorp.pinpoint.profiler.context.Span;
 import com.navercorp.pinpoint.profiler.context.SpanChunkFactory;
-import com.navercorp.pinpoint.profiler.context.SpanEvent;
+import com.navercorp.pinpoint.profiler.context.SpanEventRecord;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -39,21 +39,21 @@ public class SpanChunkFactoryTest {
         SpanChunkFactory spanChunkFactory = new SpanChunkFactory(agentInformation);
 
         try {
-            spanChunkFactory.create(new ArrayList<SpanEvent>());
+            spanChunkFactory.create(new ArrayList<SpanEventRecord>());
             Assert.fail();
         } catch (Exception e) {
         }
         // one spanEvent
-        List<SpanEvent> spanEvents = new ArrayList<SpanEvent>();
-        spanEvents.add(new SpanEvent(new Span()));
+        List<SpanEventRecord> spanEvents = new ArrayList<SpanEventRecord>();
+        spanEvents.add(new SpanEventRecord(new Span()));
         spanChunkFactory.create(spanEvents);
 
         // two spanEvent
-        spanEvents.add(new SpanEvent(new Span()));
+        spanEvents.add(new SpanEventRecord(new Span()));
         spanChunkFactory.create(spanEvents);
 
         // three
-        spanEvents.add(new SpanEvent(new Span()));
+        spanEvents.add(new SpanEventRecord(new Span()));
         spanChunkFactory.create(spanEvents);
 
     }
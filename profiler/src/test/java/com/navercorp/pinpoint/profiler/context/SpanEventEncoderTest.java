@@ -0,0 +1,180 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.navercorp.pinpoint.profiler.context;
+
+import com.navercorp.pinpoint.common.AnnotationKey;
+import com.navercorp.pinpoint.thrift.dto.TIntStringStringValue;
+import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializer;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializerFactory;
+
+import org.apache.thrift.TException;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author agent
+ */
+public class SpanEventEncoderTest {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Test
+    public void encode() throws TException {
+        final Span span = createSpan();
+        final SpanEventEncoder encoder = new SpanEventEncoder(16);
+        for (int i = 0; i < 10; i++) {
+            encoder.encode(createSpanEventRecord(span, i));
+        }
+        Assert.assertEquals(10, encoder.getCount());
+        Assert.assertSame(span, encoder.getSpan());
+
+        final List<TSpanEvent> decoded = encoder.decode();
+        Assert.assertEquals(10, decoded.size());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(createSpanEventRecord(span, i).toSpanEvent(), decoded.get(i));
+        }
+    }
+
+    @Test
+    public void wireCompatible() throws TException {
+        final HeaderTBaseSerializer serializer = HeaderTBaseSerializerFactory.DEFAULT_FACTORY.createSerializer();
+
+        final Span objectSpan = createSpan();
+        final List<SpanEventRecord> recordList = new ArrayList<SpanEventRecord>();
+        for (int i = 0; i < 5; i++) {
+            recordList.add(createSpanEventRecord(objectSpan, i));
+        }
+        objectSpan.setSpanEventRecordList(recordList);
+        final byte[] expected = serializer.serialize(objectSpan);
+
+        final Span encodedSpan = createSpan();
+        final SpanEventEncoder encoder = new SpanEventEncoder();
+        for (int i = 0; i < 5; i++) {
+            encoder.encode(createSpanEventRecord(encodedSpan, i));
+        }
+        encodedSpan.setEncodedSpanEventList(encoder);
+        final byte[] actual = serializer.serialize(encodedSpan);
+
+        Assert.assertArrayEquals(expected, actual);
+        // still readable
+        Assert.assertEquals(5, encodedSpan.getSpanEventListSize());
+        Assert.assertArrayEquals(expected, serializer.serialize(encodedSpan));
+    }
+
+    @Test
+    public void recycle() throws TException {
+        final SpanEventRecordPool pool = new SpanEventRecordPool(4);
+        final Span span = createSpan();
+        final SpanEventEncoder encoder = new SpanEventEncoder();
+
+        final SpanEventRecord record = pool.acquire(span);
+        record.recordAnnotation(AnnotationKey.API.getCode(), "api");
+        encoder.encode(record);
+
+        Assert.assertSame(record, pool.acquire(span));
+    }
+
+    /**
+     * compares the encoder with the thrift object path. run manually.
+     */
+    @Ignore
+    @Test
+    public void compare() throws TException {
+        final HeaderTBaseSerializer serializer = new HeaderTBaseSerializerFactory(false, 1024 * 64).createSerializer();
+        final int eventCount = 100;
+        final int loop = 20000;
+
+        for (int warmup = 0; warmup < 3; warmup++) {
+            runObjectPath(serializer, eventCount, loop);
+            runEncoderPath(serializer, eventCount, loop);
+        }
+        final long objectTime = runObjectPath(serializer, eventCount, loop);
+        final long encoderTime = runEncoderPath(serializer, eventCount, loop);
+        logger.info("events:{} loop:{} object path:{}ms encoder path:{}ms", eventCount, loop, objectTime, encoderTime);
+    }
+
+    private long runObjectPath(HeaderTBaseSerializer serializer, int eventCount, int loop) throws TException {
+        final long start = System.currentTimeMillis();
+        for (int i = 0; i < loop; i++) {
+            final Span span = createSpan();
+            final List<SpanEventRecord> recordList = new ArrayList<SpanEventRecord>(eventCount);
+            for (int j = 0; j < eventCount; j++) {
+                recordList.add(createSpanEventRecord(span, j));
+            }
+            span.setSpanEventRecordList(recordList);
+            serializer.serialize(span);
+        }
+        return System.currentTimeMillis() - start;
+    }
+
+    private long runEncoderPath(HeaderTBaseSerializer serializer, int eventCount, int loop) throws TException {
+        final long start = System.currentTimeMillis();
+        for (int i = 0; i < loop; i++) {
+            final Span span = createSpan();
+            final SpanEventEncoder encoder = new SpanEventEncoder();
+            for (int j = 0; j < eventCount; j++) {
+                encoder.encode(createSpanEventRecord(span, j));
+            }
+            span.setEncodedSpanEventList(encoder);
+            serializer.serialize(span);
+        }
+        return System.currentTimeMillis() - start;
+    }
+
+    private Span createSpan() {
+        final Span span = new Span();
+        span.setAgentId("agentId");
+        span.setApplicationName("applicationName");
+        span.setTransactionId(new byte[] {1, 2, 3});
+        span.setStartTime(1000);
+        span.setSpanId(10);
+        span.setRpc("/test");
+        return span;
+    }
+
+    private SpanEventRecord createSpanEventRecord(Span span, int sequence) {
+        final SpanEventRecord record = new SpanEventRecord(span);
+        record.setSequence((short) sequence);
+        record.setDepth(sequence + 1);
+        record.setApiId(sequence);
+        record.setServiceType((short) 1000);
+        record.recordAnnotation(AnnotationKey.API.getCode(), "api");
+        record.recordAnnotation(AnnotationKey.ARGS0.getCode(), sequence);
+        record.recordAnnotation(AnnotationKey.ARGS1.getCode(), 10L);
+        final TIntStringStringValue sqlValue = new TIntStringStringValue(sequence);
+        sqlValue.setStringValue1("bind");
+        record.recordAnnotation(AnnotationKey.SQL_ID.getCode(), sqlValue);
+        if (sequence % 2 == 0) {
+            record.setDestinationId("destination");
+            record.setNextSpanId(sequence);
+            record.setExceptionInfo(sequence, "error");
+        } else {
+            record.setEndPoint("endPoint");
+            record.setRpc("rpc");
+            record.setAsyncId(sequence);
+            record.setNextAsyncId(sequence);
+            record.setExceptionInfo(sequence, null);
+        }
+        return record;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.navercorp.pinpoint.profiler.context;
+
+import com.navercorp.pinpoint.common.AnnotationKey;
+import com.navercorp.pinpoint.thrift.dto.TIntStringStringValue;
+import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author agent
+ */
+public class SpanEventRecordTest {
+
+    @Test
+    public void toSpanEvent_notSet() {
+        Span span = new Span();
+        SpanEventRecord record = new SpanEventRecord(span);
+        record.setSequence((short) 3);
+
+        SpanEvent spanEvent = record.toSpanEvent();
+        Assert.assertSame(span, spanEvent.getSpan());
+        Assert.assertEquals(3, spanEvent.getSequence());
+        Assert.assertFalse(spanEvent.isSetDepth());
+        Assert.assertFalse(spanEvent.isSetEndElapsed());
+        Assert.assertFalse(spanEvent.isSetNextSpanId());
+        Assert.assertFalse(spanEvent.isSetApiId());
+        Assert.assertFalse(spanEvent.isSetAnnotations());
+        Assert.assertFalse(spanEvent.isSetExceptionInfo());
+    }
+
+    @Test
+    public void toSpanEvent() {
+        Span span = new Span();
+        span.markBeforeTime();
+        SpanEventRecord record = new SpanEventRecord(span);
+        record.markBeforeTime();
+        record.setDepth(2);
+        record.setApiId(10);
+        record.setServiceType((short) 1000);
+        record.setNextSpanId(100L);
+        record.setDestinationId("dest");
+        record.setExceptionInfo(5, "error");
+
+        SpanEvent spanEvent = record.toSpanEvent();
+        Assert.assertEquals(2, spanEvent.getDepth());
+        Assert.assertEquals(10, spanEvent.getApiId());
+        Assert.assertEquals(1000, spanEvent.getServiceType());
+        Assert.assertEquals(100L, spanEvent.getNextSpanId());
+        Assert.assertEquals("dest", spanEvent.getDestinationId());
+        Assert.assertEquals(5, spanEvent.getExceptionInfo().getIntValue());
+        Assert.assertTrue(spanEvent.isSetStartElapsed());
+    }
+
+    @Test
+    public void annotation() {
+        SpanEventRecord record = new SpanEventRecord(new Span());
+        record.recordAnnotation(AnnotationKey.API.getCode(), "api");
+        record.recordAnnotation(AnnotationKey.ARGS0.getCode(), 1);
+        record.recordAnnotation(AnnotationKey.SQL_ID.getCode(), new TIntStringStringValue(7));
+        record.recordAnnotation(AnnotationKey.ARGS1.getCode(), new StringBuilder("toString"));
+
+        SpanEvent spanEvent = record.toSpanEvent();
+        Assert.assertEquals(4, spanEvent.getAnnotationsSize());
+        Assert.assertEquals("api", spanEvent.getAnnotations().get(0).getValue().getStringValue());
+        Assert.assertEquals(1, spanEvent.getAnnotations().get(1).getValue().getIntValue());
+        Assert.assertEquals(7, spanEvent.getAnnotations().get(2).getValue().getIntStringStringValue().getIntValue());
+        Assert.assertEquals("toString", spanEvent.getAnnotations().get(3).getValue().getStringValue());
+    }
+
+    @Test
+    public void pool() {
+        SpanEventRecordPool pool = new SpanEventRecordPool(2);
+        Span span = new Span();
+
+        SpanEventRecord first = pool.acquire(span);
+        first.setDepth(1);
+        first.recordAnnotation(AnnotationKey.API.getCode(), "api");
+        SpanEventRecord second = pool.acquire(span);
+        // over max size
+        SpanEventRecord third = pool.acquire(span);
+        Assert.assertEquals(2, pool.getCreatedCount());
+
+        first.toSpanEvent();
+        third.toSpanEvent();
+
+        SpanEventRecord reused = pool.acquire(span);
+        Assert.assertSame(first, reused);
+        SpanEvent spanEvent = reused.toSpanEvent();
+        Assert.assertFalse(spanEvent.isSetDepth());
+        Assert.assertFalse(spanEvent.isSetAnnotations());
+        Assert.assertEquals(2, pool.getCreatedCount());
+        second.toSpanEvent();
+    }
+
+    @Test
+    public void lazySpanEventList() {
+        Span span = new Span();
+        List<SpanEventRecord> recordList = new ArrayList<SpanEventRecord>();
+        recordList.add(new SpanEventRecord(span));
+        recordList.add(new SpanEventRecord(span));
+        span.setSpanEventRecordList(recordList);
+
+        Assert.assertTrue(span.isSetSpanEventList());
+        List<TSpanEvent> spanEventList = span.getSpanEventList();
+        Assert.assertEquals(2, spanEventList.size());
+        Assert.assertSame(spanEventList, span.getSpanEventList());
+    }
+}
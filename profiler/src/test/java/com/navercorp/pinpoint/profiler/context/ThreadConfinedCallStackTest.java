@@ -0,0 +1,181 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.context;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author agent
+ */
+public class ThreadConfinedCallStackTest {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private SpanEventStackFrame createSpanEventStackFrame(Span span) {
+        SpanEvent spanEvent = new SpanEvent(span);
+        return new SpanEventStackFrame(spanEvent);
+    }
+
+    @Test
+    public void testLargePush() {
+        final Span span = new Span();
+        CallStack callStack = new ThreadConfinedCallStack(span);
+        Assert.assertEquals("initial index", -1, callStack.getStackFrameIndex());
+
+        final int pushCount = AbstractCallStack.STACK_SIZE * 4 + 1;
+        for (int i = 0; i < pushCount; i++) {
+            int push = callStack.push();
+            Assert.assertEquals("push index", i, push);
+            callStack.setStackFrame(createSpanEventStackFrame(span));
+            Assert.assertEquals("index", i, callStack.getIndex());
+        }
+        for (int i = 0; i < pushCount - 1; i++) {
+            Assert.assertNotNull(callStack.pop());
+        }
+        callStack.popRoot();
+        Assert.assertEquals(-1, callStack.getStackFrameIndex());
+    }
+
+    @Test
+    public void testCopyStackFrame() {
+        final Span span = new Span();
+        CallStack callStack = new ThreadConfinedCallStack(span);
+        Assert.assertEquals(0, callStack.copyStackFrame().length);
+
+        callStack.push();
+        StackFrame root = createSpanEventStackFrame(span);
+        callStack.setStackFrame(root);
+        callStack.push();
+        StackFrame child = createSpanEventStackFrame(span);
+        callStack.setStackFrame(child);
+
+        StackFrame[] copy = callStack.copyStackFrame();
+        Assert.assertEquals(2, copy.length);
+        Assert.assertSame(root, copy[0]);
+        Assert.assertSame(child, copy[1]);
+        Assert.assertSame(root, callStack.getParentStackFrame());
+    }
+
+    @Test
+    public void testCopyStackFrame_concurrent() throws InterruptedException {
+        final Span span = new Span();
+        final CallStack callStack = new ThreadConfinedCallStack(span);
+        final int depth = AbstractCallStack.STACK_SIZE * 2;
+        final StackFrame[] frames = new StackFrame[depth];
+        for (int i = 0; i < depth; i++) {
+            frames[i] = createSpanEventStackFrame(span);
+        }
+
+        final AtomicBoolean stop = new AtomicBoolean();
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!stop.get()) {
+                    final StackFrame[] copy = callStack.copyStackFrame();
+                    // a snapshot is a prefix of the frames. a frame pushed but not yet set is null.
+                    for (int i = 0; i < copy.length; i++) {
+                        if (copy[i] != frames[i] && !(copy[i] == null && i == copy.length - 1)) {
+                            failure.compareAndSet(null, "index:" + i + " length:" + copy.length);
+                        }
+                    }
+                }
+            }
+        });
+        reader.start();
+        try {
+            for (int loop = 0; loop < 2000; loop++) {
+                for (int i = 0; i < depth; i++) {
+                    callStack.push();
+                    callStack.setStackFrame(frames[i]);
+                }
+                for (int i = 0; i < depth - 1; i++) {
+                    callStack.pop();
+                }
+                callStack.popRoot();
+            }
+        } finally {
+            stop.set(true);
+            reader.join();
+        }
+        Assert.assertNull(failure.get(), failure.get());
+    }
+
+    @Test
+    public void testRootPop_fail() {
+        CallStack callStack = new ThreadConfinedCallStack(new Span());
+        callStack.push();
+        callStack.push();
+        try {
+            callStack.popRoot();
+            Assert.fail("invalid popRoot");
+        } catch (Exception e) {
+        }
+    }
+
+    @Test
+    public void testPop_Fail() {
+        CallStack callStack = new ThreadConfinedCallStack(new Span());
+        callStack.push();
+        callStack.pop();
+        try {
+            callStack.pop();
+            Assert.fail("invalid pop");
+        } catch (Exception e) {
+        }
+    }
+
+    /**
+     * push/set/pop of the owner thread against the synchronized {@link DefaultCallStack}.
+     */
+    @Ignore
+    @Test
+    public void pushPopBenchmark() {
+        final Span span = new Span();
+        final StackFrame frame = createSpanEventStackFrame(span);
+        final int depth = 8;
+        final int loop = 1000000;
+        for (int warmUp = 0; warmUp < 3; warmUp++) {
+            final long threadConfinedTime = pushPop(new ThreadConfinedCallStack(span), frame, depth, loop);
+            final long defaultTime = pushPop(new DefaultCallStack(span), frame, depth, loop);
+            final long ops = (long) loop * depth * 3;
+            logger.info("threadConfined:{}ns/op default:{}ns/op", threadConfinedTime / ops, defaultTime / ops);
+        }
+    }
+
+    private long pushPop(CallStack callStack, StackFrame frame, int depth, int loop) {
+        final long start = System.nanoTime();
+        for (int i = 0; i < loop; i++) {
+            for (int j = 0; j < depth; j++) {
+                callStack.push();
+                callStack.setStackFrame(frame);
+            }
+            for (int j = 0; j < depth - 1; j++) {
+                callStack.pop();
+            }
+            callStack.popRoot();
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -21,7 +21,7 @@ import com.navercorp.pinpoint.common.Version;
 import com.navercorp.pinpoint.profiler.AgentInformation;
 import com.navercorp.pinpoint.profiler.context.Span;
 import com.navercorp.pinpoint.profiler.context.SpanChunkFactory;
-import com.navercorp.pinpoint.profiler.context.SpanEvent;
+import com.navercorp.pinpoint.profiler.context.SpanEventRecord;
 import com.navercorp.pinpoint.profiler.context.storage.BufferedStorage;
 import com.navercorp.pinpoint.profiler.sender.CountingDataSender;
 
@@ -46,9 +46,8 @@ public class BufferedStorageTest {
         BufferedStorage bufferedStorage = new BufferedStorage(countingDataSender, spanChunkFactory, 10);
 
         Span span = new Span();
-        SpanEvent spanEvent = new SpanEvent(span);
-        bufferedStorage.store(spanEvent);
-        bufferedStorage.store(spanEvent);
+        bufferedStorage.store(new SpanEventRecord(span));
+        bufferedStorage.store(new SpanEventRecord(span));
 
         Assert.assertEquals(0, countingDataSender.getTotalCount());
     }
@@ -58,9 +57,8 @@ public class BufferedStorageTest {
         BufferedStorage bufferedStorage = new BufferedStorage(countingDataSender, spanChunkFactory, 1);
 
         Span span = new Span();
-        SpanEvent spanEvent = new SpanEvent(span);
-        bufferedStorage.store(spanEvent);
-        bufferedStorage.store(spanEvent);
+        bufferedStorage.store(new SpanEventRecord(span));
+        bufferedStorage.store(new SpanEventRecord(span));
 
         Assert.assertEquals(0, countingDataSender.getSenderCounter(), 2);
         Assert.assertEquals(0, countingDataSender.getTotalCount(), 2);
@@ -91,9 +89,8 @@ public class BufferedStorageTest {
         BufferedStorage bufferedStorage = new BufferedStorage(countingDataSender, spanChunkFactory, 10);
 
         Span span = new Span();
-        SpanEvent spanEvent = new SpanEvent(span);
-        bufferedStorage.store(spanEvent);
-        bufferedStorage.store(spanEvent);
+        bufferedStorage.store(new SpanEventRecord(span));
+        bufferedStorage.store(new SpanEventRecord(span));
         bufferedStorage.store(span);
 
         Assert.assertEquals(0, countingDataSender.getSenderCounter(), 1);
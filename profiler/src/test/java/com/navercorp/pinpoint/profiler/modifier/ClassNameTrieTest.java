@@ -0,0 +1,174 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.modifier;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * @author agent
+ */
+public class ClassNameTrieTest {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private static final String[] TARGETS = {
+            "*",
+            "org/apache/catalina/core/StandardHostValve",
+            "org/apache/catalina/core/StandardService",
+            "org/apache/catalina/connector/Connector",
+            "org/apache/catalina/connector/RequestFacade",
+            "org/apache/http/impl/client/AbstractHttpClient",
+            "org/apache/http/impl/client/CloseableHttpClient",
+            "org/apache/commons/httpclient/HttpClient",
+            "org/apache/commons/dbcp/BasicDataSource",
+            "com/mysql/jdbc/ConnectionImpl",
+            "com/mysql/jdbc/PreparedStatement",
+            "com/mysql/jdbc/StatementImpl",
+            "oracle/jdbc/driver/PhysicalConnection",
+            "net/sourceforge/jtds/jdbc/JtdsStatement",
+            "org/springframework/beans/factory/support/AbstractAutowireCapableBeanFactory",
+            "ch/qos/logback/classic/spi/LoggingEvent",
+            "org/apache/log4j/spi/LoggingEvent"
+    };
+
+    @Test
+    public void get() {
+        ClassNameTrie<String> trie = newTrie();
+        Assert.assertEquals(TARGETS.length, trie.size());
+        for (String target : TARGETS) {
+            Assert.assertEquals(target, trie.get(target));
+        }
+
+        Assert.assertNull(trie.get(null));
+        Assert.assertNull(trie.get(""));
+        Assert.assertNull(trie.get("java/lang/String"));
+        // prefix of a target
+        Assert.assertNull(trie.get("org/apache/catalina/core/"));
+        Assert.assertNull(trie.get("com/mysql/jdbc/Connection"));
+        // target is a prefix
+        Assert.assertNull(trie.get("com/mysql/jdbc/ConnectionImpl$1"));
+        Assert.assertNull(trie.get("**"));
+    }
+
+    @Test
+    public void put() {
+        ClassNameTrie<String> trie = new ClassNameTrie<String>();
+        Assert.assertNull(trie.put("a/b/C", "1"));
+        Assert.assertNull(trie.put("a/b/D", "2"));
+        Assert.assertNull(trie.put("a/b", "3"));
+        Assert.assertEquals("1", trie.put("a/b/C", "4"));
+        Assert.assertEquals(3, trie.size());
+
+        Assert.assertEquals("4", trie.get("a/b/C"));
+        Assert.assertEquals("2", trie.get("a/b/D"));
+        Assert.assertEquals("3", trie.get("a/b"));
+        Assert.assertNull(trie.get("a/b/"));
+    }
+
+    private ClassNameTrie<String> newTrie() {
+        ClassNameTrie<String> trie = new ClassNameTrie<String>();
+        for (String target : TARGETS) {
+            trie.put(target, target);
+        }
+        return trie;
+    }
+
+    /**
+     * startup benchmark. looks up the class names of the jars in the classpath the way the agent sees the loaded classes.
+     */
+    @Ignore
+    @Test
+    public void lookupBenchmark() throws IOException {
+        final List<String> classNames = loadClassNames();
+        logger.info("class size:{}", classNames.size());
+        if (classNames.isEmpty()) {
+            return;
+        }
+
+        final ClassNameTrie<String> trie = newTrie();
+        final Map<String, String> map = new HashMap<String, String>(512);
+        for (String target : TARGETS) {
+            map.put(target, target);
+        }
+
+        final int loop = 20;
+        for (int warmUp = 0; warmUp < 3; warmUp++) {
+            long trieMatch = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < loop; i++) {
+                for (String className : classNames) {
+                    if (trie.get(className) != null) {
+                        trieMatch++;
+                    }
+                }
+            }
+            final long trieTime = System.nanoTime() - start;
+
+            long mapMatch = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < loop; i++) {
+                for (String className : classNames) {
+                    // names of the loaded classes are new strings, their hash is not cached
+                    if (map.get(new String(className)) != null) {
+                        mapMatch++;
+                    }
+                }
+            }
+            final long mapTime = System.nanoTime() - start;
+            Assert.assertEquals(mapMatch, trieMatch);
+
+            logger.info("trie:{}ns/class hashMap:{}ns/class", trieTime / (loop * classNames.size()), mapTime / (loop * classNames.size()));
+        }
+    }
+
+    private List<String> loadClassNames() throws IOException {
+        final List<String> classNames = new ArrayList<String>();
+        final String classPath = System.getProperty("java.class.path");
+        for (String path : classPath.split(File.pathSeparator)) {
+            if (!path.endsWith(".jar")) {
+                continue;
+            }
+            final JarFile jarFile = new JarFile(path);
+            try {
+                final Enumeration<JarEntry> entries = jarFile.entries();
+                while (entries.hasMoreElements()) {
+                    final String name = entries.nextElement().getName();
+                    if (name.endsWith(".class")) {
+                        classNames.add(name.substring(0, name.length() - ".class".length()));
+                    }
+                }
+            } finally {
+                jarFile.close();
+            }
+        }
+        return classNames;
+    }
+}
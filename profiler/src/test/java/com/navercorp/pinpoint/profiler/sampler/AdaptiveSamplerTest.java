@@ -0,0 +1,92 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sampler;
+
+import com.navercorp.pinpoint.profiler.sender.DropCounter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class AdaptiveSamplerTest {
+
+    private static class TestDropCounter implements DropCounter {
+        private long dropCount;
+
+        @Override
+        public long getDropCount() {
+            return dropCount;
+        }
+    }
+
+    @Test
+    public void decreaseAndRecover() {
+        final TestDropCounter dropCounter = new TestDropCounter();
+        final long checkInterval = 1000;
+        AdaptiveSampler sampler = new AdaptiveSampler(new TrueSampler(), dropCounter, checkInterval);
+
+        long time = 0;
+        Assert.assertTrue(sampler.isSampling(time));
+        Assert.assertEquals(0, sampler.getLevel());
+
+        dropCounter.dropCount = 10;
+        time += checkInterval;
+        sampler.isSampling(time);
+        Assert.assertEquals(1, sampler.getLevel());
+
+        // level 1 : 1 out of 2
+        int sampled = 0;
+        for (int i = 0; i < 100; i++) {
+            if (sampler.isSampling(time)) {
+                sampled++;
+            }
+        }
+        Assert.assertEquals(50, sampled);
+
+        for (int i = 0; i < AdaptiveSampler.RECOVER_CHECK_COUNT; i++) {
+            time += checkInterval;
+            sampler.isSampling(time);
+        }
+        Assert.assertEquals(0, sampler.getLevel());
+    }
+
+    @Test
+    public void maxLevel() {
+        final TestDropCounter dropCounter = new TestDropCounter();
+        final long checkInterval = 1000;
+        AdaptiveSampler sampler = new AdaptiveSampler(new TrueSampler(), dropCounter, checkInterval);
+
+        long time = 0;
+        for (int i = 0; i < AdaptiveSampler.MAX_LEVEL * 2; i++) {
+            dropCounter.dropCount++;
+            time += checkInterval;
+            sampler.isSampling(time);
+        }
+        Assert.assertEquals(AdaptiveSampler.MAX_LEVEL, sampler.getLevel());
+    }
+
+    @Test
+    public void entryPoint() {
+        final TestDropCounter dropCounter = new TestDropCounter();
+        AdaptiveSampler sampler = new AdaptiveSampler(new EntryPointBudgetSampler(new FalseSampler(), 1, 10), dropCounter, 1000);
+        Assert.assertFalse(sampler.isSampling());
+        Assert.assertTrue(sampler.isSampling("/rare"));
+        Assert.assertFalse(sampler.isSampling("/rare"));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sampler;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class EntryPointBudgetSamplerTest {
+
+    @Test
+    public void budget() {
+        EntryPointBudgetSampler sampler = new EntryPointBudgetSampler(new FalseSampler(), 2, 10);
+        final long time = 5000;
+        Assert.assertTrue(sampler.isSampling("/rare", time));
+        Assert.assertTrue(sampler.isSampling("/rare", time));
+        Assert.assertFalse(sampler.isSampling("/rare", time));
+        Assert.assertTrue(sampler.isSampling("/other", time));
+
+        Assert.assertTrue(sampler.isSampling("/rare", time + 1000));
+
+        Assert.assertFalse(sampler.isSampling(null, time));
+        Assert.assertFalse(sampler.isSampling());
+    }
+
+    @Test
+    public void maxEntryPointSize() {
+        EntryPointBudgetSampler sampler = new EntryPointBudgetSampler(new FalseSampler(), 1, 2);
+        final long time = 5000;
+        Assert.assertTrue(sampler.isSampling("/a", time));
+        Assert.assertTrue(sampler.isSampling("/b", time));
+        Assert.assertFalse(sampler.isSampling("/c", time));
+        Assert.assertEquals(2, sampler.getEntryPointSize());
+    }
+
+    @Test
+    public void delegate() {
+        EntryPointBudgetSampler sampler = new EntryPointBudgetSampler(new TrueSampler(), 1, 2);
+        Assert.assertTrue(sampler.isSampling("/a", 0));
+        Assert.assertTrue(sampler.isSampling("/a", 0));
+        Assert.assertEquals(0, sampler.getEntryPointSize());
+    }
+
+    @Test
+    public void normalize() {
+        Assert.assertEquals("/user/*/order/*", EntryPointBudgetSampler.normalize("/user/1234/order/5678"));
+        Assert.assertEquals("/user/*", EntryPointBudgetSampler.normalize("/user/1234?name=pinpoint"));
+        Assert.assertEquals("/item/*", EntryPointBudgetSampler.normalize("/item/3f2504e0-4f89-11d3-9a0c-0305e82c3301"));
+        Assert.assertEquals("/doc/*/view", EntryPointBudgetSampler.normalize("/doc/a1b2c3/view;jsessionid=1"));
+        Assert.assertEquals("/v1/users", EntryPointBudgetSampler.normalize("/v1/users"));
+        Assert.assertEquals("/index.html", EntryPointBudgetSampler.normalize("/index.html?a=1"));
+        Assert.assertEquals("/", EntryPointBudgetSampler.normalize("/"));
+        Assert.assertEquals("", EntryPointBudgetSampler.normalize(""));
+    }
+
+    @Test
+    public void normalizedBudget() {
+        EntryPointBudgetSampler sampler = new EntryPointBudgetSampler(new FalseSampler(), 1, 10);
+        final long time = 5000;
+        Assert.assertTrue(sampler.isSampling("/user/1", time));
+        Assert.assertFalse(sampler.isSampling("/user/2", time));
+        Assert.assertFalse(sampler.isSampling("/user/1?page=2", time));
+        Assert.assertEquals(1, sampler.getEntryPointSize());
+    }
+
+    @Test
+    public void resetWhenFull() {
+        EntryPointBudgetSampler sampler = new EntryPointBudgetSampler(new FalseSampler(), 1, 2);
+        final long time = 5000;
+        Assert.assertTrue(sampler.isSampling("/a", time));
+        Assert.assertTrue(sampler.isSampling("/b", time));
+        Assert.assertFalse(sampler.isSampling("/c", time));
+
+        // full table is cleared once per reset interval
+        final long resetTime = time + EntryPointBudgetSampler.RESET_INTERVAL;
+        Assert.assertTrue(sampler.isSampling("/c", resetTime));
+        Assert.assertEquals(1, sampler.getEntryPointSize());
+        Assert.assertTrue(sampler.isSampling("/d", resetTime));
+        Assert.assertFalse(sampler.isSampling("/e", resetTime + 1));
+    }
+}
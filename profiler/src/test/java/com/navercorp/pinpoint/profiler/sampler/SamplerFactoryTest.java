@@ -16,6 +16,7 @@
 
 package com.navercorp.pinpoint.profiler.sampler;
 
+import com.navercorp.pinpoint.bootstrap.config.ProfilerConfig;
 import com.navercorp.pinpoint.bootstrap.sampler.Sampler;
 import com.navercorp.pinpoint.profiler.sampler.SamplerFactory;
 
@@ -23,6 +24,8 @@ import org.junit.Assert;
 
 import org.junit.Test;
 
+import java.util.Properties;
+
 /**
  * @author emeroad
  */
@@ -42,4 +45,27 @@ public class SamplerFactoryTest {
         boolean sampling = sampler.isSampling();
         Assert.assertFalse(sampling);
     }
+
+    @Test
+    public void entryPointBudgetIsRateLimited() {
+        Properties properties = new Properties();
+        properties.setProperty("profiler.sampling.rate", "1000");
+        properties.setProperty("profiler.sampling.rate.limit", "2");
+        properties.setProperty("profiler.sampling.entrypoint.budget", "100");
+        ProfilerConfig profilerConfig = new ProfilerConfig(properties);
+
+        SamplerFactory samplerFactory = new SamplerFactory();
+        Sampler sampler = samplerFactory.createSampler(profilerConfig, null);
+        Assert.assertTrue(sampler instanceof TokenBucketSampler);
+
+        EntryPointSampler entryPointSampler = (EntryPointSampler) sampler;
+        int sampled = 0;
+        for (int i = 0; i < 50; i++) {
+            if (entryPointSampler.isSampling("/rare")) {
+                sampled++;
+            }
+        }
+        // the budget allows 100 per second. the bucket may be refilled once while looping.
+        Assert.assertTrue("sampled:" + sampled, sampled >= 2 && sampled <= 4);
+    }
 }
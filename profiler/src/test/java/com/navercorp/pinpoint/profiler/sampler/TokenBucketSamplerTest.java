@@ -0,0 +1,56 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sampler;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class TokenBucketSamplerTest {
+
+    @Test
+    public void limit() {
+        TokenBucketSampler sampler = new TokenBucketSampler(new TrueSampler(), 3);
+        final long startTime = 10000;
+        Assert.assertTrue(sampler.tryAcquire(startTime));
+        Assert.assertTrue(sampler.tryAcquire(startTime + 1));
+        Assert.assertTrue(sampler.tryAcquire(startTime + 2));
+        Assert.assertFalse(sampler.tryAcquire(startTime + 3));
+        Assert.assertFalse(sampler.tryAcquire(startTime + 999));
+
+        // refill
+        Assert.assertTrue(sampler.tryAcquire(startTime + 1000));
+    }
+
+    @Test
+    public void delegate() {
+        TokenBucketSampler sampler = new TokenBucketSampler(new FalseSampler(), 100);
+        Assert.assertFalse(sampler.isSampling());
+    }
+
+    @Test
+    public void entryPoint() {
+        TokenBucketSampler sampler = new TokenBucketSampler(new EntryPointBudgetSampler(new FalseSampler(), 10, 10), 2);
+        Assert.assertFalse(sampler.isSampling());
+        // budget traces are capped by the rate limit
+        Assert.assertTrue(sampler.isSampling("/rare"));
+        Assert.assertTrue(sampler.isSampling("/rare"));
+        Assert.assertFalse(sampler.isSampling("/rare"));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.navercorp.pinpoint.profiler.monitor.codahale.MetricMonitorRegistry;
+
+/**
+ * @author agent
+ */
+public class DrainPolicyTest {
+
+    @Test
+    public void defaultPolicy() {
+        DrainPolicy policy = DrainPolicy.adaptive(10, 0);
+        Assert.assertSame(DrainPolicy.DEFAULT_POLICY, policy);
+        Assert.assertEquals(10, policy.nextDrainSize(0));
+        Assert.assertEquals(10, policy.nextDrainSize(1000));
+        Assert.assertFalse(policy.isLinger(1));
+    }
+
+    @Test
+    public void growWithQueueDepth() {
+        DrainPolicy policy = DrainPolicy.adaptive(100, 0);
+        Assert.assertEquals(10, policy.nextDrainSize(3));
+        Assert.assertEquals(50, policy.nextDrainSize(50));
+        Assert.assertEquals(100, policy.nextDrainSize(5000));
+    }
+
+    @Test
+    public void linger() {
+        DrainPolicy policy = DrainPolicy.adaptive(100, 5);
+        Assert.assertTrue(policy.isLinger(1));
+        Assert.assertFalse(policy.isLinger(10));
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(5), policy.getLingerTimeNanos());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidDrainSize() {
+        new DrainPolicy(10, 5, 0);
+    }
+
+    @Test
+    public void lingerCoalesce() throws InterruptedException {
+        final int dataCount = 10;
+        final CountDownLatch latch = new CountDownLatch(dataCount);
+        final AtomicInteger batchCount = new AtomicInteger();
+
+        DrainPolicy policy = DrainPolicy.adaptive(100, 1000);
+        AsyncQueueingExecutor<Object> executor = new AsyncQueueingExecutor<Object>(new BlockingAsyncQueue<Object>(128), "test", policy, new MetricMonitorRegistry());
+        executor.setListener(new AsyncQueueingExecutorListener<Object>() {
+            @Override
+            public void execute(Collection<Object> dataList) {
+                batchCount.incrementAndGet();
+                for (int i = 0; i < dataList.size(); i++) {
+                    latch.countDown();
+                }
+            }
+
+            @Override
+            public void execute(Object data) {
+                batchCount.incrementAndGet();
+                latch.countDown();
+            }
+        });
+        try {
+            for (int i = 0; i < dataCount; i++) {
+                executor.execute(new Object());
+            }
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            // the first item waits for the others.
+            Assert.assertTrue("batchCount:" + batchCount.get(), batchCount.get() < dataCount);
+            Assert.assertEquals(dataCount, executor.getDrainMetric().getItemCount());
+        } finally {
+            executor.stop();
+        }
+    }
+
+    @Test
+    public void metricRegistry() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final MetricMonitorRegistry monitorRegistry = new MetricMonitorRegistry();
+        AsyncQueueingExecutor<Object> executor = new AsyncQueueingExecutor<Object>(new BlockingAsyncQueue<Object>(128), "test", DrainPolicy.DEFAULT_POLICY, monitorRegistry);
+        executor.setListener(new AsyncQueueingExecutorListener<Object>() {
+            @Override
+            public void execute(Collection<Object> dataList) {
+                latch.countDown();
+            }
+
+            @Override
+            public void execute(Object data) {
+                latch.countDown();
+            }
+        });
+        try {
+            executor.execute(new Object());
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            executor.stop();
+        }
+        // registered to the given registry so that the agent can report them
+        Assert.assertEquals(1, monitorRegistry.getRegistry().histogram("sender.test.drain.size").getCount());
+        Assert.assertTrue(monitorRegistry.getRegistry().getNames().contains("sender.test.queue.depth"));
+        Assert.assertTrue(monitorRegistry.getRegistry().getNames().contains("sender.test.queue.drop"));
+    }
+}
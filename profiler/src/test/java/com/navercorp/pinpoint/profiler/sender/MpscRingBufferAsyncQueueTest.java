@@ -0,0 +1,154 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.navercorp.pinpoint.profiler.monitor.codahale.MetricMonitorRegistry;
+
+/**
+ * @author agent
+ */
+public class MpscRingBufferAsyncQueueTest {
+
+    @Test
+    public void roundCapacity() {
+        Assert.assertEquals(1, MpscRingBufferAsyncQueue.roundToPowerOfTwo(1));
+        Assert.assertEquals(8, MpscRingBufferAsyncQueue.roundToPowerOfTwo(5));
+        Assert.assertEquals(8192, MpscRingBufferAsyncQueue.roundToPowerOfTwo(1024 * 5));
+    }
+
+    @Test
+    public void offerAndDrain() {
+        AsyncQueue<Integer> queue = new MpscRingBufferAsyncQueue<Integer>(4, WaitStrategy.PARK);
+        Assert.assertTrue(queue.isEmpty());
+
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(queue.offer(i));
+        }
+        // full
+        Assert.assertFalse(queue.offer(4));
+        Assert.assertEquals(4, queue.size());
+
+        List<Integer> drain = new ArrayList<Integer>();
+        Assert.assertEquals(3, queue.drainTo(drain, 3));
+        Assert.assertEquals(1, queue.size());
+        // wrap around
+        Assert.assertTrue(queue.offer(5));
+        Assert.assertEquals(2, queue.drainTo(drain, 10));
+
+        Assert.assertEquals(5, drain.size());
+        Assert.assertEquals(Integer.valueOf(0), drain.get(0));
+        Assert.assertEquals(Integer.valueOf(3), drain.get(3));
+        Assert.assertEquals(Integer.valueOf(5), drain.get(4));
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void pollTimeout() throws InterruptedException {
+        AsyncQueue<Integer> queue = new MpscRingBufferAsyncQueue<Integer>(4, WaitStrategy.YIELD);
+        Assert.assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+
+        queue.offer(1);
+        Assert.assertEquals(Integer.valueOf(1), queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void multiProducer() throws InterruptedException {
+        final int producerCount = 4;
+        final int countPerProducer = 10000;
+        final AsyncQueue<Integer> queue = new MpscRingBufferAsyncQueue<Integer>(128, WaitStrategy.PARK);
+        final CountDownLatch start = new CountDownLatch(1);
+
+        for (int i = 0; i < producerCount; i++) {
+            Thread producer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < countPerProducer; j++) {
+                        while (!queue.offer(j)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            });
+            producer.setDaemon(true);
+            producer.start();
+        }
+        start.countDown();
+
+        long sum = 0;
+        int received = 0;
+        while (received < producerCount * countPerProducer) {
+            Integer value = queue.poll(5, TimeUnit.SECONDS);
+            Assert.assertNotNull("timeout", value);
+            sum += value;
+            received++;
+        }
+        long expected = (long) producerCount * ((long) countPerProducer * (countPerProducer - 1) / 2);
+        Assert.assertEquals(expected, sum);
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void executorDropCount() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        AsyncQueue<Object> queue = new MpscRingBufferAsyncQueue<Object>(2, WaitStrategy.PARK);
+        AsyncQueueingExecutor<Object> executor = new AsyncQueueingExecutor<Object>(queue, "test", new MetricMonitorRegistry());
+        executor.setListener(new AsyncQueueingExecutorListener<Object>() {
+            @Override
+            public void execute(Collection<Object> dataList) {
+                await();
+            }
+
+            @Override
+            public void execute(Object data) {
+                await();
+            }
+
+            private void await() {
+                try {
+                    latch.await();
+                } catch (InterruptedException ignore) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        try {
+            // the executor thread blocks on the first item
+            for (int i = 0; i < 10; i++) {
+                executor.execute(new Object());
+            }
+            Assert.assertTrue(executor.getDropCount() > 0);
+            Assert.assertTrue(executor.getQueueSize() <= executor.getQueueCapacity());
+        } finally {
+            latch.countDown();
+            executor.stop();
+        }
+    }
+}
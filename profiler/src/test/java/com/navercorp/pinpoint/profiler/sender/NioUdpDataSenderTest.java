@@ -0,0 +1,141 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import org.apache.thrift.TBase;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.navercorp.pinpoint.thrift.dto.TAgentInfo;
+import com.navercorp.pinpoint.thrift.io.ChunkHeaderTBaseDeserializer;
+import com.navercorp.pinpoint.thrift.io.ChunkHeaderTBaseDeserializerFactory;
+
+/**
+ * @author agent
+ */
+public class NioUdpDataSenderTest {
+
+    private DatagramSocket receiver;
+
+    @Before
+    public void setUp() throws Exception {
+        receiver = new DatagramSocket(new InetSocketAddress("localhost", 0));
+        receiver.setSoTimeout(1000 * 5);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (receiver != null) {
+            receiver.close();
+        }
+    }
+
+    @Test
+    public void sendAndReceiveChunk() throws Exception {
+        // linger so that all messages are drained as one batch
+        DrainPolicy drainPolicy = new DrainPolicy(10, 10, 1000);
+        NioUdpDataSender sender = new NioUdpDataSender("localhost", receiver.getLocalPort(), "test", 128, 1000, 1024 * 64, AsyncQueueFactory.DEFAULT_FACTORY, drainPolicy);
+        try {
+            for (int i = 0; i < 10; i++) {
+                TAgentInfo agentInfo = new TAgentInfo();
+                agentInfo.setAgentId("agent-" + i);
+                sender.send(agentInfo);
+            }
+
+            int received = 0;
+            while (received < 10) {
+                List<TBase<?, ?>> list = receive();
+                for (TBase<?, ?> tBase : list) {
+                    Assert.assertTrue(tBase instanceof TAgentInfo);
+                    Assert.assertEquals("agent-" + received, ((TAgentInfo) tBase).getAgentId());
+                    received++;
+                }
+            }
+            Assert.assertEquals(10, received);
+        } finally {
+            sender.stop();
+        }
+    }
+
+    @Test
+    public void splitDatagram() throws Exception {
+        final String agentId = createString(1024 * 20);
+        DrainPolicy drainPolicy = new DrainPolicy(10, 10, 1000);
+        NioUdpDataSender sender = new NioUdpDataSender("localhost", receiver.getLocalPort(), "test", 128, 1000, 1024 * 64 * 4, AsyncQueueFactory.DEFAULT_FACTORY, drainPolicy);
+        try {
+            for (int i = 0; i < 5; i++) {
+                TAgentInfo agentInfo = new TAgentInfo();
+                agentInfo.setAgentId(agentId);
+                sender.send(agentInfo);
+            }
+            int received = 0;
+            int datagramCount = 0;
+            while (received < 5) {
+                received += receive().size();
+                datagramCount++;
+            }
+            // 3 messages fit in a datagram
+            Assert.assertTrue("datagramCount:" + datagramCount, datagramCount > 1);
+        } finally {
+            sender.stop();
+        }
+    }
+
+    @Test
+    public void discardTooLargeMessage() throws Exception {
+        NioUdpDataSender sender = new NioUdpDataSender("localhost", receiver.getLocalPort(), "test", 128, 1000, 1024 * 64 * 4);
+        try {
+            TAgentInfo large = new TAgentInfo();
+            large.setAgentId(createString(UdpDataSender.UDP_MAX_PACKET_LENGTH + 100));
+            sender.send(large);
+
+            TAgentInfo small = new TAgentInfo();
+            small.setAgentId("small");
+            sender.send(small);
+
+            List<TBase<?, ?>> list = receive();
+            Assert.assertEquals(1, list.size());
+            Assert.assertEquals("small", ((TAgentInfo) list.get(0)).getAgentId());
+        } finally {
+            sender.stop();
+        }
+    }
+
+    private List<TBase<?, ?>> receive() throws Exception {
+        byte[] buffer = new byte[UdpDataSender.UDP_MAX_PACKET_LENGTH];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        receiver.receive(packet);
+
+        ChunkHeaderTBaseDeserializer deserializer = ChunkHeaderTBaseDeserializerFactory.DEFAULT_FACTORY.createDeserializer();
+        return deserializer.deserialize(packet.getData(), packet.getOffset(), packet.getLength());
+    }
+
+    private String createString(int size) {
+        StringBuilder sb = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            sb.append('a');
+        }
+        return sb.toString();
+    }
+}
@@ -26,6 +26,7 @@ import com.navercorp.pinpoint.rpc.DefaultFuture;
 import com.navercorp.pinpoint.rpc.Future;
 import com.navercorp.pinpoint.rpc.PinpointSocketException;
 import com.navercorp.pinpoint.rpc.ResponseMessage;
+import com.navercorp.pinpoint.rpc.packet.TraceSendAckPacket;
 import com.navercorp.pinpoint.rpc.stream.ClientStreamChannelContext;
 import com.navercorp.pinpoint.rpc.stream.ClientStreamChannelMessageListener;
 import com.navercorp.pinpoint.rpc.stream.StreamChannelContext;
@@ -44,6 +45,8 @@ public class PinpointSocket {
     private volatile SocketHandler socketHandler;
 
     private volatile boolean closed;
+
+    private final TraceSendWindow traceSendWindow;
     
     private List<PinpointSocketReconnectEventListener> reconnectEventListeners = new CopyOnWriteArrayList<PinpointSocketReconnectEventListener>();
     
@@ -52,9 +55,15 @@ public class PinpointSocket {
     }
 
     public PinpointSocket(SocketHandler socketHandler) {
+        this(socketHandler, TraceSendWindow.DEFAULT_WINDOW_SIZE);
+    }
+
+    public PinpointSocket(SocketHandler socketHandler, int traceSendWindowSize) {
         AssertUtils.assertNotNull(socketHandler, "socketHandler");
 
         this.socketHandler = socketHandler;
+        this.traceSendWindow = new TraceSendWindow(traceSendWindowSize);
+        this.traceSendWindow.reconnect(socketHandler);
         socketHandler.setPinpointSocket(this);
     }
 
@@ -69,6 +78,8 @@ public class PinpointSocket {
         logger.warn("reconnectSocketHandler:{}", socketHandler);
         
         this.socketHandler = socketHandler;
+        // unacked traces of the previous connection are written again before the listeners are notified.
+        this.traceSendWindow.reconnect(socketHandler);
         
         notifyReconnectEvent();
     }
@@ -115,6 +126,27 @@ public class PinpointSocket {
         socketHandler.send(bytes);
     }
 
+    /**
+     * sends the bytes as a {@link com.navercorp.pinpoint.rpc.packet.TraceSendPacket} that the server acknowledges.
+     * blocks while the window of unacked packets is full.
+     *
+     * @return false if no slot in the window was freed within timeoutMillis or the socket is closed.
+     */
+    public boolean sendTrace(byte[] bytes, long timeoutMillis) {
+        if (closed) {
+            return false;
+        }
+        return traceSendWindow.send(bytes, timeoutMillis);
+    }
+
+    void handleTraceSendAck(TraceSendAckPacket ackPacket) {
+        traceSendWindow.ack(ackPacket.getTraceId());
+    }
+
+    public TraceSendWindow getTraceSendWindow() {
+        return traceSendWindow;
+    }
+
 
     public Future<ResponseMessage> request(byte[] bytes) {
         if (socketHandler == null) {
@@ -168,6 +200,7 @@ public class PinpointSocket {
             }
             closed = true;
         }
+        traceSendWindow.close();
         SocketHandler socketHandler = this.socketHandler;
         if (socketHandler == null) {
             return;
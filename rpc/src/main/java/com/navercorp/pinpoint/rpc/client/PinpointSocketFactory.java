@@ -46,6 +46,7 @@ import org.slf4j.LoggerFactory;
 
 import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
 import com.navercorp.pinpoint.rpc.PinpointSocketException;
+import com.navercorp.pinpoint.rpc.codec.WriteCoalescingHandler;
 import com.navercorp.pinpoint.rpc.stream.DisabledServerStreamChannelMessageListener;
 import com.navercorp.pinpoint.rpc.stream.ServerStreamChannelMessageListener;
 import com.navercorp.pinpoint.rpc.util.AssertUtils;
@@ -81,6 +82,8 @@ public class PinpointSocketFactory {
     private long pingDelay = DEFAULT_PING_DELAY;
     private long enableWorkerPacketDelay = DEFAULT_ENABLE_WORKER_PACKET_DELAY;
     private long timeoutMillis = DEFAULT_TIMEOUTMILLIS;
+    private int traceSendWindowSize = TraceSendWindow.DEFAULT_WINDOW_SIZE;
+    private int writeCoalescingThreshold = WriteCoalescingHandler.DEFAULT_FLUSH_THRESHOLD;
     
     private MessageListener messageListener = SimpleLoggingMessageListener.LISTENER;
     private ServerStreamChannelMessageListener serverStreamChannelMessageListener = DisabledServerStreamChannelMessageListener.INSTANCE;
@@ -188,6 +191,28 @@ public class PinpointSocketFactory {
         this.timeoutMillis = timeoutMillis;
     }
 
+    public int getTraceSendWindowSize() {
+        return traceSendWindowSize;
+    }
+
+    public void setTraceSendWindowSize(int traceSendWindowSize) {
+        if (traceSendWindowSize <= 0) {
+            throw new IllegalArgumentException("traceSendWindowSize must greater than zero.");
+        }
+        this.traceSendWindowSize = traceSendWindowSize;
+    }
+
+    public int getWriteCoalescingThreshold() {
+        return writeCoalescingThreshold;
+    }
+
+    public void setWriteCoalescingThreshold(int writeCoalescingThreshold) {
+        if (writeCoalescingThreshold <= 0) {
+            throw new IllegalArgumentException("writeCoalescingThreshold must greater than zero.");
+        }
+        this.writeCoalescingThreshold = writeCoalescingThreshold;
+    }
+
     private ClientBootstrap createBootStrap(int bossCount, int workerCount, Timer timer) {
         // profiler, collector,
         logger.debug("createBootStrap boss:{}, worker:{}", bossCount, workerCount);
@@ -209,7 +234,7 @@ public class PinpointSocketFactory {
         ChannelFuture connectFuture = bootstrap.connect(address);
         SocketHandler socketHandler = getSocketHandler(connectFuture, address);
 
-        PinpointSocket pinpointSocket = new PinpointSocket(socketHandler);
+        PinpointSocket pinpointSocket = new PinpointSocket(socketHandler, traceSendWindowSize);
         traceSocket(pinpointSocket);
         return pinpointSocket;
     }
@@ -219,7 +244,7 @@ public class PinpointSocketFactory {
         ChannelFuture connectFuture = bootstrap.connect(address);
         SocketHandler socketHandler = getSocketHandler(connectFuture, address);
 
-        PinpointSocket pinpointSocket = new PinpointSocket(socketHandler);
+        PinpointSocket pinpointSocket = new PinpointSocket(socketHandler, traceSendWindowSize);
         traceSocket(pinpointSocket);
         return pinpointSocket;
     }
@@ -233,7 +258,7 @@ public class PinpointSocketFactory {
     }
 
     public PinpointSocket scheduledConnect(String host, int port) {
-        PinpointSocket pinpointSocket = new PinpointSocket(new ReconnectStateSocketHandler());
+        PinpointSocket pinpointSocket = new PinpointSocket(new ReconnectStateSocketHandler(), traceSendWindowSize);
         SocketAddress address = new InetSocketAddress(host, port);
         reconnect(pinpointSocket, address);
         return pinpointSocket;
@@ -53,6 +53,8 @@ import com.navercorp.pinpoint.rpc.packet.PingPacket;
 import com.navercorp.pinpoint.rpc.packet.RequestPacket;
 import com.navercorp.pinpoint.rpc.packet.ResponsePacket;
 import com.navercorp.pinpoint.rpc.packet.SendPacket;
+import com.navercorp.pinpoint.rpc.packet.TraceSendAckPacket;
+import com.navercorp.pinpoint.rpc.packet.TraceSendPacket;
 import com.navercorp.pinpoint.rpc.packet.stream.StreamPacket;
 import com.navercorp.pinpoint.rpc.stream.ClientStreamChannelContext;
 import com.navercorp.pinpoint.rpc.stream.ClientStreamChannelMessageListener;
@@ -102,7 +104,7 @@ public class PinpointSocketHandler extends SimpleChannelHandler implements Socke
     private final RequestManager requestManager;
 
     private final ChannelFutureListener pingWriteFailFutureListener = new WriteFailFutureListener(this.logger, "ping write fail.", "ping write success.");
-    private final ChannelFutureListener sendWriteFailFutureListener = new WriteFailFutureListener(this.logger, "send() write fail.", "send() write success.");
+    private final ChannelFutureListener sendTraceWriteFailFutureListener = new WriteFailFutureListener(this.logger, "sendTrace() write fail.", "sendTrace() write success.");
 
     private final ChannelFutureListener sendClosePacketFailFutureListener = new WriteFailFutureListener(this.logger, "sendClosedPacket() write fail.", "sendClosedPacket() write success.");
     
@@ -266,8 +268,18 @@ public class PinpointSocketHandler extends SimpleChannelHandler implements Socke
     }
 
     public void send(byte[] bytes) {
-        ChannelFuture future = send0(bytes);
-        future.addListener(sendWriteFailFutureListener);
+        // no listener per message. a failed write is logged once for the coalesced packets by WriteCoalescingHandler.
+        send0(bytes);
+    }
+
+    public void sendTrace(TraceSendPacket traceSendPacket) {
+        if (traceSendPacket == null) {
+            throw new NullPointerException("traceSendPacket must not be null");
+        }
+        if (!state.isEnableCommunication()) {
+            return;
+        }
+        write0(traceSendPacket, sendTraceWriteFailFutureListener);
     }
 
     public Future sendAsync(byte[] bytes) {
@@ -377,6 +389,9 @@ public class PinpointSocketHandler extends SimpleChannelHandler implements Socke
                 case PacketType.APPLICATION_SEND:
                     this.messageListener.handleSend((SendPacket) message, e.getChannel());
                     return;
+                case PacketType.APPLICATION_TRACE_SEND_ACK:
+                    handleTraceSendAck((TraceSendAckPacket) message);
+                    return;
                 case PacketType.APPLICATION_STREAM_CREATE:
                 case PacketType.APPLICATION_STREAM_CLOSE:
                 case PacketType.APPLICATION_STREAM_CREATE_SUCCESS:
@@ -401,6 +416,15 @@ public class PinpointSocketHandler extends SimpleChannelHandler implements Socke
         }
     }
 
+    private void handleTraceSendAck(TraceSendAckPacket ackPacket) {
+        final PinpointSocket pinpointSocket = this.pinpointSocket;
+        if (pinpointSocket == null) {
+            logger.warn("{} handleTraceSendAck() failed. pinpointSocket is null. ackPacket:{}", objectUniqName, ackPacket);
+            return;
+        }
+        pinpointSocket.handleTraceSendAck(ackPacket);
+    }
+
     private void handleClosedPacket(Channel channel) {
         logger.info("{} handleClosedPacket() started. channel:{}", objectUniqName, channel);
 
@@ -22,6 +22,7 @@ import com.navercorp.pinpoint.rpc.PinpointSocketException;
 import com.navercorp.pinpoint.rpc.ResponseMessage;
 import com.navercorp.pinpoint.rpc.client.ConnectFuture.Result;
 import com.navercorp.pinpoint.rpc.common.SocketStateCode;
+import com.navercorp.pinpoint.rpc.packet.TraceSendPacket;
 import com.navercorp.pinpoint.rpc.stream.ClientStreamChannelContext;
 import com.navercorp.pinpoint.rpc.stream.ClientStreamChannelMessageListener;
 import com.navercorp.pinpoint.rpc.stream.StreamChannelContext;
@@ -84,6 +85,10 @@ public class ReconnectStateSocketHandler implements SocketHandler {
     public void send(byte[] bytes) {
     }
 
+    @Override
+    public void sendTrace(TraceSendPacket traceSendPacket) {
+    }
+
     private PinpointSocketException newReconnectException() {
         return new PinpointSocketException("reconnecting...");
     }
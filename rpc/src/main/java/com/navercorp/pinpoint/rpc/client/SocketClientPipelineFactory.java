@@ -19,6 +19,7 @@ package com.navercorp.pinpoint.rpc.client;
 
 import com.navercorp.pinpoint.rpc.codec.PacketDecoder;
 import com.navercorp.pinpoint.rpc.codec.PacketEncoder;
+import com.navercorp.pinpoint.rpc.codec.WriteCoalescingHandler;
 
 import org.jboss.netty.channel.ChannelPipeline;
 import org.jboss.netty.channel.ChannelPipelineFactory;
@@ -46,6 +47,8 @@ public class SocketClientPipelineFactory implements ChannelPipelineFactory {
     @Override
     public ChannelPipeline getPipeline() throws Exception {
         ChannelPipeline pipeline = Channels.pipeline();
+        // downstream events run from the last handler, so the coalescer gets the encoded buffers.
+        pipeline.addLast("writeCoalescer", new WriteCoalescingHandler(pinpointSocketFactory.getWriteCoalescingThreshold()));
         pipeline.addLast("encoder", new PacketEncoder());
         pipeline.addLast("decoder", new PacketDecoder());
         
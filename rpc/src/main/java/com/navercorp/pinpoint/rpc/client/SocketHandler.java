@@ -21,6 +21,7 @@ import java.net.SocketAddress;
 import com.navercorp.pinpoint.rpc.Future;
 import com.navercorp.pinpoint.rpc.ResponseMessage;
 import com.navercorp.pinpoint.rpc.common.SocketStateCode;
+import com.navercorp.pinpoint.rpc.packet.TraceSendPacket;
 import com.navercorp.pinpoint.rpc.stream.ClientStreamChannelContext;
 import com.navercorp.pinpoint.rpc.stream.ClientStreamChannelMessageListener;
 import com.navercorp.pinpoint.rpc.stream.StreamChannelContext;
@@ -47,6 +48,11 @@ public interface SocketHandler {
 
     void send(byte[] bytes);
 
+    /**
+     * the packet is dropped silently when the socket is not running. {@link TraceSendWindow} writes it again.
+     */
+    void sendTrace(TraceSendPacket traceSendPacket);
+
     Future<ResponseMessage> request(byte[] bytes);
 
     ClientStreamChannelContext createStreamChannel(byte[] payload, ClientStreamChannelMessageListener clientStreamChannelMessageListener);
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.rpc.client;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.navercorp.pinpoint.rpc.packet.TraceSendPacket;
+
+/**
+ * sliding window of the {@link TraceSendPacket}s not yet acknowledged by the server.
+ * the server acknowledges cumulatively, so an ack of a traceId releases every packet sent before it.
+ * the unacknowledged packets are written again to the new {@link SocketHandler} after a reconnect,
+ * which makes the delivery to the server at-least-once.
+ * the server acks a packet once it has accepted it, before storing it, so a packet can still be lost on the server side.
+ * packets are never written twice to the same connection, the server counts statistics from them.
+ * a packet that finds the window full after the timeout is dropped.
+ * after that the following packets are dropped without waiting, until an ack or a reconnect frees the window,
+ * so a stalled server does not hold the sender for the timeout of every packet.
+ *
+ * @author agent
+ */
+public class TraceSendWindow {
+
+    public static final int DEFAULT_WINDOW_SIZE = 1024;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final Object lock = new Object();
+
+    private final int windowSize;
+    private final ArrayDeque<TraceSendPacket> unackedQueue;
+
+    private SocketHandler socketHandler;
+    private int nextTraceId = 0;
+    private boolean closed;
+    // a send timed out and no ack has arrived since
+    private boolean stalled;
+
+    private long retransmitCount;
+    private long dropCount;
+
+    public TraceSendWindow() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    public TraceSendWindow(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must greater than zero.");
+        }
+        this.windowSize = windowSize;
+        this.unackedQueue = new ArrayDeque<TraceSendPacket>(windowSize);
+    }
+
+    /**
+     * waits up to timeoutMillis for a free slot in the window, or not at all while the window is stalled.
+     * packets are numbered and written while holding the lock so they reach the channel in traceId order.
+     *
+     * @return false if the packet was dropped because the window stayed full or the window was closed.
+     */
+    public boolean send(byte[] payload, long timeoutMillis) {
+        if (payload == null) {
+            throw new NullPointerException("payload must not be null");
+        }
+        synchronized (lock) {
+            if (!awaitSlot(timeoutMillis)) {
+                dropCount++;
+                return false;
+            }
+            final TraceSendPacket packet = new TraceSendPacket(nextTraceId++, payload);
+            unackedQueue.addLast(packet);
+            socketHandler.sendTrace(packet);
+            return true;
+        }
+    }
+
+    private boolean awaitSlot(long timeoutMillis) {
+        long remainNanos = stalled ? 0 : TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (!closed && unackedQueue.size() >= windowSize) {
+            if (remainNanos <= 0) {
+                // no ack arrived while the window was full. the unacked packets are written again only on reconnect.
+                if (!stalled) {
+                    stalled = true;
+                    logger.warn("TraceSendWindow stalled. no ack for {}ms, drop TraceSendPackets until the window frees up.", timeoutMillis);
+                }
+                return false;
+            }
+            final long start = System.nanoTime();
+            try {
+                TimeUnit.NANOSECONDS.timedWait(lock, remainNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            remainNanos -= System.nanoTime() - start;
+        }
+        return !closed && socketHandler != null;
+    }
+
+    /**
+     * releases every packet up to and including traceId.
+     */
+    public void ack(int traceId) {
+        synchronized (lock) {
+            int released = 0;
+            TraceSendPacket first;
+            while ((first = unackedQueue.peekFirst()) != null) {
+                // traceId wraps around, so compare by difference
+                if (first.getTraceId() - traceId > 0) {
+                    break;
+                }
+                unackedQueue.pollFirst();
+                released++;
+            }
+            if (released > 0) {
+                stalled = false;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * switches to the given socketHandler and writes every unacknowledged packet to it.
+     */
+    public void reconnect(SocketHandler socketHandler) {
+        if (socketHandler == null) {
+            throw new NullPointerException("socketHandler must not be null");
+        }
+        synchronized (lock) {
+            this.socketHandler = socketHandler;
+            this.stalled = false;
+            retransmit();
+        }
+    }
+
+    private void retransmit() {
+        if (socketHandler == null || unackedQueue.isEmpty()) {
+            return;
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info("retransmit unacked TraceSendPacket:{} socketHandler:{}", unackedQueue.size(), socketHandler);
+        }
+        for (TraceSendPacket packet : unackedQueue) {
+            socketHandler.sendTrace(packet);
+        }
+        retransmitCount += unackedQueue.size();
+    }
+
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            final int dropped = unackedQueue.size();
+            unackedQueue.clear();
+            lock.notifyAll();
+            if (dropped > 0) {
+                logger.warn("TraceSendWindow closed. unacked TraceSendPacket:{} dropped.", dropped);
+            }
+        }
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public int getUnackedCount() {
+        synchronized (lock) {
+            return unackedQueue.size();
+        }
+    }
+
+    public long getRetransmitCount() {
+        synchronized (lock) {
+            return retransmitCount;
+        }
+    }
+
+    public long getDropCount() {
+        synchronized (lock) {
+            return dropCount;
+        }
+    }
+
+    public boolean isStalled() {
+        synchronized (lock) {
+            return stalled;
+        }
+    }
+}
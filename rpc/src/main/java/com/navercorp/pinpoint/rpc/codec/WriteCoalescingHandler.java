@@ -0,0 +1,180 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.rpc.codec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.ChannelEvent;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelDownstreamHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * gathers the encoded packets written by any thread and writes them to the socket as one composite buffer.
+ * the pending packets are flushed by a task on the io thread of the channel, or at once when they exceed flushThreshold bytes.
+ * writes made on the io thread itself are flushed immediately, because netty runs the task in place there.
+ * <p>
+ * must be placed under the {@link PacketEncoder} so that it only sees {@link ChannelBuffer}s.
+ * the future of every gathered write is completed with the result of the composite write.
+ *
+ * @author agent
+ */
+public class WriteCoalescingHandler extends SimpleChannelDownstreamHandler {
+
+    public static final int DEFAULT_FLUSH_THRESHOLD = 1024 * 16;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final int flushThreshold;
+
+    private final Queue<MessageEvent> pendingQueue = new ConcurrentLinkedQueue<MessageEvent>();
+    private final AtomicInteger pendingBytes = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    // keeps the drained packets in order when several threads flush
+    private final Object flushLock = new Object();
+
+    public WriteCoalescingHandler() {
+        this(DEFAULT_FLUSH_THRESHOLD);
+    }
+
+    public WriteCoalescingHandler(int flushThreshold) {
+        if (flushThreshold <= 0) {
+            throw new IllegalArgumentException("flushThreshold must greater than zero.");
+        }
+        this.flushThreshold = flushThreshold;
+    }
+
+    @Override
+    public void writeRequested(final ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+        final Object message = e.getMessage();
+        if (!(message instanceof ChannelBuffer)) {
+            flush(ctx);
+            ctx.sendDownstream(e);
+            return;
+        }
+
+        pendingQueue.add(e);
+        final int bytes = pendingBytes.addAndGet(((ChannelBuffer) message).readableBytes());
+        if (bytes >= flushThreshold) {
+            flush(ctx);
+            return;
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            ctx.getPipeline().execute(new Runnable() {
+                @Override
+                public void run() {
+                    flush(ctx);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void closeRequested(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+        // ClientClosePacket and ServerClosePacket are written right before the close.
+        flush(ctx);
+        super.closeRequested(ctx, e);
+    }
+
+    @Override
+    public void disconnectRequested(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+        flush(ctx);
+        super.disconnectRequested(ctx, e);
+    }
+
+    void flush(ChannelHandlerContext ctx) {
+        synchronized (flushLock) {
+            // cleared before draining. a packet added after this point schedules another flush.
+            flushScheduled.set(false);
+
+            final MessageEvent first = pendingQueue.poll();
+            if (first == null) {
+                return;
+            }
+            MessageEvent next = pendingQueue.poll();
+            if (next == null) {
+                pendingBytes.addAndGet(-((ChannelBuffer) first.getMessage()).readableBytes());
+                ctx.sendDownstream(first);
+                return;
+            }
+
+            final List<MessageEvent> eventList = new ArrayList<MessageEvent>();
+            eventList.add(first);
+            int bytes = 0;
+            do {
+                eventList.add(next);
+            } while ((next = pendingQueue.poll()) != null);
+
+            final ChannelBuffer[] buffers = new ChannelBuffer[eventList.size()];
+            for (int i = 0; i < buffers.length; i++) {
+                final ChannelBuffer buffer = (ChannelBuffer) eventList.get(i).getMessage();
+                bytes += buffer.readableBytes();
+                buffers[i] = buffer;
+            }
+            pendingBytes.addAndGet(-bytes);
+
+            final ChannelFuture future = Channels.future(ctx.getChannel());
+            future.addListener(new CompositeWriteListener(eventList));
+            Channels.write(ctx, future, ChannelBuffers.wrappedBuffer(buffers), first.getRemoteAddress());
+        }
+    }
+
+    int getPendingBytes() {
+        return pendingBytes.get();
+    }
+
+    private class CompositeWriteListener implements ChannelFutureListener {
+
+        private final List<MessageEvent> eventList;
+
+        private CompositeWriteListener(List<MessageEvent> eventList) {
+            this.eventList = eventList;
+        }
+
+        @Override
+        public void operationComplete(ChannelFuture future) throws Exception {
+            if (future.isSuccess()) {
+                for (ChannelEvent event : eventList) {
+                    event.getFuture().setSuccess();
+                }
+                return;
+            }
+
+            final Throwable cause = future.getCause();
+            if (logger.isWarnEnabled()) {
+                logger.warn("coalesced write fail. packets:{} channel:{} Caused:{}", eventList.size(), future.getChannel(), cause.getMessage(), cause);
+            }
+            for (ChannelEvent event : eventList) {
+                event.getFuture().setFailure(cause);
+            }
+        }
+    }
+}
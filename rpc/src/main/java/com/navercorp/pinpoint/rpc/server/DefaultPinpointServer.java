@@ -51,6 +51,7 @@ import com.navercorp.pinpoint.rpc.packet.RequestPacket;
 import com.navercorp.pinpoint.rpc.packet.ResponsePacket;
 import com.navercorp.pinpoint.rpc.packet.SendPacket;
 import com.navercorp.pinpoint.rpc.packet.ServerClosePacket;
+import com.navercorp.pinpoint.rpc.packet.TraceSendPacket;
 import com.navercorp.pinpoint.rpc.packet.stream.StreamPacket;
 import com.navercorp.pinpoint.rpc.server.handler.ChannelStateChangeEventHandler;
 import com.navercorp.pinpoint.rpc.stream.ClientStreamChannelContext;
@@ -82,6 +83,11 @@ public class DefaultPinpointServer implements PinpointServer {
 
     private final StreamChannelManager streamChannelManager;
 
+    private final TraceSendAckScheduler traceSendAckScheduler;
+
+    private final Object readSuspendLock = new Object();
+    private int readSuspendCount;
+
     private final AtomicReference<Map<Object, Object>> properties = new AtomicReference<Map<Object, Object>>();
 
     private final String objectUniqName;
@@ -122,6 +128,9 @@ public class DefaultPinpointServer implements PinpointServer {
         this.serverCloseWriteListener = new WriteFailFutureListener(logger, objectUniqName + " sendClosePacket() write fail.", "serverClosePacket write success");
         this.responseWriteFailListener = new WriteFailFutureListener(logger, objectUniqName + " response() write fail.");
 
+        ChannelFutureListener traceSendAckWriteFailListener = new WriteFailFutureListener(logger, objectUniqName + " traceSendAck() write fail.");
+        this.traceSendAckScheduler = new TraceSendAckScheduler(channel, serverConfig.getRequestManagerTimer(), traceSendAckWriteFailListener);
+
         this.state = new DefaultPinpointServerState(this, this.stateChangeEventListeners);
         this.stateChecker = new CyclicStateChecker(5);
     }
@@ -165,6 +174,7 @@ public class DefaultPinpointServer implements PinpointServer {
         }
         
         streamChannelManager.close();
+        traceSendAckScheduler.stop();
     }
 
     @Override
@@ -260,6 +270,29 @@ public class DefaultPinpointServer implements PinpointServer {
         return channel.getRemoteAddress();
     }
 
+    @Override
+    public void suspendRead() {
+        synchronized (readSuspendLock) {
+            if (readSuspendCount++ == 0) {
+                logger.info("{} suspendRead()", objectUniqName);
+                channel.setReadable(false);
+            }
+        }
+    }
+
+    @Override
+    public void resumeRead() {
+        synchronized (readSuspendLock) {
+            if (readSuspendCount <= 0) {
+                return;
+            }
+            if (--readSuspendCount == 0) {
+                logger.info("{} resumeRead()", objectUniqName);
+                channel.setReadable(true);
+            }
+        }
+    }
+
     public ChannelFuture sendClosePacket() {
         logger.info("{} sendClosePacket() started.", objectUniqName);
         
@@ -292,6 +325,10 @@ public class DefaultPinpointServer implements PinpointServer {
                 handleSend((SendPacket) message);
                 return;
             }
+            case PacketType.APPLICATION_TRACE_SEND: {
+                handleTraceSend((TraceSendPacket) message);
+                return;
+            }
             case PacketType.APPLICATION_REQUEST: {
                 handleRequest((RequestPacket) message);
                 return;
@@ -342,6 +379,14 @@ public class DefaultPinpointServer implements PinpointServer {
         messageListener.handleSend(sendPacket, this);
     }
 
+    private void handleTraceSend(TraceSendPacket traceSendPacket) {
+        messageListener.handleSend(traceSendPacket, this);
+        // acked once the listener accepted the packet. the client retransmits everything not acked yet after a reconnect.
+        // the listener of the collector only queues the packet for its workers, so the ack goes out before the hbase write.
+        // a packet acked but not yet written is lost when the collector dies or the write fails. the transport is not lossless.
+        traceSendAckScheduler.received(traceSendPacket.getTraceId());
+    }
+
     private void handleRequest(RequestPacket requestPacket) {
         messageListener.handleRequest(requestPacket, this);
     }
@@ -45,5 +45,13 @@ public interface PinpointServer {
     SocketAddress getRemoteAddress();
 
     Map<Object, Object> getChannelProperties();
-    
+
+    /**
+     * stops reading from the channel until every suspendRead() is paired with a resumeRead().
+     * the client is pushed back by tcp flow control while the server can not take more messages.
+     */
+    void suspendRead();
+
+    void resumeRead();
+
 }
@@ -19,6 +19,7 @@ package com.navercorp.pinpoint.rpc.server;
 
 import com.navercorp.pinpoint.rpc.codec.PacketDecoder;
 import com.navercorp.pinpoint.rpc.codec.PacketEncoder;
+import com.navercorp.pinpoint.rpc.codec.WriteCoalescingHandler;
 import com.navercorp.pinpoint.rpc.server.PinpointServerAcceptor.PinpointServerChannelHandler;
 
 import org.jboss.netty.channel.ChannelPipeline;
@@ -43,6 +44,7 @@ public class ServerPipelineFactory implements ChannelPipelineFactory {
         ChannelPipeline pipeline = Channels.pipeline();
 
         pipeline.addLast("decoder", new PacketDecoder());
+        pipeline.addLast("writeCoalescer", new WriteCoalescingHandler());
         pipeline.addLast("encoder", new PacketEncoder());
         pipeline.addLast("handler", pinpointServerChannelHandler);
 
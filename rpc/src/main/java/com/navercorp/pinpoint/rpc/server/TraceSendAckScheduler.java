@@ -0,0 +1,131 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.rpc.server;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.Timer;
+import org.jboss.netty.util.TimerTask;
+
+import com.navercorp.pinpoint.rpc.packet.TraceSendAckPacket;
+
+/**
+ * acknowledges the received {@link com.navercorp.pinpoint.rpc.packet.TraceSendPacket}s cumulatively.
+ * an ack is written after every {@link #DEFAULT_ACK_BATCH_SIZE} packets, or {@link #DEFAULT_ACK_DELAY_MILLIS} after the first unacked packet.
+ * a packet is acked when the {@link ServerMessageListener} has accepted it, not when it is stored.
+ *
+ * @author agent
+ */
+class TraceSendAckScheduler {
+
+    static final int DEFAULT_ACK_BATCH_SIZE = 32;
+    static final long DEFAULT_ACK_DELAY_MILLIS = 100;
+
+    private final Channel channel;
+    private final Timer timer;
+    private final ChannelFutureListener ackWriteFailListener;
+
+    private final int ackBatchSize;
+    private final long ackDelayMillis;
+
+    private final Object lock = new Object();
+    private int lastTraceId;
+    private int unackedCount;
+    private Timeout ackTimeout;
+    private boolean stopped;
+
+    TraceSendAckScheduler(Channel channel, Timer timer, ChannelFutureListener ackWriteFailListener) {
+        this(channel, timer, ackWriteFailListener, DEFAULT_ACK_BATCH_SIZE, DEFAULT_ACK_DELAY_MILLIS);
+    }
+
+    TraceSendAckScheduler(Channel channel, Timer timer, ChannelFutureListener ackWriteFailListener, int ackBatchSize, long ackDelayMillis) {
+        if (channel == null) {
+            throw new NullPointerException("channel must not be null");
+        }
+        if (timer == null) {
+            throw new NullPointerException("timer must not be null");
+        }
+        this.channel = channel;
+        this.timer = timer;
+        this.ackWriteFailListener = ackWriteFailListener;
+        this.ackBatchSize = ackBatchSize;
+        this.ackDelayMillis = ackDelayMillis;
+    }
+
+    void received(int traceId) {
+        synchronized (lock) {
+            if (stopped) {
+                return;
+            }
+            lastTraceId = traceId;
+            unackedCount++;
+            if (unackedCount >= ackBatchSize) {
+                flush0();
+                return;
+            }
+            if (ackTimeout == null) {
+                ackTimeout = timer.newTimeout(new AckTask(), ackDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void flush0() {
+        if (ackTimeout != null) {
+            ackTimeout.cancel();
+            ackTimeout = null;
+        }
+        if (unackedCount == 0) {
+            return;
+        }
+        unackedCount = 0;
+        TraceSendAckPacket ackPacket = new TraceSendAckPacket(lastTraceId);
+        if (ackWriteFailListener == null) {
+            channel.write(ackPacket);
+        } else {
+            channel.write(ackPacket).addListener(ackWriteFailListener);
+        }
+    }
+
+    void stop() {
+        synchronized (lock) {
+            stopped = true;
+            if (ackTimeout != null) {
+                ackTimeout.cancel();
+                ackTimeout = null;
+            }
+        }
+    }
+
+    private class AckTask implements TimerTask {
+        @Override
+        public void run(Timeout timeout) throws Exception {
+            if (timeout.isCancelled()) {
+                return;
+            }
+            synchronized (lock) {
+                if (stopped || ackTimeout != timeout) {
+                    return;
+                }
+                ackTimeout = null;
+                flush0();
+            }
+        }
+    }
+}
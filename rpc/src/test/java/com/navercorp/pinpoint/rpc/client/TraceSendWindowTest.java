@@ -0,0 +1,317 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.rpc.client;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.navercorp.pinpoint.rpc.packet.SendPacket;
+import com.navercorp.pinpoint.rpc.packet.TraceSendPacket;
+import com.navercorp.pinpoint.rpc.server.PinpointServer;
+import com.navercorp.pinpoint.rpc.server.PinpointServerAcceptor;
+import com.navercorp.pinpoint.rpc.server.TestSeverMessageListener;
+import com.navercorp.pinpoint.rpc.util.PinpointRPCTestUtils;
+
+/**
+ * @author agent
+ */
+public class TraceSendWindowTest {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Test
+    public void ack() {
+        RecordingSocketHandler socketHandler = new RecordingSocketHandler();
+        TraceSendWindow window = new TraceSendWindow(4);
+        window.reconnect(socketHandler);
+
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(window.send(new byte[] {(byte) i}, 10));
+        }
+        Assert.assertEquals(4, window.getUnackedCount());
+        Assert.assertEquals(4, socketHandler.getTraceIdList().size());
+
+        // cumulative
+        window.ack(socketHandler.getTraceIdList().get(2));
+        Assert.assertEquals(1, window.getUnackedCount());
+
+        // duplicated ack
+        window.ack(socketHandler.getTraceIdList().get(1));
+        Assert.assertEquals(1, window.getUnackedCount());
+
+        window.ack(socketHandler.getTraceIdList().get(3));
+        Assert.assertEquals(0, window.getUnackedCount());
+    }
+
+    @Test
+    public void windowFull() {
+        RecordingSocketHandler socketHandler = new RecordingSocketHandler();
+        TraceSendWindow window = new TraceSendWindow(2);
+        window.reconnect(socketHandler);
+
+        Assert.assertTrue(window.send(new byte[1], 10));
+        Assert.assertTrue(window.send(new byte[1], 10));
+        Assert.assertFalse(window.send(new byte[1], 10));
+
+        Assert.assertEquals(2, window.getUnackedCount());
+        // dropped. the unacked packets are not written again to the same connection
+        Assert.assertEquals(2, socketHandler.getTraceIdList().size());
+        Assert.assertEquals(0, window.getRetransmitCount());
+        Assert.assertEquals(1, window.getDropCount());
+
+        // written again only on reconnect
+        RecordingSocketHandler newSocketHandler = new RecordingSocketHandler();
+        window.reconnect(newSocketHandler);
+        Assert.assertEquals(socketHandler.getTraceIdList(), newSocketHandler.getTraceIdList());
+        Assert.assertEquals(2, window.getRetransmitCount());
+    }
+
+    @Test
+    public void failFastWhileStalled() {
+        RecordingSocketHandler socketHandler = new RecordingSocketHandler();
+        TraceSendWindow window = new TraceSendWindow(1);
+        window.reconnect(socketHandler);
+
+        Assert.assertTrue(window.send(new byte[1], 10));
+        Assert.assertFalse(window.send(new byte[1], 10));
+        Assert.assertTrue(window.isStalled());
+
+        // dropped without waiting for the timeout
+        Assert.assertFalse(window.send(new byte[1], 60 * 1000));
+        Assert.assertEquals(2, window.getDropCount());
+
+        window.ack(socketHandler.getTraceIdList().get(0));
+        Assert.assertFalse(window.isStalled());
+        Assert.assertTrue(window.send(new byte[1], 10));
+    }
+
+    @Test
+    public void releaseWaitingSender() throws InterruptedException {
+        final RecordingSocketHandler socketHandler = new RecordingSocketHandler();
+        final TraceSendWindow window = new TraceSendWindow(1);
+        window.reconnect(socketHandler);
+        Assert.assertTrue(window.send(new byte[1], 10));
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        Thread sender = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                if (window.send(new byte[1], 5000)) {
+                    latch.countDown();
+                }
+            }
+        });
+        sender.start();
+
+        Thread.sleep(100);
+        window.ack(socketHandler.getTraceIdList().get(0));
+
+        Assert.assertTrue(latch.await(3000, TimeUnit.MILLISECONDS));
+        sender.join();
+    }
+
+    @Test
+    public void reconnect() {
+        RecordingSocketHandler oldSocketHandler = new RecordingSocketHandler();
+        TraceSendWindow window = new TraceSendWindow(8);
+        window.reconnect(oldSocketHandler);
+
+        for (int i = 0; i < 5; i++) {
+            window.send(new byte[1], 10);
+        }
+        window.ack(oldSocketHandler.getTraceIdList().get(1));
+
+        RecordingSocketHandler newSocketHandler = new RecordingSocketHandler();
+        window.reconnect(newSocketHandler);
+
+        List<Integer> expected = oldSocketHandler.getTraceIdList().subList(2, 5);
+        Assert.assertEquals(expected, newSocketHandler.getTraceIdList());
+
+        window.send(new byte[1], 10);
+        Assert.assertEquals(4, newSocketHandler.getTraceIdList().size());
+        Assert.assertEquals(5, oldSocketHandler.getTraceIdList().size());
+    }
+
+    @Test
+    public void close() {
+        RecordingSocketHandler socketHandler = new RecordingSocketHandler();
+        TraceSendWindow window = new TraceSendWindow(8);
+        window.reconnect(socketHandler);
+
+        window.send(new byte[1], 10);
+        window.close();
+
+        Assert.assertEquals(0, window.getUnackedCount());
+        Assert.assertFalse(window.send(new byte[1], 10));
+    }
+
+    @Test
+    public void acknowledgedByServer() throws IOException, InterruptedException {
+        int bindPort = PinpointRPCTestUtils.findAvailablePort();
+        CountingServerMessageListener listener = new CountingServerMessageListener();
+        PinpointServerAcceptor serverAcceptor = PinpointRPCTestUtils.createPinpointServerFactory(bindPort, listener);
+
+        PinpointSocketFactory socketFactory = PinpointRPCTestUtils.createSocketFactory(PinpointRPCTestUtils.getParams());
+        socketFactory.setTraceSendWindowSize(64);
+        try {
+            PinpointSocket socket = socketFactory.connect("127.0.0.1", bindPort);
+
+            final int count = 1000;
+            for (int i = 0; i < count; i++) {
+                Assert.assertTrue(socket.sendTrace(new byte[100], 3000));
+            }
+            // the tail of the batch is acked by the delayed ack
+            awaitUnacked(socket.getTraceSendWindow(), 0, 3000);
+
+            Assert.assertEquals(0, socket.getTraceSendWindow().getUnackedCount());
+            Assert.assertEquals(count, listener.getTraceSendCount());
+
+            PinpointRPCTestUtils.close(socket);
+        } finally {
+            socketFactory.release();
+            PinpointRPCTestUtils.close(serverAcceptor);
+        }
+    }
+
+    @Ignore
+    @Test
+    public void throughputBenchmark() throws IOException, InterruptedException {
+        final int count = 1000 * 200;
+        final byte[] span = new byte[512];
+
+        // udp
+        DatagramSocket receiver = new DatagramSocket(new InetSocketAddress("127.0.0.1", 0));
+        receiver.setSoTimeout(500);
+        receiver.setReceiveBufferSize(1024 * 64 * 16);
+        UdpCounter udpCounter = new UdpCounter(receiver);
+        Thread udpReceiveThread = new Thread(udpCounter);
+        udpReceiveThread.start();
+
+        DatagramSocket sender = new DatagramSocket();
+        DatagramPacket packet = new DatagramPacket(span, span.length, receiver.getLocalSocketAddress());
+        long udpStart = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            sender.send(packet);
+        }
+        long udpTime = System.nanoTime() - udpStart;
+        udpReceiveThread.join();
+        sender.close();
+        receiver.close();
+        logger.info("udp count:{} received:{} time:{}ms", count, udpCounter.getCount(), TimeUnit.NANOSECONDS.toMillis(udpTime));
+
+        // windowed tcp
+        int bindPort = PinpointRPCTestUtils.findAvailablePort();
+        CountingServerMessageListener listener = new CountingServerMessageListener();
+        PinpointServerAcceptor serverAcceptor = PinpointRPCTestUtils.createPinpointServerFactory(bindPort, listener);
+        PinpointSocketFactory socketFactory = PinpointRPCTestUtils.createSocketFactory(PinpointRPCTestUtils.getParams());
+        try {
+            PinpointSocket socket = socketFactory.connect("127.0.0.1", bindPort);
+            long tcpStart = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                socket.sendTrace(span, 3000);
+            }
+            awaitUnacked(socket.getTraceSendWindow(), 0, 10000);
+            long tcpTime = System.nanoTime() - tcpStart;
+            logger.info("tcp count:{} received:{} time:{}ms retransmit:{}", count, listener.getTraceSendCount(), TimeUnit.NANOSECONDS.toMillis(tcpTime), socket.getTraceSendWindow().getRetransmitCount());
+
+            PinpointRPCTestUtils.close(socket);
+        } finally {
+            socketFactory.release();
+            PinpointRPCTestUtils.close(serverAcceptor);
+        }
+    }
+
+    private void awaitUnacked(TraceSendWindow window, int expected, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (window.getUnackedCount() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static class RecordingSocketHandler extends ReconnectStateSocketHandler {
+
+        private final List<Integer> traceIdList = new ArrayList<Integer>();
+
+        @Override
+        public void sendTrace(TraceSendPacket traceSendPacket) {
+            traceIdList.add(traceSendPacket.getTraceId());
+        }
+
+        public List<Integer> getTraceIdList() {
+            return traceIdList;
+        }
+    }
+
+    private static class CountingServerMessageListener extends TestSeverMessageListener {
+
+        private final AtomicInteger traceSendCount = new AtomicInteger();
+
+        @Override
+        public void handleSend(SendPacket sendPacket, PinpointServer pinpointServer) {
+            if (sendPacket instanceof TraceSendPacket) {
+                traceSendCount.incrementAndGet();
+            }
+        }
+
+        public int getTraceSendCount() {
+            return traceSendCount.get();
+        }
+    }
+
+    private static class UdpCounter implements Runnable {
+
+        private final DatagramSocket socket;
+        private int count;
+
+        private UdpCounter(DatagramSocket socket) {
+            this.socket = socket;
+        }
+
+        @Override
+        public void run() {
+            DatagramPacket packet = new DatagramPacket(new byte[1024], 1024);
+            while (true) {
+                try {
+                    socket.receive(packet);
+                    count++;
+                } catch (SocketTimeoutException e) {
+                    return;
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+}
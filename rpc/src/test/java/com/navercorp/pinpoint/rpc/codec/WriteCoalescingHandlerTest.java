@@ -0,0 +1,244 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.rpc.codec;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.AbstractChannel;
+import org.jboss.netty.channel.AbstractChannelSink;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelConfig;
+import org.jboss.netty.channel.ChannelEvent;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.DefaultChannelConfig;
+import org.jboss.netty.channel.MessageEvent;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * runs the handler on a pipeline whose sink records the writes and holds the tasks of the io thread,
+ * so the test decides when the scheduled flush runs and how the socket write ends.
+ *
+ * @author agent
+ */
+public class WriteCoalescingHandlerTest {
+
+    private static final int FLUSH_THRESHOLD = 8;
+
+    private RecordingSink sink;
+    private WriteCoalescingHandler handler;
+    private Channel channel;
+
+    @Before
+    public void setUp() {
+        sink = new RecordingSink();
+        handler = new WriteCoalescingHandler(FLUSH_THRESHOLD);
+        channel = new TestChannel(Channels.pipeline(handler), sink);
+    }
+
+    @Test
+    public void coalesceBelowThreshold() {
+        final ChannelFuture future1 = channel.write(buffer(1, 2));
+        final ChannelFuture future2 = channel.write(buffer(3, 4));
+        final ChannelFuture future3 = channel.write(buffer(5));
+
+        // nothing reaches the socket until the io thread runs the flush
+        Assert.assertEquals(0, sink.getWriteList().size());
+        Assert.assertEquals(1, sink.getTaskList().size());
+        Assert.assertEquals(5, handler.getPendingBytes());
+
+        sink.runTasks();
+
+        Assert.assertEquals(1, sink.getWriteList().size());
+        final MessageEvent write = sink.getWriteList().get(0);
+        Assert.assertArrayEquals(new byte[] {1, 2, 3, 4, 5}, toBytes(write));
+        Assert.assertEquals(0, handler.getPendingBytes());
+        Assert.assertFalse(future1.isDone());
+
+        write.getFuture().setSuccess();
+        Assert.assertTrue(future1.isSuccess());
+        Assert.assertTrue(future2.isSuccess());
+        Assert.assertTrue(future3.isSuccess());
+    }
+
+    @Test
+    public void flushAboveThreshold() {
+        channel.write(buffer(1, 2, 3, 4));
+        Assert.assertEquals(0, sink.getWriteList().size());
+
+        channel.write(buffer(5, 6, 7, 8));
+        // flushed by the writer, without waiting for the io thread
+        Assert.assertEquals(1, sink.getWriteList().size());
+        Assert.assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}, toBytes(sink.getWriteList().get(0)));
+        Assert.assertEquals(0, handler.getPendingBytes());
+
+        // the flush scheduled by the first write finds nothing
+        sink.runTasks();
+        Assert.assertEquals(1, sink.getWriteList().size());
+    }
+
+    @Test
+    public void singleWrite() {
+        final ChannelFuture future = channel.write(buffer(1));
+        sink.runTasks();
+
+        // a lone packet is passed down as is, with its own future
+        Assert.assertEquals(1, sink.getWriteList().size());
+        final MessageEvent write = sink.getWriteList().get(0);
+        Assert.assertSame(future, write.getFuture());
+        Assert.assertArrayEquals(new byte[] {1}, toBytes(write));
+    }
+
+    @Test
+    public void compositeWriteFail() {
+        final ChannelFuture future1 = channel.write(buffer(1));
+        final ChannelFuture future2 = channel.write(buffer(2));
+        sink.runTasks();
+
+        final IOException cause = new IOException("test");
+        sink.getWriteList().get(0).getFuture().setFailure(cause);
+
+        Assert.assertSame(cause, future1.getCause());
+        Assert.assertSame(cause, future2.getCause());
+    }
+
+    @Test
+    public void flushBeforeClose() {
+        channel.write(buffer(1));
+        channel.write(buffer(2));
+
+        channel.close();
+
+        Assert.assertEquals(1, sink.getWriteList().size());
+        Assert.assertArrayEquals(new byte[] {1, 2}, toBytes(sink.getWriteList().get(0)));
+    }
+
+    @Test
+    public void keepOrder() {
+        final int count = 1000;
+        for (int i = 0; i < count; i++) {
+            channel.write(buffer((byte) i));
+            if (i % 10 == 0) {
+                sink.runTasks();
+            }
+        }
+        sink.runTasks();
+
+        final List<Byte> received = new ArrayList<Byte>();
+        for (MessageEvent write : sink.getWriteList()) {
+            for (byte b : toBytes(write)) {
+                received.add(b);
+            }
+        }
+        Assert.assertEquals(count, received.size());
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals((byte) i, received.get(i).byteValue());
+        }
+    }
+
+    private ChannelBuffer buffer(int... values) {
+        final byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return ChannelBuffers.wrappedBuffer(bytes);
+    }
+
+    private byte[] toBytes(MessageEvent write) {
+        final ChannelBuffer buffer = (ChannelBuffer) write.getMessage();
+        final byte[] bytes = new byte[buffer.readableBytes()];
+        buffer.getBytes(buffer.readerIndex(), bytes);
+        return bytes;
+    }
+
+    private static class RecordingSink extends AbstractChannelSink {
+
+        private final List<MessageEvent> writeList = new ArrayList<MessageEvent>();
+        private final List<Runnable> taskList = new ArrayList<Runnable>();
+
+        @Override
+        public void eventSunk(ChannelPipeline pipeline, ChannelEvent e) throws Exception {
+            if (e instanceof MessageEvent) {
+                writeList.add((MessageEvent) e);
+            }
+        }
+
+        @Override
+        public ChannelFuture execute(ChannelPipeline pipeline, Runnable task) {
+            taskList.add(task);
+            return Channels.succeededFuture(pipeline.getChannel());
+        }
+
+        public void runTasks() {
+            final List<Runnable> tasks = new ArrayList<Runnable>(taskList);
+            taskList.clear();
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        }
+
+        public List<MessageEvent> getWriteList() {
+            return writeList;
+        }
+
+        public List<Runnable> getTaskList() {
+            return taskList;
+        }
+    }
+
+    private static class TestChannel extends AbstractChannel {
+
+        private final ChannelConfig config = new DefaultChannelConfig();
+
+        private TestChannel(ChannelPipeline pipeline, RecordingSink sink) {
+            super(null, null, pipeline, sink);
+        }
+
+        @Override
+        public ChannelConfig getConfig() {
+            return config;
+        }
+
+        @Override
+        public boolean isBound() {
+            return true;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public SocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public SocketAddress getRemoteAddress() {
+            return null;
+        }
+    }
+}
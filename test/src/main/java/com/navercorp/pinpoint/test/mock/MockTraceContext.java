@@ -60,6 +60,11 @@ public class MockTraceContext implements TraceContext {
         return trace;
     }
 
+    @Override
+    public Trace newTraceObject(String entryPoint) {
+        return trace;
+    }
+
     @Override
     public void detachTraceObject() {
         trace = null;
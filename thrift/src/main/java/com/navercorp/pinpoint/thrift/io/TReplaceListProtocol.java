@@ -19,6 +19,7 @@ package com.navercorp.pinpoint.thrift.io;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +32,8 @@ import org.apache.thrift.protocol.TMessage;
 import org.apache.thrift.protocol.TProtocol;
 import org.apache.thrift.protocol.TSet;
 import org.apache.thrift.protocol.TStruct;
+import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportException;
 
 /**
  * Replace list field protocol.
@@ -41,7 +44,7 @@ public class TReplaceListProtocol extends TProtocol {
 
     private boolean writeFieldBegin = false;
     private int writeListDepth = 0;
-    private Map<String, List<ByteArrayOutput>> replaceFields = new HashMap<String, List<ByteArrayOutput>>();
+    private Map<String, ReplaceField> replaceFields = new HashMap<String, ReplaceField>();
     private TField currentField = null;
     private TProtocol protocol;
 
@@ -59,7 +62,22 @@ public class TReplaceListProtocol extends TProtocol {
             throw new IllegalArgumentException("stream nodes must not be empty");
         }
 
-        replaceFields.put(fieldName, outputs);
+        replaceFields.put(fieldName, new ReplaceField(outputs, outputs.size()));
+    }
+
+    /**
+     * replace the list field with a single output holding <code>size</code> serialized elements.
+     */
+    public void addReplaceField(final String fieldName, ByteArrayOutput output, int size) {
+        if (fieldName == null) {
+            throw new IllegalArgumentException("field name must not be null");
+        }
+
+        if (output == null) {
+            throw new IllegalArgumentException("output must not be null");
+        }
+
+        replaceFields.put(fieldName, new ReplaceField(Collections.singletonList(output), size));
     }
 
     @Override
@@ -91,16 +109,16 @@ public class TReplaceListProtocol extends TProtocol {
         }
 
         if (writeListDepth == 0 && currentField != null) {
-            List<ByteArrayOutput> outputs = replaceFields.get(currentField.name);
-            if (outputs == null) {
+            final ReplaceField replaceField = replaceFields.get(currentField.name);
+            if (replaceField == null) {
                 throw new TException("not found replace field - " + currentField.name);
             }
 
-            final TList replaceList = new TList(list.elemType, outputs.size());
+            final TList replaceList = new TList(list.elemType, replaceField.size);
             protocol.writeListBegin(replaceList);
-            for (ByteArrayOutput output : outputs) {
+            final OutputStream out = getOutputStream();
+            for (ByteArrayOutput output : replaceField.outputs) {
                 try {
-                    final OutputStream out = ((ByteArrayOutputStreamTransport) getTransport()).getByteArrayOutputStream();
                     output.writeTo(out);
                 } catch (IOException e) {
                     throw new TException(e);
@@ -111,6 +129,14 @@ public class TReplaceListProtocol extends TProtocol {
         writeListDepth++;
     }
 
+    private OutputStream getOutputStream() {
+        final TTransport transport = getTransport();
+        if (transport instanceof ByteArrayOutputStreamTransport) {
+            return ((ByteArrayOutputStreamTransport) transport).getByteArrayOutputStream();
+        }
+        return new TransportOutputStream(transport);
+    }
+
     @Override
     public void writeListEnd() throws TException {
         if (!writeFieldBegin) {
@@ -343,4 +369,36 @@ public class TReplaceListProtocol extends TProtocol {
     public void readStructEnd() throws TException {
         throw new TException("unsupported operation");
     }
+
+    private static class ReplaceField {
+        private final List<ByteArrayOutput> outputs;
+        private final int size;
+
+        private ReplaceField(List<ByteArrayOutput> outputs, int size) {
+            this.outputs = outputs;
+            this.size = size;
+        }
+    }
+
+    private static class TransportOutputStream extends OutputStream {
+        private final TTransport transport;
+
+        private TransportOutputStream(TTransport transport) {
+            this.transport = transport;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            try {
+                transport.write(b, off, len);
+            } catch (TTransportException e) {
+                throw new IOException(e);
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.transport.TIOStreamTransport;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -84,4 +85,21 @@ public class ReplaceListCompactProtocolTest {
         span.write(protocol02);
         assertEquals(1, writeTo02.get());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void replaceSingleOutput() throws Exception {
+        final AtomicInteger writeTo = new AtomicInteger(0);
+        ByteArrayOutput output = new ByteArrayOutput() {
+            public void writeTo(OutputStream out) throws IOException {
+                writeTo.incrementAndGet();
+            }
+        };
+
+        // not a ByteArrayOutputStreamTransport
+        TIOStreamTransport transport = new TIOStreamTransport(new ByteArrayOutputStream());
+        TReplaceListProtocol protocol = new TReplaceListProtocol(new TCompactProtocol(transport));
+        protocol.addReplaceField("spanEventList", output, 3);
+        span.write(protocol);
+        assertEquals(1, writeTo.get());
+    }
+}
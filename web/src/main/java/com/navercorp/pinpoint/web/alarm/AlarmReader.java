@@ -49,6 +49,9 @@ public class AlarmReader implements ItemReader<AlarmChecker>, StepExecutionListe
     
     @Autowired
     private AlarmResourceDao alarmResourceDao;
+
+    @Autowired(required=false)
+    private StreamingAlarmEvaluator streamingAlarmEvaluator;
     
     private final Queue<AlarmChecker> checkers = new LinkedList<AlarmChecker>();
 
@@ -60,6 +63,11 @@ public class AlarmReader implements ItemReader<AlarmChecker>, StepExecutionListe
         this.applicationIndexDao = applicationIndexDao;
         this.alarmResourceDao = alarmResourceDao;
     }
+
+    protected AlarmReader(DataCollectorFactory dataCollectorFactory, ApplicationIndexDao applicationIndexDao, AlarmResourceDao alarmResourceDao, StreamingAlarmEvaluator streamingAlarmEvaluator) {
+        this(dataCollectorFactory, applicationIndexDao, alarmResourceDao);
+        this.streamingAlarmEvaluator = streamingAlarmEvaluator;
+    }
     
     public AlarmChecker read() {
         return checkers.poll();
@@ -87,6 +95,10 @@ public class AlarmReader implements ItemReader<AlarmChecker>, StepExecutionListe
     }
 
     private void addChecker(Application application) {
+        if (streamingAlarmEvaluator != null && streamingAlarmEvaluator.isEvaluated(application.getName())) {
+            // checked against the alarm windows of the collectors
+            return;
+        }
         List<Rule> rules = alarmResourceDao.selectAppRule(application.getName());
         long timeSlotEndTime = System.currentTimeMillis();
         Map<DataCollectorCategory, DataCollector> collectorMap = new HashMap<DataCollectorCategory, DataCollector>();
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.alarm;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.navercorp.pinpoint.common.bo.AlarmWindowBo;
+
+/**
+ * keeps the last alarm window sent by each collector.
+ *
+ * @author agent
+ */
+public class AlarmWindowRepository {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    // 3 times collector.alarm.publishInterval
+    private long staleMillis = 30 * 1000;
+
+    private final ConcurrentMap<String, Entry> windowMap = new ConcurrentHashMap<String, Entry>();
+
+    public void setStaleMillis(long staleMillis) {
+        this.staleMillis = staleMillis;
+    }
+
+    public void update(String collectorId, AlarmWindowBo alarmWindow) {
+        if (collectorId == null) {
+            throw new NullPointerException("collectorId must not be null");
+        }
+        if (alarmWindow == null) {
+            throw new NullPointerException("alarmWindow must not be null");
+        }
+        windowMap.put(collectorId, new Entry(alarmWindow, System.currentTimeMillis()));
+    }
+
+    /**
+     * merges the windows of the collectors.
+     *
+     * @return null unless every collector sent a complete window within staleMillis. the rules can not be checked against part of the traffic.
+     */
+    public AlarmWindowBo getMergedWindow(Collection<String> collectorIds, long now) {
+        if (collectorIds == null) {
+            throw new NullPointerException("collectorIds must not be null");
+        }
+        evictStale(now);
+        if (collectorIds.isEmpty()) {
+            return null;
+        }
+        AlarmWindowBo mergedWindow = null;
+        for (String collectorId : collectorIds) {
+            final Entry entry = windowMap.get(collectorId);
+            if (entry == null) {
+                logger.debug("no alarm window of collector:{}", collectorId);
+                return null;
+            }
+            final AlarmWindowBo alarmWindow = entry.alarmWindow;
+            if (!alarmWindow.isComplete()) {
+                logger.debug("alarm window of collector:{} is not complete yet", collectorId);
+                return null;
+            }
+            if (mergedWindow == null) {
+                mergedWindow = new AlarmWindowBo(now, alarmWindow.getWindowMillis(), alarmWindow.getStartTime());
+            }
+            mergedWindow.merge(alarmWindow);
+        }
+        return mergedWindow;
+    }
+
+    private void evictStale(long now) {
+        for (Map.Entry<String, Entry> entry : windowMap.entrySet()) {
+            if (now - entry.getValue().receivedTime > staleMillis) {
+                // the collector may have sent a new window in the meantime
+                windowMap.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private static class Entry {
+        private final AlarmWindowBo alarmWindow;
+        private final long receivedTime;
+
+        private Entry(AlarmWindowBo alarmWindow, long receivedTime) {
+            this.alarmWindow = alarmWindow;
+            this.receivedTime = receivedTime;
+        }
+    }
+}
@@ -30,6 +30,16 @@ public class AlarmWriter implements ItemWriter<AlarmChecker> {
     
     @Autowired(required=false)
     private AlarmMessageSender alarmMessageSender = new EmptyMessageSender();
+
+    public AlarmWriter() {
+    }
+
+    public AlarmWriter(AlarmMessageSender alarmMessageSender) {
+        if (alarmMessageSender == null) {
+            throw new NullPointerException("alarmMessageSender must not be null");
+        }
+        this.alarmMessageSender = alarmMessageSender;
+    }
     
     @Override
     public void write(List<? extends AlarmChecker> checkers) throws Exception {
@@ -19,10 +19,14 @@ package com.navercorp.pinpoint.web.alarm;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.navercorp.pinpoint.common.bo.AlarmWindowBo;
 import com.navercorp.pinpoint.web.alarm.collector.AgentStatDataCollector;
+import com.navercorp.pinpoint.web.alarm.collector.AgentStatWindowDataCollector;
 import com.navercorp.pinpoint.web.alarm.collector.DataCollector;
 import com.navercorp.pinpoint.web.alarm.collector.MapStatisticsCallerDataCollector;
+import com.navercorp.pinpoint.web.alarm.collector.MapStatisticsCallerWindowDataCollector;
 import com.navercorp.pinpoint.web.alarm.collector.ResponseTimeDataCollector;
+import com.navercorp.pinpoint.web.alarm.collector.ResponseTimeWindowDataCollector;
 import com.navercorp.pinpoint.web.dao.hbase.HbaseAgentStatDao;
 import com.navercorp.pinpoint.web.dao.hbase.HbaseApplicationIndexDao;
 import com.navercorp.pinpoint.web.dao.hbase.HbaseMapResponseTimeDao;
@@ -65,6 +69,22 @@ public class DataCollectorFactory {
 
     }
 
+    /**
+     * @param applicationWindow merged alarm window of the collectors. null if the application has no data in the window.
+     */
+    public DataCollector createDataCollector(CheckerCategory checker, Application application, AlarmWindowBo.ApplicationWindow applicationWindow) {
+        switch (checker.getDataCollectorCategory()) {
+        case RESPONSE_TIME:
+            return new ResponseTimeWindowDataCollector(DataCollectorCategory.RESPONSE_TIME, application, applicationWindow);
+        case AGENT_STAT:
+            return new AgentStatWindowDataCollector(DataCollectorCategory.AGENT_STAT, application, applicationWindow);
+        case CALLER_STAT:
+            return new MapStatisticsCallerWindowDataCollector(DataCollectorCategory.CALLER_STAT, application, applicationWindow);
+        }
+
+        throw new IllegalArgumentException("unable to create DataCollector : " + checker.getName());
+    }
+
     public enum DataCollectorCategory {
         RESPONSE_TIME,
         AGENT_STAT,
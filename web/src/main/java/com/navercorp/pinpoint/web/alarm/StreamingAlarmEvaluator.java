@@ -0,0 +1,241 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.alarm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.navercorp.pinpoint.common.bo.AlarmWindowBo;
+import com.navercorp.pinpoint.rpc.server.PinpointServer;
+import com.navercorp.pinpoint.web.alarm.DataCollectorFactory.DataCollectorCategory;
+import com.navercorp.pinpoint.web.alarm.checker.AlarmChecker;
+import com.navercorp.pinpoint.web.alarm.collector.DataCollector;
+import com.navercorp.pinpoint.web.alarm.vo.Rule;
+import com.navercorp.pinpoint.web.dao.AlarmResourceDao;
+import com.navercorp.pinpoint.web.dao.ApplicationIndexDao;
+import com.navercorp.pinpoint.web.server.PinpointSocketManager;
+import com.navercorp.pinpoint.web.vo.Application;
+
+/**
+ * checks the alarm rules against the merged alarm windows of all collectors, instead of scanning hbase in the alarm batch.
+ * runs on the batch server only. while every connected collector sends complete windows,
+ * {@link AlarmReader} skips the applications checked here. otherwise the alarm batch checks them as before.
+ * <p>
+ * the checkers are the ones of the alarm batch. a detected rule is sent when it is detected,
+ * and again every renotifyInterval as long as it stays detected.
+ *
+ * @author agent
+ */
+public class StreamingAlarmEvaluator {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private DataCollectorFactory dataCollectorFactory;
+
+    @Autowired
+    private ApplicationIndexDao applicationIndexDao;
+
+    @Autowired
+    private AlarmResourceDao alarmResourceDao;
+
+    @Autowired
+    private AlarmWindowRepository alarmWindowRepository;
+
+    @Autowired
+    private PinpointSocketManager pinpointSocketManager;
+
+    @Autowired(required=false)
+    private AlarmMessageSender alarmMessageSender = new EmptyMessageSender();
+
+    private boolean enable = false;
+    private long ruleRefreshInterval = 60 * 1000;
+    private long renotifyInterval = 2 * 60 * 1000;
+    // the alarm batch takes over the applications when no evaluation succeeded for this long
+    private long evaluatedTimeout = 60 * 1000;
+
+    // accessed by the scheduler thread only
+    private Map<String, Application> applicationMap = Collections.emptyMap();
+    private Map<String, List<Rule>> ruleMap = Collections.emptyMap();
+    private long lastRuleRefreshTime = -1;
+    private final Map<String, Long> notifiedTimeMap = new HashMap<String, Long>();
+
+    private volatile Set<String> evaluatedApplications = Collections.emptySet();
+    private volatile long lastEvaluatedTime = -1;
+
+    public StreamingAlarmEvaluator() {
+    }
+
+    protected StreamingAlarmEvaluator(DataCollectorFactory dataCollectorFactory, ApplicationIndexDao applicationIndexDao, AlarmResourceDao alarmResourceDao, AlarmMessageSender alarmMessageSender) {
+        this.dataCollectorFactory = dataCollectorFactory;
+        this.applicationIndexDao = applicationIndexDao;
+        this.alarmResourceDao = alarmResourceDao;
+        this.alarmMessageSender = alarmMessageSender;
+    }
+
+    public void setEnable(boolean enable) {
+        this.enable = enable;
+    }
+
+    public void setRuleRefreshInterval(long ruleRefreshInterval) {
+        this.ruleRefreshInterval = ruleRefreshInterval;
+    }
+
+    public void setRenotifyInterval(long renotifyInterval) {
+        this.renotifyInterval = renotifyInterval;
+    }
+
+    public void setEvaluatedTimeout(long evaluatedTimeout) {
+        this.evaluatedTimeout = evaluatedTimeout;
+    }
+
+    /**
+     * @return true if the rules of the application were checked recently. the alarm batch does not need to check them.
+     */
+    public boolean isEvaluated(String applicationName) {
+        if (!enable) {
+            return false;
+        }
+        if (System.currentTimeMillis() - lastEvaluatedTime > evaluatedTimeout) {
+            return false;
+        }
+        return evaluatedApplications.contains(applicationName);
+    }
+
+    public void evaluate() {
+        if (!enable) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        final AlarmWindowBo mergedWindow = alarmWindowRepository.getMergedWindow(getCollectorIdList(), now);
+        if (mergedWindow == null) {
+            logger.debug("no complete alarm window of all collectors. the alarm batch checks the rules.");
+            return;
+        }
+        evaluate(mergedWindow, now);
+    }
+
+    private List<String> getCollectorIdList() {
+        final List<PinpointServer> collectorList = pinpointSocketManager.getCollectorList();
+        final List<String> collectorIdList = new ArrayList<String>(collectorList.size());
+        for (PinpointServer collector : collectorList) {
+            final Object id = collector.getChannelProperties().get("id");
+            if (id != null) {
+                collectorIdList.add(id.toString());
+            }
+        }
+        return collectorIdList;
+    }
+
+    void evaluate(AlarmWindowBo mergedWindow, long now) {
+        refreshRules(now);
+
+        final List<AlarmChecker> notifyCheckers = new ArrayList<AlarmChecker>();
+        final Set<String> detectedKeys = new HashSet<String>();
+        for (Map.Entry<String, Application> entry : applicationMap.entrySet()) {
+            final List<Rule> rules = ruleMap.get(entry.getKey());
+            if (rules == null || rules.isEmpty()) {
+                continue;
+            }
+            final AlarmWindowBo.ApplicationWindow applicationWindow = mergedWindow.findApplicationWindow(entry.getKey());
+            for (AlarmChecker checker : createCheckers(entry.getValue(), applicationWindow, rules)) {
+                checker.check();
+                if (!checker.isDetected()) {
+                    continue;
+                }
+                final String key = getNotifyKey(checker.getRule());
+                detectedKeys.add(key);
+                final Long notifiedTime = notifiedTimeMap.get(key);
+                if (notifiedTime == null || now - notifiedTime >= renotifyInterval) {
+                    notifiedTimeMap.put(key, now);
+                    notifyCheckers.add(checker);
+                }
+            }
+        }
+        // a recovered rule is sent right away when it is detected again
+        notifiedTimeMap.keySet().retainAll(detectedKeys);
+
+        this.evaluatedApplications = Collections.unmodifiableSet(new HashSet<String>(applicationMap.keySet()));
+        this.lastEvaluatedTime = now;
+
+        try {
+            new AlarmWriter(alarmMessageSender).write(notifyCheckers);
+        } catch (Exception e) {
+            logger.warn("alarm send failed. Caused:{}", e.getMessage(), e);
+        }
+    }
+
+    private List<AlarmChecker> createCheckers(Application application, AlarmWindowBo.ApplicationWindow applicationWindow, List<Rule> rules) {
+        final List<AlarmChecker> checkers = new ArrayList<AlarmChecker>(rules.size());
+        final Map<DataCollectorCategory, DataCollector> collectorMap = new HashMap<DataCollectorCategory, DataCollector>();
+        for (Rule rule : rules) {
+            final CheckerCategory checkerCategory = CheckerCategory.getValue(rule.getCheckerName());
+            if (checkerCategory == null) {
+                logger.warn("unknown checker:{} rule of application:{}", rule.getCheckerName(), rule.getApplicationId());
+                continue;
+            }
+            DataCollector collector = collectorMap.get(checkerCategory.getDataCollectorCategory());
+            if (collector == null) {
+                collector = dataCollectorFactory.createDataCollector(checkerCategory, application, applicationWindow);
+                collectorMap.put(collector.getDataCollectorCategory(), collector);
+            }
+            checkers.add(checkerCategory.createChecker(collector, rule));
+        }
+        return checkers;
+    }
+
+    private void refreshRules(long now) {
+        if (lastRuleRefreshTime != -1 && now - lastRuleRefreshTime < ruleRefreshInterval) {
+            return;
+        }
+        try {
+            final Map<String, Application> applicationMap = new LinkedHashMap<String, Application>();
+            for (Application application : applicationIndexDao.selectAllApplicationNames()) {
+                if (!applicationMap.containsKey(application.getName())) {
+                    applicationMap.put(application.getName(), application);
+                }
+            }
+            final Map<String, List<Rule>> ruleMap = new HashMap<String, List<Rule>>();
+            for (String applicationName : applicationMap.keySet()) {
+                ruleMap.put(applicationName, alarmResourceDao.selectAppRule(applicationName));
+            }
+            this.applicationMap = applicationMap;
+            this.ruleMap = ruleMap;
+            this.lastRuleRefreshTime = now;
+        } catch (Exception e) {
+            // keep checking the previous rules
+            logger.warn("alarm rule refresh failed. Caused:{}", e.getMessage(), e);
+        }
+    }
+
+    private String getNotifyKey(Rule rule) {
+        final StringBuilder sb = new StringBuilder(64);
+        sb.append(rule.getApplicationId()).append('|').append(rule.getCheckerName()).append('|').append(rule.getThreshold());
+        sb.append('|').append(rule.getEmpGroup()).append('|').append(rule.getNotes());
+        return sb.toString();
+    }
+}
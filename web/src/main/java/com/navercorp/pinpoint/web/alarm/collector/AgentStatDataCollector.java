@@ -53,12 +53,25 @@ public class AgentStatDataCollector extends DataCollector {
         this.slotInterval = slotInterval;
     }
 
+    /**
+     * for the collectors reading somewhere else than hbase. they override {@link #readAgentStat()}.
+     */
+    protected AgentStatDataCollector(DataCollectorCategory category, Application application) {
+        this(category, application, null, null, 0, 0);
+    }
+
     @Override
     public void collect() {
         if (init.get()) {
             return;
         }
 
+        readAgentStat();
+
+        init.set(true);
+    }
+
+    protected void readAgentStat() {
         Range range = Range.createUncheckedRange(timeSlotEndTime - slotInterval, timeSlotEndTime);
         List<String> agentIds = applicationIndexDao.selectAgentIds(application.getName());
 
@@ -77,21 +90,25 @@ public class AgentStatDataCollector extends DataCollector {
             }
 
             if(listSize > 0) {
-                long percent = calculatePercent(usedHeapSize, totalHeapSize);
-                agentHeapUsageRate.put(agentId, percent);
-
-                percent = calculatePercent(jvmCpuUsaged, 100*scanAgentStatList.size());
-                agentJvmCpuUsageRate.put(agentId, percent);
-
                 long accruedLastGCcount = scanAgentStatList.get(0).getMemoryGc().getJvmGcOldCount();
                 long accruedFirstGCcount= scanAgentStatList.get(listSize - 1).getMemoryGc().getJvmGcOldCount();
-                agentGcCount.put(agentId, accruedLastGCcount - accruedFirstGCcount);
+                add(agentId, usedHeapSize, totalHeapSize, jvmCpuUsaged, listSize, accruedLastGCcount - accruedFirstGCcount);
             }
 
         }
+    }
 
-        init.set(true);
+    /**
+     * @param jvmCpuUsaged sum of the jvm cpu load * 100 of jvmCpuSampleCount samples
+     */
+    protected void add(String agentId, long usedHeapSize, long totalHeapSize, long jvmCpuUsaged, long jvmCpuSampleCount, long gcCount) {
+        long percent = calculatePercent(usedHeapSize, totalHeapSize);
+        agentHeapUsageRate.put(agentId, percent);
+
+        percent = calculatePercent(jvmCpuUsaged, 100 * jvmCpuSampleCount);
+        agentJvmCpuUsageRate.put(agentId, percent);
 
+        agentGcCount.put(agentId, gcCount);
     }
 
     private long calculatePercent(long used, long total) {
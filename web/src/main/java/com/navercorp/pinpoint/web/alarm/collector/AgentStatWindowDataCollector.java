@@ -0,0 +1,52 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.alarm.collector;
+
+import java.util.Map;
+
+import com.navercorp.pinpoint.common.bo.AlarmWindowBo;
+import com.navercorp.pinpoint.web.alarm.DataCollectorFactory.DataCollectorCategory;
+import com.navercorp.pinpoint.web.vo.Application;
+
+/**
+ * reads the agent stats from the alarm windows sent by the collectors instead of AGENT_STAT.
+ *
+ * @author agent
+ */
+public class AgentStatWindowDataCollector extends AgentStatDataCollector {
+
+    private final AlarmWindowBo.ApplicationWindow applicationWindow;
+
+    /**
+     * @param applicationWindow null if the application has no data in the window
+     */
+    public AgentStatWindowDataCollector(DataCollectorCategory category, Application application, AlarmWindowBo.ApplicationWindow applicationWindow) {
+        super(category, application);
+        this.applicationWindow = applicationWindow;
+    }
+
+    @Override
+    protected void readAgentStat() {
+        if (applicationWindow == null) {
+            return;
+        }
+        for (Map.Entry<String, AlarmWindowBo.AgentStat> entry : applicationWindow.getAgentStatMap().entrySet()) {
+            final AlarmWindowBo.AgentStat agentStat = entry.getValue();
+            add(entry.getKey(), agentStat.getHeapUsed(), agentStat.getHeapMax(), agentStat.getJvmCpuUsage(), agentStat.getJvmCpuSampleCount(), agentStat.getGcOldCount());
+        }
+    }
+}
@@ -39,7 +39,7 @@ public class MapStatisticsCallerDataCollector extends DataCollector {
     private MapStatisticsCallerDao mapStatisticsCallerDao;
     private long timeSlotEndTime;
     private long slotInterval;
-    private Map<String, LinkCallData> calleStatMap = new HashMap<String, LinkCallData>();
+    private Map<String, CalleCount> calleStatMap = new HashMap<String, CalleCount>();
     private final AtomicBoolean init =new AtomicBoolean(false); // need to consider a trace condition when checkers start simultaneously.
 
     public MapStatisticsCallerDataCollector(DataCollectorCategory category, Application application, MapStatisticsCallerDao mapStatisticsCallerDao, long timeSlotEndTime, long slotInterval) {
@@ -50,82 +50,80 @@ public class MapStatisticsCallerDataCollector extends DataCollector {
         this.slotInterval = slotInterval;
     }
 
+    /**
+     * for the collectors reading somewhere else than hbase. they override {@link #readCallerStat()}.
+     */
+    protected MapStatisticsCallerDataCollector(DataCollectorCategory category, Application application) {
+        this(category, application, null, 0, 0);
+    }
+
     @Override
     public void collect() {
         if (init.get()) {
             return;
         }
 
+        readCallerStat();
+
+        init.set(true);
+    }
+
+    protected void readCallerStat() {
         LinkDataMap callerDataMap = mapStatisticsCallerDao.selectCaller(application, new Range(timeSlotEndTime - slotInterval, timeSlotEndTime));
 
         for (LinkData linkData : callerDataMap.getLinkDataList()) {
             LinkCallDataMap linkCallDataMap = linkData.getLinkCallDataMap();
 
             for (LinkCallData linkCallData : linkCallDataMap.getLinkDataList()) {
-                calleStatMap.put(linkCallData.getTarget(), linkCallData);
+                for (TimeHistogram timeHistogram : linkCallData.getTimeHistogram()) {
+                    add(linkCallData.getTarget(), timeHistogram.getSlowCount() + timeHistogram.getVerySlowCount(), timeHistogram.getErrorCount(), timeHistogram.getTotalCount());
+                }
             }
         }
+    }
 
-        init.set(true);
+    protected void add(String calleName, long slowCount, long errorCount, long totalCount) {
+        CalleCount calleCount = calleStatMap.get(calleName);
+        if (calleCount == null) {
+            calleCount = new CalleCount();
+            calleStatMap.put(calleName, calleCount);
+        }
+        calleCount.slowCount += slowCount;
+        calleCount.errorCount += errorCount;
+        calleCount.totalCount += totalCount;
     }
 
     public long getCount(String calleName, DataCategory dataCategory) {
-        LinkCallData linkCallData = calleStatMap.get(calleName);
-        long count = 0;
+        CalleCount calleCount = calleStatMap.get(calleName);
 
-        if (linkCallData != null) {
+        if (calleCount != null) {
             switch (dataCategory) {
             case SLOW_COUNT:
-                for (TimeHistogram timeHistogram : linkCallData.getTimeHistogram()) {
-                    count += timeHistogram.getSlowCount();
-                    count += timeHistogram.getVerySlowCount();
-                }
-                break;
+                return calleCount.slowCount;
             case ERROR_COUNT:
-                for (TimeHistogram timeHistogram : linkCallData.getTimeHistogram()) {
-                    count += timeHistogram.getErrorCount();
-                }
-                break;
+                return calleCount.errorCount;
             case TOTAL_COUNT:
-                for (TimeHistogram timeHistogram : linkCallData.getTimeHistogram()) {
-                    count += timeHistogram.getTotalCount();
-                }
-                break;
+                return calleCount.totalCount;
             default :
                 throw new IllegalArgumentException("Can't count for " + dataCategory.toString());
             }
-
-            return count;
         }
 
         return 0;
     }
 
     public long getCountRate(String calleName, DataCategory dataCategory) {
-        LinkCallData linkCallData = calleStatMap.get(calleName);
-        long count = 0;
-        long totalCount = 0;
+        CalleCount calleCount = calleStatMap.get(calleName);
 
-        if (linkCallData != null) {
+        if (calleCount != null) {
             switch (dataCategory) {
             case SLOW_RATE:
-                for (TimeHistogram timeHistogram : linkCallData.getTimeHistogram()) {
-                    count += timeHistogram.getSlowCount();
-                    count += timeHistogram.getVerySlowCount();
-                    totalCount += timeHistogram.getTotalCount();
-                }
-                break;
+                return calculatePercent(calleCount.slowCount, calleCount.totalCount);
             case ERROR_RATE:
-                for (TimeHistogram timeHistogram : linkCallData.getTimeHistogram()) {
-                    count += timeHistogram.getErrorCount();
-                    totalCount += timeHistogram.getTotalCount();
-                }
-                break;
+                return calculatePercent(calleCount.errorCount, calleCount.totalCount);
             default :
                 throw new IllegalArgumentException("Can't calculate rate for " + dataCategory.toString());
             }
-
-            return calculatePercent(count, totalCount);
         }
 
         return 0;
@@ -143,4 +141,10 @@ public class MapStatisticsCallerDataCollector extends DataCollector {
         SLOW_COUNT, ERROR_COUNT, TOTAL_COUNT,
         SLOW_RATE, ERROR_RATE
     }
+
+    private static class CalleCount {
+        private long slowCount;
+        private long errorCount;
+        private long totalCount;
+    }
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.alarm.collector;
+
+import java.util.Map;
+
+import com.navercorp.pinpoint.common.bo.AlarmWindowBo;
+import com.navercorp.pinpoint.web.alarm.DataCollectorFactory.DataCollectorCategory;
+import com.navercorp.pinpoint.web.vo.Application;
+
+/**
+ * reads the callee counts from the alarm windows sent by the collectors instead of MAP_STATISTICS_CALLER.
+ *
+ * @author agent
+ */
+public class MapStatisticsCallerWindowDataCollector extends MapStatisticsCallerDataCollector {
+
+    private final AlarmWindowBo.ApplicationWindow applicationWindow;
+
+    /**
+     * @param applicationWindow null if the application has no data in the window
+     */
+    public MapStatisticsCallerWindowDataCollector(DataCollectorCategory category, Application application, AlarmWindowBo.ApplicationWindow applicationWindow) {
+        super(category, application);
+        this.applicationWindow = applicationWindow;
+    }
+
+    @Override
+    protected void readCallerStat() {
+        if (applicationWindow == null) {
+            return;
+        }
+        for (Map.Entry<String, AlarmWindowBo.Count> entry : applicationWindow.getCalleeMap().entrySet()) {
+            final AlarmWindowBo.Count count = entry.getValue();
+            add(entry.getKey(), count.getSlowCount(), count.getErrorCount(), count.getTotalCount());
+        }
+    }
+}
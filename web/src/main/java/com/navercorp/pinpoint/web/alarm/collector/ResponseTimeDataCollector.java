@@ -52,18 +52,20 @@ public class ResponseTimeDataCollector extends DataCollector {
         this.slotInterval = slotInterval;
     }
 
+    /**
+     * for the collectors reading somewhere else than hbase. they override {@link #readResponseTime()}.
+     */
+    protected ResponseTimeDataCollector(DataCollectorCategory category, Application application) {
+        this(category, application, null, 0, 0);
+    }
+
     @Override
     public void collect() {
         if (init.get()) {
             return;
         }
 
-        Range range = Range.createUncheckedRange(timeSlotEndTime - slotInterval, timeSlotEndTime);
-        List<ResponseTime> responseTimes = responseDao.selectResponseTime(application, range);
-
-        for (ResponseTime responseTime : responseTimes) {
-            sum(responseTime.getAgentResponseHistogramList());
-        }
+        readResponseTime();
 
         setSlowRate();
         setErrorRate();
@@ -87,15 +89,27 @@ public class ResponseTimeDataCollector extends DataCollector {
         }
     }
 
+    protected void readResponseTime() {
+        Range range = Range.createUncheckedRange(timeSlotEndTime - slotInterval, timeSlotEndTime);
+        List<ResponseTime> responseTimes = responseDao.selectResponseTime(application, range);
+
+        for (ResponseTime responseTime : responseTimes) {
+            sum(responseTime.getAgentResponseHistogramList());
+        }
+    }
+
     private void sum(Collection<TimeHistogram> timeHistograms) {
         for (TimeHistogram timeHistogram : timeHistograms) {
-            slowCount += timeHistogram.getSlowCount();
-            slowCount += timeHistogram.getVerySlowCount();
-            errorCount += timeHistogram.getErrorCount();
-            totalCount += timeHistogram.getTotalCount();
+            add(timeHistogram.getSlowCount() + timeHistogram.getVerySlowCount(), timeHistogram.getErrorCount(), timeHistogram.getTotalCount());
         }
     }
 
+    protected void add(long slowCount, long errorCount, long totalCount) {
+        this.slowCount += slowCount;
+        this.errorCount += errorCount;
+        this.totalCount += totalCount;
+    }
+
     public long getSlowCount() {
         return slowCount;
     }
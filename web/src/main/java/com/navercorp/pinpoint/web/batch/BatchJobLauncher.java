@@ -20,13 +20,27 @@ import java.util.Date;
 
 import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.navercorp.pinpoint.web.alarm.StreamingAlarmEvaluator;
 
 public class BatchJobLauncher extends JobLaunchSupport {
+
+    @Autowired(required=false)
+    private StreamingAlarmEvaluator streamingAlarmEvaluator;
+
     public void alarmJob() {
         JobParameters params = createTimeParameter();
         run("alarmJob", params);
     }
 
+    public void streamingAlarm() {
+        if (streamingAlarmEvaluator == null || !decisionBatchServer()) {
+            return;
+        }
+        streamingAlarmEvaluator.evaluate();
+    }
+
     private JobParameters createTimeParameter() {
         JobParametersBuilder builder = new JobParametersBuilder();
         Date now = new Date();
@@ -60,7 +60,7 @@ public class JobLaunchSupport implements InitializingBean {
         }
     }
 
-    private boolean decisionBatchServer() {
+    protected boolean decisionBatchServer() {
         Enumeration<NetworkInterface> interfaces;
 
         try {
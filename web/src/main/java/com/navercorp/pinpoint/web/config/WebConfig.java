@@ -45,6 +45,18 @@ public class WebConfig {
     @Value("#{pinpointWebProps['cluster.zookeeper.retry.interval'] ?: 60000}")
     private int clusterZookeeperRetryInterval;
 
+    @Value("#{pinpointWebProps['web.servermap.selector.thread'] ?: 16}")
+    private int serverMapSelectorThreadSize;
+
+    @Value("#{pinpointWebProps['web.servermap.selector.queueSize'] ?: 1024}")
+    private int serverMapSelectorQueueSize;
+
+    @Value("#{pinpointWebProps['web.servermap.selector.maxDepth'] ?: -1}")
+    private int serverMapMaxDepth;
+
+    @Value("#{pinpointWebProps['web.servermap.selector.timeBudget'] ?: -1}")
+    private long serverMapTimeBudget;
+
     @PostConstruct
     public void validation() {
         if (isClusterEnable()) {
@@ -55,6 +67,8 @@ public class WebConfig {
             assertPositiveNumber(clusterZookeeperSessionTimeout);
             assertPositiveNumber(clusterZookeeperRetryInterval);
         }
+        assertPositiveNumber(serverMapSelectorThreadSize);
+        assertPositiveNumber(serverMapSelectorQueueSize);
 
         logger.info("{}", toString());
     }
@@ -91,13 +105,33 @@ public class WebConfig {
         return clusterZookeeperSessionTimeout;
     }
 
+    public int getServerMapSelectorThreadSize() {
+        return serverMapSelectorThreadSize;
+    }
+
+    public int getServerMapSelectorQueueSize() {
+        return serverMapSelectorQueueSize;
+    }
+
+    public int getServerMapMaxDepth() {
+        return serverMapMaxDepth;
+    }
+
+    public long getServerMapTimeBudget() {
+        return serverMapTimeBudget;
+    }
+
     @Override
     public String toString() {
         return "WebConfig [clusterEnable=" + clusterEnable
                 + ", clusterTcpPort=" + clusterTcpPort
                 + ", clusterZookeeperAddress=" + clusterZookeeperAddress
                 + ", clusterZookeeperSessionTimeout="
-                + clusterZookeeperSessionTimeout + "]";
+                + clusterZookeeperSessionTimeout
+                + ", serverMapSelectorThreadSize=" + serverMapSelectorThreadSize
+                + ", serverMapSelectorQueueSize=" + serverMapSelectorQueueSize
+                + ", serverMapMaxDepth=" + serverMapMaxDepth
+                + ", serverMapTimeBudget=" + serverMapTimeBudget + "]";
     }
 
     public int getClusterZookeeperRetryInterval() {
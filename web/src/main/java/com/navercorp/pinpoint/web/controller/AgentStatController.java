@@ -17,6 +17,8 @@
 package com.navercorp.pinpoint.web.controller;
 
 
+import com.navercorp.pinpoint.common.bo.AgentStatResolution;
+import com.navercorp.pinpoint.common.bo.AgentStatRollupBo;
 import com.navercorp.pinpoint.web.applicationmap.link.MatcherGroup;
 import com.navercorp.pinpoint.web.service.AgentInfoService;
 import com.navercorp.pinpoint.web.service.AgentStatService;
@@ -69,11 +71,20 @@ public class AgentStatController {
         long scanFrom = timeWindow.getWindowRange().getFrom();
         long scanTo = timeWindow.getWindowRange().getTo() + timeWindow.getWindowSlotSize();
         Range rangeToScan = new Range(scanFrom, scanTo);
-        List<AgentStat> agentStatList = agentStatService.selectAgentStatList(agentId, rangeToScan);
+        // wide ranges are read from the coarsest rollup table whose window still fits into a time slot
+        AgentStatResolution resolution = AgentStatResolution.select(timeWindow.getWindowSlotSize());
+        AgentStatChartGroup chartGroup = new AgentStatChartGroup(timeWindow);
+        if (resolution.isRollup()) {
+            List<AgentStatRollupBo> agentStatRollupList = agentStatService.selectAgentStatRollupList(agentId, rangeToScan, resolution);
+            chartGroup.addAgentStatRollups(agentStatRollupList);
+        } else {
+            List<AgentStat> agentStatList = agentStatService.selectAgentStatList(agentId, rangeToScan);
+            chartGroup.addAgentStats(agentStatList);
+        }
         watch.stop();
 
         if (logger.isInfoEnabled()) {
-            logger.info("getAgentStat(agentId={}, from={}, to={}) : {}ms", agentId, from, to, watch.getLastTaskTimeMillis());
+            logger.info("getAgentStat(agentId={}, from={}, to={}, resolution={}) : {}ms", agentId, from, to, resolution, watch.getLastTaskTimeMillis());
         }
 
         // FIXME dummy
@@ -82,8 +93,6 @@ public class AgentStatController {
 //            sampleRate = nPoints < 300 ? 1 : nPoints / 300;
 //        }
 
-        AgentStatChartGroup chartGroup = new AgentStatChartGroup(timeWindow);
-        chartGroup.addAgentStats(agentStatList);
         chartGroup.buildCharts();
 
         return chartGroup;
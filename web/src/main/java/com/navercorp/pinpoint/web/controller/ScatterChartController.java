@@ -16,6 +16,7 @@
 
 package com.navercorp.pinpoint.web.controller;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -31,6 +32,7 @@ import com.navercorp.pinpoint.web.service.FilteredMapService;
 import com.navercorp.pinpoint.web.service.ScatterChartService;
 import com.navercorp.pinpoint.web.util.LimitUtils;
 import com.navercorp.pinpoint.web.util.TimeUtils;
+import com.navercorp.pinpoint.web.view.ScatterChunkWriter;
 import com.navercorp.pinpoint.web.vo.*;
 import com.navercorp.pinpoint.web.vo.scatter.Dot;
 import com.navercorp.pinpoint.web.vo.scatter.ScatterIndex;
@@ -140,6 +142,35 @@ public class ScatterChartController {
         return mv;
     }
 
+    /**
+     * streaming version of getScatterData.
+     * the dots are written newest first in columnar json chunks while the index is scanned, see {@link ScatterChunkWriter}.
+     * filters are not supported as they need the whole transaction list.
+     */
+    @RequestMapping(value = "/getScatterDataStream", method = RequestMethod.GET)
+    public void getScatterDataStream(HttpServletResponse response,
+                                @RequestParam("application") String applicationName,
+                                @RequestParam("from") long from,
+                                @RequestParam("to") long to,
+                                @RequestParam("limit") int limit) throws IOException {
+        limit = LimitUtils.checkRange(limit);
+
+        StopWatch watch = new StopWatch();
+        watch.start("selectScatterDataStream");
+
+        final Range range = Range.createUncheckedRange(from, to);
+        logger.debug("stream scatter data. {}, LIMIT={}", range, limit);
+
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        final ScatterChunkWriter writer = new ScatterChunkWriter(response.getOutputStream());
+        scatter.selectScatterData(applicationName, range, limit, writer);
+        writer.finish(range.getTo());
+
+        watch.stop();
+        logger.info("Stream scatterData time : {}ms, count:{}", watch.getLastTaskTimeMillis(), writer.getCount());
+    }
+
     private ModelAndView selectFilterScatterDataData(String applicationName, Range range, String filterText, int limit, String jsonpCallback) {
 
         final LimitedScanResult<List<TransactionId>> limitedScanResult = flow.selectTraceIdsFromApplicationTraceIndex(applicationName, range, limit);
@@ -18,6 +18,8 @@ package com.navercorp.pinpoint.web.dao;
 
 import java.util.List;
 
+import com.navercorp.pinpoint.common.bo.AgentStatResolution;
+import com.navercorp.pinpoint.common.bo.AgentStatRollupBo;
 import com.navercorp.pinpoint.web.vo.AgentStat;
 import com.navercorp.pinpoint.web.vo.Range;
 
@@ -28,4 +30,9 @@ public interface AgentStatDao {
 
     List<AgentStat> scanAgentStatList(String agentId, Range range);
 
+    /**
+     * @param resolution rollup resolution to scan, must not be RAW
+     */
+    List<AgentStatRollupBo> scanAgentStatRollupList(String agentId, Range range, AgentStatResolution resolution);
+
 }
@@ -16,13 +16,22 @@
 
 package com.navercorp.pinpoint.web.dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import com.navercorp.pinpoint.common.bo.ApiMetaDataBo;
+import com.navercorp.pinpoint.web.vo.MetaDataKey;
 
 /**
  * @author emeroad
  */
 public interface ApiMetaDataDao {
     List<ApiMetaDataBo> getApiMetaData(String agentId, long time, int apiId);
+
+    /**
+     * selects the metadata of all keys with a single multi-get.
+     * @return metadata list of each key. an empty list if not found
+     */
+    Map<MetaDataKey, List<ApiMetaDataBo>> getApiMetaData(Collection<MetaDataKey> keys);
 }
@@ -23,6 +23,7 @@ import com.navercorp.pinpoint.web.vo.Range;
 import com.navercorp.pinpoint.web.vo.SelectedScatterArea;
 import com.navercorp.pinpoint.web.vo.TransactionId;
 import com.navercorp.pinpoint.web.vo.scatter.Dot;
+import com.navercorp.pinpoint.web.vo.scatter.DotHandler;
 
 /**
  * @author emeroad
@@ -36,6 +37,13 @@ public interface ApplicationTraceIndexDao {
 
     List<Dot> scanTraceScatter(String applicationName, Range range, int limit);
 
+    /**
+     * scans the buckets concurrently and passes the dots to the dotHandler newest first, without collecting them.
+     *
+     * @return number of dots handled
+     */
+    int scanTraceScatter(String applicationName, Range range, int limit, DotHandler dotHandler);
+
     /**
      *
      * select transactions in a selection range(box) in the scatter chart.
@@ -17,12 +17,21 @@
 package com.navercorp.pinpoint.web.dao;
 
 import com.navercorp.pinpoint.common.bo.SqlMetaDataBo;
+import com.navercorp.pinpoint.web.vo.MetaDataKey;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author emeroad
  */
 public interface SqlMetaDataDao {
     List<SqlMetaDataBo> getSqlMetaData(String agentId, long time, int hashCode);
+
+    /**
+     * selects the metadata of all keys with a single multi-get.
+     * @return metadata list of each key. an empty list if not found
+     */
+    Map<MetaDataKey, List<SqlMetaDataBo>> getSqlMetaData(Collection<MetaDataKey> keys);
 }
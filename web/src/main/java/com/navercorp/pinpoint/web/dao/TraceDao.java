@@ -19,8 +19,11 @@ package com.navercorp.pinpoint.web.dao;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 import com.navercorp.pinpoint.common.bo.SpanBo;
+import com.navercorp.pinpoint.common.bo.SpanField;
+import com.navercorp.pinpoint.common.hbase.RowHandler;
 import com.navercorp.pinpoint.web.vo.TransactionId;
 
 /**
@@ -36,6 +39,18 @@ public interface TraceDao {
     
     List<List<SpanBo>> selectAllSpans(Collection<TransactionId> transactionIdList);
 
+    /**
+     * same as {@link #selectAllSpans(Collection)} but only the fields of the projection are decoded up front.
+     * the other fields are decoded when they are accessed.
+     */
+    List<List<SpanBo>> selectAllSpans(Collection<TransactionId> transactionIdList, Set<SpanField> projection);
+
+    /**
+     * streaming version of {@link #selectAllSpans(Collection, Set)}. the transactions are fetched in parallel chunks
+     * and handed to the handler one by one, in the order of transactionIdList.
+     */
+    void selectAllSpans(Collection<TransactionId> transactionIdList, Set<SpanField> projection, RowHandler<List<SpanBo>> handler);
+
     List<SpanBo> selectSpans(TransactionId transactionId);
     
 }
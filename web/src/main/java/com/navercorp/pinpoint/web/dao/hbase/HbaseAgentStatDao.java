@@ -21,6 +21,8 @@ import static com.navercorp.pinpoint.common.hbase.HBaseTables.*;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.navercorp.pinpoint.common.bo.AgentStatResolution;
+import com.navercorp.pinpoint.common.bo.AgentStatRollupBo;
 import com.navercorp.pinpoint.common.hbase.HBaseTables;
 import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
 import com.navercorp.pinpoint.common.util.BytesUtils;
@@ -56,6 +58,10 @@ public class HbaseAgentStatDao implements AgentStatDao {
     @Qualifier("agentStatMapper")
     private RowMapper<List<AgentStat>> agentStatMapper;
 
+    @Autowired
+    @Qualifier("agentStatRollupMapper")
+    private RowMapper<AgentStatRollupBo> agentStatRollupMapper;
+
     @Autowired
     @Qualifier("agentStatRowKeyDistributor")
     private AbstractRowKeyDistributor rowKeyDistributor;
@@ -81,7 +87,7 @@ public class HbaseAgentStatDao implements AgentStatDao {
 
         Scan scan = createScan(agentId, range);
 
-        List<List<AgentStat>> intermediate = hbaseOperations2.find(HBaseTables.AGENT_STAT, scan, rowKeyDistributor, agentStatMapper);
+        List<List<AgentStat>> intermediate = hbaseOperations2.findParallel(HBaseTables.AGENT_STAT, scan, rowKeyDistributor, agentStatMapper);
 
         int expectedSize = (int)(range.getRange() / 5000); // data for 5 seconds
         List<AgentStat> merged = new ArrayList<AgentStat>(expectedSize);
@@ -93,6 +99,36 @@ public class HbaseAgentStatDao implements AgentStatDao {
         return merged;
     }
 
+    public List<AgentStatRollupBo> scanAgentStatRollupList(String agentId, Range range, AgentStatResolution resolution) {
+        if (agentId == null) {
+            throw new NullPointerException("agentId must not be null");
+        }
+        if (range == null) {
+            throw new NullPointerException("range must not be null");
+        }
+        if (resolution == null) {
+            throw new NullPointerException("resolution must not be null");
+        }
+        if (!resolution.isRollup()) {
+            throw new IllegalArgumentException("not a rollup resolution:" + resolution);
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("scanAgentStatRollup : agentId={}, {}, {}", agentId, range, resolution);
+        }
+
+        Scan scan = createRollupScan(agentId, range, resolution);
+
+        List<AgentStatRollupBo> rollups = hbaseOperations2.findParallel(resolution.getTableName(), scan, rowKeyDistributor, agentStatRollupMapper);
+        List<AgentStatRollupBo> result = new ArrayList<AgentStatRollupBo>(rollups.size());
+        for (AgentStatRollupBo rollup : rollups) {
+            if (rollup != null) {
+                result.add(rollup);
+            }
+        }
+        return result;
+    }
+
     /**
      * make a row key based on timestamp
      * FIXME there is the same duplicate code at collector's dao module
@@ -125,6 +161,24 @@ public class HbaseAgentStatDao implements AgentStatDao {
         return scan;
     }
 
+    private Scan createRollupScan(String agentId, Range range, AgentStatResolution resolution) {
+        Scan scan = new Scan();
+        scan.setCaching(this.scanCacheSize);
+
+        // rows are keyed by the start of the window, the window containing range.from must be included
+        byte[] startKey = getRowKey(agentId, resolution.getWindowStart(range.getFrom()) - 1);
+        byte[] endKey = getRowKey(agentId, range.getTo());
+
+        scan.setStartRow(endKey);
+        scan.setStopRow(startKey);
+
+        scan.addFamily(HBaseTables.AGENT_STAT_ROLLUP_CF_STATISTICS);
+        scan.setId("AgentStatRollupScan");
+
+        logger.debug("create scan:{}", scan);
+        return scan;
+    }
+
     //    public List<AgentStat> scanAgentStatList(String agentId, long start, long end, final int limit) {
     //        if (logger.isDebugEnabled()) {
     //            logger.debug("scanAgentStatList");
@@ -16,7 +16,10 @@
 
 package com.navercorp.pinpoint.web.dao.hbase;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import com.sematext.hbase.wd.RowKeyDistributorByHashPrefix;
 
@@ -31,6 +34,7 @@ import com.navercorp.pinpoint.common.bo.ApiMetaDataBo;
 import com.navercorp.pinpoint.common.hbase.HBaseTables;
 import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
 import com.navercorp.pinpoint.web.dao.ApiMetaDataDao;
+import com.navercorp.pinpoint.web.vo.MetaDataKey;
 
 /**
  * @author emeroad
@@ -51,6 +55,9 @@ public class HbaseApiMetaDataDao implements ApiMetaDataDao {
     @Qualifier("metadataRowKeyDistributor")
     private RowKeyDistributorByHashPrefix rowKeyDistributorByHashPrefix;
 
+    @Autowired
+    private MetaDataCache metaDataCache;
+
     @Override
     @Cacheable(value="apiMetaData", key=SPEL_KEY)
     public List<ApiMetaDataBo> getApiMetaData(String agentId, long time, int apiId) {
@@ -65,6 +72,27 @@ public class HbaseApiMetaDataDao implements ApiMetaDataDao {
         return hbaseOperations2.get(HBaseTables.API_METADATA, get, apiMetaDataMapper);
     }
 
+    @Override
+    public Map<MetaDataKey, List<ApiMetaDataBo>> getApiMetaData(Collection<MetaDataKey> keys) {
+        if (keys == null) {
+            throw new NullPointerException("keys must not be null");
+        }
+        return metaDataCache.select(HBaseTables.API_METADATA, keys, new MetaDataCache.MetaDataLoader<ApiMetaDataBo>() {
+            @Override
+            public Map<MetaDataKey, List<ApiMetaDataBo>> load(List<MetaDataKey> keyList) {
+                final List<Get> getList = new ArrayList<Get>(keyList.size());
+                for (MetaDataKey key : keyList) {
+                    ApiMetaDataBo apiMetaDataBo = new ApiMetaDataBo(key.getAgentId(), key.getAgentStartTime(), key.getId());
+                    Get get = new Get(getDistributedKey(apiMetaDataBo.toRowKey()));
+                    get.addFamily(HBaseTables.API_METADATA_CF_API);
+                    getList.add(get);
+                }
+                final List<List<ApiMetaDataBo>> resultList = hbaseOperations2.get(HBaseTables.API_METADATA, getList, apiMetaDataMapper);
+                return MetaDataCache.mapByKey(keyList, resultList);
+            }
+        });
+    }
+
     private byte[] getDistributedKey(byte[] rowKey) {
         return rowKeyDistributorByHashPrefix.getDistributedKey(rowKey);
     }
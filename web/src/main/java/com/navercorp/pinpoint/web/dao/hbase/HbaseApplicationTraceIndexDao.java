@@ -21,6 +21,7 @@ import java.util.List;
 
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.filter.BinaryPrefixComparator;
 import org.apache.hadoop.hbase.filter.CompareFilter.CompareOp;
@@ -33,6 +34,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.hadoop.hbase.ResultsExtractor;
 import org.springframework.data.hadoop.hbase.RowMapper;
 import org.springframework.stereotype.Repository;
 
@@ -55,6 +57,7 @@ import com.navercorp.pinpoint.web.vo.ResponseTimeRange;
 import com.navercorp.pinpoint.web.vo.SelectedScatterArea;
 import com.navercorp.pinpoint.web.vo.TransactionId;
 import com.navercorp.pinpoint.web.vo.scatter.Dot;
+import com.navercorp.pinpoint.web.vo.scatter.DotHandler;
 import com.sematext.hbase.wd.AbstractRowKeyDistributor;
 
 /**
@@ -103,7 +106,7 @@ public class HbaseApplicationTraceIndexDao implements ApplicationTraceIndexDao {
 
         final LimitedScanResult<List<TransactionId>> limitedScanResult = new LimitedScanResult<List<TransactionId>>();
         LastRowAccessor lastRowAccessor = new LastRowAccessor();
-        List<List<TransactionId>> traceIndexList = hbaseOperations2.find(HBaseTables.APPLICATION_TRACE_INDEX,
+        List<List<TransactionId>> traceIndexList = hbaseOperations2.findParallel(HBaseTables.APPLICATION_TRACE_INDEX,
                 scan, traceIdRowKeyDistributor, limit, traceIndexMapper, lastRowAccessor);
 
         List<TransactionId> transactionIdSum = new ArrayList<TransactionId>(128);
@@ -144,7 +147,7 @@ public class HbaseApplicationTraceIndexDao implements ApplicationTraceIndexDao {
 
         final LimitedScanResult<List<TransactionId>> limitedScanResult = new LimitedScanResult<List<TransactionId>>();
         LastRowAccessor lastRowAccessor = new LastRowAccessor();
-        List<List<TransactionId>> traceIndexList = hbaseOperations2.find(HBaseTables.APPLICATION_TRACE_INDEX,
+        List<List<TransactionId>> traceIndexList = hbaseOperations2.findParallel(HBaseTables.APPLICATION_TRACE_INDEX,
                 scan, traceIdRowKeyDistributor, limit, traceIndexMapper, lastRowAccessor);
 
         List<TransactionId> transactionIdSum = new ArrayList<TransactionId>(128);
@@ -242,7 +245,7 @@ public class HbaseApplicationTraceIndexDao implements ApplicationTraceIndexDao {
         logger.debug("scanTraceScatter");
         Scan scan = createScan(applicationName, range);
 
-        List<List<Dot>> dotListList = hbaseOperations2.find(HBaseTables.APPLICATION_TRACE_INDEX, scan, traceIdRowKeyDistributor, limit, traceIndexScatterMapper);
+        List<List<Dot>> dotListList = hbaseOperations2.findParallel(HBaseTables.APPLICATION_TRACE_INDEX, scan, traceIdRowKeyDistributor, limit, traceIndexScatterMapper);
         List<Dot> mergeList = new ArrayList<Dot>(limit + 10);
         for(List<Dot> dotList : dotListList) {
             mergeList.addAll(dotList);
@@ -250,6 +253,43 @@ public class HbaseApplicationTraceIndexDao implements ApplicationTraceIndexDao {
         return mergeList;
     }
 
+    @Override
+    public int scanTraceScatter(String applicationName, Range range, final int limit, final DotHandler dotHandler) {
+        if (applicationName == null) {
+            throw new NullPointerException("applicationName must not be null");
+        }
+        if (range == null) {
+            throw new NullPointerException("range must not be null");
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("negative limit:" + limit);
+        }
+        if (dotHandler == null) {
+            throw new NullPointerException("dotHandler must not be null");
+        }
+        logger.debug("scanTraceScatter stream");
+        Scan scan = createScan(applicationName, range);
+
+        return hbaseOperations2.findParallel(HBaseTables.APPLICATION_TRACE_INDEX, scan, traceIdRowKeyDistributor, new ResultsExtractor<Integer>() {
+            @Override
+            public Integer extractData(ResultScanner results) throws Exception {
+                int count = 0;
+                int rowNum = 0;
+                for (Result result : results) {
+                    final List<Dot> dotList = traceIndexScatterMapper.mapRow(result, rowNum++);
+                    for (Dot dot : dotList) {
+                        dotHandler.handle(dot);
+                    }
+                    count += dotList.size();
+                    if (count >= limit) {
+                        break;
+                    }
+                }
+                return count;
+            }
+        });
+    }
+
     /**
      *
      */
@@ -275,7 +315,7 @@ public class HbaseApplicationTraceIndexDao implements ApplicationTraceIndexDao {
         ResponseTimeRange responseTimeRange = area.getResponseTimeRange();
         TraceIndexScatterMapper2 mapper = new TraceIndexScatterMapper2(responseTimeRange.getFrom(), responseTimeRange.getTo());
 
-        List<List<Dot>> dotListList = hbaseOperations2.find(HBaseTables.APPLICATION_TRACE_INDEX, scan, traceIdRowKeyDistributor, limit, mapper);
+        List<List<Dot>> dotListList = hbaseOperations2.findParallel(HBaseTables.APPLICATION_TRACE_INDEX, scan, traceIdRowKeyDistributor, limit, mapper);
 
         List<Dot> result = new ArrayList<Dot>();
         for(List<Dot> dotList : dotListList) {
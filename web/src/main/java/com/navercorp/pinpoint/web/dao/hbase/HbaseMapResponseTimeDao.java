@@ -56,17 +56,37 @@ public class HbaseMapResponseTimeDao implements MapResponseDao {
     @Autowired
     private RangeFactory rangeFactory;
 
+    @Autowired(required = false)
+    private MapStatisticsSlotCache slotCache;
+
 
     @Override
-    public List<ResponseTime> selectResponseTime(Application application, Range range) {
+    public List<ResponseTime> selectResponseTime(final Application application, Range range) {
         if (application == null) {
             throw new NullPointerException("application must not be null");
         }
         if (logger.isDebugEnabled()) {
             logger.debug("selectResponseTime applicationName:{}, {}", application, range);
         }
-        Scan scan = createScan(application, range);
-        List<ResponseTime> responseTimeList = hbaseOperations2.find(tableName, scan, responseTimeMapper);
+        final List<ResponseTime> responseTimeList;
+        if (slotCache != null && slotCache.isEnable()) {
+            responseTimeList = slotCache.select(tableName, application, range, new MapStatisticsSlotCache.SlotLoader<ResponseTime>() {
+                @Override
+                public Map<Long, ResponseTime> load(Range range) {
+                    Scan scan = createScan(application, range);
+                    List<ResponseTime> found = hbaseOperations2.find(tableName, scan, responseTimeMapper);
+                    // a row is made per slot
+                    Map<Long, ResponseTime> result = new HashMap<Long, ResponseTime>();
+                    for (ResponseTime responseTime : found) {
+                        result.put(responseTime.getTimeStamp(), responseTime);
+                    }
+                    return result;
+                }
+            });
+        } else {
+            Scan scan = createScan(application, range);
+            responseTimeList = hbaseOperations2.find(tableName, scan, responseTimeMapper);
+        }
         if (logger.isDebugEnabled()) {
             logger.debug("row:{}", responseTimeList.size());
             for (ResponseTime responseTime : responseTimeList) {
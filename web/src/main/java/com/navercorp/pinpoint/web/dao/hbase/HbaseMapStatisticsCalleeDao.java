@@ -58,16 +58,31 @@ public class HbaseMapStatisticsCalleeDao implements MapStatisticsCalleeDao {
     @Autowired
     private RangeFactory rangeFactory;
 
+    @Autowired(required = false)
+    private MapStatisticsSlotCache slotCache;
+
     @Override
-    public LinkDataMap selectCallee(Application calleeApplication, Range range) {
+    public LinkDataMap selectCallee(final Application calleeApplication, Range range) {
         if (calleeApplication == null) {
             throw new NullPointerException("calleeApplication must not be null");
         }
         if (range == null) {
             throw new NullPointerException("range must not be null");
         }
-        Scan scan = createScan(calleeApplication, range);
-        List<LinkDataMap> foundListList = hbaseOperations2.find(HBaseTables.MAP_STATISTICS_CALLER, scan, mapStatisticsCalleeMapper);
+        final List<LinkDataMap> foundListList;
+        if (slotCache != null && slotCache.isEnable()) {
+            foundListList = slotCache.select(HBaseTables.MAP_STATISTICS_CALLER, calleeApplication, range, new MapStatisticsSlotCache.SlotLoader<LinkDataMap>() {
+                @Override
+                public Map<Long, LinkDataMap> load(Range range) {
+                    Scan scan = createScan(calleeApplication, range);
+                    List<Map.Entry<Long, LinkDataMap>> slotList = hbaseOperations2.find(HBaseTables.MAP_STATISTICS_CALLER, scan, new TimeSlotRowMapper<LinkDataMap>(mapStatisticsCalleeMapper));
+                    return mergeSlot(slotList);
+                }
+            });
+        } else {
+            Scan scan = createScan(calleeApplication, range);
+            foundListList = hbaseOperations2.find(HBaseTables.MAP_STATISTICS_CALLER, scan, mapStatisticsCalleeMapper);
+        }
 
         if (foundListList.isEmpty()) {
             logger.debug("There's no caller data. {}, {}", calleeApplication, range);
@@ -76,6 +91,19 @@ public class HbaseMapStatisticsCalleeDao implements MapStatisticsCalleeDao {
         return merge(foundListList);
     }
 
+    private Map<Long, LinkDataMap> mergeSlot(List<Map.Entry<Long, LinkDataMap>> slotList) {
+        final Map<Long, LinkDataMap> result = new HashMap<Long, LinkDataMap>();
+        for (Map.Entry<Long, LinkDataMap> slot : slotList) {
+            final LinkDataMap linkDataMap = result.get(slot.getKey());
+            if (linkDataMap == null) {
+                result.put(slot.getKey(), slot.getValue());
+            } else {
+                linkDataMap.addLinkDataMap(slot.getValue());
+            }
+        }
+        return result;
+    }
+
     private LinkDataMap merge(List<LinkDataMap> foundListList) {
         final LinkDataMap result = new LinkDataMap();
 
@@ -58,10 +58,25 @@ public class HbaseMapStatisticsCallerDao implements MapStatisticsCallerDao {
     @Autowired
     private RangeFactory rangeFactory;
 
+    @Autowired(required = false)
+    private MapStatisticsSlotCache slotCache;
+
     @Override
-    public LinkDataMap selectCaller(Application callerApplication, Range range) {
-        Scan scan = createScan(callerApplication, range);
-        final List<LinkDataMap> foundList = hbaseOperations2.find(HBaseTables.MAP_STATISTICS_CALLEE, scan, mapStatisticsCallerMapper);
+    public LinkDataMap selectCaller(final Application callerApplication, Range range) {
+        final List<LinkDataMap> foundList;
+        if (slotCache != null && slotCache.isEnable()) {
+            foundList = slotCache.select(HBaseTables.MAP_STATISTICS_CALLEE, callerApplication, range, new MapStatisticsSlotCache.SlotLoader<LinkDataMap>() {
+                @Override
+                public Map<Long, LinkDataMap> load(Range range) {
+                    Scan scan = createScan(callerApplication, range);
+                    List<Map.Entry<Long, LinkDataMap>> slotList = hbaseOperations2.find(HBaseTables.MAP_STATISTICS_CALLEE, scan, new TimeSlotRowMapper<LinkDataMap>(mapStatisticsCallerMapper));
+                    return mergeSlot(slotList);
+                }
+            });
+        } else {
+            Scan scan = createScan(callerApplication, range);
+            foundList = hbaseOperations2.find(HBaseTables.MAP_STATISTICS_CALLEE, scan, mapStatisticsCallerMapper);
+        }
 
         if (foundList.isEmpty()) {
             logger.debug("There's no caller data. {}, {}", callerApplication, range);
@@ -70,6 +85,19 @@ public class HbaseMapStatisticsCallerDao implements MapStatisticsCallerDao {
         return merge(foundList);
     }
 
+    private Map<Long, LinkDataMap> mergeSlot(List<Map.Entry<Long, LinkDataMap>> slotList) {
+        final Map<Long, LinkDataMap> result = new HashMap<Long, LinkDataMap>();
+        for (Map.Entry<Long, LinkDataMap> slot : slotList) {
+            final LinkDataMap linkDataMap = result.get(slot.getKey());
+            if (linkDataMap == null) {
+                result.put(slot.getKey(), slot.getValue());
+            } else {
+                linkDataMap.addLinkDataMap(slot.getValue());
+            }
+        }
+        return result;
+    }
+
     private LinkDataMap merge(List<LinkDataMap> foundList) {
         final LinkDataMap result = new LinkDataMap();
         for (LinkDataMap foundData : foundList) {
@@ -16,7 +16,10 @@
 
 package com.navercorp.pinpoint.web.dao.hbase;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import com.sematext.hbase.wd.RowKeyDistributorByHashPrefix;
 
@@ -30,6 +33,7 @@ import com.navercorp.pinpoint.common.bo.SqlMetaDataBo;
 import com.navercorp.pinpoint.common.hbase.HBaseTables;
 import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
 import com.navercorp.pinpoint.web.dao.SqlMetaDataDao;
+import com.navercorp.pinpoint.web.vo.MetaDataKey;
 
 /**
  * @author emeroad
@@ -48,6 +52,9 @@ public class HbaseSqlMetaDataDao implements SqlMetaDataDao {
     @Qualifier("metadataRowKeyDistributor")
     private RowKeyDistributorByHashPrefix rowKeyDistributorByHashPrefix;
 
+    @Autowired
+    private MetaDataCache metaDataCache;
+
     @Override
     public List<SqlMetaDataBo> getSqlMetaData(String agentId, long time, int hashCode) {
         if (agentId == null) {
@@ -63,6 +70,27 @@ public class HbaseSqlMetaDataDao implements SqlMetaDataDao {
         return hbaseOperations2.get(HBaseTables.SQL_METADATA, get, sqlMetaDataMapper);
     }
 
+    @Override
+    public Map<MetaDataKey, List<SqlMetaDataBo>> getSqlMetaData(Collection<MetaDataKey> keys) {
+        if (keys == null) {
+            throw new NullPointerException("keys must not be null");
+        }
+        return metaDataCache.select(HBaseTables.SQL_METADATA, keys, new MetaDataCache.MetaDataLoader<SqlMetaDataBo>() {
+            @Override
+            public Map<MetaDataKey, List<SqlMetaDataBo>> load(List<MetaDataKey> keyList) {
+                final List<Get> getList = new ArrayList<Get>(keyList.size());
+                for (MetaDataKey key : keyList) {
+                    SqlMetaDataBo sqlMetaData = new SqlMetaDataBo(key.getAgentId(), key.getAgentStartTime(), key.getId());
+                    Get get = new Get(getDistributedKey(sqlMetaData.toRowKey()));
+                    get.addFamily(HBaseTables.SQL_METADATA_CF_SQL);
+                    getList.add(get);
+                }
+                final List<List<SqlMetaDataBo>> resultList = hbaseOperations2.get(HBaseTables.SQL_METADATA, getList, sqlMetaDataMapper);
+                return MetaDataCache.mapByKey(keyList, resultList);
+            }
+        });
+    }
+
     private byte[] getDistributedKey(byte[] rowKey) {
         return rowKeyDistributorByHashPrefix.getDistributedKey(rowKey);
     }
@@ -20,6 +20,7 @@ import com.navercorp.pinpoint.common.bo.StringMetaDataBo;
 import com.navercorp.pinpoint.common.hbase.HBaseTables;
 import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
 import com.navercorp.pinpoint.web.dao.StringMetaDataDao;
+import com.navercorp.pinpoint.web.vo.MetaDataKey;
 import com.sematext.hbase.wd.RowKeyDistributorByHashPrefix;
 
 import org.apache.hadoop.hbase.client.Get;
@@ -28,7 +29,10 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.hadoop.hbase.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author emeroad
@@ -47,6 +51,9 @@ public class HbaseStringMetaDataDao implements StringMetaDataDao {
     @Qualifier("metadataRowKeyDistributor")
     private RowKeyDistributorByHashPrefix rowKeyDistributorByHashPrefix;
 
+    @Autowired
+    private MetaDataCache metaDataCache;
+
     @Override
     public List<StringMetaDataBo> getStringMetaData(String agentId, long time, int stringId) {
         if (agentId == null) {
@@ -62,6 +69,27 @@ public class HbaseStringMetaDataDao implements StringMetaDataDao {
         return hbaseOperations2.get(HBaseTables.STRING_METADATA, get, stringMetaDataMapper);
     }
 
+    @Override
+    public Map<MetaDataKey, List<StringMetaDataBo>> getStringMetaData(Collection<MetaDataKey> keys) {
+        if (keys == null) {
+            throw new NullPointerException("keys must not be null");
+        }
+        return metaDataCache.select(HBaseTables.STRING_METADATA, keys, new MetaDataCache.MetaDataLoader<StringMetaDataBo>() {
+            @Override
+            public Map<MetaDataKey, List<StringMetaDataBo>> load(List<MetaDataKey> keyList) {
+                final List<Get> getList = new ArrayList<Get>(keyList.size());
+                for (MetaDataKey key : keyList) {
+                    StringMetaDataBo stringMetaData = new StringMetaDataBo(key.getAgentId(), key.getAgentStartTime(), key.getId());
+                    Get get = new Get(getDistributedKey(stringMetaData.toRowKey()));
+                    get.addFamily(HBaseTables.STRING_METADATA_CF_STR);
+                    getList.add(get);
+                }
+                final List<List<StringMetaDataBo>> resultList = hbaseOperations2.get(HBaseTables.STRING_METADATA, getList, stringMetaDataMapper);
+                return MetaDataCache.mapByKey(keyList, resultList);
+            }
+        });
+    }
+
     private byte[] getDistributedKey(byte[] rowKey) {
         return rowKeyDistributorByHashPrefix.getDistributedKey(rowKey);
     }
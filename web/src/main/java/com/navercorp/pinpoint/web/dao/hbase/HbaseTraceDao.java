@@ -19,17 +19,22 @@ package com.navercorp.pinpoint.web.dao.hbase;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 import com.navercorp.pinpoint.common.bo.SpanBo;
+import com.navercorp.pinpoint.common.bo.SpanField;
 import com.navercorp.pinpoint.common.hbase.HBaseTables;
 import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.hbase.RowHandler;
 import com.navercorp.pinpoint.web.dao.TraceDao;
+import com.navercorp.pinpoint.web.mapper.SpanMapper;
 import com.navercorp.pinpoint.web.vo.TransactionId;
 import com.sematext.hbase.wd.AbstractRowKeyDistributor;
 
 import org.apache.hadoop.hbase.client.Get;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.hadoop.hbase.RowMapper;
 import org.springframework.stereotype.Repository;
 
@@ -54,6 +59,10 @@ public class HbaseTraceDao implements TraceDao {
     @Qualifier("spanAnnotationMapper")
     private RowMapper<List<SpanBo>> spanAnnotationMapper;
 
+    // transactions per get chunk of the streaming selectAllSpans. chunks are fetched on the parallel scan threads of the template
+    @Value("#{pinpointWebProps['web.selectAllSpans.chunkSize'] ?: 64}")
+    private int selectAllSpansChunkSize;
+
     @Override
     public List<SpanBo> selectSpan(TransactionId transactionId) {
         if (transactionId == null) {
@@ -99,7 +108,37 @@ public class HbaseTraceDao implements TraceDao {
         if (transactionIdList == null) {
             throw new NullPointerException("transactionIdList must not be null");
         }
+        return template2.get(HBaseTables.TRACES, createAllSpansGets(transactionIdList), spanMapper);
+    }
+
+    @Override
+    public List<List<SpanBo>> selectAllSpans(Collection<TransactionId> transactionIdList, Set<SpanField> projection) {
+        if (transactionIdList == null) {
+            throw new NullPointerException("transactionIdList must not be null");
+        }
+        if (projection == null) {
+            throw new NullPointerException("projection must not be null");
+        }
+        final SpanMapper projectionMapper = new SpanMapper(projection);
+        return template2.get(HBaseTables.TRACES, createAllSpansGets(transactionIdList), projectionMapper);
+    }
+
+    @Override
+    public void selectAllSpans(Collection<TransactionId> transactionIdList, Set<SpanField> projection, RowHandler<List<SpanBo>> handler) {
+        if (transactionIdList == null) {
+            throw new NullPointerException("transactionIdList must not be null");
+        }
+        if (projection == null) {
+            throw new NullPointerException("projection must not be null");
+        }
+        if (handler == null) {
+            throw new NullPointerException("handler must not be null");
+        }
+        final SpanMapper projectionMapper = new SpanMapper(projection);
+        template2.getParallel(HBaseTables.TRACES, createAllSpansGets(transactionIdList), projectionMapper, handler, selectAllSpansChunkSize);
+    }
 
+    private List<Get> createAllSpansGets(Collection<TransactionId> transactionIdList) {
         final List<Get> gets = new ArrayList<Get>(transactionIdList.size());
         for (TransactionId transactionId : transactionIdList) {
             final byte[] transactionIdBytes = this.rowKeyDistributor.getDistributedKey(transactionId.getBytes());
@@ -108,7 +147,7 @@ public class HbaseTraceDao implements TraceDao {
             get.addFamily(HBaseTables.TRACES_CF_TERMINALSPAN);
             gets.add(get);
         }
-        return template2.get(HBaseTables.TRACES, gets, spanMapper);
+        return gets;
     }
 
     @Override
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.dao.hbase;
+
+import com.navercorp.pinpoint.common.util.DefaultTimeSlot;
+import com.navercorp.pinpoint.common.util.TimeSlot;
+import com.navercorp.pinpoint.web.vo.Application;
+import com.navercorp.pinpoint.web.vo.Range;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches map statistics rows per (application, one-minute slot).
+ * Slots older than closeDelay no longer receive increments from the collector, so they are cached and only the trailing open slots are scanned again.
+ * An empty slot is cached as null so that it is not scanned again either.
+ *
+ * @author agent
+ */
+public class MapStatisticsSlotCache {
+
+    public static final long DEFAULT_CLOSE_DELAY = 1000 * 60 * 5;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final Cache cache;
+
+    private final TimeSlot timeSlot;
+    private final long slotSize;
+
+    private boolean enable = true;
+    private long closeDelay = DEFAULT_CLOSE_DELAY;
+
+    public MapStatisticsSlotCache(Cache cache) {
+        this(cache, 1000 * 60);
+    }
+
+    public MapStatisticsSlotCache(Cache cache, long slotSize) {
+        if (cache == null) {
+            throw new NullPointerException("cache must not be null");
+        }
+        if (slotSize <= 0) {
+            throw new IllegalArgumentException("slotSize must be positive. slotSize:" + slotSize);
+        }
+        this.cache = cache;
+        this.slotSize = slotSize;
+        this.timeSlot = new DefaultTimeSlot(slotSize);
+    }
+
+    public void setEnable(boolean enable) {
+        this.enable = enable;
+    }
+
+    public void setCloseDelay(long closeDelay) {
+        if (closeDelay < 0) {
+            throw new IllegalArgumentException("closeDelay must not be negative. closeDelay:" + closeDelay);
+        }
+        this.closeDelay = closeDelay;
+    }
+
+    public boolean isEnable() {
+        return enable;
+    }
+
+    public long getCloseDelay() {
+        return closeDelay;
+    }
+
+    /**
+     * @param table table name of the statistics. part of the cache key
+     * @param application row key of the statistics
+     * @param range range to select
+     * @param loader scans the given range. called at most once, with the range starting at the first slot not found in the cache
+     * @return values of each slot in ascending time order
+     */
+    public <V> List<V> select(String table, Application application, Range range, SlotLoader<V> loader) {
+        if (table == null) {
+            throw new NullPointerException("table must not be null");
+        }
+        if (application == null) {
+            throw new NullPointerException("application must not be null");
+        }
+        if (range == null) {
+            throw new NullPointerException("range must not be null");
+        }
+        if (loader == null) {
+            throw new NullPointerException("loader must not be null");
+        }
+        final long closedSlot = timeSlot.getTimeSlot(System.currentTimeMillis() - closeDelay);
+        final long fromSlot = timeSlot.getTimeSlot(range.getFrom());
+        final long toSlot = timeSlot.getTimeSlot(range.getTo());
+
+        final List<V> result = new ArrayList<V>();
+        long scanFrom = fromSlot;
+        for (; scanFrom <= toSlot; scanFrom += slotSize) {
+            if (scanFrom >= closedSlot) {
+                break;
+            }
+            final Cache.ValueWrapper hit = cache.get(new SlotKey(table, application, scanFrom));
+            if (hit == null) {
+                break;
+            }
+            @SuppressWarnings("unchecked")
+            final V value = (V) hit.get();
+            if (value != null) {
+                result.add(value);
+            }
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("slot cache {} {} hit:{}/{}", table, application, (scanFrom - fromSlot) / slotSize, (toSlot - fromSlot) / slotSize + 1);
+        }
+        if (scanFrom > toSlot) {
+            return result;
+        }
+
+        final Map<Long, V> loaded = loader.load(Range.createUncheckedRange(scanFrom, range.getTo()));
+        for (long slot = scanFrom; slot <= toSlot; slot += slotSize) {
+            final V value = loaded.get(slot);
+            if (slot < closedSlot) {
+                cache.put(new SlotKey(table, application, slot), value);
+            }
+            if (value != null) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    public interface SlotLoader<V> {
+        /**
+         * @return values keyed by the slot time of their row
+         */
+        Map<Long, V> load(Range range);
+    }
+
+    private static final class SlotKey implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String table;
+        private final String applicationName;
+        private final short serviceType;
+        private final long slot;
+
+        private SlotKey(String table, Application application, long slot) {
+            this.table = table;
+            this.applicationName = application.getName();
+            this.serviceType = application.getServiceTypeCode();
+            this.slot = slot;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            SlotKey slotKey = (SlotKey) o;
+
+            if (serviceType != slotKey.serviceType) return false;
+            if (slot != slotKey.slot) return false;
+            if (!applicationName.equals(slotKey.applicationName)) return false;
+            if (!table.equals(slotKey.table)) return false;
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = table.hashCode();
+            result = 31 * result + applicationName.hashCode();
+            result = 31 * result + (int) serviceType;
+            result = 31 * result + (int) (slot ^ (slot >>> 32));
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return table + ":" + applicationName + ":" + serviceType + ":" + slot;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.dao.hbase;
+
+import com.navercorp.pinpoint.web.vo.MetaDataKey;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches sql, api and string metadata shared by all metadata daos.
+ * Metadata of an agent never changes once stored, so entries are only evicted by the size limit of the cache.
+ * Metadata not found is not cached, because the agent may send it later than the span referring to it.
+ *
+ * @author agent
+ */
+public class MetaDataCache {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final Cache cache;
+
+    public MetaDataCache(Cache cache) {
+        if (cache == null) {
+            throw new NullPointerException("cache must not be null");
+        }
+        this.cache = cache;
+    }
+
+    /**
+     * @param table table name of the metadata. part of the cache key
+     * @param keys metadata to select
+     * @param loader fetches the keys not found in the cache. called at most once
+     * @return metadata list of each key. an empty list if not found
+     */
+    public <V> Map<MetaDataKey, List<V>> select(String table, Collection<MetaDataKey> keys, MetaDataLoader<V> loader) {
+        if (table == null) {
+            throw new NullPointerException("table must not be null");
+        }
+        if (keys == null) {
+            throw new NullPointerException("keys must not be null");
+        }
+        if (loader == null) {
+            throw new NullPointerException("loader must not be null");
+        }
+        final Map<MetaDataKey, List<V>> result = new HashMap<MetaDataKey, List<V>>(keys.size());
+        final List<MetaDataKey> missList = new ArrayList<MetaDataKey>();
+        for (MetaDataKey key : keys) {
+            if (result.containsKey(key)) {
+                continue;
+            }
+            final Cache.ValueWrapper hit = cache.get(new CacheKey(table, key));
+            if (hit == null) {
+                // placeholder for deduplication
+                result.put(key, null);
+                missList.add(key);
+                continue;
+            }
+            @SuppressWarnings("unchecked")
+            final List<V> value = (List<V>) hit.get();
+            result.put(key, value);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("metadata cache {} hit:{}/{}", table, result.size() - missList.size(), result.size());
+        }
+        if (missList.isEmpty()) {
+            return result;
+        }
+
+        final Map<MetaDataKey, List<V>> loaded = loader.load(missList);
+        for (MetaDataKey key : missList) {
+            final List<V> value = loaded.get(key);
+            if (value == null || value.isEmpty()) {
+                result.put(key, Collections.<V>emptyList());
+                continue;
+            }
+            cache.put(new CacheKey(table, key), value);
+            result.put(key, value);
+        }
+        return result;
+    }
+
+    /**
+     * pairs the keys of a multi-get with the results in the same order.
+     */
+    public static <V> Map<MetaDataKey, List<V>> mapByKey(List<MetaDataKey> keys, List<List<V>> valuesList) {
+        if (keys.size() != valuesList.size()) {
+            throw new IllegalArgumentException("size not matched. keys:" + keys.size() + " values:" + valuesList.size());
+        }
+        final Map<MetaDataKey, List<V>> result = new HashMap<MetaDataKey, List<V>>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            result.put(keys.get(i), valuesList.get(i));
+        }
+        return result;
+    }
+
+    public interface MetaDataLoader<V> {
+        /**
+         * @return metadata list of each key. keys not found may be absent
+         */
+        Map<MetaDataKey, List<V>> load(List<MetaDataKey> keys);
+    }
+
+    private static final class CacheKey implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String table;
+        private final MetaDataKey key;
+
+        private CacheKey(String table, MetaDataKey key) {
+            this.table = table;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            CacheKey cacheKey = (CacheKey) o;
+
+            if (!key.equals(cacheKey.key)) return false;
+            if (!table.equals(cacheKey.table)) return false;
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = table.hashCode();
+            result = 31 * result + key.hashCode();
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return table + ":" + key;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.mapper;
+
+import static com.navercorp.pinpoint.common.hbase.HBaseTables.*;
+
+import java.util.Map;
+
+import com.navercorp.pinpoint.common.bo.AgentStatRollupBo;
+
+import org.apache.hadoop.hbase.client.Result;
+import org.springframework.data.hadoop.hbase.RowMapper;
+import org.springframework.stereotype.Component;
+
+/**
+ * merges the partial rollups written by each collector into one.
+ *
+ * @author agent
+ */
+@Component
+public class AgentStatRollupMapper implements RowMapper<AgentStatRollupBo> {
+
+    @Override
+    public AgentStatRollupBo mapRow(Result result, int rowNum) throws Exception {
+        if (result.isEmpty()) {
+            return null;
+        }
+        final Map<byte[], byte[]> qualifierMap = result.getFamilyMap(AGENT_STAT_ROLLUP_CF_STATISTICS);
+        AgentStatRollupBo merged = null;
+        for (byte[] value : qualifierMap.values()) {
+            final AgentStatRollupBo rollup = new AgentStatRollupBo(value);
+            if (merged == null) {
+                merged = rollup;
+            } else {
+                merged.merge(rollup);
+            }
+        }
+        return merged;
+    }
+}
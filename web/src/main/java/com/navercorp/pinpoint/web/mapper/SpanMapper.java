@@ -19,6 +19,7 @@ package com.navercorp.pinpoint.web.mapper;
 import com.navercorp.pinpoint.common.bo.AnnotationBo;
 import com.navercorp.pinpoint.common.bo.SpanBo;
 import com.navercorp.pinpoint.common.bo.SpanEventBo;
+import com.navercorp.pinpoint.common.bo.SpanField;
 import com.navercorp.pinpoint.common.hbase.HBaseTables;
 import com.navercorp.pinpoint.web.vo.TransactionId;
 
@@ -42,6 +43,22 @@ public class SpanMapper implements RowMapper<List<SpanBo>> {
 
     private AnnotationMapper annotationMapper;
 
+    private final Set<SpanField> projection;
+
+    public SpanMapper() {
+        this(SpanField.ALL);
+    }
+
+    /**
+     * @param projection fields decoded while mapping. the others are decoded on first access.
+     */
+    public SpanMapper(Set<SpanField> projection) {
+        if (projection == null) {
+            throw new NullPointerException("projection must not be null");
+        }
+        this.projection = projection;
+    }
+
     public AnnotationMapper getAnnotationMapper() {
         return annotationMapper;
     }
@@ -75,7 +92,7 @@ public class SpanMapper implements RowMapper<List<SpanBo>> {
                 spanBo.setCollectorAcceptTime(kv.getTimestamp());
 
                 spanBo.setSpanID(Bytes.toLong(kv.getBuffer(), kv.getQualifierOffset()));
-                spanBo.readValue(kv.getBuffer(), kv.getValueOffset());
+                spanBo.readValue(kv.getBuffer(), kv.getValueOffset(), projection);
                 if (logger.isDebugEnabled()) {
                     logger.debug("read span :{}", spanBo);
                 }
@@ -101,7 +118,7 @@ public class SpanMapper implements RowMapper<List<SpanBo>> {
                 spanEventBo.setSequence(sequence);
                 spanEventBo.setAsyncId(asyncId);
                 
-                spanEventBo.readValue(kv.getBuffer(), kv.getValueOffset(), kv.getValueLength());
+                spanEventBo.readValue(kv.getBuffer(), kv.getValueOffset(), kv.getValueLength(), projection);
                 if (logger.isDebugEnabled()) {
                     logger.debug("read spanEvent :{}", spanEventBo);
                 }
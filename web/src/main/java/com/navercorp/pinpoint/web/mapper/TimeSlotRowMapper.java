@@ -0,0 +1,49 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.mapper;
+
+import com.navercorp.pinpoint.common.util.ApplicationMapStatisticsUtils;
+
+import org.apache.hadoop.hbase.client.Result;
+import org.springframework.data.hadoop.hbase.RowMapper;
+
+import java.util.AbstractMap;
+import java.util.Map;
+
+/**
+ * pairs the value of a map statistics row with the slot time of its row key
+ *
+ * @author agent
+ */
+public class TimeSlotRowMapper<T> implements RowMapper<Map.Entry<Long, T>> {
+
+    private final RowMapper<T> rowMapper;
+
+    public TimeSlotRowMapper(RowMapper<T> rowMapper) {
+        if (rowMapper == null) {
+            throw new NullPointerException("rowMapper must not be null");
+        }
+        this.rowMapper = rowMapper;
+    }
+
+    @Override
+    public Map.Entry<Long, T> mapRow(Result result, int rowNum) throws Exception {
+        final T value = rowMapper.mapRow(result, rowNum);
+        final long timestamp = ApplicationMapStatisticsUtils.getTimestampFromRowKey(result.getRow());
+        return new AbstractMap.SimpleImmutableEntry<Long, T>(timestamp, value);
+    }
+}
@@ -30,6 +30,7 @@ import org.apache.zookeeper.KeeperException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.navercorp.pinpoint.common.bo.AlarmWindowBo;
 import com.navercorp.pinpoint.common.util.NetUtils;
 import com.navercorp.pinpoint.rpc.packet.HandshakeResponseCode;
 import com.navercorp.pinpoint.rpc.packet.HandshakeResponseType;
@@ -38,6 +39,7 @@ import com.navercorp.pinpoint.rpc.packet.SendPacket;
 import com.navercorp.pinpoint.rpc.server.PinpointServerAcceptor;
 import com.navercorp.pinpoint.rpc.server.ServerMessageListener;
 import com.navercorp.pinpoint.rpc.server.PinpointServer;
+import com.navercorp.pinpoint.web.alarm.AlarmWindowRepository;
 import com.navercorp.pinpoint.web.cluster.ClusterManager;
 import com.navercorp.pinpoint.web.cluster.zookeeper.ZookeeperClusterManager;
 import com.navercorp.pinpoint.web.config.WebConfig;
@@ -61,11 +63,17 @@ public class PinpointSocketManager {
 
     private ClusterManager clusterManager;
 
+    private AlarmWindowRepository alarmWindowRepository;
+
     public PinpointSocketManager(WebConfig config) {
         this.config = config;
         this.serverAcceptor = new PinpointServerAcceptor();
     }
 
+    public void setAlarmWindowRepository(AlarmWindowRepository alarmWindowRepository) {
+        this.alarmWindowRepository = alarmWindowRepository;
+    }
+
     @PostConstruct
     public void start() throws KeeperException, IOException, InterruptedException {
         logger.info("{} enable {}.", this.getClass().getSimpleName(), config.isClusterEnable());
@@ -173,7 +181,21 @@ public class PinpointSocketManager {
     private class PinpointSocketManagerHandler implements ServerMessageListener {
         @Override
         public void handleSend(SendPacket sendPacket, PinpointServer pinpointServer) {
-            logger.warn("Unsupport send received {} {}", sendPacket, pinpointServer);
+            // the only message the collectors send is the alarm window
+            if (alarmWindowRepository == null) {
+                logger.warn("Unsupport send received {} {}", sendPacket, pinpointServer);
+                return;
+            }
+            String collectorId = (String) pinpointServer.getChannelProperties().get("id");
+            if (collectorId == null) {
+                logger.warn("alarm window received from unknown collector {}", pinpointServer);
+                return;
+            }
+            try {
+                alarmWindowRepository.update(collectorId, new AlarmWindowBo(sendPacket.getPayload()));
+            } catch (Exception e) {
+                logger.warn("alarm window decode failed. collector:{} Caused:{}", collectorId, e.getMessage(), e);
+            }
         }
 
         @Override
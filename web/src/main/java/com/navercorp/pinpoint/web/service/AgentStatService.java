@@ -18,6 +18,8 @@ package com.navercorp.pinpoint.web.service;
 
 import java.util.List;
 
+import com.navercorp.pinpoint.common.bo.AgentStatResolution;
+import com.navercorp.pinpoint.common.bo.AgentStatRollupBo;
 import com.navercorp.pinpoint.web.vo.AgentStat;
 import com.navercorp.pinpoint.web.vo.Range;
 
@@ -28,4 +30,6 @@ public interface AgentStatService {
 
     List<AgentStat> selectAgentStatList(String agentId, Range range);
 
+    List<AgentStatRollupBo> selectAgentStatRollupList(String agentId, Range range, AgentStatResolution resolution);
+
 }
@@ -18,6 +18,8 @@ package com.navercorp.pinpoint.web.service;
 
 import java.util.List;
 
+import com.navercorp.pinpoint.common.bo.AgentStatResolution;
+import com.navercorp.pinpoint.common.bo.AgentStatRollupBo;
 import com.navercorp.pinpoint.web.dao.AgentStatDao;
 import com.navercorp.pinpoint.web.vo.AgentStat;
 import com.navercorp.pinpoint.web.vo.Range;
@@ -42,4 +44,12 @@ public class AgentStatServiceImpl implements AgentStatService {
         return agentStatDao.scanAgentStatList(agentId, range);
     }
 
+    @Override
+    public List<AgentStatRollupBo> selectAgentStatRollupList(String agentId, Range range, AgentStatResolution resolution) {
+        if (agentId == null) {
+            throw new NullPointerException("agentId must not be null");
+        }
+        return agentStatDao.scanAgentStatRollupList(agentId, range, resolution);
+    }
+
 }
@@ -18,6 +18,7 @@ package com.navercorp.pinpoint.web.service;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -29,6 +30,8 @@ import com.navercorp.pinpoint.common.HistogramSlot;
 import com.navercorp.pinpoint.common.ServiceType;
 import com.navercorp.pinpoint.common.bo.SpanBo;
 import com.navercorp.pinpoint.common.bo.SpanEventBo;
+import com.navercorp.pinpoint.common.bo.SpanField;
+import com.navercorp.pinpoint.common.hbase.RowHandler;
 import com.navercorp.pinpoint.common.service.ServiceTypeRegistryService;
 import com.navercorp.pinpoint.web.applicationmap.ApplicationMap;
 import com.navercorp.pinpoint.web.applicationmap.ApplicationMapBuilder;
@@ -77,6 +80,9 @@ public class FilteredMapServiceImpl implements FilteredMapService {
 
     private static final Object V = new Object();
 
+    // the map only needs the names and the numeric fields. rpc, exception message and annotations are decoded only if a filter reads them
+    private static final Set<SpanField> MAP_PROJECTION = EnumSet.of(SpanField.AGENT_ID, SpanField.APPLICATION_ID, SpanField.END_POINT, SpanField.DESTINATION_ID);
+
     @Override
     public LimitedScanResult<List<TransactionId>> selectTraceIdsFromApplicationTraceIndex(String applicationName, Range range, int limit) {
         if (applicationName == null) {
@@ -109,7 +115,7 @@ public class FilteredMapServiceImpl implements FilteredMapService {
 
     @Override
     @Deprecated
-    public LoadFactor linkStatistics(Range range, List<TransactionId> traceIdSet, Application sourceApplication, Application destinationApplication, Filter filter) {
+    public LoadFactor linkStatistics(Range range, List<TransactionId> traceIdSet, final Application sourceApplication, final Application destinationApplication, final Filter filter) {
         if (sourceApplication == null) {
             throw new NullPointerException("sourceApplication must not be null");
         }
@@ -123,34 +129,22 @@ public class FilteredMapServiceImpl implements FilteredMapService {
         StopWatch watch = new StopWatch();
         watch.start();
 
-        List<List<SpanBo>> originalList = this.traceDao.selectAllSpans(traceIdSet);
-        List<SpanBo> filteredTransactionList = filterList(originalList, filter);
-
-        LoadFactor statistics = new LoadFactor(range);
+        final LoadFactor statistics = new LoadFactor(range);
 
         // TODO need to handle these separately by node type (like fromToFilter)
 
-        // scan transaction list
-        for (SpanBo span : filteredTransactionList) {
-            if (sourceApplication.equals(span.getApplicationId(), registry.findServiceType(span.getApplicationServiceType()))) {
-                List<SpanEventBo> spanEventBoList = span.getSpanEventBoList();
-                if (spanEventBoList == null) {
-                    continue;
+        // the transactions are filtered and counted as their chunks arrive
+        this.traceDao.selectAllSpans(traceIdSet, MAP_PROJECTION, new RowHandler<List<SpanBo>>() {
+            @Override
+            public void handleRow(List<SpanBo> transaction) {
+                if (!filter.include(transaction)) {
+                    return;
                 }
-
-                // find dest elapsed time
-                for (SpanEventBo spanEventBo : spanEventBoList) {
-                    if (destinationApplication.equals(spanEventBo.getDestinationId(), registry.findServiceType(spanEventBo.getServiceType()))) {
-                        // find exception
-                        boolean hasException = spanEventBo.hasException();
-                        // add sample
-                        // TODO : need timeslot value instead of the actual value
-                        statistics.addSample(span.getStartTime() + spanEventBo.getStartElapsed(), spanEventBo.getEndElapsed(), 1, hasException);
-                        break;
-                    }
+                for (SpanBo span : transaction) {
+                    addLinkSample(statistics, span, sourceApplication, destinationApplication);
                 }
             }
-        }
+        });
 
         watch.stop();
         logger.info("Fetch link statistics elapsed. {}ms", watch.getLastTaskTimeMillis());
@@ -158,24 +152,26 @@ public class FilteredMapServiceImpl implements FilteredMapService {
         return statistics;
     }
 
-    private List<SpanBo> filterList(List<List<SpanBo>> transactionList, Filter filter) {
-        final List<SpanBo> filteredResult = new ArrayList<SpanBo>();
-        for (List<SpanBo> transaction : transactionList) {
-            if (filter.include(transaction)) {
-                filteredResult.addAll(transaction);
-            }
+    private void addLinkSample(LoadFactor statistics, SpanBo span, Application sourceApplication, Application destinationApplication) {
+        if (!sourceApplication.equals(span.getApplicationId(), registry.findServiceType(span.getApplicationServiceType()))) {
+            return;
+        }
+        List<SpanEventBo> spanEventBoList = span.getSpanEventBoList();
+        if (spanEventBoList == null) {
+            return;
         }
-        return filteredResult;
-    }
 
-    private List<List<SpanBo>> filterList2(List<List<SpanBo>> transactionList, Filter filter) {
-        final List<List<SpanBo>> filteredResult = new ArrayList<List<SpanBo>>();
-        for (List<SpanBo> transaction : transactionList) {
-            if (filter.include(transaction)) {
-                filteredResult.add(transaction);
+        // find dest elapsed time
+        for (SpanEventBo spanEventBo : spanEventBoList) {
+            if (destinationApplication.equals(spanEventBo.getDestinationId(), registry.findServiceType(spanEventBo.getServiceType()))) {
+                // find exception
+                boolean hasException = spanEventBo.hasException();
+                // add sample
+                // TODO : need timeslot value instead of the actual value
+                statistics.addSample(span.getStartTime() + spanEventBo.getStartElapsed(), spanEventBo.getEndElapsed(), 1, hasException);
+                break;
             }
         }
-        return filteredResult;
     }
 
     @Override
@@ -194,7 +190,7 @@ public class FilteredMapServiceImpl implements FilteredMapService {
      * filtered application map
      */
     @Override
-    public ApplicationMap selectApplicationMap(List<TransactionId> transactionIdList, Range originalRange, Range scanRange, Filter filter) {
+    public ApplicationMap selectApplicationMap(List<TransactionId> transactionIdList, Range originalRange, Range scanRange, final Filter filter) {
         if (transactionIdList == null) {
             throw new NullPointerException("transactionIdList must not be null");
         }
@@ -205,9 +201,22 @@ public class FilteredMapServiceImpl implements FilteredMapService {
         StopWatch watch = new StopWatch();
         watch.start();
 
-        final List<List<SpanBo>> filterList = selectFilteredSpan(transactionIdList, filter);
+        // filters out recursive calls by looking at each objects
+        // do not filter here if we change to a tree-based collision check in the future. 
+        final Collection<TransactionId> recursiveFilterList = recursiveCallFilter(transactionIdList);
+
+        // the transactions are filtered and aggregated as their chunks arrive, so only the chunks in flight are kept in memory
+        final FilteredMapBuilder filteredMapBuilder = new FilteredMapBuilder(originalRange, scanRange);
+        this.traceDao.selectAllSpans(recursiveFilterList, MAP_PROJECTION, new RowHandler<List<SpanBo>>() {
+            @Override
+            public void handleRow(List<SpanBo> transaction) {
+                if (filter.include(transaction)) {
+                    filteredMapBuilder.addTransaction(transaction);
+                }
+            }
+        });
 
-        ApplicationMap map = createMap(originalRange, scanRange, filterList);
+        ApplicationMap map = filteredMapBuilder.build();
 
         watch.stop();
         logger.debug("Select filtered application map elapsed. {}ms", watch.getTotalTimeMillis());
@@ -215,31 +224,33 @@ public class FilteredMapServiceImpl implements FilteredMapService {
         return map;
     }
 
-    private List<List<SpanBo>> selectFilteredSpan(List<TransactionId> transactionIdList, Filter filter) {
-        // filters out recursive calls by looking at each objects
-        // do not filter here if we change to a tree-based collision check in the future. 
-        final Collection<TransactionId> recursiveFilterList = recursiveCallFilter(transactionIdList);
-
-        // FIXME might be better to simply traverse the List<Span> and create a process chain for execution
-        final List<List<SpanBo>> originalList = this.traceDao.selectAllSpans(recursiveFilterList);
-
-        return filterList2(originalList, filter);
-    }
+    /**
+     * aggregates the filtered transactions one by one. a transaction can be dropped as soon as it is added.
+     * not thread safe.
+     */
+    private class FilteredMapBuilder {
 
-    private ApplicationMap createMap(Range range, Range scanRange, List<List<SpanBo>> filterList) {
+        private final Range range;
 
         // TODO inject TimeWindow from elsewhere 
-        final TimeWindow window = new TimeWindow(range, TimeWindowDownSampler.SAMPLER);
+        private final TimeWindow window;
 
+        private final LinkDataDuplexMap linkDataDuplexMap = new LinkDataDuplexMap();
 
-        final LinkDataDuplexMap linkDataDuplexMap = new LinkDataDuplexMap();
+        private final DotExtractor dotExtractor;
+        private final ResponseHistogramBuilder mapHistogramSummary;
+
+        private FilteredMapBuilder(Range range, Range scanRange) {
+            this.range = range;
+            this.window = new TimeWindow(range, TimeWindowDownSampler.SAMPLER);
+            this.dotExtractor = new DotExtractor(scanRange, registry);
+            this.mapHistogramSummary = new ResponseHistogramBuilder(range);
+        }
 
-        final DotExtractor dotExtractor = new DotExtractor(scanRange, registry);
-        final ResponseHistogramBuilder mapHistogramSummary = new ResponseHistogramBuilder(range);
         /**
          * Convert to statistical data
          */
-        for (List<SpanBo> transaction : filterList) {
+        private void addTransaction(List<SpanBo> transaction) {
             final Map<Long, SpanBo> transactionSpanMap = checkDuplicatedSpanId(transaction);
 
             for (SpanBo span : transaction) {
@@ -288,15 +299,18 @@ public class FilteredMapServiceImpl implements FilteredMapService {
                 dotExtractor.addDot(span);
             }
         }
-        List<ApplicationScatterScanResult> applicationScatterScanResult = dotExtractor.getApplicationScatterScanResult();
 
-        ApplicationMapBuilder applicationMapBuilder = new ApplicationMapBuilder(range, matcherGroup);
-        mapHistogramSummary.build();
-        ApplicationMap map = applicationMapBuilder.build(linkDataDuplexMap, agentInfoService, mapHistogramSummary);
+        private ApplicationMap build() {
+            List<ApplicationScatterScanResult> applicationScatterScanResult = dotExtractor.getApplicationScatterScanResult();
 
-        map.setApplicationScatterScanResult(applicationScatterScanResult);
+            ApplicationMapBuilder applicationMapBuilder = new ApplicationMapBuilder(range, matcherGroup);
+            mapHistogramSummary.build();
+            ApplicationMap map = applicationMapBuilder.build(linkDataDuplexMap, agentInfoService, mapHistogramSummary);
 
-        return map;
+            map.setApplicationScatterScanResult(applicationScatterScanResult);
+
+            return map;
+        }
     }
 
     private Map<Long, SpanBo> checkDuplicatedSpanId(List<SpanBo> transaction) {
@@ -36,6 +36,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.data.hadoop.hbase.HbaseSystemException;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * @author emeroad
@@ -44,7 +45,9 @@ public class LinkDataSelector {
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
-    private final LinkVisitChecker linkVisitChecker = new LinkVisitChecker();
+    // visited applications of each direction. replaces LinkVisitChecker
+    private final Set<Application> callerVisited = Collections.newSetFromMap(new ConcurrentHashMap<Application, Boolean>());
+    private final Set<Application> calleeVisited = Collections.newSetFromMap(new ConcurrentHashMap<Application, Boolean>());
 
     private final MapStatisticsCalleeDao mapStatisticsCalleeDao;
 
@@ -57,9 +60,25 @@ public class LinkDataSelector {
     @Deprecated
     private final AcceptApplicationLocalCacheV1 acceptApplicationLocalCacheV1 = new AcceptApplicationLocalCacheV1();
 
-    private final Set<LinkData> emulationLinkMarker = new HashSet<LinkData>();
+    private final Set<LinkData> emulationLinkMarker = Collections.synchronizedSet(new HashSet<LinkData>());
+
+    private final Executor executor;
+    private final int maxDepth;
+    private final long timeBudget;
+
+    private volatile boolean partial = false;
 
     public LinkDataSelector(MapStatisticsCalleeDao mapStatisticsCalleeDao, MapStatisticsCallerDao mapStatisticsCallerDao, HostApplicationMapDao hostApplicationMapDao) {
+        this(mapStatisticsCalleeDao, mapStatisticsCallerDao, hostApplicationMapDao, null, -1, -1);
+    }
+
+    /**
+     * @param executor scans of one depth are issued concurrently on this executor. null to scan on the calling thread
+     * @param maxDepth depth limit of the search. 0 or less means unlimited
+     * @param timeBudget time budget(ms) of a single {@link #select(Application, Range)}. a partial map is returned once it runs out. 0 or less means unlimited
+     */
+    public LinkDataSelector(MapStatisticsCalleeDao mapStatisticsCalleeDao, MapStatisticsCallerDao mapStatisticsCallerDao, HostApplicationMapDao hostApplicationMapDao,
+                            Executor executor, int maxDepth, long timeBudget) {
         if (mapStatisticsCalleeDao == null) {
             throw new NullPointerException("mapStatisticsCalleeDao must not be null");
         }
@@ -72,6 +91,9 @@ public class LinkDataSelector {
         this.mapStatisticsCalleeDao = mapStatisticsCalleeDao;
         this.mapStatisticsCallerDao = mapStatisticsCallerDao;
         this.hostApplicationMapDao = hostApplicationMapDao;
+        this.executor = executor;
+        this.maxDepth = maxDepth;
+        this.timeBudget = timeBudget;
     }
 
     /**
@@ -79,14 +101,9 @@ public class LinkDataSelector {
      *
      * @param callerApplication
      * @param range
-     * @return
+     * @return links of callerApplication, rpc destinations are already replaced
      */
-    private LinkDataDuplexMap selectCaller(Application callerApplication, Range range) {
-        // skip if the callerApplication has already been checked
-        if (linkVisitChecker.visitCaller(callerApplication)) {
-            return new LinkDataDuplexMap();
-        }
-
+    private LinkDataMap selectCaller(Application callerApplication, Range range) {
         LinkDataMap caller = mapStatisticsCallerDao.selectCaller(callerApplication, range);
         if (logger.isDebugEnabled()) {
             logger.debug("Found Caller. count={}, caller={}", caller.size(), callerApplication);
@@ -99,33 +116,7 @@ public class LinkDataSelector {
                 replaceRpcCaller.addLinkData(linkData);
             }
         }
-
-
-        final LinkDataDuplexMap resultCaller = new LinkDataDuplexMap();
-        for (LinkData link : replaceRpcCaller.getLinkDataList()) {
-            resultCaller.addSourceLinkData(link);
-
-            final Application toApplication = link.getToApplication();
-            // skip if toApplication is a terminal or an unknown cloud
-            if (toApplication.getServiceType().isTerminal() || toApplication.getServiceType().isUnknown()) {
-                continue;
-            }
-
-            logger.debug("     Find subCaller of {}", toApplication);
-            LinkDataDuplexMap callerSub = selectCaller(toApplication, range);
-            logger.debug("     Found subCaller. count={}, caller={}", callerSub.size(), toApplication);
-
-            resultCaller.addLinkDataDuplexMap(callerSub);
-
-            // find all callers of queried subCallers as well
-            for (LinkData eachCaller : callerSub.getSourceLinkDataList()) {
-                logger.debug("     Find callee of {}", eachCaller.getFromApplication());
-                LinkDataDuplexMap calleeSub = selectCallee(eachCaller.getFromApplication(), range);
-                logger.debug("     Found subCallee. count={}, callee={}", calleeSub.size(), eachCaller.getFromApplication());
-                resultCaller.addLinkDataDuplexMap(calleeSub);
-            }
-        }
-        return resultCaller;
+        return replaceRpcCaller;
     }
 
     /**
@@ -135,38 +126,16 @@ public class LinkDataSelector {
      * @param range
      * @return
      */
-    private LinkDataDuplexMap selectCallee(Application calleeApplication, Range range) {
-        // skip if the calleeApplication has already been checked
-        if (linkVisitChecker.visitCallee(calleeApplication)) {
-            return new LinkDataDuplexMap();
-        }
-
+    private LinkDataMap selectCallee(Application calleeApplication, Range range) {
         final LinkDataMap callee = mapStatisticsCalleeDao.selectCallee(calleeApplication, range);
         logger.debug("Found Callee. count={}, callee={}", callee.size(), calleeApplication);
-
-        final LinkDataDuplexMap calleeSet = new LinkDataDuplexMap();
-        for (LinkData stat : callee.getLinkDataList()) {
-            calleeSet.addTargetLinkData(stat);
-
-            // need to find the applications that called me
-            LinkDataDuplexMap calleeSub = selectCallee(stat.getFromApplication(), range);
-            calleeSet.addLinkDataDuplexMap(calleeSub);
-
-            // find all callees of queried subCallees as well
-            for (LinkData eachCallee : calleeSub.getTargetLinkDataList()) {
-                // skip if terminal node
-                final Application eachCalleeToApplication = eachCallee.getToApplication();
-                if (eachCalleeToApplication.getServiceType().isTerminal() || eachCalleeToApplication.getServiceType().isUnknown()) {
-                    continue;
-                }
-                LinkDataDuplexMap callerSub = selectCaller(eachCalleeToApplication, range);
-                calleeSet.addLinkDataDuplexMap(callerSub);
-            }
-        }
-
-        return calleeSet;
+        return callee;
     }
 
+    private boolean isTerminal(Application application) {
+        // skip if application is a terminal or an unknown cloud
+        return application.getServiceType().isTerminal() || application.getServiceType().isUnknown();
+    }
 
     private List<LinkData> checkRpcCallAccepted(LinkData linkData, Range range) {
         // replace if the rpc client's destination has an agent installed and thus has an application name
@@ -243,28 +212,37 @@ public class LinkDataSelector {
 
     private Set<AcceptApplication> findAcceptApplicationVer1(String host, Range range) {
 
-        final Set<AcceptApplication> hit = acceptApplicationLocalCacheV1.get(host);
-        if (CollectionUtils.isNotEmpty(hit)) {
-            logger.debug("acceptApplicationLocalCacheV1 hit");
-            return hit;
+        synchronized (acceptApplicationLocalCacheV1) {
+            final Set<AcceptApplication> hit = acceptApplicationLocalCacheV1.get(host);
+            if (CollectionUtils.isNotEmpty(hit)) {
+                logger.debug("acceptApplicationLocalCacheV1 hit");
+                return new HashSet<AcceptApplication>(hit);
+            }
         }
 
         final Set<AcceptApplication> acceptApplicationSet= hostApplicationMapDao.findAcceptApplicationName(host, range);
-        this.acceptApplicationLocalCacheV1.put(host, acceptApplicationSet);
-        return acceptApplicationLocalCacheV1.get(host);
+        synchronized (acceptApplicationLocalCacheV1) {
+            this.acceptApplicationLocalCacheV1.put(host, acceptApplicationSet);
+            return new HashSet<AcceptApplication>(acceptApplicationLocalCacheV1.get(host));
+        }
     }
 
     private Set<AcceptApplication> findAcceptApplicationVer2(Application fromApplication, String host, Range range) {
 
         final RpcApplication rpcApplication = new RpcApplication(host, fromApplication);
-        final Set<AcceptApplication> hit = this.acceptApplicationLocalCache.get(rpcApplication);
-        if (CollectionUtils.isNotEmpty(hit)) {
-            logger.debug("acceptApplicationLocalCacheV2 hit");
-            return hit;
+        // the cache is shared by scans running concurrently. hand out copies since put() merges into cached sets
+        synchronized (acceptApplicationLocalCache) {
+            final Set<AcceptApplication> hit = this.acceptApplicationLocalCache.get(rpcApplication);
+            if (CollectionUtils.isNotEmpty(hit)) {
+                logger.debug("acceptApplicationLocalCacheV2 hit");
+                return new HashSet<AcceptApplication>(hit);
+            }
         }
         final Set<AcceptApplication> acceptApplicationSet= hostApplicationMapDao.findAcceptApplicationName(fromApplication, range);
-        this.acceptApplicationLocalCache.put(rpcApplication, acceptApplicationSet);
-        return this.acceptApplicationLocalCache.get(rpcApplication);
+        synchronized (acceptApplicationLocalCache) {
+            this.acceptApplicationLocalCache.put(rpcApplication, acceptApplicationSet);
+            return new HashSet<AcceptApplication>(this.acceptApplicationLocalCache.get(rpcApplication));
+        }
     }
 
     private void fillEmulationLink(LinkDataDuplexMap linkDataDuplexMap) {
@@ -329,7 +307,12 @@ public class LinkDataSelector {
         // LinkDataDuplexMap already has a copy of the data - modifying emulationLinkMarker's data has no effect.
         // We must get the data from LinkDataDuplexMap again.
         List<LinkData> searchList = new ArrayList<LinkData>();
-        for (LinkData emulationLinkData : this.emulationLinkMarker) {
+        final List<LinkData> emulationLinkMarkerCopy;
+        synchronized (this.emulationLinkMarker) {
+            // scans cancelled by the time budget may still be running
+            emulationLinkMarkerCopy = new ArrayList<LinkData>(this.emulationLinkMarker);
+        }
+        for (LinkData emulationLinkData : emulationLinkMarkerCopy) {
             LinkKey search = getLinkKey(emulationLinkData);
             for (LinkData linkData : linkDataDuplexMap.getSourceLinkDataList()) {
                 LinkKey linkKey = getLinkKey(linkData);
@@ -348,17 +331,203 @@ public class LinkDataSelector {
     }
 
     public LinkDataDuplexMap select(Application sourceApplication, Range range) {
-        LinkDataDuplexMap caller = selectCaller(sourceApplication, range);
-        logger.debug("Result of finding caller {}", caller);
+        if (sourceApplication == null) {
+            throw new NullPointerException("sourceApplication must not be null");
+        }
+        if (range == null) {
+            throw new NullPointerException("range must not be null");
+        }
+        final long deadline = timeBudget > 0 ? System.currentTimeMillis() + timeBudget : Long.MAX_VALUE;
+
+        final LinkDataDuplexMap linkDataDuplexMap = new LinkDataDuplexMap();
 
-        LinkDataDuplexMap callee = selectCallee(sourceApplication, range);
-        logger.debug("Result of finding callee {}", callee);
+        List<LinkVisit> frontier = new ArrayList<LinkVisit>();
+        visit(frontier, LinkVisit.caller(sourceApplication));
+        visit(frontier, LinkVisit.callee(sourceApplication));
+
+        int depth = 0;
+        while (!frontier.isEmpty()) {
+            if (maxDepth > 0 && depth >= maxDepth) {
+                logger.info("depth limit exceeded. maxDepth:{}, unvisited:{} application:{}", maxDepth, frontier.size(), sourceApplication);
+                this.partial = true;
+                break;
+            }
+            final List<LinkVisit> next = new ArrayList<LinkVisit>();
+            final boolean completed = selectFrontier(frontier, range, deadline, linkDataDuplexMap, next);
+            if (!completed) {
+                logger.warn("time budget exceeded. timeBudget:{}ms, depth:{} application:{}", timeBudget, depth, sourceApplication);
+                this.partial = true;
+                break;
+            }
+            frontier = next;
+            depth++;
+        }
+        logger.debug("Result of finding link depth:{} {}", depth, linkDataDuplexMap);
 
-        LinkDataDuplexMap linkDataDuplexMap = new LinkDataDuplexMap();
-        linkDataDuplexMap.addLinkDataDuplexMap(caller);
-        linkDataDuplexMap.addLinkDataDuplexMap(callee);
         fillEmulationLink(linkDataDuplexMap);
 
         return linkDataDuplexMap;
     }
+
+    /**
+     * scans every visit of the frontier concurrently and merges the results in order.
+     * @return false if the time budget ran out before the whole frontier was merged
+     */
+    private boolean selectFrontier(List<LinkVisit> frontier, final Range range, long deadline, LinkDataDuplexMap result, List<LinkVisit> next) {
+        final List<Future<LinkDataMap>> futureList = new ArrayList<Future<LinkDataMap>>(frontier.size());
+        for (final LinkVisit linkVisit : frontier) {
+            futureList.add(submit(linkVisit, range));
+        }
+
+        for (int i = 0; i < futureList.size(); i++) {
+            final LinkVisit linkVisit = frontier.get(i);
+            final LinkDataMap linkDataMap;
+            try {
+                linkDataMap = getResult(futureList.get(i), deadline);
+            } catch (TimeoutException e) {
+                cancel(futureList, i);
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel(futureList, i);
+                return false;
+            }
+            if (linkVisit.isCaller()) {
+                mergeCaller(linkVisit.getApplication(), linkDataMap, result, next);
+            } else {
+                mergeCallee(linkVisit.getApplication(), linkDataMap, result, next);
+            }
+        }
+        return true;
+    }
+
+    private Future<LinkDataMap> submit(final LinkVisit linkVisit, final Range range) {
+        final FutureTask<LinkDataMap> task = new FutureTask<LinkDataMap>(new Callable<LinkDataMap>() {
+            @Override
+            public LinkDataMap call() throws Exception {
+                if (linkVisit.isCaller()) {
+                    return selectCaller(linkVisit.getApplication(), range);
+                } else {
+                    return selectCallee(linkVisit.getApplication(), range);
+                }
+            }
+        });
+        if (executor == null) {
+            task.run();
+            return task;
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // executor is saturated. scan on the request thread instead of failing the whole map
+            logger.debug("selector executor rejected. run on caller thread. {}", linkVisit);
+            task.run();
+        }
+        return task;
+    }
+
+    private LinkDataMap getResult(Future<LinkDataMap> future, long deadline) throws TimeoutException, InterruptedException {
+        try {
+            if (deadline == Long.MAX_VALUE) {
+                return future.get();
+            }
+            final long remain = deadline - System.currentTimeMillis();
+            if (remain <= 0 && !future.isDone()) {
+                throw new TimeoutException();
+            }
+            return future.get(Math.max(remain, 0), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException("link select fail. Caused:" + cause.getMessage(), cause);
+        }
+    }
+
+    private void cancel(List<Future<LinkDataMap>> futureList, int fromIndex) {
+        for (int i = fromIndex; i < futureList.size(); i++) {
+            futureList.get(i).cancel(true);
+        }
+    }
+
+    private void mergeCaller(Application callerApplication, LinkDataMap caller, LinkDataDuplexMap result, List<LinkVisit> next) {
+        for (LinkData link : caller.getLinkDataList()) {
+            result.addSourceLinkData(link);
+
+            final Application toApplication = link.getToApplication();
+            if (isTerminal(toApplication)) {
+                continue;
+            }
+            visit(next, LinkVisit.caller(toApplication));
+        }
+        // find all callers of queried callers as well
+        if (caller.size() > 0) {
+            visit(next, LinkVisit.callee(callerApplication));
+        }
+    }
+
+    private void mergeCallee(Application calleeApplication, LinkDataMap callee, LinkDataDuplexMap result, List<LinkVisit> next) {
+        for (LinkData link : callee.getLinkDataList()) {
+            result.addTargetLinkData(link);
+
+            // need to find the applications that called me
+            visit(next, LinkVisit.callee(link.getFromApplication()));
+        }
+        // find all callees of queried callees as well
+        if (callee.size() > 0 && !isTerminal(calleeApplication)) {
+            visit(next, LinkVisit.caller(calleeApplication));
+        }
+    }
+
+    private void visit(List<LinkVisit> frontier, LinkVisit linkVisit) {
+        final Set<Application> visited = linkVisit.isCaller() ? callerVisited : calleeVisited;
+        // skip if the application has already been checked
+        if (visited.add(linkVisit.getApplication())) {
+            frontier.add(linkVisit);
+        } else {
+            logger.debug("LinkData exists. Skip finding. {}", linkVisit);
+        }
+    }
+
+    /**
+     * true if the depth limit or the time budget cut the last {@link #select(Application, Range)} short
+     */
+    public boolean isPartial() {
+        return partial;
+    }
+
+    private static final class LinkVisit {
+        private final Application application;
+        private final boolean caller;
+
+        private LinkVisit(Application application, boolean caller) {
+            this.application = application;
+            this.caller = caller;
+        }
+
+        static LinkVisit caller(Application application) {
+            return new LinkVisit(application, true);
+        }
+
+        static LinkVisit callee(Application application) {
+            return new LinkVisit(application, false);
+        }
+
+        Application getApplication() {
+            return application;
+        }
+
+        boolean isCaller() {
+            return caller;
+        }
+
+        @Override
+        public String toString() {
+            return (caller ? "caller:" : "callee:") + application;
+        }
+    }
 }
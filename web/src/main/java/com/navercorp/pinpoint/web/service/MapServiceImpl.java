@@ -17,15 +17,21 @@
 package com.navercorp.pinpoint.web.service;
 
 import java.util.*;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import com.navercorp.pinpoint.common.ServiceType;
 import com.navercorp.pinpoint.common.service.ServiceTypeRegistryService;
+import com.navercorp.pinpoint.common.util.ExecutorFactory;
 import com.navercorp.pinpoint.web.applicationmap.ApplicationMap;
 import com.navercorp.pinpoint.web.applicationmap.ApplicationMapBuilder;
 import com.navercorp.pinpoint.web.applicationmap.histogram.NodeHistogram;
 import com.navercorp.pinpoint.web.applicationmap.histogram.TimeHistogram;
 import com.navercorp.pinpoint.web.applicationmap.link.MatcherGroup;
 import com.navercorp.pinpoint.web.applicationmap.rawdata.*;
+import com.navercorp.pinpoint.web.config.WebConfig;
 import com.navercorp.pinpoint.web.dao.*;
 import com.navercorp.pinpoint.web.vo.*;
 
@@ -66,6 +72,27 @@ public class MapServiceImpl implements MapService {
     @Autowired()
     private ServiceTypeRegistryService registry;
 
+    @Autowired
+    private WebConfig webConfig;
+
+    // shared by all server map requests. bounds the number of concurrent HBase scans
+    private ThreadPoolExecutor linkSelectExecutor;
+
+    @PostConstruct
+    public void start() {
+        final int threadSize = webConfig.getServerMapSelectorThreadSize();
+        if (threadSize > 0) {
+            this.linkSelectExecutor = ExecutorFactory.newFixedThreadPool(threadSize, webConfig.getServerMapSelectorQueueSize(), "Pinpoint-LinkDataSelector", true);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (linkSelectExecutor != null) {
+            linkSelectExecutor.shutdownNow();
+        }
+    }
+
 
     /**
      * Used in the main UI - draws the server map by querying the timeslot by time.
@@ -82,8 +109,12 @@ public class MapServiceImpl implements MapService {
 
         StopWatch watch = new StopWatch("applicationMapWatch");
         watch.start();
-        LinkDataSelector linkDataSelector = new LinkDataSelector(this.mapStatisticsCalleeDao, this.mapStatisticsCallerDao, hostApplicationMapDao);
+        LinkDataSelector linkDataSelector = new LinkDataSelector(this.mapStatisticsCalleeDao, this.mapStatisticsCallerDao, hostApplicationMapDao,
+                linkSelectExecutor, webConfig.getServerMapMaxDepth(), webConfig.getServerMapTimeBudget());
         LinkDataDuplexMap linkDataDuplexMap = linkDataSelector.select(sourceApplication, range);
+        if (linkDataSelector.isPartial()) {
+            logger.warn("partial applicationmap. application:{} range:{}", sourceApplication, range);
+        }
 
         ApplicationMapBuilder builder = new ApplicationMapBuilder(range, matcherGroup);
         ApplicationMap map = builder.build(linkDataDuplexMap, agentInfoService, this.mapResponseDao);
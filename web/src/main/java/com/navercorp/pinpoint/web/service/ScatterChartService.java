@@ -23,6 +23,7 @@ import com.navercorp.pinpoint.web.vo.SelectedScatterArea;
 import com.navercorp.pinpoint.web.vo.TransactionId;
 import com.navercorp.pinpoint.web.vo.TransactionMetadataQuery;
 import com.navercorp.pinpoint.web.vo.scatter.Dot;
+import com.navercorp.pinpoint.web.vo.scatter.DotHandler;
 
 import java.util.Collection;
 import java.util.List;
@@ -49,6 +50,17 @@ public interface ScatterChartService {
      */
     List<Dot> selectScatterData(String applicationName, Range range, int limit);
 
+    /**
+     * Queries for data using time range and streams the dots to the dotHandler as they are scanned.
+     *
+     * @param applicationName
+     * @param range
+     * @param limit
+     * @param dotHandler
+     * @return number of dots handled
+     */
+    int selectScatterData(String applicationName, Range range, int limit, DotHandler dotHandler);
+
     /**
      * @param applicationName
      * @param area
@@ -34,6 +34,7 @@ import com.navercorp.pinpoint.web.vo.SelectedScatterArea;
 import com.navercorp.pinpoint.web.vo.TransactionId;
 import com.navercorp.pinpoint.web.vo.TransactionMetadataQuery;
 import com.navercorp.pinpoint.web.vo.scatter.Dot;
+import com.navercorp.pinpoint.web.vo.scatter.DotHandler;
 
 /**
  * @author netspider
@@ -61,6 +62,17 @@ public class ScatterChartServiceImpl implements ScatterChartService {
         return applicationTraceIndexDao.scanTraceScatter(applicationName, range, limit);
     }
 
+    @Override
+    public int selectScatterData(String applicationName, Range range, int limit, DotHandler dotHandler) {
+        if (applicationName == null) {
+            throw new NullPointerException("applicationName must not be null");
+        }
+        if (range == null) {
+            throw new NullPointerException("range must not be null");
+        }
+        return applicationTraceIndexDao.scanTraceScatter(applicationName, range, limit, dotHandler);
+    }
+
     @Override
     public List<Dot> selectScatterData(String applicationName, SelectedScatterArea area, TransactionId offsetTransactionId, int offsetTransactionElapsed, int limit) {
         if (applicationName == null) {
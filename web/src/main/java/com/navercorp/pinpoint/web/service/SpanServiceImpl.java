@@ -18,7 +18,10 @@ package com.navercorp.pinpoint.web.service;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.navercorp.pinpoint.common.AnnotationKey;
 import com.navercorp.pinpoint.common.bo.*;
@@ -30,6 +33,7 @@ import com.navercorp.pinpoint.web.dao.ApiMetaDataDao;
 import com.navercorp.pinpoint.web.dao.SqlMetaDataDao;
 import com.navercorp.pinpoint.web.dao.StringMetaDataDao;
 import com.navercorp.pinpoint.web.dao.TraceDao;
+import com.navercorp.pinpoint.web.vo.MetaDataKey;
 import com.navercorp.pinpoint.web.vo.TransactionId;
 
 import org.apache.commons.lang3.StringUtils;
@@ -74,16 +78,76 @@ public class SpanServiceImpl implements SpanService {
 
         SpanResult result = order(spans, selectedSpanHint);
         List<SpanAlign> order = result.getSpanAlignList();
-        transitionDynamicApiId(order);
-        transitionSqlId(order);
-        transitionCachedString(order);
-        transitionException(order);
+        final MetaDataContext metaData = selectMetaData(order);
+        transitionDynamicApiId(order, metaData);
+        transitionSqlId(order, metaData);
+        transitionCachedString(order, metaData);
+        transitionException(order, metaData);
         // TODO need to at least show the row data when root span is not found. 
         return result;
     }
 
 
 
+    /**
+     * collects the metadata keys of the whole call tree first, then selects each metadata table with a single multi-get
+     * instead of a get per span event.
+     */
+    private MetaDataContext selectMetaData(List<SpanAlign> spanAlignList) {
+        final Set<MetaDataKey> apiKeys = new HashSet<MetaDataKey>();
+        final Set<MetaDataKey> sqlKeys = new HashSet<MetaDataKey>();
+        final Set<MetaDataKey> stringKeys = new HashSet<MetaDataKey>();
+        for (SpanAlign spanAlign : spanAlignList) {
+            final AgentKey agentKey = getAgentKey(spanAlign);
+            apiKeys.add(newMetaDataKey(agentKey, getApiId(spanAlign)));
+
+            final List<AnnotationBo> annotationBoList = getAnnotationBoList(spanAlign);
+            if (annotationBoList != null) {
+                for (AnnotationBo annotationBo : annotationBoList) {
+                    final int key = annotationBo.getKey();
+                    if (key == AnnotationKey.SQL_ID.getCode()) {
+                        final IntStringStringValue sqlValue = (IntStringStringValue) annotationBo.getValue();
+                        sqlKeys.add(newMetaDataKey(agentKey, sqlValue.getIntValue()));
+                    } else if (AnnotationKey.isCachedArgsKey(key)) {
+                        stringKeys.add(newMetaDataKey(agentKey, (Integer) annotationBo.getValue()));
+                    }
+                }
+            }
+
+            if (spanAlign.isSpan()) {
+                final SpanBo spanBo = spanAlign.getSpanBo();
+                if (spanBo.hasException()) {
+                    stringKeys.add(newMetaDataKey(agentKey, spanBo.getExceptionId()));
+                }
+            } else {
+                final SpanEventBo spanEventBo = spanAlign.getSpanEventBo();
+                if (spanEventBo.hasException()) {
+                    stringKeys.add(newMetaDataKey(agentKey, spanEventBo.getExceptionId()));
+                }
+            }
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("select metadata api:{}, sql:{}, string:{}", apiKeys.size(), sqlKeys.size(), stringKeys.size());
+        }
+
+        final Map<MetaDataKey, List<ApiMetaDataBo>> apiMetaData = apiMetaDataDao.getApiMetaData(apiKeys);
+        final Map<MetaDataKey, List<SqlMetaDataBo>> sqlMetaData = sqlMetaDataDao.getSqlMetaData(sqlKeys);
+        final Map<MetaDataKey, List<StringMetaDataBo>> stringMetaData = stringMetaDataDao.getStringMetaData(stringKeys);
+        return new MetaDataContext(apiMetaData, sqlMetaData, stringMetaData);
+    }
+
+    private List<AnnotationBo> getAnnotationBoList(SpanAlign spanAlign) {
+        if (spanAlign.isSpan()) {
+            return spanAlign.getSpanBo().getAnnotationBoList();
+        } else {
+            return spanAlign.getSpanEventBo().getAnnotationBoList();
+        }
+    }
+
+    private static MetaDataKey newMetaDataKey(AgentKey agentKey, int id) {
+        return new MetaDataKey(agentKey.getAgentId(), agentKey.getAgentStartTime(), id);
+    }
+
     private void transitionAnnotation(List<SpanAlign> spans, AnnotationReplacementCallback annotationReplacementCallback) {
         for (SpanAlign spanAlign : spans) {
             List<AnnotationBo> annotationBoList;
@@ -105,7 +169,7 @@ public class SpanServiceImpl implements SpanService {
         }
     }
 
-    private void transitionSqlId(final List<SpanAlign> spans) {
+    private void transitionSqlId(final List<SpanAlign> spans, final MetaDataContext metaData) {
         this.transitionAnnotation(spans, new AnnotationReplacementCallback() {
             @Override
             public void replacement(SpanAlign spanAlign, List<AnnotationBo> annotationBoList) {
@@ -120,7 +184,7 @@ public class SpanServiceImpl implements SpanService {
                 final IntStringStringValue sqlValue = (IntStringStringValue) sqlIdAnnotation.getValue();
                 final int hashCode = sqlValue.getIntValue();
                 final String sqlParam = sqlValue.getStringValue1();
-                final List<SqlMetaDataBo> sqlMetaDataList = sqlMetaDataDao.getSqlMetaData(agentKey.getAgentId(), agentKey.getAgentStartTime(), hashCode);
+                final List<SqlMetaDataBo> sqlMetaDataList = metaData.getSqlMetaData(newMetaDataKey(agentKey, hashCode));
                 final int size = sqlMetaDataList.size();
                 if (size == 0) {
                     AnnotationBo api = new AnnotationBo();
@@ -213,14 +277,14 @@ public class SpanServiceImpl implements SpanService {
     }
 
 
-    private void transitionDynamicApiId(List<SpanAlign> spans) {
+    private void transitionDynamicApiId(List<SpanAlign> spans, final MetaDataContext metaData) {
         this.transitionAnnotation(spans, new AnnotationReplacementCallback() {
             @Override
             public void replacement(SpanAlign spanAlign, List<AnnotationBo> annotationBoList) {
                 final AgentKey key = getAgentKey(spanAlign);
                 final int apiId = getApiId(spanAlign);
                 // may be able to get a more accurate data using agentIdentifier.
-                List<ApiMetaDataBo> apiMetaDataList = apiMetaDataDao.getApiMetaData(key.getAgentId(), key.getAgentStartTime(), apiId);
+                List<ApiMetaDataBo> apiMetaDataList = metaData.getApiMetaData(newMetaDataKey(key, apiId));
                 int size = apiMetaDataList.size();
                 if (size == 0) {
                     AnnotationBo api = new AnnotationBo();
@@ -259,7 +323,7 @@ public class SpanServiceImpl implements SpanService {
         });
     }
 
-    private void transitionCachedString(List<SpanAlign> spans) {
+    private void transitionCachedString(List<SpanAlign> spans, final MetaDataContext metaData) {
         this.transitionAnnotation(spans, new AnnotationReplacementCallback() {
             @Override
             public void replacement(SpanAlign spanAlign, List<AnnotationBo> annotationBoList) {
@@ -271,7 +335,7 @@ public class SpanServiceImpl implements SpanService {
                 for (AnnotationBo annotationBo : cachedStringAnnotation) {
                     final int cachedArgsKey = annotationBo.getKey();
                     int stringMetaDataId = (Integer) annotationBo.getValue();
-                    List<StringMetaDataBo> stringMetaList = stringMetaDataDao.getStringMetaData(key.getAgentId(), key.getAgentStartTime(), stringMetaDataId);
+                    List<StringMetaDataBo> stringMetaList = metaData.getStringMetaData(newMetaDataKey(key, stringMetaDataId));
                     int size = stringMetaList.size();
                     if (size == 0) {
                         logger.warn("StringMetaData not Found {}/{}/{}", key.getAgentId(), stringMetaDataId, key.getAgentStartTime());
@@ -307,18 +371,18 @@ public class SpanServiceImpl implements SpanService {
         return findAnnotationBoList;
     }
 
-    private void transitionException(List<SpanAlign> spanAlignList) {
+    private void transitionException(List<SpanAlign> spanAlignList, MetaDataContext metaData) {
         for (SpanAlign spanAlign : spanAlignList) {
             if (spanAlign.isSpan()) {
                 final SpanBo spanBo = spanAlign.getSpanBo();
                 if (spanBo.hasException()) {
-                    StringMetaDataBo stringMetaData = selectStringMetaData(spanBo.getAgentId(), spanBo.getExceptionId(), spanBo.getAgentStartTime());
+                    StringMetaDataBo stringMetaData = selectStringMetaData(metaData, spanBo.getAgentId(), spanBo.getExceptionId(), spanBo.getAgentStartTime());
                     spanBo.setExceptionClass(stringMetaData.getStringValue());
                 }
             } else {
                 final SpanEventBo spanEventBo = spanAlign.getSpanEventBo();
                 if (spanEventBo.hasException()) {
-                    StringMetaDataBo stringMetaData = selectStringMetaData(spanEventBo.getAgentId(), spanEventBo.getExceptionId(), spanEventBo.getAgentStartTime());
+                    StringMetaDataBo stringMetaData = selectStringMetaData(metaData, spanEventBo.getAgentId(), spanEventBo.getExceptionId(), spanEventBo.getAgentStartTime());
                     if (stringMetaData != null) {
                         spanEventBo.setExceptionClass(stringMetaData.getStringValue());
                     }
@@ -328,8 +392,8 @@ public class SpanServiceImpl implements SpanService {
 
     }
 
-    private StringMetaDataBo selectStringMetaData(String agentId, int cacheId, long agentStartTime) {
-        final List<StringMetaDataBo> metaDataList = stringMetaDataDao.getStringMetaData(agentId, agentStartTime, cacheId);
+    private StringMetaDataBo selectStringMetaData(MetaDataContext metaData, String agentId, int cacheId, long agentStartTime) {
+        final List<StringMetaDataBo> metaDataList = metaData.getStringMetaData(new MetaDataKey(agentId, agentStartTime, cacheId));
         if (metaDataList == null || metaDataList.isEmpty()) {
             logger.warn("StringMetaData not Found agent:{}, cacheId{}, agentStartTime:{}", agentId, cacheId, agentStartTime);
             StringMetaDataBo stringMetaDataBo = new StringMetaDataBo(agentId, agentStartTime, cacheId);
@@ -404,6 +468,39 @@ public class SpanServiceImpl implements SpanService {
     }
 
 
+    private static final class MetaDataContext {
+
+        private final Map<MetaDataKey, List<ApiMetaDataBo>> apiMetaData;
+        private final Map<MetaDataKey, List<SqlMetaDataBo>> sqlMetaData;
+        private final Map<MetaDataKey, List<StringMetaDataBo>> stringMetaData;
+
+        private MetaDataContext(Map<MetaDataKey, List<ApiMetaDataBo>> apiMetaData, Map<MetaDataKey, List<SqlMetaDataBo>> sqlMetaData, Map<MetaDataKey, List<StringMetaDataBo>> stringMetaData) {
+            this.apiMetaData = apiMetaData;
+            this.sqlMetaData = sqlMetaData;
+            this.stringMetaData = stringMetaData;
+        }
+
+        private List<ApiMetaDataBo> getApiMetaData(MetaDataKey key) {
+            return get(apiMetaData, key);
+        }
+
+        private List<SqlMetaDataBo> getSqlMetaData(MetaDataKey key) {
+            return get(sqlMetaData, key);
+        }
+
+        private List<StringMetaDataBo> getStringMetaData(MetaDataKey key) {
+            return get(stringMetaData, key);
+        }
+
+        private static <V> List<V> get(Map<MetaDataKey, List<V>> metaDataMap, MetaDataKey key) {
+            final List<V> metaDataList = metaDataMap.get(key);
+            if (metaDataList == null) {
+                return Collections.emptyList();
+            }
+            return metaDataList;
+        }
+    }
+
     private static final class AgentKey {
 
         private final String agentId;
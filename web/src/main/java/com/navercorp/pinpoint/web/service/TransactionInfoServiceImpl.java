@@ -28,6 +28,8 @@ import com.navercorp.pinpoint.common.bo.ApiMetaDataBo;
 import com.navercorp.pinpoint.common.bo.Span;
 import com.navercorp.pinpoint.common.bo.SpanBo;
 import com.navercorp.pinpoint.common.bo.SpanEventBo;
+import com.navercorp.pinpoint.common.bo.SpanField;
+import com.navercorp.pinpoint.common.hbase.RowHandler;
 import com.navercorp.pinpoint.common.service.AnnotationKeyRegistryService;
 import com.navercorp.pinpoint.common.service.ServiceTypeRegistryService;
 import com.navercorp.pinpoint.common.util.AnnotationUtils;
@@ -81,7 +83,7 @@ public class TransactionInfoServiceImpl implements TransactionInfoService {
 //    private String logPageUrl;
 
     @Override
-    public BusinessTransactions selectBusinessTransactions(List<TransactionId> transactionIdList, String applicationName, Range range, Filter filter) {
+    public BusinessTransactions selectBusinessTransactions(List<TransactionId> transactionIdList, final String applicationName, Range range, final Filter filter) {
         if (transactionIdList == null) {
             throw new NullPointerException("transactionIdList must not be null");
         }
@@ -96,29 +98,35 @@ public class TransactionInfoServiceImpl implements TransactionInfoService {
             throw new NullPointerException("range must not be null");
         }
 
-        List<List<SpanBo>> traceList;
-
+        final BusinessTransactions businessTransactions = new BusinessTransactions();
         if (filter == Filter.NONE) {
-            traceList = this.traceDao.selectSpans(transactionIdList);
+            List<List<SpanBo>> traceList = this.traceDao.selectSpans(transactionIdList);
+            for (List<SpanBo> trace : traceList) {
+                addBusinessTransaction(businessTransactions, trace, applicationName);
+            }
         } else {
-            traceList = this.traceDao.selectAllSpans(transactionIdList);
+            // whole transactions are needed by the filter. they are filtered as their chunks arrive instead of being collected first.
+            // the chunks are handed over in the order of transactionIdList, the same order as selectSpans()
+            this.traceDao.selectAllSpans(transactionIdList, SpanField.ALL, new RowHandler<List<SpanBo>>() {
+                @Override
+                public void handleRow(List<SpanBo> trace) {
+                    if (filter.include(trace)) {
+                        addBusinessTransaction(businessTransactions, trace, applicationName);
+                    }
+                }
+            });
         }
 
-        BusinessTransactions businessTransactions = new BusinessTransactions();
-        for (List<SpanBo> trace : traceList) {
-            if (!filter.include(trace)) {
-                continue;
-            }
+        return businessTransactions;
+    }
 
-            for (SpanBo spanBo : trace) {
-                // show application's incoming requests
-                if (applicationName.equals(spanBo.getApplicationId())) {
-                    businessTransactions.add(spanBo);
-                }
+    private void addBusinessTransaction(BusinessTransactions businessTransactions, List<SpanBo> trace, String applicationName) {
+        for (SpanBo spanBo : trace) {
+            // show application's incoming requests
+            if (applicationName.equals(spanBo.getApplicationId())) {
+                businessTransactions.add(spanBo);
             }
         }
-
-        return businessTransactions;
     }
 
     @Override
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.view;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.navercorp.pinpoint.web.vo.scatter.Dot;
+import com.navercorp.pinpoint.web.vo.scatter.DotHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * writes scatter dots as newline delimited json chunks while they are scanned.
+ * every chunk is columnar and its x values are relative to the first dot of the chunk.
+ * <pre>
+ * {"xBase":1420000000000,"x":[0,-12,-30],"y":[120,35,800],"transactionId":["agent^1^1","agent^1^2","agent^1^3"],"type":[1,1,0]}
+ * ...
+ * {"resultFrom":1419999990000,"resultTo":1420000060000,"count":3}
+ * </pre>
+ *
+ * @author agent
+ */
+public class ScatterChunkWriter implements DotHandler {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonGenerator jgen;
+    private final int chunkSize;
+    private final List<Dot> chunk;
+
+    private int count = 0;
+    private long lastAcceptedTime = -1;
+
+    public ScatterChunkWriter(OutputStream outputStream) throws IOException {
+        this(outputStream, DEFAULT_CHUNK_SIZE);
+    }
+
+    public ScatterChunkWriter(OutputStream outputStream, int chunkSize) throws IOException {
+        if (outputStream == null) {
+            throw new NullPointerException("outputStream must not be null");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive:" + chunkSize);
+        }
+        this.jgen = JSON_FACTORY.createGenerator(outputStream, JsonEncoding.UTF8);
+        this.jgen.setRootValueSeparator(null);
+        this.chunkSize = chunkSize;
+        this.chunk = new ArrayList<Dot>(chunkSize);
+    }
+
+    @Override
+    public void handle(Dot dot) {
+        if (dot == null) {
+            return;
+        }
+        chunk.add(dot);
+        count++;
+        lastAcceptedTime = dot.getAcceptedTime();
+        if (chunk.size() >= chunkSize) {
+            try {
+                writeChunk();
+            } catch (IOException e) {
+                throw new IllegalStateException("scatter chunk write failed. Caused:" + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * writes the remaining dots and the result range, the next request continues from resultFrom.
+     */
+    public void finish(long to) throws IOException {
+        writeChunk();
+
+        jgen.writeStartObject();
+        if (count == 0) {
+            jgen.writeNumberField("resultFrom", -1);
+            jgen.writeNumberField("resultTo", -1);
+        } else {
+            jgen.writeNumberField("resultFrom", lastAcceptedTime);
+            jgen.writeNumberField("resultTo", to);
+        }
+        jgen.writeNumberField("count", count);
+        jgen.writeEndObject();
+        jgen.writeRaw('\n');
+        jgen.flush();
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    private void writeChunk() throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        final long xBase = chunk.get(0).getAcceptedTime();
+
+        jgen.writeStartObject();
+        jgen.writeNumberField("xBase", xBase);
+        jgen.writeArrayFieldStart("x");
+        for (Dot dot : chunk) {
+            jgen.writeNumber(dot.getAcceptedTime() - xBase);
+        }
+        jgen.writeEndArray();
+        jgen.writeArrayFieldStart("y");
+        for (Dot dot : chunk) {
+            jgen.writeNumber(dot.getElapsedTime());
+        }
+        jgen.writeEndArray();
+        jgen.writeArrayFieldStart("transactionId");
+        for (Dot dot : chunk) {
+            jgen.writeString(dot.getTransactionId());
+        }
+        jgen.writeEndArray();
+        jgen.writeArrayFieldStart("type");
+        for (Dot dot : chunk) {
+            jgen.writeNumber(dot.getSimpleExceptionCode());
+        }
+        jgen.writeEndArray();
+        jgen.writeEndObject();
+        jgen.writeRaw('\n');
+        // push the chunk to the client
+        jgen.flush();
+
+        chunk.clear();
+    }
+}
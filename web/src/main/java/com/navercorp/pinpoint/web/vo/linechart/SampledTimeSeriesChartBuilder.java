@@ -31,6 +31,10 @@ public abstract class SampledTimeSeriesChartBuilder<Y extends Number> extends Sa
     private final TimeWindow timeWindow;
     private final Y defaultValue;
     private final List<List<Y>> timeslots;
+    // pre-aggregated min/max/avg, e.g. agent stat rollups
+    private final List<List<Y>> summaryMinTimeslots;
+    private final List<List<Y>> summaryMaxTimeslots;
+    private final List<List<Y>> summaryAvgTimeslots;
     
     protected SampledTimeSeriesChartBuilder(TimeWindow timeWindow, Y defaultValue) {
         this.defaultValue = defaultValue;
@@ -39,13 +43,30 @@ public abstract class SampledTimeSeriesChartBuilder<Y extends Number> extends Sa
             throw new IllegalArgumentException("range yields too many timeslots");
         }
         int numTimeslots = (int)(long)this.timeWindow.getWindowRangeCount();
-        this.timeslots = new ArrayList<List<Y>>(numTimeslots);
-        initializeTimeslots(numTimeslots);
+        this.timeslots = createTimeslots(numTimeslots);
+        this.summaryMinTimeslots = createTimeslots(numTimeslots);
+        this.summaryMaxTimeslots = createTimeslots(numTimeslots);
+        this.summaryAvgTimeslots = createTimeslots(numTimeslots);
     }
     
-    private void initializeTimeslots(int numTimeslots) {
+    private List<List<Y>> createTimeslots(int numTimeslots) {
+        List<List<Y>> timeslots = new ArrayList<List<Y>>(numTimeslots);
         for (int i = 0; i < numTimeslots; ++i) {
-            this.timeslots.add(new ArrayList<Y>());
+            timeslots.add(new ArrayList<Y>());
+        }
+        return timeslots;
+    }
+
+    /**
+     * adds a point that was already aggregated from several data points.
+     * the min/max/avg of the timeslot are sampled from the mins, maxes and avgs respectively.
+     */
+    public void addSummaryPoint(long timestamp, Y min, Y max, Y avg) {
+        int timeslotIndex = this.timeWindow.getWindowIndex(timestamp);
+        if (isValidIndex(timeslotIndex)) {
+            this.summaryMinTimeslots.get(timeslotIndex).add(min);
+            this.summaryMaxTimeslots.get(timeslotIndex).add(max);
+            this.summaryAvgTimeslots.get(timeslotIndex).add(avg);
         }
     }
     
@@ -55,8 +76,7 @@ public abstract class SampledTimeSeriesChartBuilder<Y extends Number> extends Sa
         allocateDataPoints(dataPoints);
         int timeSlotIndex = 0;
         for (Long timestamp : this.timeWindow) {
-            List<Y> dataPointsToSample = this.timeslots.get(timeSlotIndex);
-            points.addPoint(makePoint(timestamp, dataPointsToSample));
+            points.addPoint(makePoint(timestamp, timeSlotIndex));
             ++timeSlotIndex;
         }
         return points;
@@ -72,16 +92,36 @@ public abstract class SampledTimeSeriesChartBuilder<Y extends Number> extends Sa
         }
     }
     
-    private Point makePoint(Long xVal, List<Y> sampleBuffer) {
-        if (sampleBuffer.isEmpty()) {
+    private Point makePoint(Long xVal, int timeslotIndex) {
+        List<Y> sampleBuffer = this.timeslots.get(timeslotIndex);
+        if (this.summaryAvgTimeslots.get(timeslotIndex).isEmpty()) {
+            return makePoint(xVal, sampleBuffer, sampleBuffer, sampleBuffer);
+        }
+        return makePoint(xVal, merge(sampleBuffer, this.summaryMinTimeslots.get(timeslotIndex)),
+                merge(sampleBuffer, this.summaryMaxTimeslots.get(timeslotIndex)),
+                merge(sampleBuffer, this.summaryAvgTimeslots.get(timeslotIndex)));
+    }
+
+    private Point makePoint(Long xVal, List<Y> minBuffer, List<Y> maxBuffer, List<Y> avgBuffer) {
+        if (avgBuffer.isEmpty()) {
             return new Point(xVal, this.defaultValue, this.defaultValue, this.defaultValue);
         } else {
-            Y minVal = sampleMin(sampleBuffer);
-            Y maxVal = sampleMax(sampleBuffer);
-            Y avgVal = sampleAvg(sampleBuffer);
+            Y minVal = sampleMin(minBuffer);
+            Y maxVal = sampleMax(maxBuffer);
+            Y avgVal = sampleAvg(avgBuffer);
             return new Point(xVal, minVal, maxVal, avgVal);
         }
     }
+
+    private List<Y> merge(List<Y> sampleBuffer, List<Y> summaryBuffer) {
+        if (sampleBuffer.isEmpty()) {
+            return summaryBuffer;
+        }
+        List<Y> merged = new ArrayList<Y>(sampleBuffer.size() + summaryBuffer.size());
+        merged.addAll(sampleBuffer);
+        merged.addAll(summaryBuffer);
+        return merged;
+    }
     
     private boolean isValidIndex(int timeslot) {
         return timeslot >= 0 && timeslot < this.timeslots.size();
@@ -22,6 +22,9 @@ import java.util.Map;
 
 import com.navercorp.pinpoint.common.bo.AgentStatCpuLoadBo;
 import com.navercorp.pinpoint.common.bo.AgentStatMemoryGcBo;
+import com.navercorp.pinpoint.common.bo.AgentStatRollupBo;
+import com.navercorp.pinpoint.common.bo.AgentStatRollupBo.DoubleSummary;
+import com.navercorp.pinpoint.common.bo.AgentStatRollupBo.LongSummary;
 import com.navercorp.pinpoint.web.util.TimeWindow;
 import com.navercorp.pinpoint.web.vo.AgentStat;
 import com.navercorp.pinpoint.web.vo.linechart.Chart;
@@ -75,6 +78,23 @@ public class AgentStatChartGroup {
         }
     }
 
+    public void addAgentStatRollups(List<AgentStatRollupBo> agentStatRollups) {
+        for (AgentStatRollupBo agentStatRollup : agentStatRollups) {
+            if (agentStatRollup.getGcType() != null) {
+                this.type = agentStatRollup.getGcType();
+            }
+            long timestamp = agentStatRollup.getTimestamp();
+            addSummaryPoint(ChartType.JVM_MEMORY_HEAP_USED, timestamp, agentStatRollup.getJvmMemoryHeapUsed());
+            addSummaryPoint(ChartType.JVM_MEMORY_HEAP_MAX, timestamp, agentStatRollup.getJvmMemoryHeapMax());
+            addSummaryPoint(ChartType.JVM_MEMORY_NON_HEAP_USED, timestamp, agentStatRollup.getJvmMemoryNonHeapUsed());
+            addSummaryPoint(ChartType.JVM_MEMORY_NON_HEAP_MAX, timestamp, agentStatRollup.getJvmMemoryNonHeapMax());
+            addSummaryPoint(ChartType.JVM_GC_OLD_COUNT, timestamp, agentStatRollup.getJvmGcOldCount());
+            addSummaryPoint(ChartType.JVM_GC_OLD_TIME, timestamp, agentStatRollup.getJvmGcOldTime());
+            addSummaryPoint(ChartType.CPU_LOAD_JVM, timestamp, agentStatRollup.getJvmCpuLoad());
+            addSummaryPoint(ChartType.CPU_LOAD_SYSTEM, timestamp, agentStatRollup.getSystemCpuLoad());
+        }
+    }
+
     public void buildCharts() {
         for (ChartType chartType : ChartType.values()) {
             this.charts.put(chartType, this.chartBuilders.get(chartType).buildChart());
@@ -106,6 +126,20 @@ public class AgentStatChartGroup {
         ((SampledTimeSeriesDoubleChartBuilder)this.chartBuilders.get(ChartType.CPU_LOAD_SYSTEM)).addDataPoint(new DataPoint<Long, Double>(timestamp, systemCpuLoadPercentage));
     }
 
+    private void addSummaryPoint(ChartType chartType, long timestamp, LongSummary summary) {
+        if (summary.getCount() == 0) {
+            return;
+        }
+        ((SampledTimeSeriesLongChartBuilder)this.chartBuilders.get(chartType)).addSummaryPoint(timestamp, summary.getMin(), summary.getMax(), summary.getAvg());
+    }
+
+    private void addSummaryPoint(ChartType chartType, long timestamp, DoubleSummary summary) {
+        if (summary.getCount() == 0) {
+            return;
+        }
+        ((SampledTimeSeriesDoubleChartBuilder)this.chartBuilders.get(chartType)).addSummaryPoint(timestamp, summary.getMin() * 100, summary.getMax() * 100, summary.getAvg() * 100);
+    }
+
     public String getType() {
         return type;
     }
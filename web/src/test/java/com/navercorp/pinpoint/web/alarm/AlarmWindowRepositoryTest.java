@@ -0,0 +1,84 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.alarm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.navercorp.pinpoint.common.bo.AlarmWindowBo;
+
+/**
+ * @author agent
+ */
+public class AlarmWindowRepositoryTest {
+
+    @Test
+    public void mergeTest() {
+        AlarmWindowRepository repository = new AlarmWindowRepository();
+        long now = System.currentTimeMillis();
+        repository.update("collector1", createWindow(now, 0, 1));
+        repository.update("collector2", createWindow(now, 0, 2));
+
+        AlarmWindowBo mergedWindow = repository.getMergedWindow(Arrays.asList("collector1", "collector2"), now);
+        assertNotNull(mergedWindow);
+        assertEquals(3, mergedWindow.findApplicationWindow("app").getResponse().getTotalCount());
+    }
+
+    @Test
+    public void missingCollectorTest() {
+        AlarmWindowRepository repository = new AlarmWindowRepository();
+        long now = System.currentTimeMillis();
+        repository.update("collector1", createWindow(now, 0, 1));
+
+        // only part of the traffic
+        assertNull(repository.getMergedWindow(Arrays.asList("collector1", "collector2"), now));
+        // web cluster disabled
+        assertNull(repository.getMergedWindow(Collections.<String>emptyList(), now));
+    }
+
+    @Test
+    public void incompleteTest() {
+        AlarmWindowRepository repository = new AlarmWindowRepository();
+        long now = System.currentTimeMillis();
+        repository.update("collector1", createWindow(now, now - 1000, 1));
+
+        // the collector started counting less than a window ago
+        assertNull(repository.getMergedWindow(Arrays.asList("collector1"), now));
+    }
+
+    @Test
+    public void staleTest() {
+        AlarmWindowRepository repository = new AlarmWindowRepository();
+        repository.setStaleMillis(1000);
+        long now = System.currentTimeMillis();
+        repository.update("collector1", createWindow(now, 0, 1));
+
+        assertNull(repository.getMergedWindow(Arrays.asList("collector1"), now + 2000));
+    }
+
+    private AlarmWindowBo createWindow(long now, long startTime, long totalCount) {
+        AlarmWindowBo window = new AlarmWindowBo(now, 300000, startTime);
+        window.getApplicationWindow("app").getResponse().add(0, 0, totalCount);
+        return window;
+    }
+}
@@ -104,6 +104,28 @@ public class ReaderTest {
         assertNull(reader.read());
     }
     
+    @Test
+    public void streamingEvaluatedTest() {
+        StepExecution stepExecution = new StepExecution("alarmStep", null);
+        ExecutionContext executionContext = new ExecutionContext();
+        executionContext.put(AlarmPartitioner.PARTITION_NUMBER, 1);
+        stepExecution.setExecutionContext(executionContext);
+
+        StreamingAlarmEvaluator streamingAlarmEvaluator = new StreamingAlarmEvaluator() {
+            @Override
+            public boolean isEvaluated(String applicationName) {
+                return !applicationName.equals(APP_NAME + 0);
+            }
+        };
+
+        AlarmReader reader = new AlarmReader(dataCollectorFactory, applicationIndexDao, alarmResourceDao, streamingAlarmEvaluator);
+        reader.beforeStep(stepExecution);
+
+        // only the application not checked by the streaming alarm
+        assertNotNull(reader.read());
+        assertNull(reader.read());
+    }
+    
     @BeforeClass
     public static void beforeClass() {
         applicationIndexDao = new ApplicationIndexDao() {
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.alarm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.navercorp.pinpoint.common.ServiceType;
+import com.navercorp.pinpoint.common.bo.AlarmWindowBo;
+import com.navercorp.pinpoint.web.alarm.checker.AlarmChecker;
+import com.navercorp.pinpoint.web.alarm.vo.Rule;
+import com.navercorp.pinpoint.web.dao.ApplicationIndexDao;
+import com.navercorp.pinpoint.web.dao.mysql.MySqlAlarmResourceDao;
+import com.navercorp.pinpoint.web.vo.Application;
+
+/**
+ * @author agent
+ */
+public class StreamingAlarmEvaluatorTest {
+
+    private static final String APP_NAME = "app";
+
+    private final List<Rule> rules = new ArrayList<Rule>();
+    private final List<AlarmChecker> sentCheckers = new ArrayList<AlarmChecker>();
+    private StreamingAlarmEvaluator evaluator;
+
+    @Before
+    public void setUp() {
+        ApplicationIndexDao applicationIndexDao = new ApplicationIndexDao() {
+            @Override
+            public List<Application> selectAllApplicationNames() {
+                List<Application> apps = new LinkedList<Application>();
+                apps.add(new Application(APP_NAME, ServiceType.STAND_ALONE));
+                // same name, another service type
+                apps.add(new Application(APP_NAME, ServiceType.UNKNOWN));
+                apps.add(new Application("idleApp", ServiceType.STAND_ALONE));
+                return apps;
+            }
+
+            @Override public List<String> selectAgentIds(String applicationName) {return null;}
+            @Override public void deleteApplicationName(String applicationName) { }
+            @Override public void deleteAgentId(String applicationName, String agentId) {}
+        };
+
+        MySqlAlarmResourceDao alarmResourceDao = new MySqlAlarmResourceDao() {
+            @Override
+            public List<Rule> selectAppRule(String applicationName) {
+                List<Rule> appRules = new LinkedList<Rule>();
+                for (Rule rule : rules) {
+                    if (rule.getApplicationId().equals(applicationName)) {
+                        appRules.add(rule);
+                    }
+                }
+                return appRules;
+            }
+        };
+
+        AlarmMessageSender alarmMessageSender = new AlarmMessageSender() {
+            @Override
+            public void sendSms(AlarmChecker checker) {
+                sentCheckers.add(checker);
+            }
+
+            @Override
+            public void sendEmail(AlarmChecker checker) {
+            }
+        };
+
+        evaluator = new StreamingAlarmEvaluator(new DataCollectorFactory(), applicationIndexDao, alarmResourceDao, alarmMessageSender);
+        evaluator.setEnable(true);
+    }
+
+    @Test
+    public void errorCountTest() {
+        rules.add(new Rule(APP_NAME, CheckerCategory.ERROR_COUNT.getName(), 2, "testGroup", true, false, ""));
+        long now = System.currentTimeMillis();
+
+        AlarmWindowBo window = new AlarmWindowBo(now, 300000, 0);
+        window.getApplicationWindow(APP_NAME).getResponse().add(0, 1, 10);
+        evaluator.evaluate(window, now);
+        assertEquals(0, sentCheckers.size());
+
+        window = new AlarmWindowBo(now, 300000, 0);
+        window.getApplicationWindow(APP_NAME).getResponse().add(0, 2, 10);
+        evaluator.evaluate(window, now);
+        assertEquals(1, sentCheckers.size());
+        assertTrue(sentCheckers.get(0).isDetected());
+
+        // not sent again until renotifyInterval
+        evaluator.evaluate(window, now + 1000);
+        assertEquals(1, sentCheckers.size());
+        evaluator.evaluate(window, now + 2 * 60 * 1000);
+        assertEquals(2, sentCheckers.size());
+    }
+
+    @Test
+    public void recoveredTest() {
+        rules.add(new Rule(APP_NAME, CheckerCategory.ERROR_COUNT.getName(), 2, "testGroup", true, false, ""));
+        long now = System.currentTimeMillis();
+
+        AlarmWindowBo detected = new AlarmWindowBo(now, 300000, 0);
+        detected.getApplicationWindow(APP_NAME).getResponse().add(0, 2, 10);
+        evaluator.evaluate(detected, now);
+        evaluator.evaluate(new AlarmWindowBo(now, 300000, 0), now + 1000);
+        // detected again after recovery
+        evaluator.evaluate(detected, now + 2000);
+        assertEquals(2, sentCheckers.size());
+    }
+
+    @Test
+    public void callerAndAgentStatTest() {
+        rules.add(new Rule(APP_NAME, CheckerCategory.ERROR_RATE_TO_CALLE.getName(), 50, "testGroup", true, false, "10.0.0.1:3306"));
+        rules.add(new Rule(APP_NAME, CheckerCategory.HEAP_USAGE_RATE.getName(), 80, "testGroup", true, false, ""));
+        rules.add(new Rule(APP_NAME, CheckerCategory.JVM_CPU_USAGE_RATE.getName(), 50, "testGroup", true, false, ""));
+        long now = System.currentTimeMillis();
+
+        AlarmWindowBo window = new AlarmWindowBo(now, 300000, 0);
+        window.getApplicationWindow(APP_NAME).getCallee("10.0.0.1:3306").add(0, 2, 4);
+        // 85% heap, 30% cpu
+        window.getApplicationWindow(APP_NAME).getAgentStat("agent").add(170, 200, 60, 2, 1);
+        evaluator.evaluate(window, now);
+
+        assertEquals(2, sentCheckers.size());
+        assertEquals(CheckerCategory.ERROR_RATE_TO_CALLE.getName(), sentCheckers.get(0).getRule().getCheckerName());
+        assertEquals(CheckerCategory.HEAP_USAGE_RATE.getName(), sentCheckers.get(1).getRule().getCheckerName());
+    }
+
+    @Test
+    public void evaluatedTest() {
+        rules.add(new Rule(APP_NAME, CheckerCategory.ERROR_COUNT.getName(), 2, "testGroup", true, false, ""));
+        assertFalse(evaluator.isEvaluated(APP_NAME));
+
+        long now = System.currentTimeMillis();
+        evaluator.evaluate(new AlarmWindowBo(now, 300000, 0), now);
+        assertTrue(evaluator.isEvaluated(APP_NAME));
+        // no rule, nothing for the alarm batch to check either
+        assertTrue(evaluator.isEvaluated("idleApp"));
+        assertFalse(evaluator.isEvaluated("unknownApp"));
+
+        evaluator.setEnable(false);
+        assertFalse(evaluator.isEvaluated(APP_NAME));
+    }
+
+    @Test
+    public void evaluatedTimeoutTest() {
+        long now = System.currentTimeMillis();
+        evaluator.evaluate(new AlarmWindowBo(now, 300000, 0), now - 2 * 60 * 1000);
+        // the alarm batch takes over
+        assertFalse(evaluator.isEvaluated(APP_NAME));
+    }
+}
@@ -27,6 +27,8 @@ import org.junit.Test;
 import com.navercorp.pinpoint.common.ServiceType;
 import com.navercorp.pinpoint.common.bo.AgentStatCpuLoadBo;
 import com.navercorp.pinpoint.common.bo.AgentStatMemoryGcBo;
+import com.navercorp.pinpoint.common.bo.AgentStatResolution;
+import com.navercorp.pinpoint.common.bo.AgentStatRollupBo;
 import com.navercorp.pinpoint.web.alarm.CheckerCategory;
 import com.navercorp.pinpoint.web.alarm.DataCollectorFactory;
 import com.navercorp.pinpoint.web.alarm.DataCollectorFactory.DataCollectorCategory;
@@ -73,6 +75,11 @@ public class JvmCpuUsageRateCheckerTest {
                 
                 return AgentStatList;
             }
+
+            @Override
+            public List<AgentStatRollupBo> scanAgentStatRollupList(String agentId, Range range, AgentStatResolution resolution) {
+                throw new UnsupportedOperationException();
+            }
         };
         
         applicationIndexDao = new ApplicationIndexDao() {
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.dao.hbase;
+
+import com.navercorp.pinpoint.common.ServiceType;
+import com.navercorp.pinpoint.web.vo.Application;
+import com.navercorp.pinpoint.web.vo.Range;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author agent
+ */
+public class MapStatisticsSlotCacheTest {
+
+    private static final long SLOT = 1000 * 60;
+
+    private final Application application = new Application("test", ServiceType.STAND_ALONE);
+
+    @Test
+    public void closedSlotCached() throws Exception {
+        MapStatisticsSlotCache cache = new MapStatisticsSlotCache(new ConcurrentMapCache("test"));
+        cache.setCloseDelay(SLOT * 5);
+
+        final long now = (System.currentTimeMillis() / SLOT) * SLOT;
+        final Range range = new Range(now - SLOT * 20, now);
+
+        RecordLoader loader = new RecordLoader();
+        List<Long> first = cache.select("table", application, range, loader);
+        Assert.assertEquals(21, first.size());
+        Assert.assertEquals(1, loader.loadList.size());
+        Assert.assertEquals(range.getFrom(), loader.loadList.get(0).getFrom());
+
+        RecordLoader refresh = new RecordLoader();
+        List<Long> second = cache.select("table", application, range, refresh);
+        Assert.assertEquals(first, second);
+        // only the open slots are scanned again
+        Assert.assertEquals(1, refresh.loadList.size());
+        Assert.assertTrue(refresh.loadList.get(0).getFrom() >= now - SLOT * 5);
+    }
+
+    @Test
+    public void emptySlotCached() throws Exception {
+        MapStatisticsSlotCache cache = new MapStatisticsSlotCache(new ConcurrentMapCache("test"));
+        cache.setCloseDelay(0);
+
+        final long from = ((System.currentTimeMillis() / SLOT) - 100) * SLOT;
+        final Range range = new Range(from, from + SLOT * 10);
+
+        RecordLoader loader = new RecordLoader();
+        loader.empty = true;
+        Assert.assertTrue(cache.select("table", application, range, loader).isEmpty());
+
+        RecordLoader refresh = new RecordLoader();
+        Assert.assertTrue(cache.select("table", application, range, refresh).isEmpty());
+        Assert.assertTrue(refresh.loadList.isEmpty());
+
+        // other table
+        cache.select("table2", application, range, refresh);
+        Assert.assertEquals(1, refresh.loadList.size());
+    }
+
+    private static class RecordLoader implements MapStatisticsSlotCache.SlotLoader<Long> {
+        private final List<Range> loadList = new ArrayList<Range>();
+        private boolean empty = false;
+
+        @Override
+        public Map<Long, Long> load(Range range) {
+            loadList.add(range);
+            Map<Long, Long> result = new HashMap<Long, Long>();
+            if (empty) {
+                return result;
+            }
+            for (long slot = (range.getFrom() / SLOT) * SLOT; slot <= range.getTo(); slot += SLOT) {
+                result.put(slot, slot);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.dao.hbase;
+
+import com.navercorp.pinpoint.web.vo.MetaDataKey;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author agent
+ */
+public class MetaDataCacheTest {
+
+    @Test
+    public void select() throws Exception {
+        MetaDataCache cache = new MetaDataCache(new ConcurrentMapCache("test"));
+
+        final MetaDataKey key1 = new MetaDataKey("agent", 1, 10);
+        final MetaDataKey key2 = new MetaDataKey("agent", 1, 20);
+        final MetaDataKey notFound = new MetaDataKey("agent", 1, 30);
+
+        RecordLoader loader = new RecordLoader();
+        Map<MetaDataKey, List<String>> first = cache.select("table", Arrays.asList(key1, key2, key1, notFound), loader);
+        Assert.assertEquals(3, first.size());
+        Assert.assertEquals(Collections.singletonList("10"), first.get(key1));
+        Assert.assertEquals(Collections.singletonList("20"), first.get(key2));
+        Assert.assertTrue(first.get(notFound).isEmpty());
+        // one multi-get without duplicated keys
+        Assert.assertEquals(1, loader.loadList.size());
+        Assert.assertEquals(3, loader.loadList.get(0).size());
+
+        RecordLoader second = new RecordLoader();
+        Map<MetaDataKey, List<String>> cached = cache.select("table", Arrays.asList(key1, key2, notFound), second);
+        Assert.assertEquals(first, cached);
+        // metadata not found is selected again
+        Assert.assertEquals(1, second.loadList.size());
+        Assert.assertEquals(Collections.singletonList(notFound), second.loadList.get(0));
+
+        RecordLoader otherTable = new RecordLoader();
+        cache.select("otherTable", Arrays.asList(key1), otherTable);
+        Assert.assertEquals(1, otherTable.loadList.size());
+    }
+
+    @Test
+    public void allCached() throws Exception {
+        MetaDataCache cache = new MetaDataCache(new ConcurrentMapCache("test"));
+        final MetaDataKey key = new MetaDataKey("agent", 1, 10);
+        cache.select("table", Arrays.asList(key), new RecordLoader());
+
+        RecordLoader loader = new RecordLoader();
+        cache.select("table", Arrays.asList(key), loader);
+        Assert.assertTrue(loader.loadList.isEmpty());
+    }
+
+    private static class RecordLoader implements MetaDataCache.MetaDataLoader<String> {
+
+        private final List<List<MetaDataKey>> loadList = new ArrayList<List<MetaDataKey>>();
+
+        @Override
+        public Map<MetaDataKey, List<String>> load(List<MetaDataKey> keys) {
+            loadList.add(new ArrayList<MetaDataKey>(keys));
+            Map<MetaDataKey, List<String>> result = new HashMap<MetaDataKey, List<String>>();
+            for (MetaDataKey key : keys) {
+                if (key.getId() == 30) {
+                    continue;
+                }
+                result.put(key, Collections.singletonList(String.valueOf(key.getId())));
+            }
+            return result;
+        }
+    }
+}
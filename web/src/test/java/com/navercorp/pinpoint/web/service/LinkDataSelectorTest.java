@@ -0,0 +1,165 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.service;
+
+import com.navercorp.pinpoint.common.ServiceType;
+import com.navercorp.pinpoint.web.applicationmap.rawdata.LinkData;
+import com.navercorp.pinpoint.web.applicationmap.rawdata.LinkDataDuplexMap;
+import com.navercorp.pinpoint.web.applicationmap.rawdata.LinkDataMap;
+import com.navercorp.pinpoint.web.dao.HostApplicationMapDao;
+import com.navercorp.pinpoint.web.dao.MapStatisticsCalleeDao;
+import com.navercorp.pinpoint.web.dao.MapStatisticsCallerDao;
+import com.navercorp.pinpoint.web.vo.Application;
+import com.navercorp.pinpoint.web.vo.Range;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author agent
+ */
+public class LinkDataSelectorTest {
+
+    private final Range range = new Range(0, 60000);
+
+    private final Application a = new Application("a", ServiceType.STAND_ALONE);
+    private final Application b = new Application("b", ServiceType.STAND_ALONE);
+    private final Application c = new Application("c", ServiceType.STAND_ALONE);
+    private final Application d = new Application("d", ServiceType.STAND_ALONE);
+
+    private final Map<Application, LinkDataMap> callerMap = new HashMap<Application, LinkDataMap>();
+    private final Map<Application, LinkDataMap> calleeMap = new HashMap<Application, LinkDataMap>();
+
+    private MapStatisticsCallerDao callerDao;
+    private MapStatisticsCalleeDao calleeDao;
+    private HostApplicationMapDao hostApplicationMapDao;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        // a -> b -> c -> d
+        link(a, b);
+        link(b, c);
+        link(c, d);
+
+        callerDao = mock(MapStatisticsCallerDao.class);
+        when(callerDao.selectCaller(any(Application.class), any(Range.class))).thenAnswer(new LinkAnswer(callerMap, 100));
+        calleeDao = mock(MapStatisticsCalleeDao.class);
+        when(calleeDao.selectCallee(any(Application.class), any(Range.class))).thenAnswer(new LinkAnswer(calleeMap, 100));
+        hostApplicationMapDao = mock(HostApplicationMapDao.class);
+
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    private void link(Application from, Application to) {
+        LinkData linkData = new LinkData(from, to);
+        linkData.addLinkData(from.getName(), from.getServiceType(), to.getName(), to.getServiceType(), 0, (short) 0, 1);
+        getLinkDataMap(callerMap, from).addLinkData(linkData);
+        getLinkDataMap(calleeMap, to).addLinkData(linkData);
+    }
+
+    private LinkDataMap getLinkDataMap(Map<Application, LinkDataMap> map, Application application) {
+        LinkDataMap linkDataMap = map.get(application);
+        if (linkDataMap == null) {
+            linkDataMap = new LinkDataMap();
+            map.put(application, linkDataMap);
+        }
+        return linkDataMap;
+    }
+
+    @Test
+    public void selectAll() throws Exception {
+        LinkDataSelector selector = new LinkDataSelector(calleeDao, callerDao, hostApplicationMapDao, executor, -1, -1);
+        LinkDataDuplexMap result = selector.select(b, range);
+
+        Assert.assertFalse(selector.isPartial());
+        // b -> c, c -> d
+        Assert.assertEquals(2, result.getSourceLinkDataList().size());
+        // a -> b, b -> c
+        Assert.assertEquals(2, result.getTargetLinkDataList().size());
+    }
+
+    @Test
+    public void selectAll_sameThread() throws Exception {
+        LinkDataSelector serial = new LinkDataSelector(calleeDao, callerDao, hostApplicationMapDao);
+        LinkDataDuplexMap serialResult = serial.select(b, range);
+
+        LinkDataSelector parallel = new LinkDataSelector(calleeDao, callerDao, hostApplicationMapDao, executor, -1, -1);
+        LinkDataDuplexMap parallelResult = parallel.select(b, range);
+
+        Assert.assertEquals(serialResult.size(), parallelResult.size());
+    }
+
+    @Test
+    public void maxDepth() throws Exception {
+        LinkDataSelector selector = new LinkDataSelector(calleeDao, callerDao, hostApplicationMapDao, executor, 1, -1);
+        LinkDataDuplexMap result = selector.select(a, range);
+
+        Assert.assertTrue(selector.isPartial());
+        // only a -> b
+        Assert.assertEquals(1, result.getSourceLinkDataList().size());
+    }
+
+    @Test
+    public void timeBudget() throws Exception {
+        LinkDataSelector selector = new LinkDataSelector(calleeDao, callerDao, hostApplicationMapDao, executor, -1, 150);
+        LinkDataDuplexMap result = selector.select(a, range);
+
+        Assert.assertTrue(selector.isPartial());
+        Assert.assertTrue(result.getSourceLinkDataList().size() < 3);
+    }
+
+    private static class LinkAnswer implements Answer<LinkDataMap> {
+        private final Map<Application, LinkDataMap> map;
+        private final long delay;
+
+        private LinkAnswer(Map<Application, LinkDataMap> map, long delay) {
+            this.map = map;
+            this.delay = delay;
+        }
+
+        @Override
+        public LinkDataMap answer(InvocationOnMock invocation) throws Throwable {
+            Thread.sleep(delay);
+            Application application = (Application) invocation.getArguments()[0];
+            LinkDataMap linkDataMap = map.get(application);
+            if (linkDataMap == null) {
+                return new LinkDataMap();
+            }
+            return new LinkDataMap(linkDataMap);
+        }
+    }
+}